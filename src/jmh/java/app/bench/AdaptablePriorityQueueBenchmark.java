@@ -0,0 +1,129 @@
+package app.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures remove(entry) and replaceKey on a queue that holds size entries.
+ * Every batch works on BATCH randomly chosen entries, and the entries are put
+ * back (removed ones reinserted, replaced keys restored) after every iteration
+ * outside of the measurement. java.util.PriorityQueue is included as the
+ * baseline a caller without handles would use; its remove is a linear scan,
+ * so limit it to the smaller sizes with -p.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 20)
+@Measurement(iterations = 20)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+public class AdaptablePriorityQueueBenchmark {
+
+	static final int BATCH = 256;
+
+	@Param({ "1000", "10000", "100000", "1000000", "10000000" })
+	public int size;
+
+	@Param({ BenchQueue.MY_HEAP, BenchQueue.MY_HEAP_ARRAY, BenchQueue.MY_HEAP_ARRAY_4,
+			BenchQueue.PAIRING_HEAP, BenchQueue.OFF_HEAP, BenchQueue.MY_HANDLE_HEAP_4, BenchQueue.NDS4_ADAPTABLE_HEAP, BenchQueue.JDK_PRIORITY_QUEUE })
+	public String queue;
+
+	BenchQueue _queue;
+	PriorityQueueBenchmark.Keys _keys;
+	Random _random;
+
+	// The handle of every entry, and the entries and keys the next batch uses
+	Object[] _handles;
+	int[] _chosen;
+	int[] _oldKeys;
+	int[] _newKeys;
+
+	@Setup(Level.Trial)
+	public void fill() {
+		_random = new Random(42);
+		_keys = new PriorityQueueBenchmark.Keys(_random);
+		_queue = BenchQueue.create(queue);
+		_handles = new Object[size];
+		for (int i = 0; i < size; i++) {
+			_handles[i] = _queue.insert(_keys.next());
+		}
+		_chosen = new int[BATCH];
+		_oldKeys = new int[BATCH];
+		_newKeys = new int[BATCH];
+	}
+
+	// Picks distinct entries for the next batch, with their current keys
+
+	@Setup(Level.Iteration)
+	public void choose() {
+		int stride = Math.max(1, size / BATCH);
+		int start = _random.nextInt(size);
+		for (int i = 0; i < BATCH; i++) {
+			_chosen[i] = (start + i * stride) % size;
+			_oldKeys[i] = _queue.keyOf(_handles[_chosen[i]]);
+		}
+	}
+
+	// Puts back whatever the batch removed or changed
+
+	@TearDown(Level.Iteration)
+	public void restore() {
+		for (int i = 0; i < BATCH; i++) {
+			Object handle = _handles[_chosen[i]];
+			if (handle == null) {
+				_handles[_chosen[i]] = _queue.insert(_oldKeys[i]);
+			} else if (_queue.keyOf(handle) != _oldKeys[i]) {
+				_handles[_chosen[i]] = _queue.replaceKey(handle, _oldKeys[i]);
+			}
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public int remove() {
+		for (int i = 0; i < BATCH; i++) {
+			_queue.remove(_handles[_chosen[i]]);
+			_handles[_chosen[i]] = null;
+		}
+		return _queue.size();
+	}
+
+	// Increases move the entry towards the leaves (downHeap)
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public int replaceKeyIncrease() {
+		for (int i = 0; i < BATCH; i++) {
+			_handles[_chosen[i]] = _queue.replaceKey(_handles[_chosen[i]], _oldKeys[i] + (1 << 29));
+		}
+		return _queue.size();
+	}
+
+	// Decreases move the entry towards the root (upHeap)
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public int replaceKeyDecrease() {
+		for (int i = 0; i < BATCH; i++) {
+			_handles[_chosen[i]] = _queue.replaceKey(_handles[_chosen[i]], _oldKeys[i] - (1 << 29));
+		}
+		return _queue.size();
+	}
+
+}
@@ -0,0 +1,290 @@
+package app.bench;
+
+import java.util.Comparator;
+
+import app.impl.IntegerComparator;
+import app.impl.MyArrayHeapTree;
+import app.impl.MyHandleHeap;
+import app.impl.MyHeap;
+import app.impl.MyHeapEntry;
+import app.impl.OffHeapLongHeap;
+import app.impl.PairingHeap;
+import net.datastructures.AdaptablePriorityQueue;
+import net.datastructures.Entry;
+import net.datastructures.HeapAdaptablePriorityQueue;
+import net.datastructures.HeapPriorityQueue;
+import net.datastructures.PriorityQueue;
+
+/**
+ * A common face for the priority queues being compared, so that each benchmark
+ * can be written once and run against every implementation. Keys are ints
+ * (boxed as Integers, the key type MyHeap is used with) and the handle returned
+ * by insert is whatever the queue needs to find the entry again. replaceKey
+ * returns the handle to use from then on, which only changes for queues
+ * without stable handles.
+ */
+
+abstract class BenchQueue {
+
+	/**
+	 * The names accepted by create, in the order they are usually compared.
+	 * HeapPriorityQueue has no adaptable operations, so the adaptable
+	 * benchmarks use nds4's HeapAdaptablePriorityQueue instead.
+	 */
+	static final String MY_HEAP = "MyHeap";
+	static final String MY_HEAP_ARRAY = "MyHeapArray";
+	static final String MY_HEAP_ARRAY_4 = "MyHeapArray4";
+	static final String MY_HEAP_ARRAY_8 = "MyHeapArray8";
+	static final String JDK_PRIORITY_QUEUE = "PriorityQueue";
+	static final String NDS4_HEAP = "HeapPriorityQueue";
+	static final String NDS4_ADAPTABLE_HEAP = "HeapAdaptablePriorityQueue";
+	static final String PAIRING_HEAP = "PairingHeap";
+	static final String OFF_HEAP = "OffHeapLongHeap";
+	static final String MY_HANDLE_HEAP_4 = "MyHandleHeap4";
+
+	abstract Object insert(int key);
+
+	abstract void removeMin();
+
+	abstract void remove(Object handle);
+
+	abstract Object replaceKey(Object handle, int key);
+
+	abstract int keyOf(Object handle);
+
+	abstract int size();
+
+	static BenchQueue create(String name) {
+		switch (name) {
+		case JDK_PRIORITY_QUEUE:
+			return new JdkQueue(new java.util.PriorityQueue<Integer>(new IntegerComparator()));
+		case NDS4_HEAP:
+			return new Nds4Queue(new HeapPriorityQueue<Integer, Integer>(new IntegerComparator()));
+		case OFF_HEAP:
+			return new OffHeapQueue(new OffHeapLongHeap());
+		case MY_HANDLE_HEAP_4:
+			return new HandleQueue(new MyHandleHeap<Integer, Integer>(new IntegerComparator(), 4, 16));
+		default:
+			return new Nds4Queue(createAdaptable(name));
+		}
+	}
+
+	/**
+	 * Creates one of the adaptable queues by name, for benchmarks that need
+	 * the queue's own entries and values rather than this wrapper.
+	 */
+	static AdaptablePriorityQueue<Integer, Integer> createAdaptable(String name) {
+		Comparator<Integer> comparator = new IntegerComparator();
+		switch (name) {
+		case MY_HEAP:
+			return new MyHeap<Integer, Integer>(comparator);
+		case MY_HEAP_ARRAY:
+			return new MyHeap<Integer, Integer>(comparator, new MyArrayHeapTree<MyHeapEntry<Integer, Integer>>());
+		case MY_HEAP_ARRAY_4:
+			return new MyHeap<Integer, Integer>(comparator, new MyArrayHeapTree<MyHeapEntry<Integer, Integer>>(), 4);
+		case MY_HEAP_ARRAY_8:
+			return new MyHeap<Integer, Integer>(comparator, new MyArrayHeapTree<MyHeapEntry<Integer, Integer>>(), 8);
+		case NDS4_ADAPTABLE_HEAP:
+			return new HeapAdaptablePriorityQueue<Integer, Integer>(comparator);
+		case PAIRING_HEAP:
+			return new PairingHeap<Integer, Integer>(comparator);
+		default:
+			throw new IllegalArgumentException("Unknown queue " + name);
+		}
+	}
+
+	/*
+	 * Any nds4 priority queue, including MyHeap. The adaptable operations are
+	 * only available if the queue is an AdaptablePriorityQueue.
+	 */
+
+	private static class Nds4Queue extends BenchQueue {
+
+		private final PriorityQueue<Integer, Integer> _queue;
+
+		Nds4Queue(PriorityQueue<Integer, Integer> queue) {
+			_queue = queue;
+		}
+
+		@Override
+		Object insert(int key) {
+			return _queue.insert(key, null);
+		}
+
+		@Override
+		void removeMin() {
+			_queue.removeMin();
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		void remove(Object handle) {
+			this.adaptable().remove((Entry<Integer, Integer>) handle);
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		Object replaceKey(Object handle, int key) {
+			this.adaptable().replaceKey((Entry<Integer, Integer>) handle, key);
+			return handle;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		int keyOf(Object handle) {
+			return ((Entry<Integer, Integer>) handle).getKey();
+		}
+
+		@Override
+		int size() {
+			return _queue.size();
+		}
+
+		private AdaptablePriorityQueue<Integer, Integer> adaptable() {
+			if (!(_queue instanceof AdaptablePriorityQueue)) {
+				throw new UnsupportedOperationException(_queue.getClass().getSimpleName() + " is not adaptable");
+			}
+			return (AdaptablePriorityQueue<Integer, Integer>) _queue;
+		}
+	}
+
+	/*
+	 * java.util.PriorityQueue. It has no handles, so the key object itself is
+	 * the handle; remove is a linear scan and replaceKey is a remove followed
+	 * by an add, which is what a caller of PriorityQueue has to do.
+	 */
+
+	private static class JdkQueue extends BenchQueue {
+
+		private final java.util.PriorityQueue<Integer> _queue;
+
+		JdkQueue(java.util.PriorityQueue<Integer> queue) {
+			_queue = queue;
+		}
+
+		@Override
+		Object insert(int key) {
+			Integer boxed = key;
+			_queue.add(boxed);
+			return boxed;
+		}
+
+		@Override
+		void removeMin() {
+			_queue.poll();
+		}
+
+		@Override
+		void remove(Object handle) {
+			_queue.remove(handle);
+		}
+
+		@Override
+		Object replaceKey(Object handle, int key) {
+			_queue.remove(handle);
+			return this.insert(key);
+		}
+
+		@Override
+		int keyOf(Object handle) {
+			return (Integer) handle;
+		}
+
+		@Override
+		int size() {
+			return _queue.size();
+		}
+	}
+
+	/*
+	 * OffHeapLongHeap. Its ids are boxed to serve as handles, which is the
+	 * only allocation left per operation
+	 */
+
+	private static class OffHeapQueue extends BenchQueue {
+
+		private final OffHeapLongHeap _queue;
+
+		OffHeapQueue(OffHeapLongHeap queue) {
+			_queue = queue;
+		}
+
+		@Override
+		Object insert(int key) {
+			return _queue.insert(key, 0L);
+		}
+
+		@Override
+		void removeMin() {
+			_queue.removeMin();
+		}
+
+		@Override
+		void remove(Object handle) {
+			_queue.remove((Long) handle);
+		}
+
+		@Override
+		Object replaceKey(Object handle, int key) {
+			_queue.replaceKey((Long) handle, key);
+			return handle;
+		}
+
+		@Override
+		int keyOf(Object handle) {
+			return (int) _queue.keyOf((Long) handle);
+		}
+
+		@Override
+		int size() {
+			return (int) _queue.size();
+		}
+	}
+
+	/*
+	 * MyHandleHeap. Its long handles are boxed to serve as handles here, so
+	 * the remove and replaceKey benchmarks still allocate one Long per entry,
+	 * as they do for OffHeapLongHeap
+	 */
+
+	private static class HandleQueue extends BenchQueue {
+
+		private final MyHandleHeap<Integer, Integer> _queue;
+
+		HandleQueue(MyHandleHeap<Integer, Integer> queue) {
+			_queue = queue;
+		}
+
+		@Override
+		Object insert(int key) {
+			return _queue.insert(key, null);
+		}
+
+		@Override
+		void removeMin() {
+			_queue.removeMin();
+		}
+
+		@Override
+		void remove(Object handle) {
+			_queue.remove((Long) handle);
+		}
+
+		@Override
+		Object replaceKey(Object handle, int key) {
+			_queue.replaceKey((Long) handle, key);
+			return handle;
+		}
+
+		@Override
+		int keyOf(Object handle) {
+			return _queue.keyOf((Long) handle);
+		}
+
+		@Override
+		int size() {
+			return _queue.size();
+		}
+	}
+
+}
@@ -0,0 +1,170 @@
+package app.bench;
+
+import java.util.Random;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import app.impl.ConcurrentAdaptableHeap;
+import app.impl.IntegerComparator;
+import net.datastructures.AdaptablePriorityQueue;
+import net.datastructures.EmptyPriorityQueueException;
+import net.datastructures.Entry;
+
+/**
+ * Measures the throughput of a queue shared by all benchmark threads: a "hold"
+ * workload (insert, then removeMin) and an adaptable one (insert, then remove
+ * the entry just inserted). The queue holds about size entries throughout.
+ *
+ * The queues compared are ConcurrentAdaptableHeap, a MyHeap behind one global
+ * lock (how MyHeap has to be shared otherwise), and the JDK's
+ * PriorityBlockingQueue, which is also a single-lock heap. PriorityBlockingQueue
+ * has no entries, so it removes by key with a linear search, which is the
+ * cost a caller of it would pay. Run with
+ * "-t" to change the number of threads, e.g. "-t 1", "-t 4" and "-t 16" to see
+ * how each queue scales.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+public class ConcurrentQueueBenchmark {
+
+	static final String CONCURRENT_HEAP = "ConcurrentAdaptableHeap";
+	static final String LOCKED_MY_HEAP = "LockedMyHeap";
+	static final String PRIORITY_BLOCKING_QUEUE = "PriorityBlockingQueue";
+
+	@Param({ "10000", "1000000" })
+	public int size;
+
+	@Param({ CONCURRENT_HEAP, LOCKED_MY_HEAP, PRIORITY_BLOCKING_QUEUE })
+	public String queue;
+
+	AdaptablePriorityQueue<Integer, Integer> _adaptable;
+	PriorityBlockingQueue<Integer> _blocking;
+
+	@Setup
+	public void fill() {
+		Random random = new Random(42);
+		switch (queue) {
+		case CONCURRENT_HEAP:
+			_adaptable = new ConcurrentAdaptableHeap<Integer, Integer>(new IntegerComparator());
+			break;
+		case LOCKED_MY_HEAP:
+			_adaptable = new LockedQueue(BenchQueue.createAdaptable(BenchQueue.MY_HEAP_ARRAY_4));
+			break;
+		default:
+			_blocking = new PriorityBlockingQueue<Integer>(size, new IntegerComparator());
+		}
+		for (int i = 0; i < size; i++) {
+			int key = random.nextInt(1 << 30);
+			if (_blocking != null) {
+				_blocking.add(key);
+			} else {
+				_adaptable.insert(key, key);
+			}
+		}
+	}
+
+	// Each thread draws its keys from its own table, so threads do not share
+	// a random number generator
+
+	@State(Scope.Thread)
+	public static class ThreadKeys {
+
+		PriorityQueueBenchmark.Keys _keys;
+
+		@Setup
+		public void setup() {
+			_keys = new PriorityQueueBenchmark.Keys(new Random(Thread.currentThread().getId()));
+		}
+	}
+
+	@Benchmark
+	public Object hold(ThreadKeys keys) {
+		int key = keys._keys.next();
+		if (_blocking != null) {
+			_blocking.add(key);
+			return _blocking.poll();
+		}
+		_adaptable.insert(key, key);
+		try {
+			return _adaptable.removeMin();
+		} catch (EmptyPriorityQueueException e) {
+			return null;
+		}
+	}
+
+	@Benchmark
+	public Object insertThenRemove(ThreadKeys keys) {
+		int key = keys._keys.next();
+		if (_blocking != null) {
+			_blocking.add(key);
+			return _blocking.remove(key);
+		}
+		return _adaptable.remove(_adaptable.insert(key, key));
+	}
+
+	/*
+	 * An adaptable queue behind a single lock, the way a MyHeap has to be
+	 * shared between threads
+	 */
+
+	static class LockedQueue implements AdaptablePriorityQueue<Integer, Integer> {
+
+		private final AdaptablePriorityQueue<Integer, Integer> _queue;
+
+		LockedQueue(AdaptablePriorityQueue<Integer, Integer> queue) {
+			_queue = queue;
+		}
+
+		public synchronized int size() {
+			return _queue.size();
+		}
+
+		public synchronized boolean isEmpty() {
+			return _queue.isEmpty();
+		}
+
+		public synchronized Entry<Integer, Integer> min() {
+			return _queue.min();
+		}
+
+		public synchronized Entry<Integer, Integer> insert(Integer key, Integer value) {
+			return _queue.insert(key, value);
+		}
+
+		public synchronized Entry<Integer, Integer> removeMin() {
+			return _queue.removeMin();
+		}
+
+		public synchronized Entry<Integer, Integer> remove(Entry<Integer, Integer> entry) {
+			return _queue.remove(entry);
+		}
+
+		public synchronized Integer replaceKey(Entry<Integer, Integer> entry, Integer key) {
+			return _queue.replaceKey(entry, key);
+		}
+
+		public synchronized Integer replaceValue(Entry<Integer, Integer> entry, Integer value) {
+			return _queue.replaceValue(entry, value);
+		}
+	}
+
+}
@@ -0,0 +1,102 @@
+package app.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.datastructures.AdaptablePriorityQueue;
+import net.datastructures.Entry;
+
+/**
+ * Runs Dijkstra's shortest paths over a random directed graph, which is
+ * dominated by replaceKey decreases: every edge that finds a shorter path to a
+ * node already in the queue decreases that node's key. The score is the time
+ * of one full run from node 0.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+public class DijkstraBenchmark {
+
+	@Param({ "10000", "100000", "1000000" })
+	public int nodes;
+
+	// Denser graphs relax more edges per node, so more of them are decreases
+	@Param({ "16" })
+	public int degree;
+
+	@Param({ BenchQueue.MY_HEAP, BenchQueue.MY_HEAP_ARRAY, BenchQueue.MY_HEAP_ARRAY_4, BenchQueue.PAIRING_HEAP })
+	public String queue;
+
+	// The graph in compressed form: the edges leaving node i are the entries
+	// _offsets[i] to _offsets[i + 1] - 1 of _targets and _weights
+	int[] _offsets;
+	int[] _targets;
+	int[] _weights;
+
+	@Setup(Level.Trial)
+	public void buildGraph() {
+		Random random = new Random(42);
+		_offsets = new int[nodes + 1];
+		_targets = new int[nodes * degree];
+		_weights = new int[nodes * degree];
+		for (int i = 0; i < nodes; i++) {
+			_offsets[i] = i * degree;
+			for (int j = 0; j < degree; j++) {
+				_targets[i * degree + j] = random.nextInt(nodes);
+				_weights[i * degree + j] = 1 + random.nextInt(1000);
+			}
+		}
+		_offsets[nodes] = nodes * degree;
+	}
+
+	@Benchmark
+	public long shortestPaths() {
+		AdaptablePriorityQueue<Integer, Integer> queue = BenchQueue.createAdaptable(this.queue);
+		long[] distance = new long[nodes];
+		boolean[] done = new boolean[nodes];
+		@SuppressWarnings("unchecked")
+		Entry<Integer, Integer>[] entries = new Entry[nodes];
+		java.util.Arrays.fill(distance, Long.MAX_VALUE);
+
+		distance[0] = 0;
+		entries[0] = queue.insert(0, 0);
+		long total = 0;
+		while (!queue.isEmpty()) {
+			Entry<Integer, Integer> closest = queue.removeMin();
+			int node = closest.getValue();
+			done[node] = true;
+			total += distance[node];
+			for (int edge = _offsets[node]; edge < _offsets[node + 1]; edge++) {
+				int target = _targets[edge];
+				long candidate = distance[node] + _weights[edge];
+				if (!done[target] && candidate < distance[target]) {
+					distance[target] = candidate;
+					if (entries[target] == null) {
+						entries[target] = queue.insert((int) candidate, target);
+					} else {
+						queue.replaceKey(entries[target], (int) candidate);
+					}
+				}
+			}
+		}
+		return total;
+	}
+
+}
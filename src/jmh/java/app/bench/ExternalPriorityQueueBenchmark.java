@@ -0,0 +1,127 @@
+package app.bench;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import app.impl.ExternalPriorityQueue;
+import app.impl.KeyNormalizer;
+import app.impl.RunCodec;
+
+/**
+ * Measures the time per entry of pushing ENTRIES random long keys (16 bytes
+ * with their values) through an ExternalPriorityQueue: all the inserts, then
+ * all the removeMins. Each entry is written to a run and read back once, so
+ * 16 bytes divided by the time per entry is the queue's disk throughput, to be
+ * compared with the sequential bandwidth of the run directory's disk. With
+ * normalized, the keys are their own sort prefixes, so the runs are sorted by
+ * a radix sort instead of by the comparator.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+public class ExternalPriorityQueueBenchmark {
+
+	static final int ENTRIES = 10000000;
+
+	@Param({ "100000", "1000000" })
+	public int memoryBudget;
+
+	@Param({ "false", "true" })
+	public boolean normalized;
+
+	Path _directory;
+	long[] _keys;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		_directory = Files.createTempDirectory("runs");
+		Random random = new Random(42);
+		_keys = new long[ENTRIES];
+		for (int i = 0; i < ENTRIES; i++) {
+			_keys[i] = random.nextLong();
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void deleteDirectory() throws IOException {
+		Files.deleteIfExists(_directory);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ENTRIES)
+	public long insertThenDrain() throws IOException {
+		long sum = 0;
+		try (ExternalPriorityQueue<Long, Long> queue = new ExternalPriorityQueue<Long, Long>(
+				new LongComparator(), new LongCodec(), memoryBudget, _directory)) {
+			if (normalized) {
+				queue.setKeyNormalizer(new LongNormalizer());
+			}
+			for (int i = 0; i < ENTRIES; i++) {
+				queue.insert(_keys[i], (long) i);
+			}
+			while (!queue.isEmpty()) {
+				sum += queue.removeMin().getValue();
+			}
+		}
+		return sum;
+	}
+
+	static class LongComparator implements Comparator<Long> {
+
+		public int compare(Long first, Long second) {
+			return Long.compare(first, second);
+		}
+	}
+
+	static class LongNormalizer implements KeyNormalizer<Long> {
+
+		public long normalize(Long key) {
+			return key;
+		}
+	}
+
+	static class LongCodec implements RunCodec<Long, Long> {
+
+		public void writeKey(Long key, DataOutput out) throws IOException {
+			out.writeLong(key);
+		}
+
+		public void writeValue(Long value, DataOutput out) throws IOException {
+			out.writeLong(value);
+		}
+
+		public Long readKey(DataInput in) throws IOException {
+			return in.readLong();
+		}
+
+		public Long readValue(DataInput in) throws IOException {
+			return in.readLong();
+		}
+	}
+
+}
@@ -0,0 +1,130 @@
+package app.bench;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import app.impl.IntegerComparator;
+import app.impl.LoserTreeMerger;
+import app.impl.MyArrayHeapTree;
+import app.impl.MyHeap;
+import app.impl.MyHeapEntry;
+import net.datastructures.Entry;
+
+/**
+ * Measures the time per element of merging k sorted runs of ELEMENTS Integer
+ * keys in total: with a LoserTreeMerger, and with a MyHeap of the run heads
+ * keyed by element with the run as value, advanced either with removeMin and
+ * insert or with removeMinThenInsert.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+public class MergeBenchmark {
+
+	static final int ELEMENTS = 1 << 20;
+
+	@Param({ "8", "64", "512" })
+	public int k;
+
+	Integer[][] _runs;
+
+	@Setup(Level.Trial)
+	public void fill() {
+		Random random = new Random(42);
+		_runs = new Integer[k][];
+		for (int run = 0; run < k; run++) {
+			int length = ELEMENTS / k;
+			int[] keys = new int[length];
+			for (int i = 0; i < length; i++) {
+				keys[i] = random.nextInt(1 << 30);
+			}
+			Arrays.sort(keys);
+			_runs[run] = new Integer[length];
+			for (int i = 0; i < length; i++) {
+				_runs[run][i] = keys[i];
+			}
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ELEMENTS)
+	public long loserTree() {
+		List<Iterator<Integer>> sources = new ArrayList<Iterator<Integer>>(k);
+		for (Integer[] run : _runs) {
+			sources.add(Arrays.asList(run).iterator());
+		}
+		LoserTreeMerger<Integer> merger = new LoserTreeMerger<Integer>(sources, new IntegerComparator());
+		long sum = 0;
+		while (merger.hasNext()) {
+			sum += merger.next();
+		}
+		return sum;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ELEMENTS)
+	public long heapRemoveMinThenInsert() {
+		MyHeap<Integer, Iterator<Integer>> heap = this.heads();
+		long sum = 0;
+		while (!heap.isEmpty()) {
+			Entry<Integer, Iterator<Integer>> head = heap.min();
+			sum += head.getKey();
+			Iterator<Integer> run = head.getValue();
+			if (run.hasNext()) {
+				heap.removeMinThenInsert(run.next(), run);
+			} else {
+				heap.removeMin();
+			}
+		}
+		return sum;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ELEMENTS)
+	public long heapRemoveMinAndInsert() {
+		MyHeap<Integer, Iterator<Integer>> heap = this.heads();
+		long sum = 0;
+		while (!heap.isEmpty()) {
+			Entry<Integer, Iterator<Integer>> head = heap.removeMin();
+			sum += head.getKey();
+			Iterator<Integer> run = head.getValue();
+			if (run.hasNext()) {
+				heap.insert(run.next(), run);
+			}
+		}
+		return sum;
+	}
+
+	private MyHeap<Integer, Iterator<Integer>> heads() {
+		MyHeap<Integer, Iterator<Integer>> heap = new MyHeap<Integer, Iterator<Integer>>(new IntegerComparator(),
+				new MyArrayHeapTree<MyHeapEntry<Integer, Iterator<Integer>>>());
+		for (Integer[] run : _runs) {
+			Iterator<Integer> iterator = Arrays.asList(run).iterator();
+			heap.insert(iterator.next(), iterator);
+		}
+		return heap;
+	}
+
+}
@@ -0,0 +1,65 @@
+package app.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+import app.impl.IntegerComparator;
+import app.impl.MultiQueue;
+
+/**
+ * Measures the throughput of a MultiQueue shared by all benchmark threads, on
+ * the same "hold" workload as ConcurrentQueueBenchmark, so the two can be
+ * compared at the same "-t". The queue gets c heaps per benchmark thread.
+ * Larger c means less contention but larger rank errors; MultiQueueTest
+ * measures the rank error, which stays around the number of heaps.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+public class MultiQueueBenchmark {
+
+	@Param({ "10000", "1000000" })
+	public int size;
+
+	@Param({ "1", "2", "4" })
+	public int c;
+
+	MultiQueue<Integer, Integer> _queue;
+
+	@Setup
+	public void fill(BenchmarkParams params) {
+		Random random = new Random(42);
+		_queue = new MultiQueue<Integer, Integer>(new IntegerComparator(), c, params.getThreads());
+		for (int i = 0; i < size; i++) {
+			int key = random.nextInt(1 << 30);
+			_queue.insert(key, key);
+		}
+	}
+
+	@Benchmark
+	public Object hold(ConcurrentQueueBenchmark.ThreadKeys keys) {
+		int key = keys._keys.next();
+		_queue.insert(key, key);
+		return _queue.removeMin();
+	}
+
+}
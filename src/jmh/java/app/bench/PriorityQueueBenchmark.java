@@ -0,0 +1,127 @@
+package app.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures insert, removeMin and an insert-then-removeMin mix on a queue that
+ * holds size entries. Each invocation runs a batch of BATCH operations and the
+ * queue is put back to size entries after every iteration (outside of the
+ * measurement), so every batch sees a queue of about the same size, however
+ * large it is.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 20)
+@Measurement(iterations = 20)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+public class PriorityQueueBenchmark {
+
+	static final int BATCH = 1024;
+
+	@Param({ "1000", "10000", "100000", "1000000", "10000000" })
+	public int size;
+
+	@Param({ BenchQueue.MY_HEAP, BenchQueue.MY_HEAP_ARRAY, BenchQueue.MY_HEAP_ARRAY_4, BenchQueue.PAIRING_HEAP,
+			BenchQueue.OFF_HEAP, BenchQueue.MY_HANDLE_HEAP_4, BenchQueue.JDK_PRIORITY_QUEUE, BenchQueue.NDS4_HEAP })
+	public String queue;
+
+	BenchQueue _queue;
+	Keys _keys;
+
+	@Setup(Level.Trial)
+	public void fill() {
+		_keys = new Keys(new Random(42));
+		_queue = BenchQueue.create(queue);
+		for (int i = 0; i < size; i++) {
+			_queue.insert(_keys.next());
+		}
+	}
+
+	// Brings the queue back to size entries after a batch has grown or shrunk it
+
+	@TearDown(Level.Iteration)
+	public void restoreSize() {
+		while (_queue.size() > size) {
+			_queue.removeMin();
+		}
+		while (_queue.size() < size) {
+			_queue.insert(_keys.next());
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public int insert() {
+		for (int i = 0; i < BATCH; i++) {
+			_queue.insert(_keys.next());
+		}
+		return _queue.size();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public int removeMin() {
+		for (int i = 0; i < BATCH; i++) {
+			_queue.removeMin();
+		}
+		return _queue.size();
+	}
+
+	// The classic "hold" workload: the queue size stays fixed while entries
+	// flow through it
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public int insertThenRemoveMin() {
+		for (int i = 0; i < BATCH; i++) {
+			_queue.insert(_keys.next());
+			_queue.removeMin();
+		}
+		return _queue.size();
+	}
+
+	/*
+	 * A fixed table of random keys that is cycled through, so that drawing a
+	 * key costs the same for every queue and is not part of what is measured
+	 */
+
+	static class Keys {
+
+		private static final int COUNT = 1 << 20;
+
+		private final int[] _keys;
+		private int _next;
+
+		Keys(Random random) {
+			_keys = new int[COUNT];
+			for (int i = 0; i < COUNT; i++) {
+				_keys[i] = random.nextInt(1 << 30);
+			}
+			_next = 0;
+		}
+
+		int next() {
+			_next = (_next + 1) & (COUNT - 1);
+			return _keys[_next];
+		}
+	}
+
+}
@@ -0,0 +1,110 @@
+package app.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import app.impl.IntegerComparator;
+import app.impl.MyArrayHeapTree;
+import app.impl.MyHeap;
+import app.impl.MyHeapEntry;
+import app.impl.PairingHeap;
+import net.datastructures.Entry;
+
+/**
+ * Measures the latency of merging one shard into another when shards are
+ * rebalanced, both shards holding size Integer keys: moving the entries one
+ * at a time with removeMin and insert, melding a MyHeap on a 4-ary
+ * MyArrayHeapTree, and melding a PairingHeap. The shards are rebuilt before
+ * every merge, outside the measured time.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+public class ShardMergeBenchmark {
+
+	@Param({ "1024", "65536", "1048576" })
+	public int size;
+
+	Integer[] _keys;
+
+	// PairingHeap only melds heaps that share a comparator
+	final IntegerComparator _comparator = new IntegerComparator();
+
+	MyHeap<Integer, Integer> _heap;
+	MyHeap<Integer, Integer> _otherHeap;
+	PairingHeap<Integer, Integer> _pairing;
+	PairingHeap<Integer, Integer> _otherPairing;
+
+	@Setup(Level.Trial)
+	public void fill() {
+		Random random = new Random(42);
+		_keys = new Integer[2 * size];
+		for (int i = 0; i < _keys.length; i++) {
+			_keys[i] = random.nextInt(1 << 30);
+		}
+	}
+
+	@Setup(Level.Invocation)
+	public void shards() {
+		_heap = this.arrayHeap(0);
+		_otherHeap = this.arrayHeap(size);
+		_pairing = this.pairingHeap(0);
+		_otherPairing = this.pairingHeap(size);
+	}
+
+	@Benchmark
+	public int heapReinsert() {
+		while (!_otherHeap.isEmpty()) {
+			Entry<Integer, Integer> entry = _otherHeap.removeMin();
+			_heap.insert(entry.getKey(), entry.getValue());
+		}
+		return _heap.size();
+	}
+
+	@Benchmark
+	public int heapMeld() {
+		_heap.meld(_otherHeap);
+		return _heap.size();
+	}
+
+	@Benchmark
+	public int pairingHeapMeld() {
+		_pairing.meld(_otherPairing);
+		return _pairing.size();
+	}
+
+	private MyHeap<Integer, Integer> arrayHeap(int from) {
+		MyHeap<Integer, Integer> heap = new MyHeap<Integer, Integer>(_comparator,
+				new MyArrayHeapTree<MyHeapEntry<Integer, Integer>>(), 4);
+		for (int i = from; i < from + size; i++) {
+			heap.insert(_keys[i], i);
+		}
+		return heap;
+	}
+
+	private PairingHeap<Integer, Integer> pairingHeap(int from) {
+		PairingHeap<Integer, Integer> heap = new PairingHeap<Integer, Integer>(_comparator);
+		for (int i = from; i < from + size; i++) {
+			heap.insert(_keys[i], i);
+		}
+		return heap;
+	}
+
+}
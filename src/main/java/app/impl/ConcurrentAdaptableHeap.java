@@ -0,0 +1,220 @@
+package app.impl;
+
+import java.util.Comparator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import net.datastructures.AdaptablePriorityQueue;
+import net.datastructures.EmptyPriorityQueueException;
+import net.datastructures.Entry;
+import net.datastructures.InvalidEntryException;
+import net.datastructures.InvalidKeyException;
+
+/**
+ * A thread-safe adaptable priority queue, for queues shared by many producers
+ * and consumers. It keeps MyHeap's API, but is built on a lock-free skip list
+ * (ConcurrentSkipListSet) rather than on a heap, since every heap operation
+ * goes through the root and would need the whole heap locked. Entries are
+ * ordered by key and then by creation order, so every entry is distinct.
+ *
+ * insert and removeMin never block: removeMin polls the first entry of the
+ * skip list, and two threads can never take the same entry. remove and
+ * replaceKey lock only the entry they change; replaceKey takes the entry out
+ * of the skip list, changes its key and puts it back, so for that moment the
+ * entry is invisible to removeMin. An entry that another thread has already
+ * removed is rejected with an InvalidEntryException, which is how a caller
+ * finds out that it lost a race for that entry. An entry of another queue is
+ * rejected the same way, before the skip list is searched, since two queues
+ * can hold entries with the same key and creation order.
+ *
+ * All operations except size run in O(log n) expected time. size is a
+ * snapshot that may be off while other threads are changing the queue.
+ */
+
+public class ConcurrentAdaptableHeap<K, V> implements AdaptablePriorityQueue<K, V> {
+
+	private final ConcurrentSkipListSet<ConcurrentHeapEntry<K, V>> _entries;
+	private final Comparator<K> _comparator;
+	private final AtomicLong _sequence;
+	private final LongAdder _size;
+
+	/**
+	 * Creates an empty queue with the given comparator.
+	 *
+	 * @param comparator
+	 *            the comparator to be used for keys
+	 * @throws IllegalArgumentException
+	 *             if the comparator is null
+	 */
+	public ConcurrentAdaptableHeap(final Comparator<K> comparator) {
+		if (comparator == null) {
+			throw new IllegalArgumentException();
+		}
+		_comparator = comparator;
+		_entries = new ConcurrentSkipListSet<>(new Comparator<ConcurrentHeapEntry<K, V>>() {
+			@Override
+			public int compare(ConcurrentHeapEntry<K, V> first, ConcurrentHeapEntry<K, V> second) {
+				int byKey = comparator.compare(first.getKey(), second.getKey());
+				return (byKey != 0) ? byKey : Long.compare(first.getSequence(), second.getSequence());
+			}
+		});
+		_sequence = new AtomicLong();
+		_size = new LongAdder();
+	}
+
+	/**
+	 * Returns the number of entries in the queue, which may be off while other
+	 * threads are changing it.
+	 */
+	public int size() {
+		return (int) Math.max(0, _size.sum());
+	}
+
+	public boolean isEmpty() {
+		return _entries.isEmpty();
+	}
+
+	/**
+	 * Returns but does not remove the entry with minimum key at the time of
+	 * the call.
+	 *
+	 * @throws EmptyPriorityQueueException
+	 *             if the queue is empty
+	 */
+	public Entry<K, V> min() throws EmptyPriorityQueueException {
+		try {
+			return _entries.first();
+		} catch (NoSuchElementException e) {
+			throw new EmptyPriorityQueueException("Heap is Empty");
+		}
+	}
+
+	/**
+	 * Inserts a key-value pair and returns the entry created.
+	 *
+	 * @throws InvalidKeyException
+	 *             if the key is not suitable for this queue
+	 */
+	public Entry<K, V> insert(K key, V value) throws InvalidKeyException {
+		this.checkKey(key);
+		ConcurrentHeapEntry<K, V> entry = new ConcurrentHeapEntry<>(key, value, _sequence.getAndIncrement(), this);
+		_entries.add(entry);
+		_size.increment();
+		return entry;
+	}
+
+	/**
+	 * Removes and returns the entry with the minimum key.
+	 *
+	 * @throws EmptyPriorityQueueException
+	 *             if the queue is empty
+	 */
+	public Entry<K, V> removeMin() throws EmptyPriorityQueueException {
+		ConcurrentHeapEntry<K, V> entry = _entries.pollFirst();
+		if (entry == null) {
+			throw new EmptyPriorityQueueException("Cannot get minimum of an empty Heap");
+		}
+		_size.decrement();
+		return entry;
+	}
+
+	/**
+	 * Removes and returns the given entry.
+	 *
+	 * @throws InvalidEntryException
+	 *             if the entry is not in the queue, for example because
+	 *             another thread has already removed it
+	 */
+	public Entry<K, V> remove(Entry<K, V> entry) throws InvalidEntryException {
+		ConcurrentHeapEntry<K, V> checkedEntry = this.checkAndConvertEntry(entry);
+		synchronized (checkedEntry) {
+			if (!_entries.remove(checkedEntry)) {
+				throw new InvalidEntryException("Entry is not in this heap");
+			}
+		}
+		_size.decrement();
+		return checkedEntry;
+	}
+
+	/**
+	 * Replaces the key of the given entry.
+	 *
+	 * @return the old key formerly associated with the entry
+	 * @throws InvalidEntryException
+	 *             if the entry is not in the queue, for example because
+	 *             another thread has already removed it
+	 * @throws InvalidKeyException
+	 *             if the key is invalid
+	 */
+	public K replaceKey(Entry<K, V> entry, K key) throws InvalidEntryException, InvalidKeyException {
+		ConcurrentHeapEntry<K, V> checkedEntry = this.checkAndConvertEntry(entry);
+		this.checkKey(key);
+		synchronized (checkedEntry) {
+
+			// The key is only changed once the entry is out of the skip list,
+			// since the skip list cannot find an entry whose key has moved
+			if (!_entries.remove(checkedEntry)) {
+				throw new InvalidEntryException("Entry is not in this heap");
+			}
+			K oldKey = checkedEntry.getKey();
+			checkedEntry.setKey(key);
+			_entries.add(checkedEntry);
+			return oldKey;
+		}
+	}
+
+	/**
+	 * Replaces the value of the given entry.
+	 *
+	 * @return the old value formerly associated with the entry
+	 * @throws InvalidEntryException
+	 *             if the entry is not of the proper class or belongs to
+	 *             another queue
+	 */
+	public V replaceValue(Entry<K, V> entry, V value) throws InvalidEntryException {
+		ConcurrentHeapEntry<K, V> checkedEntry = this.checkAndConvertEntry(entry);
+		synchronized (checkedEntry) {
+			V oldValue = checkedEntry.getValue();
+			checkedEntry.setValue(value);
+			return oldValue;
+		}
+	}
+
+	/**
+	 * Determines whether a given entry is of the proper class and was created
+	 * by this queue, and converts it to a ConcurrentHeapEntry.
+	 *
+	 * @throws InvalidEntryException
+	 *             if the entry is not of the proper class or belongs to
+	 *             another queue
+	 */
+	public ConcurrentHeapEntry<K, V> checkAndConvertEntry(Entry<K, V> entry) throws InvalidEntryException {
+		if (entry == null || !(entry instanceof ConcurrentHeapEntry)) {
+			throw new InvalidEntryException("Invalid entry");
+		}
+		ConcurrentHeapEntry<K, V> checkedEntry = (ConcurrentHeapEntry<K, V>) entry;
+		if (checkedEntry.getOwner() != this) {
+			throw new InvalidEntryException("Entry is not in this heap");
+		}
+		return checkedEntry;
+	}
+
+	/*
+	 * This method checks that a key can be stored in this queue: it must not be
+	 * null, and the comparator must accept it
+	 */
+
+	private void checkKey(K key) throws InvalidKeyException {
+		if (key == null) {
+			throw new InvalidKeyException("Must Enter Suitable Key");
+		}
+		try {
+			_comparator.compare(key, key);
+		} catch (ClassCastException e) {
+			throw new InvalidKeyException("Must Enter Suitable Key");
+		}
+	}
+
+}
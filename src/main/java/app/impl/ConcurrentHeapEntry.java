@@ -0,0 +1,63 @@
+package app.impl;
+
+import net.datastructures.Entry;
+
+/**
+ * Represents a key/value pair stored in a ConcurrentAdaptableHeap. Entries are
+ * ordered by key and then by the order in which they were created, so no two
+ * entries are ever equal in the queue's ordering. The key only changes while
+ * the entry is out of the queue's skip list, with the entry's lock held.
+ * Sequences are only unique within one queue, so each entry also remembers
+ * the queue that created it.
+ */
+
+public class ConcurrentHeapEntry<K, V> implements Entry<K, V> {
+
+	private volatile K _key;
+	private volatile V _value;
+	private final long _sequence;
+	private final ConcurrentAdaptableHeap<K, V> _owner;
+
+	ConcurrentHeapEntry(K key, V value, long sequence, ConcurrentAdaptableHeap<K, V> owner) {
+		_key = key;
+		_value = value;
+		_sequence = sequence;
+		_owner = owner;
+	}
+
+	/**
+	 * @return the key stored in this entry
+	 */
+	public K getKey() {
+		return _key;
+	}
+
+	/**
+	 * @return the value stored in this entry
+	 */
+	public V getValue() {
+		return _value;
+	}
+
+	void setKey(K key) {
+		_key = key;
+	}
+
+	void setValue(V value) {
+		_value = value;
+	}
+
+	// This method returns the creation order of the entry, which breaks ties
+	// between equal keys
+
+	long getSequence() {
+		return _sequence;
+	}
+
+	// This method returns the queue that created the entry
+
+	ConcurrentAdaptableHeap<K, V> getOwner() {
+		return _owner;
+	}
+
+}
@@ -0,0 +1,600 @@
+package app.impl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import net.datastructures.EmptyPriorityQueueException;
+import net.datastructures.Entry;
+import net.datastructures.InvalidKeyException;
+import net.datastructures.PriorityQueue;
+
+/**
+ * A priority queue for more entries than fit in memory. New entries go into a
+ * MyHeap that holds at most memoryBudget entries; when it is full, its entries
+ * are written out in key order as a "run" to a file in the run directory,
+ * with one long sequential write, and the heap starts over empty.
+ *
+ * removeMin merges the heap with the runs: the first entry of each run (its
+ * head) is kept in memory, in a second MyHeap keyed by the heads, and the
+ * smaller of the two minima is returned. Taking an entry from a run reads the
+ * next one from a buffer that is refilled with large sequential reads, and a
+ * run's file is deleted as soon as it is used up.
+ *
+ * The number of runs is capped at maxRuns, which bounds the open files and
+ * read buffers. Runs are merged by size, with a LoserTreeMerger, so that a
+ * merge never rewrites a large run for the sake of a few small ones: a spill
+ * writes a run of level 0, and once fanIn runs share a level, where fanIn is
+ * half of maxRuns (at least two), they are merged into one run of the next
+ * level. A spill that still finds maxRuns runs first merges the fanIn runs of
+ * the lowest levels. Every entry is therefore written and read once,
+ * sequentially, plus once for each level it climbs: about
+ * log(n / memoryBudget) / log(fanIn) times while the levels fit within
+ * maxRuns runs, and more often beyond that, when the merges that keep to the
+ * cap rewrite the lowest levels. Each entry costs O(log n) comparisons.
+ *
+ * Memory use is memoryBudget entries, plus one head entry and a read buffer of
+ * READ_BUFFER_BYTES for each run. The entries returned by removeMin and min
+ * are not the entries returned by insert once they have been through a run.
+ * Keys and values are written with the given RunCodec, through a DataOutput
+ * and a DataInput that work on plain ByteBuffers. Sorting a run is most of
+ * the cost of an insert; with a KeyNormalizer (see setKeyNormalizer), runs
+ * are sorted by a radix sort of their sort prefixes rather than by the
+ * comparator. Failures of the run files are thrown as UncheckedIOException
+ * and leave the queue as it was: a spill or merge that fails keeps every
+ * entry where it was and deletes the run it was writing, and a removeMin that
+ * fails removes nothing and goes back to the start of the entry it was
+ * reading, so that it can be retried. close() deletes the runs that are left.
+ */
+
+public class ExternalPriorityQueue<K, V> implements PriorityQueue<K, V>, Closeable {
+
+	/**
+	 * The buffer size for writing a run.
+	 */
+	public static final int WRITE_BUFFER_BYTES = 1 << 20;
+
+	/**
+	 * The buffer size for reading each run.
+	 */
+	public static final int READ_BUFFER_BYTES = 1 << 16;
+
+	/**
+	 * The largest number of runs kept, unless another is given.
+	 */
+	public static final int DEFAULT_MAX_RUNS = 64;
+
+	private final Comparator<K> _comparator;
+	private final RunCodec<K, V> _codec;
+	private final int _memoryBudget;
+	private final int _maxRuns;
+	private final int _fanIn;
+	private final Path _runDirectory;
+
+	// The newest entries, and the head of each run keyed by the head's key
+	private MyHeap<K, V> _buffer;
+	private MyHeap<K, Run<K, V>> _heads;
+
+	// The runs that are not used up
+	private List<Run<K, V>> _runs;
+	private long _size;
+	private boolean _closed;
+
+	/**
+	 * Creates an empty queue.
+	 *
+	 * @param comparator
+	 *            the comparator to be used for keys
+	 * @param codec
+	 *            writes and reads the keys and values of the runs
+	 * @param memoryBudget
+	 *            the number of entries held in memory before they are written
+	 *            out as a run
+	 * @param runDirectory
+	 *            the directory in which the run files are created
+	 * @throws IllegalArgumentException
+	 *             if an argument is null, the budget is less than 1 or the
+	 *             directory is not a directory
+	 */
+	public ExternalPriorityQueue(Comparator<K> comparator, RunCodec<K, V> codec, int memoryBudget,
+			Path runDirectory) {
+		this(comparator, codec, memoryBudget, runDirectory, DEFAULT_MAX_RUNS);
+	}
+
+	/**
+	 * Creates an empty queue that keeps at most the given number of runs.
+	 *
+	 * @param comparator
+	 *            the comparator to be used for keys
+	 * @param codec
+	 *            writes and reads the keys and values of the runs
+	 * @param memoryBudget
+	 *            the number of entries held in memory before they are written
+	 *            out as a run
+	 * @param runDirectory
+	 *            the directory in which the run files are created
+	 * @param maxRuns
+	 *            the largest number of runs kept, twice the number of runs
+	 *            merged at a time
+	 * @throws IllegalArgumentException
+	 *             if an argument is null, the budget is less than 1, the
+	 *             directory is not a directory or maxRuns is less than 2
+	 */
+	public ExternalPriorityQueue(Comparator<K> comparator, RunCodec<K, V> codec, int memoryBudget,
+			Path runDirectory, int maxRuns) {
+		if (comparator == null || codec == null || runDirectory == null || !Files.isDirectory(runDirectory)) {
+			throw new IllegalArgumentException("Need a comparator, a codec and a run directory");
+		}
+		if (memoryBudget < 1) {
+			throw new IllegalArgumentException("Memory budget must be at least one entry");
+		}
+		if (maxRuns < 2) {
+			throw new IllegalArgumentException("Need room for at least two runs");
+		}
+		_comparator = comparator;
+		_codec = codec;
+		_memoryBudget = memoryBudget;
+		_maxRuns = maxRuns;
+		_fanIn = Math.max(2, maxRuns / 2);
+		_runDirectory = runDirectory;
+		_buffer = new MyHeap<K, V>(comparator, new MyArrayHeapTree<MyHeapEntry<K, V>>(), 4);
+		_heads = new MyHeap<K, Run<K, V>>(comparator, new MyArrayHeapTree<MyHeapEntry<K, Run<K, V>>>());
+		_runs = new ArrayList<>();
+		_size = 0;
+		_closed = false;
+	}
+
+	/**
+	 * Returns the number of entries in the queue, in memory and in runs. The
+	 * count is capped at Integer.MAX_VALUE; see longSize().
+	 */
+	public int size() {
+		return (int) Math.min(_size, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * @return the number of entries in the queue, in memory and in runs
+	 */
+	public long longSize() {
+		return _size;
+	}
+
+	public boolean isEmpty() {
+		return _size == 0;
+	}
+
+	/**
+	 * @return the number of runs that have not been used up
+	 */
+	public int runCount() {
+		return _runs.size();
+	}
+
+	/**
+	 * Sets the normalizer that maps keys to long sort prefixes, or stops
+	 * normalizing keys if normalizer is null, for the entries in memory and
+	 * the heads of the runs. See MyHeap.setKeyNormalizer.
+	 *
+	 * @param normalizer
+	 *            the normalizer of the keys, or null
+	 * @throws IllegalStateException
+	 *             if the queue is not empty
+	 */
+	public void setKeyNormalizer(KeyNormalizer<K> normalizer) throws IllegalStateException {
+		this.checkOpen();
+		if (_size != 0) {
+			throw new IllegalStateException("The key normalizer can only be set on an empty queue");
+		}
+		_buffer.setKeyNormalizer(normalizer);
+		_heads.setKeyNormalizer(normalizer);
+	}
+
+	/**
+	 * @return the normalizer of the keys, or null if keys are not normalized
+	 */
+	public KeyNormalizer<K> getKeyNormalizer() {
+		return _buffer.getKeyNormalizer();
+	}
+
+	/**
+	 * Returns but does not remove an entry with the minimum key.
+	 *
+	 * @throws EmptyPriorityQueueException
+	 *             if the queue is empty
+	 */
+	public Entry<K, V> min() throws EmptyPriorityQueueException {
+		this.checkOpen();
+		if (_size == 0) {
+			throw new EmptyPriorityQueueException("Heap is Empty");
+		}
+		if (this.minIsBuffered()) {
+			return _buffer.min();
+		}
+		return this.entry(_heads.min().getValue());
+	}
+
+	/**
+	 * Inserts a key-value pair and returns the entry created. If this fills
+	 * the memory budget, the entries in memory are written out as a run.
+	 *
+	 * @throws InvalidKeyException
+	 *             if the key is not suitable for this queue
+	 * @throws UncheckedIOException
+	 *             if the run cannot be written, in which case the entries,
+	 *             the new one included, stay in memory
+	 */
+	public Entry<K, V> insert(K key, V value) throws InvalidKeyException {
+		this.checkOpen();
+		Entry<K, V> entry = _buffer.insert(key, value);
+		_size++;
+		if (_buffer.size() >= _memoryBudget) {
+			this.spill();
+		}
+		return entry;
+	}
+
+	/**
+	 * Removes and returns an entry with the minimum key.
+	 *
+	 * @throws EmptyPriorityQueueException
+	 *             if the queue is empty
+	 * @throws UncheckedIOException
+	 *             if a run cannot be read, in which case nothing is removed
+	 */
+	public Entry<K, V> removeMin() throws EmptyPriorityQueueException {
+		this.checkOpen();
+		if (_size == 0) {
+			throw new EmptyPriorityQueueException("Cannot get minimum of an empty Heap");
+		}
+		if (this.minIsBuffered()) {
+			Entry<K, V> entry = _buffer.removeMin();
+			_size--;
+			return entry;
+		}
+
+		// The size only goes down once the run has moved on to its next
+		// entry, since a failed read leaves the head where it was
+		Run<K, V> run = _heads.min().getValue();
+		Entry<K, V> entry = this.entry(run);
+		boolean advanced;
+		try {
+			advanced = run.advance();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		_size--;
+		if (advanced) {
+			_heads.removeMinThenInsert(run._key, run);
+		} else {
+			_heads.removeMin();
+			_runs.remove(run);
+			try {
+				run.delete();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+		return entry;
+	}
+
+	/**
+	 * Deletes the run files that are left. The queue must not be used
+	 * afterwards.
+	 */
+	public void close() throws IOException {
+		if (_closed) {
+			return;
+		}
+		_closed = true;
+		IOException failure = null;
+		for (Run<K, V> run : _runs) {
+			try {
+				run.delete();
+			} catch (IOException e) {
+				failure = e;
+			}
+		}
+		_runs.clear();
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	/*
+	 * This method writes the entries in memory to a new run file in key order
+	 * and adds the run's first entry to the heads, after merging runs to make
+	 * room for it. If the run cannot be written, the entries go back into
+	 * memory
+	 */
+
+	private void spill() {
+		this.mergeRuns();
+		int count = _buffer.size();
+		List<Entry<K, V>> sorted = new ArrayList<>(count);
+		_buffer.drainTo(sorted, count);
+
+		Run<K, V> run;
+		try {
+			run = this.writeRun(sorted.iterator(), 0);
+		} catch (RuntimeException e) {
+			_buffer.insertAll(sorted);
+			throw e;
+		}
+		run._head = _heads.insert(run._key, run);
+		_runs.add(run);
+	}
+
+	/*
+	 * This method merges runs until no level holds fanIn runs and there is
+	 * room for one more run: the runs of the lowest full level, or else the
+	 * fanIn runs of the lowest levels
+	 */
+
+	private void mergeRuns() {
+		while (true) {
+			List<Run<K, V>> byLevel = new ArrayList<>(_runs);
+			Collections.sort(byLevel, new Comparator<Run<K, V>>() {
+				@Override
+				public int compare(Run<K, V> first, Run<K, V> second) {
+					return Integer.compare(first._level, second._level);
+				}
+			});
+
+			List<Run<K, V>> merged = null;
+			for (int i = 0; i + _fanIn <= byLevel.size() && merged == null; i++) {
+				if (byLevel.get(i)._level == byLevel.get(i + _fanIn - 1)._level) {
+					merged = byLevel.subList(i, i + _fanIn);
+				}
+			}
+			if (merged == null) {
+				if (byLevel.size() < _maxRuns) {
+					return;
+				}
+				merged = byLevel.subList(0, _fanIn);
+			}
+			this.merge(merged);
+		}
+	}
+
+	/*
+	 * This method merges runs into one run, a level above the highest of
+	 * them. The runs are read through readers of their own, from their heads,
+	 * and are only dropped once the merged run has been written, so a merge
+	 * that fails leaves them as they were
+	 */
+
+	private void merge(List<Run<K, V>> runs) {
+		int level = 0;
+		List<Run<K, V>> readers = new ArrayList<>(runs.size());
+		Run<K, V> merged;
+		try {
+			for (Run<K, V> run : runs) {
+				level = Math.max(level, run._level + 1);
+				Run<K, V> reader = run.reader();
+				readers.add(reader);
+				reader.advance();
+			}
+			merged = this.writeRun(new LoserTreeMerger<Entry<K, V>>(readers, new Comparator<Entry<K, V>>() {
+				@Override
+				public int compare(Entry<K, V> first, Entry<K, V> second) {
+					return _comparator.compare(first.getKey(), second.getKey());
+				}
+			}), level);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			for (Run<K, V> reader : readers) {
+				try {
+					reader.close();
+				} catch (IOException e) {
+					// A reader only reads, so there is nothing to lose
+				}
+			}
+		}
+
+		IOException failure = null;
+		for (Run<K, V> run : runs) {
+			_heads.remove(run._head);
+			_runs.remove(run);
+			try {
+				run.delete();
+			} catch (IOException e) {
+				failure = e;
+			}
+		}
+		merged._head = _heads.insert(merged._key, merged);
+		_runs.add(merged);
+		if (failure != null) {
+			throw new UncheckedIOException(failure);
+		}
+	}
+
+	/*
+	 * This method writes sorted entries to a new run file and opens the run
+	 * with its first entry read. If that fails, the file is deleted
+	 */
+
+	private Run<K, V> writeRun(Iterator<? extends Entry<K, V>> entries, int level) {
+		Path file;
+		try {
+			file = Files.createTempFile(_runDirectory, "run", ".bin");
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		Run<K, V> run = null;
+		try {
+			long count = 0;
+			try (RunOutput out = new RunOutput(FileChannel.open(file, StandardOpenOption.WRITE),
+					WRITE_BUFFER_BYTES)) {
+				while (entries.hasNext()) {
+					Entry<K, V> entry = entries.next();
+					_codec.writeKey(entry.getKey(), out);
+					_codec.writeValue(entry.getValue(), out);
+					count++;
+				}
+			}
+
+			run = new Run<>(file, 0, count, _codec, level);
+			run.advance();
+			return run;
+		} catch (IOException e) {
+			discard(file, run, e);
+			throw new UncheckedIOException(e);
+		} catch (RuntimeException e) {
+			discard(file, run, e);
+			throw e;
+		}
+	}
+
+	// This method deletes the file of a run that could not be written
+
+	private static void discard(Path file, Run<?, ?> run, Exception failure) {
+		try {
+			if (run != null) {
+				run.close();
+			}
+			Files.deleteIfExists(file);
+		} catch (IOException e) {
+			failure.addSuppressed(e);
+		}
+	}
+
+	// This method returns whether the minimum is in memory rather than in a run
+
+	private boolean minIsBuffered() {
+		if (_heads.isEmpty()) {
+			return true;
+		}
+		if (_buffer.isEmpty()) {
+			return false;
+		}
+		return _comparator.compare(_buffer.min().getKey(), _heads.min().getKey()) <= 0;
+	}
+
+	// This method returns a new entry holding the head of a run
+
+	private Entry<K, V> entry(Run<K, V> run) {
+		MyHeapEntry<K, V> entry = new MyHeapEntry<K, V>();
+		entry.setKey(run._key);
+		entry.setValue(run._value);
+		return entry;
+	}
+
+	private void checkOpen() {
+		if (_closed) {
+			throw new IllegalStateException("Queue is closed");
+		}
+	}
+
+	/*
+	 * A run file being read, with its level, its current head entry and the
+	 * offset at which the head starts, the number of entries not yet read and
+	 * the entry of the head in the heads. A merge reads it as an iterator of
+	 * its entries, starting with the head
+	 */
+
+	private static class Run<K, V> implements Iterator<Entry<K, V>> {
+
+		private final Path _file;
+		private final RunInput _in;
+		private final RunCodec<K, V> _codec;
+		private final int _level;
+		private long _remaining;
+		private boolean _hasHead;
+		private long _headOffset;
+		private K _key;
+		private V _value;
+		private Entry<K, Run<K, V>> _head;
+
+		Run(Path file, long offset, long count, RunCodec<K, V> codec, int level) throws IOException {
+			_file = file;
+			_in = new RunInput(FileChannel.open(file, StandardOpenOption.READ), READ_BUFFER_BYTES);
+			_codec = codec;
+			_level = level;
+			_remaining = count;
+			_hasHead = false;
+			try {
+				_in.seek(offset);
+			} catch (IOException e) {
+				_in.close();
+				throw e;
+			}
+		}
+
+		/*
+		 * This method reads the next entry into the head, or returns false if
+		 * the run is used up. The head is only replaced once the whole entry
+		 * has been read; if that fails, the run goes back to the start of the
+		 * entry, so that reading it again reads all of it
+		 */
+
+		boolean advance() throws IOException {
+			if (_remaining == 0) {
+				_hasHead = false;
+				_key = null;
+				_value = null;
+				return false;
+			}
+			long offset = _in.position();
+			K key;
+			V value;
+			try {
+				key = _codec.readKey(_in);
+				value = _codec.readValue(_in);
+			} catch (IOException | RuntimeException e) {
+				_in.seek(offset);
+				throw e;
+			}
+			_headOffset = offset;
+			_key = key;
+			_value = value;
+			_hasHead = true;
+			_remaining--;
+			return true;
+		}
+
+		// This method opens a second run over the same file, from the head on
+
+		Run<K, V> reader() throws IOException {
+			return new Run<>(_file, _headOffset, _hasHead ? _remaining + 1 : 0, _codec, _level);
+		}
+		public boolean hasNext() {
+			return _hasHead;
+		}
+
+		public Entry<K, V> next() {
+			if (!_hasHead) {
+				throw new NoSuchElementException();
+			}
+			MyHeapEntry<K, V> entry = new MyHeapEntry<K, V>();
+			entry.setKey(_key);
+			entry.setValue(_value);
+			try {
+				this.advance();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			return entry;
+		}
+
+		void close() throws IOException {
+			_in.close();
+		}
+
+		void delete() throws IOException {
+			_in.close();
+			Files.deleteIfExists(_file);
+		}
+	}
+
+}
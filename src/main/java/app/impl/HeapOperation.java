@@ -0,0 +1,11 @@
+package app.impl;
+
+/**
+ * The operations of MyHeap that HeapMetrics counts. removeMin(int) and drainTo
+ * both count as REMOVE_MIN_BATCH.
+ */
+
+public enum HeapOperation {
+	INSERT, INSERT_ALL, REMOVE_MIN, REMOVE_MIN_BATCH, INSERT_THEN_REMOVE_MIN, REMOVE_MIN_THEN_INSERT, REMOVE, REPLACE_KEY,
+	REPLACE_VALUE, MELD
+}
@@ -0,0 +1,111 @@
+package app.impl;
+
+import java.util.Comparator;
+import java.util.function.Supplier;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import jdk.jfr.Timespan;
+
+/**
+ * A JDK Flight Recorder event for a MyHeap operation, so that slow heap
+ * operations show up in a recording next to the GC pauses and safepoints
+ * around them. Only operations that take longer than the threshold are
+ * recorded: 10 ms by default, which a recording can change with the setting
+ * "app.impl.HeapOperation#threshold".
+ *
+ * The event carries the operation, the heap size after it, how many levels
+ * its sifts moved entries by, and how much of its time went into the
+ * comparator. The comparator is only timed while the event is enabled in a
+ * running recording; otherwise MyHeap creates no event at all. Flight
+ * Recorder needs JDK 11 or later, or JDK 8u262 or later. MyHeap only reaches
+ * this class by name through HeapOperationTracing, so the heap still runs
+ * without it, and a build on JDK 8 leaves it out.
+ */
+
+@Name("app.impl.HeapOperation")
+@Label("Heap Operation")
+@Category("Heap")
+@Description("A MyHeap operation that took longer than the threshold")
+@Threshold("10 ms")
+@StackTrace(true)
+public class HeapOperationEvent extends Event implements HeapOperationTrace {
+
+	// An event that is never committed, only asked whether events are enabled
+	private static final HeapOperationEvent PROBE = new HeapOperationEvent();
+
+	// The fields are named as they appear in recordings
+
+	@Label("Operation")
+	String operation;
+
+	@Label("Size")
+	@Description("The number of entries in the heap after the operation")
+	int size;
+
+	@Label("Sift Depth")
+	@Description("The number of levels the operation's sifts moved entries by")
+	int siftDepth;
+
+	@Label("Comparator Time")
+	@Timespan(Timespan.NANOSECONDS)
+	long comparatorTime;
+
+	/**
+	 * Creates the events of heap operations for HeapOperationTracing, which
+	 * loads this class by name.
+	 */
+	static final class Factory implements Supplier<HeapOperationTrace> {
+
+		/**
+		 * @return a new event if the event is enabled in a running recording,
+		 *         or null
+		 */
+		@Override
+		public HeapOperationTrace get() {
+			return PROBE.isEnabled() ? new HeapOperationEvent() : null;
+		}
+
+	}
+
+	// This method wraps a comparator so that the time of every call is added
+	// to the event
+
+	@Override
+	public <K> Comparator<K> timing(final Comparator<K> comparator) {
+		return new Comparator<K>() {
+			@Override
+			public int compare(K first, K second) {
+				long start = System.nanoTime();
+				try {
+					return comparator.compare(first, second);
+				} finally {
+					comparatorTime += System.nanoTime() - start;
+				}
+			}
+		};
+	}
+
+	@Override
+	public void addSiftDepth(int depth) {
+		siftDepth += depth;
+	}
+
+	// This method ends the event and commits it if it took long enough
+
+	@Override
+	public void end(HeapOperation heapOperation, int heapSize) {
+		this.end();
+		if (this.shouldCommit()) {
+			operation = heapOperation.name();
+			size = heapSize;
+			this.commit();
+		}
+	}
+
+}
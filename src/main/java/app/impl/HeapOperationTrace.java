@@ -0,0 +1,34 @@
+package app.impl;
+
+import java.util.Comparator;
+
+/**
+ * The trace of one MyHeap operation while it is being recorded. MyHeap only
+ * talks to Flight Recorder through this interface, and gets traces from
+ * HeapOperationTracing, so that the heap itself never links against jdk.jfr
+ * and still loads on runtimes without it.
+ */
+
+interface HeapOperationTrace {
+
+	/**
+	 * Starts timing the operation.
+	 */
+	void begin();
+
+	/**
+	 * Wraps a comparator so that the time of every call is added to the trace.
+	 */
+	<K> Comparator<K> timing(Comparator<K> comparator);
+
+	/**
+	 * Adds the number of levels a sift moved an entry by.
+	 */
+	void addSiftDepth(int depth);
+
+	/**
+	 * Ends the trace, recording it if the operation took long enough.
+	 */
+	void end(HeapOperation operation, int size);
+
+}
@@ -0,0 +1,49 @@
+package app.impl;
+
+import java.util.function.Supplier;
+
+/**
+ * Hands out the traces of MyHeap operations. The Flight Recorder event,
+ * HeapOperationEvent, is loaded by name and only if jdk.jfr.Event exists, so
+ * on a runtime without Flight Recorder (or a build that left the event out)
+ * tracing is a no-op: begin() always returns null and MyHeap never times its
+ * comparator.
+ */
+
+final class HeapOperationTracing {
+
+	private static final String EVENT_FACTORY = "app.impl.HeapOperationEvent$Factory";
+
+	// Returns a new trace if the event is enabled in a running recording, or
+	// null; the factory itself is null when Flight Recorder is not available
+	private static final Supplier<HeapOperationTrace> FACTORY = load();
+
+	private HeapOperationTracing() {
+	}
+
+	/**
+	 * @return a trace for an operation that is starting, or null if it is not
+	 *         being recorded
+	 */
+	static HeapOperationTrace begin() {
+		return (FACTORY == null) ? null : FACTORY.get();
+	}
+
+	/**
+	 * @return whether heap operations can be recorded on this runtime at all
+	 */
+	static boolean isAvailable() {
+		return FACTORY != null;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Supplier<HeapOperationTrace> load() {
+		try {
+			Class.forName("jdk.jfr.Event");
+			return (Supplier<HeapOperationTrace>) Class.forName(EVENT_FACTORY).getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException | LinkageError | ClassCastException e) {
+			return null;
+		}
+	}
+
+}
@@ -0,0 +1,102 @@
+package app.impl;
+
+import java.util.Arrays;
+
+/**
+ * A snapshot of the counters of a HeapMetrics, taken by HeapMetrics.snapshot
+ * or MyHeap.getStats. A snapshot never changes, so two snapshots can be
+ * compared to see what happened in between.
+ */
+
+public class HeapStats {
+
+	private final long _comparisons;
+	private final long _prefixComparisons;
+	private final long _sifts;
+	private final long _moves;
+	private final long[] _siftDepths;
+	private final long[] _operations;
+	private final int _highWaterSize;
+
+	HeapStats(long comparisons, long prefixComparisons, long sifts, long moves, long[] siftDepths, long[] operations,
+			int highWaterSize) {
+		_comparisons = comparisons;
+		_prefixComparisons = prefixComparisons;
+		_sifts = sifts;
+		_moves = moves;
+		_siftDepths = siftDepths;
+		_operations = operations;
+		_highWaterSize = highWaterSize;
+	}
+
+	/**
+	 * @return the number of comparator calls
+	 */
+	public long getComparisons() {
+		return _comparisons;
+	}
+
+	/**
+	 * @return the number of comparisons decided by the sort prefixes of a
+	 *         KeyNormalizer alone, without calling the comparator
+	 */
+	public long getPrefixComparisons() {
+		return _prefixComparisons;
+	}
+
+	/**
+	 * @return the number of upheaps and downheaps
+	 */
+	public long getSifts() {
+		return _sifts;
+	}
+
+	/**
+	 * @return the number of levels entries were moved by, over all sifts
+	 */
+	public long getMoves() {
+		return _moves;
+	}
+
+	/**
+	 * @return the average number of levels moved per sift, or 0 if there was
+	 *         no sift
+	 */
+	public double getMeanSiftDepth() {
+		return (_sifts == 0) ? 0 : (double) _moves / _sifts;
+	}
+
+	/**
+	 * @return the number of sifts that moved an entry by each number of
+	 *         levels, indexed by the number of levels
+	 */
+	public long[] getSiftDepthHistogram() {
+		return Arrays.copyOf(_siftDepths, _siftDepths.length);
+	}
+
+	/**
+	 * @return the number of calls of the given operation
+	 */
+	public long getOperationCount(HeapOperation operation) {
+		return _operations[operation.ordinal()];
+	}
+
+	/**
+	 * @return the largest size the heap has had
+	 */
+	public int getHighWaterSize() {
+		return _highWaterSize;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder("HeapStats[comparisons=").append(_comparisons)
+				.append(", prefixComparisons=").append(_prefixComparisons).append(", sifts=").append(_sifts)
+				.append(", moves=").append(_moves).append(", highWaterSize=").append(_highWaterSize);
+		for (HeapOperation operation : HeapOperation.values()) {
+			builder.append(", ").append(operation).append('=').append(_operations[operation.ordinal()]);
+		}
+		return builder.append(']').toString();
+	}
+
+}
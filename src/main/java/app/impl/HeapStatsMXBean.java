@@ -0,0 +1,60 @@
+package app.impl;
+
+import java.util.Map;
+
+/**
+ * The JMX view of a HeapMetrics, registered with HeapMetrics.register. Each
+ * attribute is read from the live counters, so attributes read one after the
+ * other may come from slightly different moments.
+ */
+
+public interface HeapStatsMXBean {
+
+	/**
+	 * @return the number of comparator calls
+	 */
+	long getComparisons();
+
+	/**
+	 * @return the number of comparisons decided by the sort prefixes of a
+	 *         KeyNormalizer alone, without calling the comparator
+	 */
+	long getPrefixComparisons();
+
+	/**
+	 * @return the number of upheaps and downheaps
+	 */
+	long getSifts();
+
+	/**
+	 * @return the number of levels entries were moved by, over all sifts
+	 */
+	long getMoves();
+
+	/**
+	 * @return the average number of levels moved per sift
+	 */
+	double getMeanSiftDepth();
+
+	/**
+	 * @return the number of sifts that moved an entry by each number of
+	 *         levels, indexed by the number of levels
+	 */
+	long[] getSiftDepthHistogram();
+
+	/**
+	 * @return the number of calls of each operation, by HeapOperation name
+	 */
+	Map<String, Long> getOperationCounts();
+
+	/**
+	 * @return the largest size the heap has had
+	 */
+	int getHighWaterSize();
+
+	/**
+	 * Sets every counter back to zero.
+	 */
+	void reset();
+
+}
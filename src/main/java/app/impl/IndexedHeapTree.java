@@ -0,0 +1,55 @@
+package app.impl;
+
+import net.datastructures.CompleteBinaryTree;
+import net.datastructures.Position;
+
+/**
+ * A complete binary tree whose nodes can also be addressed by their slot, the
+ * level-order index of the node (the root is slot 0, the last node is slot
+ * size() - 1). MyHeap sifts entries by slot so that it can run on top of
+ * either the linked tree or the array-backed tree. All methods must run in
+ * O(1) time (amortized for add).
+ */
+
+public interface IndexedHeapTree<E> extends CompleteBinaryTree<E> {
+
+	/**
+	 * Returns the element stored in the given slot.
+	 *
+	 * @param slot
+	 *            the level-order index of the node
+	 * @return the element stored in that node
+	 */
+	public E get(int slot);
+
+	/**
+	 * Replaces the element stored in the given slot.
+	 *
+	 * @param slot
+	 *            the level-order index of the node
+	 * @param element
+	 *            to be stored in that node
+	 * @return the element formerly stored in that node
+	 */
+	public E set(int slot, E element);
+
+	/**
+	 * Returns the position of the node in the given slot, for callers (such as
+	 * the visualizer) that still walk the tree through positions.
+	 *
+	 * @param slot
+	 *            the level-order index of the node
+	 * @return the position of that node
+	 */
+	public Position<E> positionAt(int slot);
+
+	/**
+	 * Makes room for at least the given number of nodes, so that a run of adds
+	 * does not have to grow the storage more than once.
+	 *
+	 * @param capacity
+	 *            the number of nodes the tree should be able to hold
+	 */
+	public void ensureCapacity(int capacity);
+
+}
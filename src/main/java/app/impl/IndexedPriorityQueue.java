@@ -0,0 +1,460 @@
+package app.impl;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+import net.datastructures.EmptyPriorityQueueException;
+import net.datastructures.InvalidEntryException;
+import net.datastructures.InvalidKeyException;
+
+/**
+ * A priority queue whose entries are addressed by an id chosen by the caller
+ * (a job id, for example) rather than by the Entry that MyHeap hands out, so
+ * callers do not have to keep a map from their ids to entries.
+ *
+ * The ids live in an open-addressing table inside the queue, with linear
+ * probing and at most half of its buckets in use. Each bucket holds an id and
+ * the heap slot of its entry, and each heap slot holds the bucket of its id,
+ * so when a sift moves an entry the bucket is updated in place, without
+ * hashing the id again. Removed ids are taken out of the table by shifting
+ * the following buckets back, so there are no tombstones.
+ *
+ * The ids must have consistent equals and hashCode methods and must not
+ * change while they are in the queue. For ids that are small non-negative
+ * ints, IntIndexedPriorityQueue indexes them with a plain array instead.
+ *
+ * size, isEmpty, the min accessors and the id lookups run in O(1) expected
+ * time; upsert, updateKey, removeById and removeMin run in O(log n) time.
+ */
+
+public class IndexedPriorityQueue<I, K, V> {
+
+	private static final int DEFAULT_CAPACITY = 16;
+
+	// The key, value and bucket of the entry in each slot, in heap order
+	private Object[] _keys;
+	private Object[] _values;
+	private int[] _buckets;
+
+	// The id in each bucket (null if the bucket is free) and the slot of its
+	// entry
+	private Object[] _tableIds;
+	private int[] _tableSlots;
+
+	private int _size;
+	private Comparator<K> _comparator;
+
+	/**
+	 * Creates an empty queue with the given comparator.
+	 *
+	 * @param comparator
+	 *            the comparator to be used for keys
+	 * @throws IllegalArgumentException
+	 *             if the comparator is null
+	 */
+	public IndexedPriorityQueue(Comparator<K> comparator) {
+		this(comparator, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Creates an empty queue with the given comparator, which can hold the
+	 * given number of entries before it has to grow.
+	 *
+	 * @param comparator
+	 *            the comparator to be used for keys
+	 * @param initialCapacity
+	 *            the number of entries to make room for
+	 * @throws IllegalArgumentException
+	 *             if the comparator is null or the capacity is negative
+	 */
+	public IndexedPriorityQueue(Comparator<K> comparator, int initialCapacity) {
+		if (comparator == null) {
+			throw new IllegalArgumentException();
+		}
+		if (initialCapacity < 0) {
+			throw new IllegalArgumentException("Capacity must not be negative");
+		}
+		int capacity = Math.max(initialCapacity, 1);
+		_keys = new Object[capacity];
+		_values = new Object[capacity];
+		_buckets = new int[capacity];
+		int tableSize = Integer.highestOneBit(Math.max(2 * capacity - 1, 1)) << 1;
+		_tableIds = new Object[tableSize];
+		_tableSlots = new int[tableSize];
+		_size = 0;
+		_comparator = comparator;
+	}
+
+	/**
+	 * @return the number of entries in the queue
+	 */
+	public int size() {
+		return _size;
+	}
+
+	/**
+	 * @return true if the queue is empty; false otherwise
+	 */
+	public boolean isEmpty() {
+		return _size == 0;
+	}
+
+	/**
+	 * @return whether an entry with the given id is in the queue
+	 */
+	public boolean containsId(I id) {
+		return id != null && this.find(id) >= 0;
+	}
+
+	/**
+	 * Inserts an entry with the given id, or replaces the key and value of the
+	 * entry that already has it.
+	 *
+	 * @param id
+	 *            the id of the entry
+	 * @param key
+	 *            the key of the entry
+	 * @param value
+	 *            the value of the entry
+	 * @return the old key of the entry, or null if the id was not in the
+	 *         queue
+	 * @throws IllegalArgumentException
+	 *             if the id is null
+	 * @throws InvalidKeyException
+	 *             if the key is not suitable for this queue
+	 */
+	@SuppressWarnings("unchecked")
+	public K upsert(I id, K key, V value) throws IllegalArgumentException, InvalidKeyException {
+		this.checkId(id);
+		this.checkKey(key);
+		int bucket = this.find(id);
+		if (bucket >= 0) {
+			int slot = _tableSlots[bucket];
+			K oldKey = (K) _keys[slot];
+			_values[slot] = value;
+			this.resift(slot, key, oldKey);
+			return oldKey;
+		}
+
+		if (_size == _keys.length) {
+			this.grow();
+		}
+		bucket = this.freeBucket(id);
+		_tableIds[bucket] = id;
+		_size++;
+		this.siftUp(_size - 1, key, value, bucket);
+		return null;
+	}
+
+	/**
+	 * Replaces the key of the entry with the given id.
+	 *
+	 * @return the old key of the entry
+	 * @throws InvalidEntryException
+	 *             if no entry has the id
+	 * @throws InvalidKeyException
+	 *             if the key is not suitable for this queue
+	 */
+	@SuppressWarnings("unchecked")
+	public K updateKey(I id, K key) throws InvalidEntryException, InvalidKeyException {
+		int slot = this.checkedSlot(id);
+		this.checkKey(key);
+		K oldKey = (K) _keys[slot];
+		this.resift(slot, key, oldKey);
+		return oldKey;
+	}
+
+	/**
+	 * Removes the entry with the given id and returns its value.
+	 *
+	 * @throws InvalidEntryException
+	 *             if no entry has the id
+	 */
+	public V removeById(I id) throws InvalidEntryException {
+		return this.removeSlot(this.checkedSlot(id));
+	}
+
+	/**
+	 * @return the key of the entry with the given id
+	 * @throws InvalidEntryException
+	 *             if no entry has the id
+	 */
+	@SuppressWarnings("unchecked")
+	public K keyOf(I id) throws InvalidEntryException {
+		return (K) _keys[this.checkedSlot(id)];
+	}
+
+	/**
+	 * @return the value of the entry with the given id
+	 * @throws InvalidEntryException
+	 *             if no entry has the id
+	 */
+	@SuppressWarnings("unchecked")
+	public V valueOf(I id) throws InvalidEntryException {
+		return (V) _values[this.checkedSlot(id)];
+	}
+
+	/**
+	 * Returns the id of the entry with the minimum key.
+	 *
+	 * @throws EmptyPriorityQueueException
+	 *             if the queue is empty
+	 */
+	@SuppressWarnings("unchecked")
+	public I minId() throws EmptyPriorityQueueException {
+		this.checkNotEmpty();
+		return (I) _tableIds[_buckets[0]];
+	}
+
+	/**
+	 * Returns the minimum key in the queue.
+	 *
+	 * @throws EmptyPriorityQueueException
+	 *             if the queue is empty
+	 */
+	@SuppressWarnings("unchecked")
+	public K minKey() throws EmptyPriorityQueueException {
+		this.checkNotEmpty();
+		return (K) _keys[0];
+	}
+
+	/**
+	 * Returns the value of the entry with the minimum key.
+	 *
+	 * @throws EmptyPriorityQueueException
+	 *             if the queue is empty
+	 */
+	@SuppressWarnings("unchecked")
+	public V minValue() throws EmptyPriorityQueueException {
+		this.checkNotEmpty();
+		return (V) _values[0];
+	}
+
+	/**
+	 * Removes the entry with the minimum key and returns its id. Read minKey()
+	 * or minValue() first if they are needed as well.
+	 *
+	 * @throws EmptyPriorityQueueException
+	 *             if the queue is empty
+	 */
+	@SuppressWarnings("unchecked")
+	public I removeMin() throws EmptyPriorityQueueException {
+		if (_size == 0) {
+			throw new EmptyPriorityQueueException("Cannot get minimum of an empty Heap");
+		}
+		I id = (I) _tableIds[_buckets[0]];
+		this.removeSlot(0);
+		return id;
+	}
+
+	/*
+	 * This method removes the entry in the given slot and its id, fills the
+	 * slot with the last entry and sifts that entry to its place
+	 */
+
+	@SuppressWarnings("unchecked")
+	private V removeSlot(int slot) {
+		V value = (V) _values[slot];
+		this.deleteBucket(_buckets[slot]);
+
+		int last = _size - 1;
+		K lastKey = (K) _keys[last];
+		Object lastValue = _values[last];
+		int lastBucket = _buckets[last];
+		_keys[last] = null;
+		_values[last] = null;
+		_size--;
+
+		if (slot != last) {
+			if (slot > 0 && _comparator.compare(lastKey, (K) _keys[(slot - 1) / 2]) < 0) {
+				this.siftUp(slot, lastKey, lastValue, lastBucket);
+			} else {
+				this.siftDown(slot, lastKey, lastValue, lastBucket);
+			}
+		}
+		return value;
+	}
+
+	// This method gives the entry in a slot a new key and sifts it to its place
+
+	private void resift(int slot, K key, K oldKey) {
+		Object value = _values[slot];
+		int bucket = _buckets[slot];
+		if (_comparator.compare(key, oldKey) < 0) {
+			this.siftUp(slot, key, value, bucket);
+		} else {
+			this.siftDown(slot, key, value, bucket);
+		}
+	}
+
+	/*
+	 * This method moves the hole at the given slot up until the key fits, then
+	 * stores the entry there
+	 */
+
+	@SuppressWarnings("unchecked")
+	private void siftUp(int slot, K key, Object value, int bucket) {
+		while (slot > 0) {
+			int parent = (slot - 1) / 2;
+			if (_comparator.compare((K) _keys[parent], key) <= 0) {
+				break;
+			}
+			this.move(parent, slot);
+			slot = parent;
+		}
+		this.store(slot, key, value, bucket);
+	}
+
+	/*
+	 * This method moves the hole at the given slot down until the key fits,
+	 * then stores the entry there
+	 */
+
+	@SuppressWarnings("unchecked")
+	private void siftDown(int slot, K key, Object value, int bucket) {
+		int half = _size / 2;
+		while (slot < half) {
+			int child = 2 * slot + 1;
+			if (child + 1 < _size && _comparator.compare((K) _keys[child + 1], (K) _keys[child]) < 0) {
+				child++;
+			}
+			if (_comparator.compare(key, (K) _keys[child]) <= 0) {
+				break;
+			}
+			this.move(child, slot);
+			slot = child;
+		}
+		this.store(slot, key, value, bucket);
+	}
+
+	// Moving an entry updates the slot in its id's bucket directly
+
+	private void move(int from, int to) {
+		_keys[to] = _keys[from];
+		_values[to] = _values[from];
+		_buckets[to] = _buckets[from];
+		_tableSlots[_buckets[to]] = to;
+	}
+
+	private void store(int slot, Object key, Object value, int bucket) {
+		_keys[slot] = key;
+		_values[slot] = value;
+		_buckets[slot] = bucket;
+		_tableSlots[bucket] = slot;
+	}
+
+	// This method returns the bucket holding an id, or -1 if it is not there
+
+	private int find(Object id) {
+		int mask = _tableIds.length - 1;
+		for (int bucket = this.home(id, mask);; bucket = (bucket + 1) & mask) {
+			Object candidate = _tableIds[bucket];
+			if (candidate == null) {
+				return -1;
+			}
+			if (candidate.equals(id)) {
+				return bucket;
+			}
+		}
+	}
+
+	// This method returns the first free bucket on the probe path of an id
+
+	private int freeBucket(Object id) {
+		int mask = _tableIds.length - 1;
+		int bucket = this.home(id, mask);
+		while (_tableIds[bucket] != null) {
+			bucket = (bucket + 1) & mask;
+		}
+		return bucket;
+	}
+
+	/*
+	 * This method frees a bucket, then moves back each following id of the
+	 * probe run whose home bucket does not lie between the hole and the id, so
+	 * that no lookup ever stops early at the hole
+	 */
+
+	private void deleteBucket(int bucket) {
+		int mask = _tableIds.length - 1;
+		int hole = bucket;
+		int next = (hole + 1) & mask;
+		while (_tableIds[next] != null) {
+			int home = this.home(_tableIds[next], mask);
+			if (((next - home) & mask) >= ((next - hole) & mask)) {
+				_tableIds[hole] = _tableIds[next];
+				_tableSlots[hole] = _tableSlots[next];
+				_buckets[_tableSlots[hole]] = hole;
+				hole = next;
+			}
+			next = (next + 1) & mask;
+		}
+		_tableIds[hole] = null;
+	}
+
+	private int home(Object id, int mask) {
+		int hash = id.hashCode() * 0x9E3779B9;
+		return (hash ^ (hash >>> 16)) & mask;
+	}
+
+	// This method doubles the heap arrays and the table, rehashing every id
+
+	private void grow() {
+		int capacity = 2 * _keys.length;
+		_keys = Arrays.copyOf(_keys, capacity);
+		_values = Arrays.copyOf(_values, capacity);
+		_buckets = Arrays.copyOf(_buckets, capacity);
+
+		if (2 * capacity > _tableIds.length) {
+			Object[] oldIds = _tableIds;
+			int[] oldSlots = _tableSlots;
+			_tableIds = new Object[2 * oldIds.length];
+			_tableSlots = new int[2 * oldIds.length];
+			for (int oldBucket = 0; oldBucket < oldIds.length; oldBucket++) {
+				if (oldIds[oldBucket] != null) {
+					int bucket = this.freeBucket(oldIds[oldBucket]);
+					_tableIds[bucket] = oldIds[oldBucket];
+					_tableSlots[bucket] = oldSlots[oldBucket];
+					_buckets[oldSlots[oldBucket]] = bucket;
+				}
+			}
+		}
+	}
+
+	private void checkId(I id) throws IllegalArgumentException {
+		if (id == null) {
+			throw new IllegalArgumentException("Id must not be null");
+		}
+	}
+
+	private int checkedSlot(I id) throws InvalidEntryException {
+		int bucket = (id == null) ? -1 : this.find(id);
+		if (bucket < 0) {
+			throw new InvalidEntryException("Id is not in this queue");
+		}
+		return _tableSlots[bucket];
+	}
+
+	/*
+	 * This method checks that a key can be stored in this queue: it must not
+	 * be null, and the comparator must accept it
+	 */
+
+	private void checkKey(K key) throws InvalidKeyException {
+		if (key == null) {
+			throw new InvalidKeyException("Must Enter Suitable Key");
+		}
+		try {
+			_comparator.compare(key, key);
+		} catch (ClassCastException e) {
+			throw new InvalidKeyException("Must Enter Suitable Key");
+		}
+	}
+
+	private void checkNotEmpty() throws EmptyPriorityQueueException {
+		if (_size == 0) {
+			throw new EmptyPriorityQueueException("Heap is Empty");
+		}
+	}
+
+}
@@ -0,0 +1,384 @@
+package app.impl;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+import net.datastructures.EmptyPriorityQueueException;
+import net.datastructures.InvalidEntryException;
+import net.datastructures.InvalidKeyException;
+
+/**
+ * A priority queue addressed by ids like IndexedPriorityQueue, for ids that
+ * are small non-negative ints (vertex numbers, array indices). The slot of
+ * each id is kept in a plain int array indexed by the id, so finding an entry
+ * costs one array read, and a sift that moves an entry updates its slot with
+ * one array write.
+ *
+ * The index grows to cover the largest id upserted, so it uses memory in
+ * proportion to that id rather than to the number of entries; for large or
+ * sparse ids, use IndexedPriorityQueue instead.
+ *
+ * size, isEmpty, the min accessors and the id lookups run in O(1) time;
+ * upsert, updateKey, removeById and removeMin run in O(log n) time.
+ */
+
+public class IntIndexedPriorityQueue<K, V> {
+
+	private static final int DEFAULT_CAPACITY = 16;
+
+	// The key, value and id of the entry in each slot, in heap order
+	private Object[] _keys;
+	private Object[] _values;
+	private int[] _ids;
+
+	// The slot of each id, or -1 if the id is not in the queue
+	private int[] _slots;
+
+	private int _size;
+	private Comparator<K> _comparator;
+
+	/**
+	 * Creates an empty queue with the given comparator.
+	 *
+	 * @param comparator
+	 *            the comparator to be used for keys
+	 * @throws IllegalArgumentException
+	 *             if the comparator is null
+	 */
+	public IntIndexedPriorityQueue(Comparator<K> comparator) {
+		this(comparator, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Creates an empty queue with the given comparator, with room for the ids
+	 * below the given bound before it has to grow.
+	 *
+	 * @param comparator
+	 *            the comparator to be used for keys
+	 * @param idBound
+	 *            one more than the largest id expected
+	 * @throws IllegalArgumentException
+	 *             if the comparator is null or the bound is negative
+	 */
+	public IntIndexedPriorityQueue(Comparator<K> comparator, int idBound) {
+		if (comparator == null) {
+			throw new IllegalArgumentException();
+		}
+		if (idBound < 0) {
+			throw new IllegalArgumentException("Capacity must not be negative");
+		}
+		int capacity = Math.max(idBound, 1);
+		_keys = new Object[capacity];
+		_values = new Object[capacity];
+		_ids = new int[capacity];
+		_slots = new int[capacity];
+		Arrays.fill(_slots, -1);
+		_size = 0;
+		_comparator = comparator;
+	}
+
+	/**
+	 * @return the number of entries in the queue
+	 */
+	public int size() {
+		return _size;
+	}
+
+	/**
+	 * @return true if the queue is empty; false otherwise
+	 */
+	public boolean isEmpty() {
+		return _size == 0;
+	}
+
+	/**
+	 * @return whether an entry with the given id is in the queue
+	 */
+	public boolean containsId(int id) {
+		return id >= 0 && id < _slots.length && _slots[id] >= 0;
+	}
+
+	/**
+	 * Inserts an entry with the given id, or replaces the key and value of the
+	 * entry that already has it.
+	 *
+	 * @param id
+	 *            the id of the entry
+	 * @param key
+	 *            the key of the entry
+	 * @param value
+	 *            the value of the entry
+	 * @return the old key of the entry, or null if the id was not in the
+	 *         queue
+	 * @throws IllegalArgumentException
+	 *             if the id is negative
+	 * @throws InvalidKeyException
+	 *             if the key is not suitable for this queue
+	 */
+	@SuppressWarnings("unchecked")
+	public K upsert(int id, K key, V value) throws IllegalArgumentException, InvalidKeyException {
+		if (id < 0) {
+			throw new IllegalArgumentException("Id must not be negative");
+		}
+		this.checkKey(key);
+		if (this.containsId(id)) {
+			int slot = _slots[id];
+			K oldKey = (K) _keys[slot];
+			_values[slot] = value;
+			this.resift(slot, key, oldKey);
+			return oldKey;
+		}
+
+		if (id >= _slots.length) {
+			this.growIndex(id);
+		}
+		if (_size == _keys.length) {
+			this.growHeap();
+		}
+		_size++;
+		this.siftUp(_size - 1, key, value, id);
+		return null;
+	}
+
+	/**
+	 * Replaces the key of the entry with the given id.
+	 *
+	 * @return the old key of the entry
+	 * @throws InvalidEntryException
+	 *             if no entry has the id
+	 * @throws InvalidKeyException
+	 *             if the key is not suitable for this queue
+	 */
+	@SuppressWarnings("unchecked")
+	public K updateKey(int id, K key) throws InvalidEntryException, InvalidKeyException {
+		int slot = this.checkedSlot(id);
+		this.checkKey(key);
+		K oldKey = (K) _keys[slot];
+		this.resift(slot, key, oldKey);
+		return oldKey;
+	}
+
+	/**
+	 * Removes the entry with the given id and returns its value.
+	 *
+	 * @throws InvalidEntryException
+	 *             if no entry has the id
+	 */
+	public V removeById(int id) throws InvalidEntryException {
+		return this.removeSlot(this.checkedSlot(id));
+	}
+
+	/**
+	 * @return the key of the entry with the given id
+	 * @throws InvalidEntryException
+	 *             if no entry has the id
+	 */
+	@SuppressWarnings("unchecked")
+	public K keyOf(int id) throws InvalidEntryException {
+		return (K) _keys[this.checkedSlot(id)];
+	}
+
+	/**
+	 * @return the value of the entry with the given id
+	 * @throws InvalidEntryException
+	 *             if no entry has the id
+	 */
+	@SuppressWarnings("unchecked")
+	public V valueOf(int id) throws InvalidEntryException {
+		return (V) _values[this.checkedSlot(id)];
+	}
+
+	/**
+	 * Returns the id of the entry with the minimum key.
+	 *
+	 * @throws EmptyPriorityQueueException
+	 *             if the queue is empty
+	 */
+	public int minId() throws EmptyPriorityQueueException {
+		this.checkNotEmpty();
+		return _ids[0];
+	}
+
+	/**
+	 * Returns the minimum key in the queue.
+	 *
+	 * @throws EmptyPriorityQueueException
+	 *             if the queue is empty
+	 */
+	@SuppressWarnings("unchecked")
+	public K minKey() throws EmptyPriorityQueueException {
+		this.checkNotEmpty();
+		return (K) _keys[0];
+	}
+
+	/**
+	 * Returns the value of the entry with the minimum key.
+	 *
+	 * @throws EmptyPriorityQueueException
+	 *             if the queue is empty
+	 */
+	@SuppressWarnings("unchecked")
+	public V minValue() throws EmptyPriorityQueueException {
+		this.checkNotEmpty();
+		return (V) _values[0];
+	}
+
+	/**
+	 * Removes the entry with the minimum key and returns its id. Read minKey()
+	 * or minValue() first if they are needed as well.
+	 *
+	 * @throws EmptyPriorityQueueException
+	 *             if the queue is empty
+	 */
+	public int removeMin() throws EmptyPriorityQueueException {
+		if (_size == 0) {
+			throw new EmptyPriorityQueueException("Cannot get minimum of an empty Heap");
+		}
+		int id = _ids[0];
+		this.removeSlot(0);
+		return id;
+	}
+
+	/*
+	 * This method removes the entry in the given slot, fills the slot with the
+	 * last entry and sifts that entry to its place
+	 */
+
+	@SuppressWarnings("unchecked")
+	private V removeSlot(int slot) {
+		V value = (V) _values[slot];
+		_slots[_ids[slot]] = -1;
+
+		int last = _size - 1;
+		K lastKey = (K) _keys[last];
+		Object lastValue = _values[last];
+		int lastId = _ids[last];
+		_keys[last] = null;
+		_values[last] = null;
+		_size--;
+
+		if (slot != last) {
+			if (slot > 0 && _comparator.compare(lastKey, (K) _keys[(slot - 1) / 2]) < 0) {
+				this.siftUp(slot, lastKey, lastValue, lastId);
+			} else {
+				this.siftDown(slot, lastKey, lastValue, lastId);
+			}
+		}
+		return value;
+	}
+
+	// This method gives the entry in a slot a new key and sifts it to its place
+
+	private void resift(int slot, K key, K oldKey) {
+		Object value = _values[slot];
+		int id = _ids[slot];
+		if (_comparator.compare(key, oldKey) < 0) {
+			this.siftUp(slot, key, value, id);
+		} else {
+			this.siftDown(slot, key, value, id);
+		}
+	}
+
+	/*
+	 * This method moves the hole at the given slot up until the key fits, then
+	 * stores the entry there
+	 */
+
+	@SuppressWarnings("unchecked")
+	private void siftUp(int slot, K key, Object value, int id) {
+		while (slot > 0) {
+			int parent = (slot - 1) / 2;
+			if (_comparator.compare((K) _keys[parent], key) <= 0) {
+				break;
+			}
+			this.move(parent, slot);
+			slot = parent;
+		}
+		this.store(slot, key, value, id);
+	}
+
+	/*
+	 * This method moves the hole at the given slot down until the key fits,
+	 * then stores the entry there
+	 */
+
+	@SuppressWarnings("unchecked")
+	private void siftDown(int slot, K key, Object value, int id) {
+		int half = _size / 2;
+		while (slot < half) {
+			int child = 2 * slot + 1;
+			if (child + 1 < _size && _comparator.compare((K) _keys[child + 1], (K) _keys[child]) < 0) {
+				child++;
+			}
+			if (_comparator.compare(key, (K) _keys[child]) <= 0) {
+				break;
+			}
+			this.move(child, slot);
+			slot = child;
+		}
+		this.store(slot, key, value, id);
+	}
+
+	private void move(int from, int to) {
+		_keys[to] = _keys[from];
+		_values[to] = _values[from];
+		_ids[to] = _ids[from];
+		_slots[_ids[to]] = to;
+	}
+
+	private void store(int slot, Object key, Object value, int id) {
+		_keys[slot] = key;
+		_values[slot] = value;
+		_ids[slot] = id;
+		_slots[id] = slot;
+	}
+
+	// This method grows the index to cover the given id
+
+	private void growIndex(int id) {
+		int length = (int) Math.min(Math.max(2L * _slots.length, id + 1L), Integer.MAX_VALUE - 8);
+		if (id >= length) {
+			throw new IllegalArgumentException("Id is too large");
+		}
+		int oldLength = _slots.length;
+		_slots = Arrays.copyOf(_slots, length);
+		Arrays.fill(_slots, oldLength, length, -1);
+	}
+
+	private void growHeap() {
+		int capacity = 2 * _keys.length;
+		_keys = Arrays.copyOf(_keys, capacity);
+		_values = Arrays.copyOf(_values, capacity);
+		_ids = Arrays.copyOf(_ids, capacity);
+	}
+
+	private int checkedSlot(int id) throws InvalidEntryException {
+		if (this.containsId(id) == false) {
+			throw new InvalidEntryException("Id is not in this queue");
+		}
+		return _slots[id];
+	}
+
+	/*
+	 * This method checks that a key can be stored in this queue: it must not
+	 * be null, and the comparator must accept it
+	 */
+
+	private void checkKey(K key) throws InvalidKeyException {
+		if (key == null) {
+			throw new InvalidKeyException("Must Enter Suitable Key");
+		}
+		try {
+			_comparator.compare(key, key);
+		} catch (ClassCastException e) {
+			throw new InvalidKeyException("Must Enter Suitable Key");
+		}
+	}
+
+	private void checkNotEmpty() throws EmptyPriorityQueueException {
+		if (_size == 0) {
+			throw new EmptyPriorityQueueException("Heap is Empty");
+		}
+	}
+
+}
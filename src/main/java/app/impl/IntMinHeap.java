@@ -0,0 +1,183 @@
+package app.impl;
+
+import net.datastructures.EmptyPriorityQueueException;
+import net.datastructures.InvalidEntryException;
+
+/**
+ * An adaptable min-heap specialized for int keys. It is a view of a
+ * LongMinHeap, which holds the keys widened to long in a primitive array in
+ * heap order and compares them directly, so no key is ever boxed and no
+ * Comparator is called while sifting. Widening keeps the order of the keys, so
+ * both heaps share one sift engine, at the cost of 4 more bytes per key.
+ *
+ * Instead of an Entry, insert returns a long handle that stays valid until the
+ * entry leaves the heap, and which can be passed to remove, replaceKey and
+ * replaceValue just like an Entry is passed to MyHeap. A handle kept after its
+ * entry has been removed is rejected; see LongMinHeap.
+ *
+ * size, isEmpty, min and the handle accessors run in O(1) time; insert,
+ * removeMin, remove and replaceKey run in O(log n) time.
+ */
+
+public class IntMinHeap<V> {
+
+	private final LongMinHeap<V> _heap;
+
+	/**
+	 * Creates an empty heap.
+	 */
+	public IntMinHeap() {
+		_heap = new LongMinHeap<V>();
+	}
+
+	/**
+	 * Creates an empty heap that can hold the given number of entries before
+	 * it has to grow.
+	 *
+	 * @param initialCapacity
+	 *            the number of entries to make room for
+	 * @throws IllegalArgumentException
+	 *             if the capacity is negative
+	 */
+	public IntMinHeap(int initialCapacity) {
+		_heap = new LongMinHeap<V>(initialCapacity);
+	}
+
+	/**
+	 * @return the number of entries in the heap
+	 */
+	public int size() {
+		return _heap.size();
+	}
+
+	/**
+	 * @return true if the heap is empty; false otherwise
+	 */
+	public boolean isEmpty() {
+		return _heap.isEmpty();
+	}
+
+	/**
+	 * Inserts a key-value pair and returns the handle of the new entry.
+	 *
+	 * @param key
+	 *            to be used as the key the heap is sorting with
+	 * @param value
+	 *            stored with the associated key in the heap
+	 * @return the handle of the entry created
+	 */
+	public long insert(int key, V value) {
+		return _heap.insert(key, value);
+	}
+
+	/**
+	 * Returns the handle of the entry with the minimum key.
+	 *
+	 * @throws EmptyPriorityQueueException
+	 *             if the heap is empty
+	 */
+	public long min() throws EmptyPriorityQueueException {
+		return _heap.min();
+	}
+
+	/**
+	 * Returns the minimum key in the heap.
+	 *
+	 * @throws EmptyPriorityQueueException
+	 *             if the heap is empty
+	 */
+	public int minKey() throws EmptyPriorityQueueException {
+		return (int) _heap.minKey();
+	}
+
+	/**
+	 * Returns the value stored with the minimum key.
+	 *
+	 * @throws EmptyPriorityQueueException
+	 *             if the heap is empty
+	 */
+	public V minValue() throws EmptyPriorityQueueException {
+		return _heap.minValue();
+	}
+
+	/**
+	 * Removes the entry with the minimum key and returns its value. Read
+	 * minKey() first if the key is needed as well.
+	 *
+	 * @return the value of the removed entry
+	 * @throws EmptyPriorityQueueException
+	 *             if the heap is empty
+	 */
+	public V removeMin() throws EmptyPriorityQueueException {
+		return _heap.removeMin();
+	}
+
+	/**
+	 * Removes the entry with the given handle and returns its value.
+	 *
+	 * @param handle
+	 *            of the entry to be removed
+	 * @return the value of the removed entry
+	 * @throws InvalidEntryException
+	 *             if the handle does not belong to an entry in the heap
+	 */
+	public V remove(long handle) throws InvalidEntryException {
+		return _heap.remove(handle);
+	}
+
+	/**
+	 * Replaces the key of the entry with the given handle.
+	 *
+	 * @param handle
+	 *            of the entry whose key is replaced
+	 * @param key
+	 *            to replace the existing key
+	 * @return the old key of the entry
+	 * @throws InvalidEntryException
+	 *             if the handle does not belong to an entry in the heap
+	 */
+	public int replaceKey(long handle, int key) throws InvalidEntryException {
+		return (int) _heap.replaceKey(handle, key);
+	}
+
+	/**
+	 * Replaces the value of the entry with the given handle.
+	 *
+	 * @param handle
+	 *            of the entry whose value is replaced
+	 * @param value
+	 *            to replace the existing value
+	 * @return the old value of the entry
+	 * @throws InvalidEntryException
+	 *             if the handle does not belong to an entry in the heap
+	 */
+	public V replaceValue(long handle, V value) throws InvalidEntryException {
+		return _heap.replaceValue(handle, value);
+	}
+
+	/**
+	 * @return the key of the entry with the given handle
+	 * @throws InvalidEntryException
+	 *             if the handle does not belong to an entry in the heap
+	 */
+	public int keyOf(long handle) throws InvalidEntryException {
+		return (int) _heap.keyOf(handle);
+	}
+
+	/**
+	 * @return the value of the entry with the given handle
+	 * @throws InvalidEntryException
+	 *             if the handle does not belong to an entry in the heap
+	 */
+	public V valueOf(long handle) throws InvalidEntryException {
+		return _heap.valueOf(handle);
+	}
+
+	/**
+	 * @return whether the handle belongs to an entry in the heap
+	 */
+	public boolean contains(long handle) {
+		return _heap.contains(handle);
+	}
+
+}
@@ -0,0 +1,37 @@
+package app.impl;
+
+/**
+ * Maps the keys of a MyHeap to long sort prefixes, so that the heap can order
+ * most pairs of entries by comparing two primitives and only calls its
+ * comparator when the prefixes are equal. This pays off when the comparator is
+ * expensive, for example on composite keys that compare a String first.
+ *
+ * The prefix must agree with the heap's comparator: whenever normalize(a) is
+ * less than normalize(b) (as signed longs), the comparator must order a
+ * before b. Keys the prefix cannot tell apart may share a prefix, since the
+ * comparator breaks those ties; a normalizer that returns the same prefix for
+ * every key is therefore correct, only slow.
+ *
+ * A heap with a normalizer validates keys by normalizing them rather than by
+ * comparing them with themselves, which would cost a comparator call per
+ * insert. normalize must therefore throw a ClassCastException or an
+ * IllegalArgumentException for every key the comparator cannot handle;
+ * otherwise such a key is accepted and fails later, in the middle of a sift.
+ */
+
+public interface KeyNormalizer<K> {
+
+	/**
+	 * Returns the sort prefix of a key.
+	 *
+	 * @param key
+	 *            the key, which is never null
+	 * @return the sort prefix of the key
+	 * @throws ClassCastException
+	 *             if the key is not of a type this normalizer handles
+	 * @throws IllegalArgumentException
+	 *             if the key is otherwise not suitable
+	 */
+	public long normalize(K key) throws ClassCastException, IllegalArgumentException;
+
+}
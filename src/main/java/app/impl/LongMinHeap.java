@@ -0,0 +1,370 @@
+package app.impl;
+
+import java.util.Arrays;
+
+import net.datastructures.EmptyPriorityQueueException;
+import net.datastructures.InvalidEntryException;
+
+/**
+ * An adaptable min-heap specialized for long keys. The keys are kept in a
+ * primitive array in heap order and compared directly, so no key is ever boxed
+ * and no Comparator is called while sifting.
+ *
+ * Instead of an Entry, insert returns a long handle that stays valid until the
+ * entry leaves the heap, and which can be passed to remove, replaceKey and
+ * replaceValue just like an Entry is passed to MyHeap. As in MyHandleHeap, the
+ * handle holds the id of the entry in its low 32 bits and the generation of
+ * that id in its high 32 bits; ids are reused by later inserts, but the
+ * generation is bumped every time an id is freed, so a handle kept after its
+ * entry has been removed is rejected with an InvalidEntryException, just as
+ * MyHeap rejects a removed entry.
+ *
+ * IntMinHeap is a view of this heap for int keys, so both share this code.
+ *
+ * size, isEmpty, min and the handle accessors run in O(1) time; insert,
+ * removeMin, remove and replaceKey run in O(log n) time.
+ */
+
+public class LongMinHeap<V> {
+
+	private static final int DEFAULT_CAPACITY = 16;
+
+	// The key, value and id of the entry in each slot, in heap order
+	private long[] _keys;
+	private Object[] _values;
+	private int[] _ids;
+
+	// The slot of each id, or -1 if the id is free, and the current
+	// generation of each id
+	private int[] _slots;
+	private int[] _generations;
+
+	// A stack of the ids that are free to be reused
+	private int[] _freeIds;
+	private int _freeCount;
+
+	private int _size;
+
+	/**
+	 * Creates an empty heap.
+	 */
+	public LongMinHeap() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Creates an empty heap that can hold the given number of entries before
+	 * it has to grow.
+	 *
+	 * @param initialCapacity
+	 *            the number of entries to make room for
+	 * @throws IllegalArgumentException
+	 *             if the capacity is negative
+	 */
+	public LongMinHeap(int initialCapacity) {
+		if (initialCapacity < 0) {
+			throw new IllegalArgumentException("Capacity must not be negative");
+		}
+		int capacity = Math.max(initialCapacity, 1);
+		_keys = new long[capacity];
+		_values = new Object[capacity];
+		_ids = new int[capacity];
+		_slots = new int[capacity];
+		Arrays.fill(_slots, -1);
+		_generations = new int[capacity];
+		_freeIds = new int[capacity];
+		_freeCount = 0;
+		_size = 0;
+	}
+
+	/**
+	 * @return the number of entries in the heap
+	 */
+	public int size() {
+		return _size;
+	}
+
+	/**
+	 * @return true if the heap is empty; false otherwise
+	 */
+	public boolean isEmpty() {
+		return _size == 0;
+	}
+
+	/**
+	 * Inserts a key-value pair and returns the handle of the new entry.
+	 *
+	 * @param key
+	 *            to be used as the key the heap is sorting with
+	 * @param value
+	 *            stored with the associated key in the heap
+	 * @return the handle of the entry created
+	 */
+	public long insert(long key, V value) {
+		if (_size == _keys.length) {
+			this.grow();
+		}
+
+		// Reusing a free id if there is one; otherwise ids are handed out in
+		// order, so the next new id is the number of live ids
+		int id;
+		if (_freeCount > 0) {
+			_freeCount--;
+			id = _freeIds[_freeCount];
+		} else {
+			id = _size;
+		}
+
+		_size++;
+		this.siftUp(_size - 1, key, value, id);
+		return this.handleOf(id);
+	}
+
+	/**
+	 * Returns the handle of the entry with the minimum key.
+	 *
+	 * @throws EmptyPriorityQueueException
+	 *             if the heap is empty
+	 */
+	public long min() throws EmptyPriorityQueueException {
+		this.checkNotEmpty();
+		return this.handleOf(_ids[0]);
+	}
+
+	/**
+	 * Returns the minimum key in the heap.
+	 *
+	 * @throws EmptyPriorityQueueException
+	 *             if the heap is empty
+	 */
+	public long minKey() throws EmptyPriorityQueueException {
+		this.checkNotEmpty();
+		return _keys[0];
+	}
+
+	/**
+	 * Returns the value stored with the minimum key.
+	 *
+	 * @throws EmptyPriorityQueueException
+	 *             if the heap is empty
+	 */
+	@SuppressWarnings("unchecked")
+	public V minValue() throws EmptyPriorityQueueException {
+		this.checkNotEmpty();
+		return (V) _values[0];
+	}
+
+	/**
+	 * Removes the entry with the minimum key and returns its value. Read
+	 * minKey() first if the key is needed as well.
+	 *
+	 * @return the value of the removed entry
+	 * @throws EmptyPriorityQueueException
+	 *             if the heap is empty
+	 */
+	public V removeMin() throws EmptyPriorityQueueException {
+		this.checkNotEmpty();
+		return this.removeSlot(0);
+	}
+
+	/**
+	 * Removes the entry with the given handle and returns its value.
+	 *
+	 * @param handle
+	 *            of the entry to be removed
+	 * @return the value of the removed entry
+	 * @throws InvalidEntryException
+	 *             if the handle does not belong to an entry in the heap
+	 */
+	public V remove(long handle) throws InvalidEntryException {
+		return this.removeSlot(this.checkHandle(handle));
+	}
+
+	/**
+	 * Replaces the key of the entry with the given handle.
+	 *
+	 * @param handle
+	 *            of the entry whose key is replaced
+	 * @param key
+	 *            to replace the existing key
+	 * @return the old key of the entry
+	 * @throws InvalidEntryException
+	 *             if the handle does not belong to an entry in the heap
+	 */
+	@SuppressWarnings("unchecked")
+	public long replaceKey(long handle, long key) throws InvalidEntryException {
+		int slot = this.checkHandle(handle);
+		long oldKey = _keys[slot];
+		V value = (V) _values[slot];
+		int id = _ids[slot];
+
+		if (key < oldKey) {
+			this.siftUp(slot, key, value, id);
+		} else {
+			this.siftDown(slot, key, value, id);
+		}
+		return oldKey;
+	}
+
+	/**
+	 * Replaces the value of the entry with the given handle.
+	 *
+	 * @param handle
+	 *            of the entry whose value is replaced
+	 * @param value
+	 *            to replace the existing value
+	 * @return the old value of the entry
+	 * @throws InvalidEntryException
+	 *             if the handle does not belong to an entry in the heap
+	 */
+	@SuppressWarnings("unchecked")
+	public V replaceValue(long handle, V value) throws InvalidEntryException {
+		int slot = this.checkHandle(handle);
+		V oldValue = (V) _values[slot];
+		_values[slot] = value;
+		return oldValue;
+	}
+
+	/**
+	 * @return the key of the entry with the given handle
+	 * @throws InvalidEntryException
+	 *             if the handle does not belong to an entry in the heap
+	 */
+	public long keyOf(long handle) throws InvalidEntryException {
+		return _keys[this.checkHandle(handle)];
+	}
+
+	/**
+	 * @return the value of the entry with the given handle
+	 * @throws InvalidEntryException
+	 *             if the handle does not belong to an entry in the heap
+	 */
+	@SuppressWarnings("unchecked")
+	public V valueOf(long handle) throws InvalidEntryException {
+		return (V) _values[this.checkHandle(handle)];
+	}
+
+	/**
+	 * @return whether the handle belongs to an entry in the heap
+	 */
+	public boolean contains(long handle) {
+		int id = (int) handle;
+		return id >= 0 && id < _slots.length && _slots[id] >= 0 && _generations[id] == (int) (handle >>> 32);
+	}
+
+	/*
+	 * This method removes the entry in the given slot, frees its id, fills the
+	 * slot with the last entry and sifts that entry to its place
+	 */
+
+	@SuppressWarnings("unchecked")
+	private V removeSlot(int slot) {
+		V value = (V) _values[slot];
+		int id = _ids[slot];
+		int last = _size - 1;
+
+		long lastKey = _keys[last];
+		Object lastValue = _values[last];
+		int lastId = _ids[last];
+		_values[last] = null;
+		_size--;
+
+		_slots[id] = -1;
+		_generations[id]++;
+		_freeIds[_freeCount] = id;
+		_freeCount++;
+
+		if (slot != last) {
+			if (slot > 0 && lastKey < _keys[(slot - 1) / 2]) {
+				this.siftUp(slot, lastKey, lastValue, lastId);
+			} else {
+				this.siftDown(slot, lastKey, lastValue, lastId);
+			}
+		}
+		return value;
+	}
+
+	/*
+	 * This method moves the hole at the given slot up until the key fits, then
+	 * stores the entry there
+	 */
+
+	private void siftUp(int slot, long key, Object value, int id) {
+		while (slot > 0) {
+			int parent = (slot - 1) / 2;
+			if (_keys[parent] <= key) {
+				break;
+			}
+			this.move(parent, slot);
+			slot = parent;
+		}
+		this.store(slot, key, value, id);
+	}
+
+	/*
+	 * This method moves the hole at the given slot down until the key fits,
+	 * then stores the entry there
+	 */
+
+	private void siftDown(int slot, long key, Object value, int id) {
+		int half = _size / 2;
+		while (slot < half) {
+			int child = 2 * slot + 1;
+			if (child + 1 < _size && _keys[child + 1] < _keys[child]) {
+				child++;
+			}
+			if (key <= _keys[child]) {
+				break;
+			}
+			this.move(child, slot);
+			slot = child;
+		}
+		this.store(slot, key, value, id);
+	}
+
+	private void move(int from, int to) {
+		_keys[to] = _keys[from];
+		_values[to] = _values[from];
+		_ids[to] = _ids[from];
+		_slots[_ids[to]] = to;
+	}
+
+	private void store(int slot, long key, Object value, int id) {
+		_keys[slot] = key;
+		_values[slot] = value;
+		_ids[slot] = id;
+		_slots[id] = slot;
+	}
+
+	// This method packs an id and its current generation into a handle
+
+	private long handleOf(int id) {
+		return ((long) _generations[id] << 32) | (id & 0xFFFFFFFFL);
+	}
+
+	private void grow() {
+		int oldCapacity = _keys.length;
+		int capacity = 2 * oldCapacity;
+		_keys = Arrays.copyOf(_keys, capacity);
+		_values = Arrays.copyOf(_values, capacity);
+		_ids = Arrays.copyOf(_ids, capacity);
+		_slots = Arrays.copyOf(_slots, capacity);
+		Arrays.fill(_slots, oldCapacity, capacity, -1);
+		_generations = Arrays.copyOf(_generations, capacity);
+		_freeIds = Arrays.copyOf(_freeIds, capacity);
+	}
+
+	private int checkHandle(long handle) throws InvalidEntryException {
+		if (!this.contains(handle)) {
+			throw new InvalidEntryException("Invalid handle");
+		}
+		return _slots[(int) handle];
+	}
+
+	private void checkNotEmpty() throws EmptyPriorityQueueException {
+		if (_size == 0) {
+			throw new EmptyPriorityQueueException("Heap is Empty");
+		}
+	}
+
+}
@@ -0,0 +1,187 @@
+package app.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Merges k sorted iterators into one sorted iterator with a tournament tree of
+ * losers. Each internal node of the tree remembers the source that lost the
+ * match played there, and the overall winner (the source with the smallest
+ * head) is kept above the root. Once the winner's head has been returned, only
+ * the matches on the path from the winner's leaf to the root are replayed, so
+ * each element costs about log2(k) comparisons and no allocation, where a
+ * MyHeap of heads needs a removeMin and an insert (two sifts and a new entry)
+ * per element.
+ *
+ * Elements with equal keys come out in the order of their sources, so merging
+ * stable runs gives a stable result. Each source must be sorted by the same
+ * comparator; null elements are passed through to it like any other. The
+ * first element of every source is read when the merger is created.
+ */
+
+public class LoserTreeMerger<T> implements Iterator<T> {
+
+	private final Comparator<? super T> _comparator;
+	private final Iterator<? extends T>[] _sources;
+
+	// The current head of each source, and whether the source has run out
+	private final Object[] _heads;
+	private final boolean[] _exhausted;
+
+	// The tree has the sources as leaves k to 2k - 1 and internal nodes 1 to
+	// k - 1, each holding the source that lost there; node 0 holds the winner
+	private final int[] _tree;
+	private final int _k;
+
+	/**
+	 * Creates a merger of the given sorted iterators.
+	 *
+	 * @param sources
+	 *            the iterators to merge, each sorted by the comparator
+	 * @param comparator
+	 *            the comparator by which the sources are sorted
+	 * @throws IllegalArgumentException
+	 *             if the sources, any source or the comparator is null
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	public LoserTreeMerger(Collection<? extends Iterator<? extends T>> sources, Comparator<? super T> comparator) {
+		if (sources == null || comparator == null) {
+			throw new IllegalArgumentException();
+		}
+		_comparator = comparator;
+		_k = sources.size();
+		_sources = sources.toArray(new Iterator[_k]);
+		_heads = new Object[_k];
+		_exhausted = new boolean[_k];
+		_tree = new int[Math.max(_k, 1)];
+
+		for (int source = 0; source < _k; source++) {
+			if (_sources[source] == null) {
+				throw new IllegalArgumentException("Cannot merge a null source");
+			}
+			this.advance(source);
+		}
+		if (_k > 0) {
+			_tree[0] = this.build(1);
+		}
+	}
+
+	/**
+	 * Returns a sequential stream of the merged elements of the given sorted
+	 * spliterators. See LoserTreeMerger(Collection, Comparator).
+	 *
+	 * @param sources
+	 *            the spliterators to merge, each sorted by the comparator
+	 * @param comparator
+	 *            the comparator by which the sources are sorted
+	 * @return the merged stream
+	 * @throws IllegalArgumentException
+	 *             if the sources, any source or the comparator is null
+	 */
+	public static <T> Stream<T> stream(Collection<? extends Spliterator<? extends T>> sources,
+			Comparator<? super T> comparator) {
+		if (sources == null) {
+			throw new IllegalArgumentException();
+		}
+		List<Iterator<? extends T>> iterators = new ArrayList<>(sources.size());
+		for (Spliterator<? extends T> source : sources) {
+			if (source == null) {
+				throw new IllegalArgumentException("Cannot merge a null source");
+			}
+			iterators.add(Spliterators.iterator(source));
+		}
+		LoserTreeMerger<T> merger = new LoserTreeMerger<T>(iterators, comparator);
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(merger, Spliterator.ORDERED), false);
+	}
+
+	/**
+	 * @return whether any source has elements left
+	 */
+	@Override
+	public boolean hasNext() {
+		return _k > 0 && _exhausted[_tree[0]] == false;
+	}
+
+	/**
+	 * Returns the smallest head of the sources and replays the winner's path
+	 * with its next element. This method runs in O(log k) time.
+	 *
+	 * @throws NoSuchElementException
+	 *             if every source has run out
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public T next() throws NoSuchElementException {
+		if (this.hasNext() == false) {
+			throw new NoSuchElementException("Every source has run out");
+		}
+		int winner = _tree[0];
+		T element = (T) _heads[winner];
+		this.advance(winner);
+
+		// The new head only has to play the sources that lost on its path
+		for (int node = (winner + _k) >>> 1; node > 0; node >>>= 1) {
+			int loser = _tree[node];
+			if (this.beats(loser, winner)) {
+				_tree[node] = winner;
+				winner = loser;
+			}
+		}
+		_tree[0] = winner;
+		return element;
+	}
+
+	/*
+	 * This method plays the matches of the subtree rooted at the given node,
+	 * storing the loser at each internal node, and returns the winner
+	 */
+
+	private int build(int node) {
+		if (node >= _k) {
+			return node - _k;
+		}
+		int left = this.build(2 * node);
+		int right = this.build(2 * node + 1);
+		if (this.beats(right, left)) {
+			_tree[node] = left;
+			return right;
+		}
+		_tree[node] = right;
+		return left;
+	}
+
+	// This method reads the next head of a source, or marks it as run out
+
+	private void advance(int source) {
+		if (_sources[source].hasNext()) {
+			_heads[source] = _sources[source].next();
+		} else {
+			_heads[source] = null;
+			_exhausted[source] = true;
+		}
+	}
+
+	/*
+	 * This method returns whether the head of the first source comes before
+	 * that of the second. A source that has run out loses to every other, and
+	 * equal heads are won by the lower source
+	 */
+
+	@SuppressWarnings("unchecked")
+	private boolean beats(int first, int second) {
+		if (_exhausted[first] || _exhausted[second]) {
+			return _exhausted[second] && (_exhausted[first] == false || first < second);
+		}
+		int order = _comparator.compare((T) _heads[first], (T) _heads[second]);
+		return order < 0 || (order == 0 && first < second);
+	}
+
+}
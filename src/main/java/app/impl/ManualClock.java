@@ -0,0 +1,48 @@
+package app.impl;
+
+import java.util.function.LongSupplier;
+
+/**
+ * A clock that only moves when it is told to, for driving a TimerWheel
+ * deterministically in tests and simulations. Pass System::nanoTime to the
+ * wheel for real time instead.
+ */
+
+public class ManualClock implements LongSupplier {
+
+	private long _now;
+
+	/**
+	 * Creates a clock that reads the given time.
+	 *
+	 * @param start
+	 *            the time to start at, in nanoseconds
+	 */
+	public ManualClock(long start) {
+		_now = start;
+	}
+
+	/**
+	 * @return the current time, in nanoseconds
+	 */
+	@Override
+	public long getAsLong() {
+		return _now;
+	}
+
+	/**
+	 * Moves the clock forward.
+	 *
+	 * @param nanos
+	 *            how far to move the clock, in nanoseconds
+	 * @throws IllegalArgumentException
+	 *             if nanos is negative
+	 */
+	public void advance(long nanos) {
+		if (nanos < 0) {
+			throw new IllegalArgumentException("A clock cannot go backwards");
+		}
+		_now += nanos;
+	}
+
+}
@@ -0,0 +1,270 @@
+package app.impl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An OffHeapLongHeap whose segments are mapped from a file, so the heap
+ * survives a restart. The records are kept in heap order in the mapping
+ * itself, so opening a file that was checkpointed gives a usable heap in O(1)
+ * time (plus mapping its segments), without re-heapifying.
+ *
+ * The file starts with a header page, followed by one region per segment
+ * number holding record segment n and then index segment n. The header
+ * holds the segment size, the size of the heap, the id counters, a
+ * checkpoint epoch and a dirty flag. Everything is stored in the platform's
+ * byte order, so a file can only be moved between machines of the same
+ * order.
+ *
+ * Crash consistency works at the level of checkpoints:
+ *
+ * - force() writes every segment to disk, then writes the header with the
+ *   dirty flag cleared and the epoch advanced by one. close() does the same.
+ * - The first change after a checkpoint sets the dirty flag and writes the
+ *   header to disk before any record is touched. A file that is not dirty
+ *   on disk therefore holds exactly the heap of its last checkpoint, whose
+ *   number epoch() returns.
+ * - A file that is dirty when it is opened (the process stopped after a
+ *   change and before the next checkpoint) may hold a mix of the checkpoint
+ *   and of any later changes, and possibly a move interrupted halfway.
+ *   Opening it fails with an IOException unless recovery is asked for.
+ * - Recovery rebuilds a valid heap from the records found in the file (see
+ *   OffHeapLongHeap.rebuild), in O(n) time. Every id it keeps still refers to
+ *   the same entry, but changes made since the last checkpoint may be lost
+ *   or partly kept, and an entry removed since then may be back.
+ *
+ * A MappedLongHeap is not thread-safe, and a file must only be open in one
+ * heap at a time.
+ */
+
+public class MappedLongHeap extends OffHeapLongHeap implements Closeable {
+
+	private static final int HEADER_BYTES = 4096;
+	private static final long MAGIC = 0x4d48454150303031L;
+	private static final int VERSION = 2;
+
+	private static final int MAGIC_OFFSET = 0;
+	private static final int VERSION_OFFSET = 8;
+	private static final int SHIFT_OFFSET = 12;
+	private static final int EPOCH_OFFSET = 16;
+	private static final int SIZE_OFFSET = 24;
+	private static final int NEXT_ID_OFFSET = 32;
+	private static final int FREE_HEAD_OFFSET = 40;
+	private static final int DIRTY_OFFSET = 48;
+
+	private final FileChannel _channel;
+	private final MappedByteBuffer _header;
+	private final List<MappedByteBuffer> _segments;
+	private boolean _dirty;
+	private boolean _closed;
+
+	private MappedLongHeap(FileChannel channel, MappedByteBuffer header, int segmentShift) {
+		super(segmentShift);
+		_channel = channel;
+		_header = header;
+		_segments = new ArrayList<>();
+		_dirty = false;
+		_closed = false;
+	}
+
+	/**
+	 * Opens the heap saved in the given file, or creates an empty heap with
+	 * segments of 65536 records if the file does not exist.
+	 *
+	 * @throws IOException
+	 *             if the file cannot be mapped, is not a heap file, or was not
+	 *             checkpointed after its last change
+	 */
+	public static MappedLongHeap open(Path file) throws IOException {
+		return open(file, 16, false);
+	}
+
+	/**
+	 * Opens the heap saved in the given file, or creates an empty heap if the
+	 * file does not exist.
+	 *
+	 * @param file
+	 *            the file holding the heap
+	 * @param segmentShift
+	 *            the log2 of the number of records per segment, used only
+	 *            when the file is created
+	 * @param recover
+	 *            whether to rebuild the heap of a file that was not
+	 *            checkpointed after its last change, instead of failing
+	 * @throws IOException
+	 *             if the file cannot be mapped, is not a heap file, or was not
+	 *             checkpointed after its last change and recover is false
+	 */
+	public static MappedLongHeap open(Path file, int segmentShift, boolean recover) throws IOException {
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		try {
+			boolean created = channel.size() == 0;
+			if (!created) {
+				checkHeader(channel, file);
+			}
+			MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+			header.order(ByteOrder.nativeOrder());
+
+			if (created) {
+				header.putLong(MAGIC_OFFSET, MAGIC);
+				header.putInt(VERSION_OFFSET, VERSION);
+				header.putInt(SHIFT_OFFSET, segmentShift);
+				header.putLong(EPOCH_OFFSET, 0);
+				header.putLong(SIZE_OFFSET, 0);
+				header.putLong(NEXT_ID_OFFSET, 0);
+				header.putLong(FREE_HEAD_OFFSET, -1);
+				header.putInt(DIRTY_OFFSET, 0);
+				header.force();
+			}
+
+			MappedLongHeap heap = new MappedLongHeap(channel, header, header.getInt(SHIFT_OFFSET));
+			long size = header.getLong(SIZE_OFFSET);
+			long nextId = header.getLong(NEXT_ID_OFFSET);
+			if (header.getInt(DIRTY_OFFSET) == 0) {
+				heap.restore(size, nextId, header.getLong(FREE_HEAD_OFFSET));
+			} else if (recover) {
+				heap.rebuild(size, nextId);
+				heap.force();
+			} else {
+				throw new IOException(file + " was changed after its last checkpoint; open it with recover to rebuild it");
+			}
+			return heap;
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/*
+	 * This method checks the magic number and version of an existing file
+	 * with a plain read, before the header is mapped: mapping a file shorter
+	 * than the header read-write would grow it with zeros
+	 */
+
+	private static void checkHeader(FileChannel channel, Path file) throws IOException {
+		if (channel.size() < HEADER_BYTES) {
+			throw new IOException(file + " is not a heap file");
+		}
+		ByteBuffer start = ByteBuffer.allocate(VERSION_OFFSET + 4).order(ByteOrder.nativeOrder());
+		while (start.hasRemaining()) {
+			if (channel.read(start, start.position()) < 0) {
+				throw new IOException(file + " is not a heap file");
+			}
+		}
+		if (start.getLong(MAGIC_OFFSET) != MAGIC || start.getInt(VERSION_OFFSET) != VERSION) {
+			throw new IOException(file + " is not a heap file");
+		}
+	}
+
+	/**
+	 * @return the number of checkpoints taken since the file was created
+	 */
+	public long epoch() {
+		return _header.getLong(EPOCH_OFFSET);
+	}
+
+	/**
+	 * Writes the heap to disk and marks the file as checkpointed, so that it
+	 * can be reopened in O(1) time even if the process stops before close.
+	 *
+	 * @throws IllegalStateException
+	 *             if the heap has been closed
+	 */
+	public void force() {
+		this.checkOpen();
+		for (MappedByteBuffer segment : _segments) {
+			segment.force();
+		}
+		this.writeCounters();
+		_header.putLong(EPOCH_OFFSET, _header.getLong(EPOCH_OFFSET) + 1);
+		_header.putInt(DIRTY_OFFSET, 0);
+		_header.force();
+		_dirty = false;
+	}
+
+	/**
+	 * Takes a checkpoint and closes the file. The heap must not be used
+	 * afterwards.
+	 */
+	public void close() throws IOException {
+		if (_closed) {
+			return;
+		}
+		this.force();
+		_closed = true;
+		_channel.close();
+	}
+
+	@Override
+	protected ByteBuffer allocateRecordSegment(int number, int bytes) {
+		return this.map(number, 0, bytes);
+	}
+
+	@Override
+	protected ByteBuffer allocateIndexSegment(int number, int bytes) {
+		return this.map(number, RECORD_BYTES << this.segmentShift(), bytes);
+	}
+
+	/*
+	 * The dirty flag reaches the disk before the first change after a
+	 * checkpoint does, which is what makes a clean header trustworthy
+	 */
+
+	@Override
+	protected void beforeChange() {
+		this.checkOpen();
+		if (!_dirty) {
+			_header.putInt(DIRTY_OFFSET, 1);
+			_header.force();
+			_dirty = true;
+		}
+	}
+
+	// The counters are kept up to date in the mapping for recovery, but are
+	// only forced to disk by a checkpoint
+
+	@Override
+	protected void afterChange() {
+		this.writeCounters();
+	}
+
+	private void writeCounters() {
+		_header.putLong(SIZE_OFFSET, this.size());
+		_header.putLong(NEXT_ID_OFFSET, this.nextId());
+		_header.putLong(FREE_HEAD_OFFSET, this.freeHead());
+	}
+
+	/*
+	 * This method maps part of the region of a segment number, which starts
+	 * after the header and holds the record segment and then the index
+	 * segment
+	 */
+
+	private ByteBuffer map(int number, int offset, int bytes) {
+		long regionBytes = (long) (RECORD_BYTES + INDEX_BYTES) << this.segmentShift();
+		try {
+			MappedByteBuffer segment = _channel.map(FileChannel.MapMode.READ_WRITE,
+					HEADER_BYTES + number * regionBytes + offset, bytes);
+			_segments.add(segment);
+			return segment;
+		} catch (IOException e) {
+			throw new IllegalStateException("Cannot map segment " + number, e);
+		}
+	}
+
+	private void checkOpen() {
+		if (_closed) {
+			throw new IllegalStateException("Heap is closed");
+		}
+	}
+
+}
@@ -0,0 +1,243 @@
+package app.impl;
+
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import net.datastructures.EmptyPriorityQueueException;
+import net.datastructures.Entry;
+import net.datastructures.InvalidKeyException;
+import net.datastructures.PriorityQueue;
+
+/**
+ * A relaxed concurrent priority queue (a "MultiQueue"), for schedulers that
+ * need dequeue throughput more than exact order. It spreads its entries over
+ * c * threads MyHeaps, each behind its own lock, so that threads do not all
+ * fight over one root:
+ *
+ * - insert puts the entry into a randomly chosen heap.
+ * - removeMin samples two heaps at random and removes the minimum of the one
+ *   whose minimum is smaller.
+ *
+ * If the lock of the chosen heap is taken, the thread samples again instead of
+ * waiting, so threads only wait for each other when they all pick the same
+ * heap.
+ *
+ * The price is order. removeMin returns an entry that is close to the minimum
+ * but not always the minimum. Its rank error is the number of entries in the
+ * queue with smaller keys. The error grows with the number of heaps, so the
+ * factor c trades order for throughput: about the number of heaps on average,
+ * and no error at all with a single heap. size and min are snapshots that may
+ * be off while other threads are changing the queue, and removeMin only
+ * reports an empty queue if every heap looked empty.
+ */
+
+public class MultiQueue<K, V> implements PriorityQueue<K, V> {
+
+	private final SubHeap<K, V>[] _heaps;
+	private final Comparator<K> _comparator;
+	private final LongAdder _size;
+
+	/**
+	 * Creates an empty queue with c heaps for each available processor.
+	 *
+	 * @param comparator
+	 *            the comparator to be used for keys
+	 * @param c
+	 *            the number of heaps per thread
+	 * @throws IllegalArgumentException
+	 *             if the comparator is null or c is less than 1
+	 */
+	public MultiQueue(Comparator<K> comparator, int c) {
+		this(comparator, c, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Creates an empty queue with c heaps for each of the given number of
+	 * threads.
+	 *
+	 * @param comparator
+	 *            the comparator to be used for keys
+	 * @param c
+	 *            the number of heaps per thread; 2 is a good start, larger
+	 *            values mean less contention and larger rank errors
+	 * @param threads
+	 *            the number of threads expected to use the queue
+	 * @throws IllegalArgumentException
+	 *             if the comparator is null, or c or threads is less than 1
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	public MultiQueue(Comparator<K> comparator, int c, int threads) {
+		if (comparator == null) {
+			throw new IllegalArgumentException();
+		}
+		if (c < 1 || threads < 1) {
+			throw new IllegalArgumentException("Need at least one heap per thread and one thread");
+		}
+		_comparator = comparator;
+		_heaps = new SubHeap[c * threads];
+		for (int i = 0; i < _heaps.length; i++) {
+			_heaps[i] = new SubHeap<>(comparator);
+		}
+		_size = new LongAdder();
+	}
+
+	/**
+	 * @return the number of heaps the entries are spread over
+	 */
+	public int heapCount() {
+		return _heaps.length;
+	}
+
+	/**
+	 * Returns the number of entries in the queue, which may be off while other
+	 * threads are changing it.
+	 */
+	public int size() {
+		return (int) Math.max(0, _size.sum());
+	}
+
+	public boolean isEmpty() {
+		return this.size() == 0;
+	}
+
+	/**
+	 * Returns but does not remove the entry with the minimum key, looking at
+	 * the minimum of every heap. The entry may be removed by another thread
+	 * right after.
+	 *
+	 * @throws EmptyPriorityQueueException
+	 *             if every heap is empty
+	 */
+	public Entry<K, V> min() throws EmptyPriorityQueueException {
+		SubHeap<K, V> heap = this.scanForMin();
+		Entry<K, V> minimumEntry = (heap == null) ? null : heap._min;
+		if (minimumEntry == null) {
+			throw new EmptyPriorityQueueException("Heap is Empty");
+		}
+		return minimumEntry;
+	}
+
+	/**
+	 * Inserts a key-value pair into a randomly chosen heap and returns the
+	 * entry created.
+	 *
+	 * @throws InvalidKeyException
+	 *             if the key is not suitable for this queue
+	 */
+	public Entry<K, V> insert(K key, V value) throws InvalidKeyException {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		while (true) {
+			SubHeap<K, V> heap = _heaps[random.nextInt(_heaps.length)];
+			if (!heap._lock.tryLock()) {
+				continue;
+			}
+			try {
+				Entry<K, V> entry = heap._heap.insert(key, value);
+				heap.updateMin();
+				_size.increment();
+				return entry;
+			} finally {
+				heap._lock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Removes and returns an entry whose key is close to the minimum: the
+	 * minimum of the better of two randomly chosen heaps.
+	 *
+	 * @throws EmptyPriorityQueueException
+	 *             if every heap is empty
+	 */
+	public Entry<K, V> removeMin() throws EmptyPriorityQueueException {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		while (true) {
+			SubHeap<K, V> heap = this.better(_heaps[random.nextInt(_heaps.length)],
+					_heaps[random.nextInt(_heaps.length)]);
+
+			// Both samples were empty, which is likely once the queue runs low,
+			// so every heap is looked at before giving up
+			if (heap == null) {
+				heap = this.scanForMin();
+				if (heap == null) {
+					throw new EmptyPriorityQueueException("Cannot get minimum of an empty Heap");
+				}
+			}
+
+			if (!heap._lock.tryLock()) {
+				continue;
+			}
+			try {
+				if (heap._heap.isEmpty()) {
+					continue;
+				}
+				Entry<K, V> entry = heap._heap.removeMin();
+				heap.updateMin();
+				_size.decrement();
+				return entry;
+			} finally {
+				heap._lock.unlock();
+			}
+		}
+	}
+
+	/*
+	 * This method returns whichever of two heaps has the smaller cached
+	 * minimum, or null if both are empty
+	 */
+
+	private SubHeap<K, V> better(SubHeap<K, V> first, SubHeap<K, V> second) {
+		Entry<K, V> firstMin = first._min;
+		Entry<K, V> secondMin = second._min;
+		if (firstMin == null) {
+			return (secondMin == null) ? null : second;
+		}
+		if (secondMin == null || _comparator.compare(firstMin.getKey(), secondMin.getKey()) <= 0) {
+			return first;
+		}
+		return second;
+	}
+
+	/*
+	 * This method returns the heap with the smallest cached minimum, or null if
+	 * every heap is empty
+	 */
+
+	private SubHeap<K, V> scanForMin() {
+		SubHeap<K, V> best = null;
+		for (SubHeap<K, V> heap : _heaps) {
+			if (heap._min != null) {
+				best = (best == null) ? heap : this.better(best, heap);
+			}
+		}
+		return best;
+	}
+
+	/*
+	 * One of the heaps, with its lock and a copy of its minimum that other
+	 * threads can read without taking the lock. Each heap is a 4-ary MyHeap on
+	 * an array, the fastest MyHeap setup in PriorityQueueBenchmark
+	 */
+
+	private static class SubHeap<K, V> {
+
+		private final MyHeap<K, V> _heap;
+		private final ReentrantLock _lock;
+		private volatile Entry<K, V> _min;
+
+		SubHeap(Comparator<K> comparator) {
+			_heap = new MyHeap<K, V>(comparator, new MyArrayHeapTree<MyHeapEntry<K, V>>(), 4);
+			_lock = new ReentrantLock();
+			_min = null;
+		}
+
+		// This method refreshes the copy of the minimum; the lock must be held
+
+		void updateMin() {
+			_min = _heap.isEmpty() ? null : _heap.min();
+		}
+	}
+
+}
@@ -0,0 +1,329 @@
+package app.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import net.datastructures.BoundaryViolationException;
+import net.datastructures.EmptyTreeException;
+import net.datastructures.InvalidPositionException;
+import net.datastructures.Position;
+
+/**
+ * An implementation of a complete binary tree by means of a contiguous array.
+ * The element of the node in slot i is stored at index i of the array, so the
+ * parent of slot i is slot (i - 1) / 2 and its children are slots 2i + 1 and
+ * 2i + 2. No node objects are allocated per element: positions handed out by
+ * the Tree methods are small views onto a slot that are only created when they
+ * are asked for.
+ *
+ * The array doubles when it is full, so add runs in amortized O(1) time. If the
+ * tree is created with shrinking enabled, the array is halved whenever it
+ * becomes less than a quarter full, so that a queue that drains does not keep
+ * its peak footprint forever.
+ */
+
+public class MyArrayHeapTree<E> implements IndexedHeapTree<E> {
+
+	private static final int DEFAULT_CAPACITY = 16;
+
+	private Object[] _slots;
+	private int _size;
+	private boolean _shrink;
+
+	/**
+	 * Default constructor. The tree begins empty with a small array and does
+	 * not shrink.
+	 */
+	public MyArrayHeapTree() {
+		this(DEFAULT_CAPACITY, false);
+	}
+
+	/**
+	 * Creates an empty tree.
+	 *
+	 * @param initialCapacity
+	 *            the number of nodes the tree can hold before it has to grow
+	 * @param shrink
+	 *            whether the array should be halved when it becomes less than
+	 *            a quarter full
+	 * @throws IllegalArgumentException
+	 *             if the initial capacity is negative
+	 */
+	public MyArrayHeapTree(int initialCapacity, boolean shrink) {
+		if (initialCapacity < 0) {
+			throw new IllegalArgumentException("Capacity must not be negative");
+		}
+		_slots = new Object[Math.max(initialCapacity, 1)];
+		_size = 0;
+		_shrink = shrink;
+	}
+
+	/**
+	 * Adds an element to the tree just after the last node. Returns the
+	 * position for the element. This method runs in amortized O(1) time.
+	 *
+	 * @param element
+	 *            to be added to the tree as the new last node
+	 * @return the Position of the newly inserted element
+	 */
+	@Override
+	public Position<E> add(E element) {
+		if (_size == _slots.length) {
+			this.resize(2 * _slots.length);
+		}
+		_slots[_size] = element;
+		_size++;
+		return new SlotPosition<>(this, _size - 1);
+	}
+
+	/**
+	 * Removes and returns the element stored in the last node of the tree.
+	 * This method runs in amortized O(1) time.
+	 *
+	 * @return the element formerly stored in the last node
+	 * @throws EmptyTreeException
+	 *             if the tree is empty and no last node exists
+	 */
+	@Override
+	public E remove() throws EmptyTreeException {
+		if (_size == 0) {
+			throw new EmptyTreeException("Can't remove elements from empty tree");
+		}
+		_size--;
+		E element = this.elementAt(_size);
+
+		// Clearing the slot so that the removed element can be collected
+		_slots[_size] = null;
+
+		if (_shrink && _slots.length > DEFAULT_CAPACITY && _size < _slots.length / 4) {
+			this.resize(_slots.length / 2);
+		}
+		return element;
+	}
+
+	@Override
+	public E get(int slot) {
+		this.checkSlot(slot);
+		return this.elementAt(slot);
+	}
+
+	@Override
+	public E set(int slot, E element) {
+		this.checkSlot(slot);
+		E old = this.elementAt(slot);
+		_slots[slot] = element;
+		return old;
+	}
+
+	@Override
+	public Position<E> positionAt(int slot) {
+		this.checkSlot(slot);
+		return new SlotPosition<>(this, slot);
+	}
+
+	@Override
+	public void ensureCapacity(int capacity) {
+		if (capacity > _slots.length) {
+			this.resize(Math.max(capacity, 2 * _slots.length));
+		}
+	}
+
+	/**
+	 * Shrinks the array so that it holds exactly the current nodes.
+	 */
+	public void trimToSize() {
+		this.resize(Math.max(_size, 1));
+	}
+
+	/**
+	 * @return the number of nodes the tree can hold before it has to grow
+	 */
+	public int capacity() {
+		return _slots.length;
+	}
+
+	@Override
+	public int size() {
+		return _size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return _size == 0;
+	}
+
+	@Override
+	public Iterator<E> iterator() {
+		return new Iterator<E>() {
+			private int _next = 0;
+
+			@Override
+			public boolean hasNext() {
+				return _next < _size;
+			}
+
+			@Override
+			public E next() {
+				if (_next >= _size) {
+					throw new NoSuchElementException();
+				}
+				_next++;
+				return MyArrayHeapTree.this.elementAt(_next - 1);
+			}
+		};
+	}
+
+	@Override
+	public Iterable<Position<E>> positions() {
+		List<Position<E>> positions = new ArrayList<>(_size);
+		for (int i = 0; i < _size; i++) {
+			positions.add(new SlotPosition<>(this, i));
+		}
+		return positions;
+	}
+
+	@Override
+	public E replace(Position<E> p, E element) throws InvalidPositionException {
+		return this.set(this.checkPosition(p), element);
+	}
+
+	@Override
+	public Position<E> root() throws EmptyTreeException {
+		if (_size == 0) {
+			throw new EmptyTreeException("The tree is empty");
+		}
+		return new SlotPosition<>(this, 0);
+	}
+
+	@Override
+	public Position<E> parent(Position<E> p) throws InvalidPositionException, BoundaryViolationException {
+		int slot = this.checkPosition(p);
+		if (slot == 0) {
+			throw new BoundaryViolationException("No parent");
+		}
+		return new SlotPosition<>(this, (slot - 1) / 2);
+	}
+
+	@Override
+	public Iterable<Position<E>> children(Position<E> p) throws InvalidPositionException {
+		List<Position<E>> children = new ArrayList<>(2);
+		if (this.hasLeft(p)) {
+			children.add(this.left(p));
+		}
+		if (this.hasRight(p)) {
+			children.add(this.right(p));
+		}
+		return children;
+	}
+
+	@Override
+	public boolean isInternal(Position<E> p) throws InvalidPositionException {
+		return this.hasLeft(p);
+	}
+
+	@Override
+	public boolean isExternal(Position<E> p) throws InvalidPositionException {
+		return !this.hasLeft(p);
+	}
+
+	@Override
+	public boolean isRoot(Position<E> p) throws InvalidPositionException {
+		return this.checkPosition(p) == 0;
+	}
+
+	@Override
+	public Position<E> left(Position<E> p) throws InvalidPositionException, BoundaryViolationException {
+		if (!this.hasLeft(p)) {
+			throw new BoundaryViolationException("No left child");
+		}
+		return new SlotPosition<>(this, 2 * this.checkPosition(p) + 1);
+	}
+
+	@Override
+	public Position<E> right(Position<E> p) throws InvalidPositionException, BoundaryViolationException {
+		if (!this.hasRight(p)) {
+			throw new BoundaryViolationException("No right child");
+		}
+		return new SlotPosition<>(this, 2 * this.checkPosition(p) + 2);
+	}
+
+	@Override
+	public boolean hasLeft(Position<E> p) throws InvalidPositionException {
+		return 2 * this.checkPosition(p) + 1 < _size;
+	}
+
+	@Override
+	public boolean hasRight(Position<E> p) throws InvalidPositionException {
+		return 2 * this.checkPosition(p) + 2 < _size;
+	}
+
+	@SuppressWarnings("unchecked")
+	private E elementAt(int slot) {
+		return (E) _slots[slot];
+	}
+
+	private void resize(int capacity) {
+		_slots = Arrays.copyOf(_slots, capacity);
+	}
+
+	private void checkSlot(int slot) {
+		if (slot < 0 || slot >= _size) {
+			throw new BoundaryViolationException("Slot " + slot + " is outside the tree");
+		}
+	}
+
+	/*
+	 * This method checks that the position is a live slot of this tree and
+	 * returns that slot
+	 */
+
+	private int checkPosition(Position<E> p) throws InvalidPositionException {
+		if (p == null || !(p instanceof SlotPosition)) {
+			throw new InvalidPositionException("The position is invalid");
+		}
+		SlotPosition<E> position = (SlotPosition<E>) p;
+		if (position._tree != this || position._slot >= _size) {
+			throw new InvalidPositionException("The position is invalid");
+		}
+		return position._slot;
+	}
+
+	/*
+	 * A view onto one slot of the array. Two views of the same slot are equal,
+	 * so positions can still be used as map keys by the visualizer.
+	 */
+
+	private static class SlotPosition<E> implements Position<E> {
+
+		private final MyArrayHeapTree<E> _tree;
+		private final int _slot;
+
+		public SlotPosition(MyArrayHeapTree<E> tree, int slot) {
+			_tree = tree;
+			_slot = slot;
+		}
+
+		@Override
+		public E element() {
+			return _tree.elementAt(_slot);
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (!(other instanceof SlotPosition)) {
+				return false;
+			}
+			SlotPosition<?> position = (SlotPosition<?>) other;
+			return position._tree == _tree && position._slot == _slot;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * System.identityHashCode(_tree) + _slot;
+		}
+	}
+
+}
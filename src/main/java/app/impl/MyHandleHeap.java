@@ -0,0 +1,428 @@
+package app.impl;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+import net.datastructures.EmptyPriorityQueueException;
+import net.datastructures.InvalidEntryException;
+import net.datastructures.InvalidKeyException;
+
+/**
+ * An adaptable d-ary heap with the same keys, comparator and ordering as
+ * MyHeap, but which hands out long handles instead of Entry objects. The keys,
+ * values and ids of the entries are kept in parallel arrays in heap order, and
+ * freed ids are reused by later inserts, so once the arrays have grown to the
+ * largest size the heap reaches, insert, removeMin, remove and replaceKey
+ * allocate nothing.
+ *
+ * A handle holds the id of the entry in its low 32 bits and the generation of
+ * that id in its high 32 bits. The generation is bumped every time the id is
+ * freed, so a handle kept after its entry has left the heap is rejected with
+ * an InvalidEntryException instead of silently naming whichever entry reused
+ * the id. (Only after 2^32 reuses of the same id could a stale handle match
+ * again.)
+ *
+ * size, isEmpty, min and the handle accessors run in O(1) time; insert,
+ * removeMin, remove and replaceKey run in O(log n) time.
+ */
+
+public class MyHandleHeap<K, V> {
+
+	private static final int DEFAULT_CAPACITY = 16;
+
+	// The key, value and id of the entry in each slot, in heap order
+	private Object[] _keys;
+	private Object[] _values;
+	private int[] _ids;
+
+	// The slot of each id, or -1 if the id is free, and the current
+	// generation of each id
+	private int[] _slots;
+	private int[] _generations;
+
+	// A stack of the ids that are free to be reused
+	private int[] _freeIds;
+	private int _freeCount;
+
+	private int _size;
+	private Comparator<K> _comparator;
+	private int _arity;
+
+	/**
+	 * Creates an empty binary heap with the given comparator.
+	 *
+	 * @param comparator
+	 *            the comparator to be used for heap keys
+	 * @throws IllegalArgumentException
+	 *             if the comparator is null
+	 */
+	public MyHandleHeap(Comparator<K> comparator) {
+		this(comparator, 2, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Creates an empty d-ary heap with the given comparator, which can hold
+	 * the given number of entries before it has to grow. See MyHeap(Comparator,
+	 * IndexedHeapTree, int) for choosing the arity.
+	 *
+	 * @param comparator
+	 *            the comparator to be used for heap keys
+	 * @param arity
+	 *            the number of children of each node, usually 2, 4 or 8
+	 * @param initialCapacity
+	 *            the number of entries to make room for
+	 * @throws IllegalArgumentException
+	 *             if the comparator is null, the arity is below 2 or the
+	 *             capacity is negative
+	 */
+	public MyHandleHeap(Comparator<K> comparator, int arity, int initialCapacity) {
+		if (comparator == null) {
+			throw new IllegalArgumentException();
+		}
+		if (arity < 2) {
+			throw new IllegalArgumentException("The arity must be at least 2");
+		}
+		if (initialCapacity < 0) {
+			throw new IllegalArgumentException("Capacity must not be negative");
+		}
+		int capacity = Math.max(initialCapacity, 1);
+		_keys = new Object[capacity];
+		_values = new Object[capacity];
+		_ids = new int[capacity];
+		_slots = new int[capacity];
+		Arrays.fill(_slots, -1);
+		_generations = new int[capacity];
+		_freeIds = new int[capacity];
+		_freeCount = 0;
+		_size = 0;
+		_comparator = comparator;
+		_arity = arity;
+	}
+
+	/**
+	 * @return the number of entries in the heap
+	 */
+	public int size() {
+		return _size;
+	}
+
+	/**
+	 * @return true if the heap is empty; false otherwise
+	 */
+	public boolean isEmpty() {
+		return _size == 0;
+	}
+
+	/**
+	 * Inserts a key-value pair and returns the handle of the new entry.
+	 *
+	 * @param key
+	 *            to be used as the key the heap is sorting with
+	 * @param value
+	 *            stored with the associated key in the heap
+	 * @return the handle of the entry created
+	 * @throws InvalidKeyException
+	 *             if the key is not suitable for this heap
+	 */
+	public long insert(K key, V value) throws InvalidKeyException {
+		this.checkKey(key);
+		if (_size == _keys.length) {
+			this.grow();
+		}
+
+		// Reusing a free id if there is one; otherwise ids are handed out in
+		// order, so the next new id is the number of live ids
+		int id;
+		if (_freeCount > 0) {
+			_freeCount--;
+			id = _freeIds[_freeCount];
+		} else {
+			id = _size;
+		}
+
+		_size++;
+		this.siftUp(_size - 1, key, value, id);
+		return this.handleOf(id);
+	}
+
+	/**
+	 * Returns the handle of the entry with the minimum key.
+	 *
+	 * @throws EmptyPriorityQueueException
+	 *             if the heap is empty
+	 */
+	public long min() throws EmptyPriorityQueueException {
+		this.checkNotEmpty();
+		return this.handleOf(_ids[0]);
+	}
+
+	/**
+	 * Returns the minimum key in the heap.
+	 *
+	 * @throws EmptyPriorityQueueException
+	 *             if the heap is empty
+	 */
+	@SuppressWarnings("unchecked")
+	public K minKey() throws EmptyPriorityQueueException {
+		this.checkNotEmpty();
+		return (K) _keys[0];
+	}
+
+	/**
+	 * Returns the value stored with the minimum key.
+	 *
+	 * @throws EmptyPriorityQueueException
+	 *             if the heap is empty
+	 */
+	@SuppressWarnings("unchecked")
+	public V minValue() throws EmptyPriorityQueueException {
+		this.checkNotEmpty();
+		return (V) _values[0];
+	}
+
+	/**
+	 * Removes the entry with the minimum key and returns its value. Read
+	 * minKey() first if the key is needed as well.
+	 *
+	 * @return the value of the removed entry
+	 * @throws EmptyPriorityQueueException
+	 *             if the heap is empty
+	 */
+	public V removeMin() throws EmptyPriorityQueueException {
+		if (_size == 0) {
+			throw new EmptyPriorityQueueException("Cannot get minimum of an empty Heap");
+		}
+		return this.removeSlot(0);
+	}
+
+	/**
+	 * Removes the entry with the given handle and returns its value.
+	 *
+	 * @param handle
+	 *            of the entry to be removed
+	 * @return the value of the removed entry
+	 * @throws InvalidEntryException
+	 *             if the handle does not belong to an entry in the heap
+	 */
+	public V remove(long handle) throws InvalidEntryException {
+		return this.removeSlot(this.checkHandle(handle));
+	}
+
+	/**
+	 * Replaces the key of the entry with the given handle. The handle stays
+	 * valid.
+	 *
+	 * @param handle
+	 *            of the entry whose key is replaced
+	 * @param key
+	 *            to replace the existing key
+	 * @return the old key of the entry
+	 * @throws InvalidEntryException
+	 *             if the handle does not belong to an entry in the heap
+	 * @throws InvalidKeyException
+	 *             if the key is not suitable for this heap
+	 */
+	@SuppressWarnings("unchecked")
+	public K replaceKey(long handle, K key) throws InvalidEntryException, InvalidKeyException {
+		int slot = this.checkHandle(handle);
+		this.checkKey(key);
+		K oldKey = (K) _keys[slot];
+		Object value = _values[slot];
+		int id = _ids[slot];
+
+		if (_comparator.compare(key, oldKey) < 0) {
+			this.siftUp(slot, key, value, id);
+		} else {
+			this.siftDown(slot, key, value, id);
+		}
+		return oldKey;
+	}
+
+	/**
+	 * Replaces the value of the entry with the given handle.
+	 *
+	 * @param handle
+	 *            of the entry whose value is replaced
+	 * @param value
+	 *            to replace the existing value
+	 * @return the old value of the entry
+	 * @throws InvalidEntryException
+	 *             if the handle does not belong to an entry in the heap
+	 */
+	@SuppressWarnings("unchecked")
+	public V replaceValue(long handle, V value) throws InvalidEntryException {
+		int slot = this.checkHandle(handle);
+		V oldValue = (V) _values[slot];
+		_values[slot] = value;
+		return oldValue;
+	}
+
+	/**
+	 * @return the key of the entry with the given handle
+	 * @throws InvalidEntryException
+	 *             if the handle does not belong to an entry in the heap
+	 */
+	@SuppressWarnings("unchecked")
+	public K keyOf(long handle) throws InvalidEntryException {
+		return (K) _keys[this.checkHandle(handle)];
+	}
+
+	/**
+	 * @return the value of the entry with the given handle
+	 * @throws InvalidEntryException
+	 *             if the handle does not belong to an entry in the heap
+	 */
+	@SuppressWarnings("unchecked")
+	public V valueOf(long handle) throws InvalidEntryException {
+		return (V) _values[this.checkHandle(handle)];
+	}
+
+	/**
+	 * @return whether the handle belongs to an entry in the heap
+	 */
+	public boolean contains(long handle) {
+		int id = (int) handle;
+		return id >= 0 && id < _slots.length && _slots[id] >= 0 && _generations[id] == (int) (handle >>> 32);
+	}
+
+	/*
+	 * This method removes the entry in the given slot, frees its id, fills the
+	 * slot with the last entry and sifts that entry to its place
+	 */
+
+	@SuppressWarnings("unchecked")
+	private V removeSlot(int slot) {
+		V value = (V) _values[slot];
+		int id = _ids[slot];
+		int last = _size - 1;
+
+		K lastKey = (K) _keys[last];
+		Object lastValue = _values[last];
+		int lastId = _ids[last];
+		_keys[last] = null;
+		_values[last] = null;
+		_size--;
+
+		_slots[id] = -1;
+		_generations[id]++;
+		_freeIds[_freeCount] = id;
+		_freeCount++;
+
+		if (slot != last) {
+			if (slot > 0 && _comparator.compare(lastKey, (K) _keys[(slot - 1) / _arity]) < 0) {
+				this.siftUp(slot, lastKey, lastValue, lastId);
+			} else {
+				this.siftDown(slot, lastKey, lastValue, lastId);
+			}
+		}
+		return value;
+	}
+
+	/*
+	 * This method moves the hole at the given slot up until the key fits, then
+	 * stores the entry there
+	 */
+
+	@SuppressWarnings("unchecked")
+	private void siftUp(int slot, K key, Object value, int id) {
+		while (slot > 0) {
+			int parent = (slot - 1) / _arity;
+			if (_comparator.compare((K) _keys[parent], key) <= 0) {
+				break;
+			}
+			this.move(parent, slot);
+			slot = parent;
+		}
+		this.store(slot, key, value, id);
+	}
+
+	/*
+	 * This method moves the hole at the given slot down until the key fits,
+	 * then stores the entry there
+	 */
+
+	@SuppressWarnings("unchecked")
+	private void siftDown(int slot, K key, Object value, int id) {
+		while (true) {
+			int first = _arity * slot + 1;
+			if (first >= _size) {
+				break;
+			}
+			int end = Math.min(first + _arity, _size);
+			int child = first;
+			K childKey = (K) _keys[first];
+			for (int i = first + 1; i < end; i++) {
+				if (_comparator.compare((K) _keys[i], childKey) < 0) {
+					child = i;
+					childKey = (K) _keys[i];
+				}
+			}
+			if (_comparator.compare(key, childKey) <= 0) {
+				break;
+			}
+			this.move(child, slot);
+			slot = child;
+		}
+		this.store(slot, key, value, id);
+	}
+
+	private void move(int from, int to) {
+		_keys[to] = _keys[from];
+		_values[to] = _values[from];
+		_ids[to] = _ids[from];
+		_slots[_ids[to]] = to;
+	}
+
+	private void store(int slot, Object key, Object value, int id) {
+		_keys[slot] = key;
+		_values[slot] = value;
+		_ids[slot] = id;
+		_slots[id] = slot;
+	}
+
+	private long handleOf(int id) {
+		return ((long) _generations[id] << 32) | id;
+	}
+
+	private void grow() {
+		int oldCapacity = _keys.length;
+		int capacity = 2 * oldCapacity;
+		_keys = Arrays.copyOf(_keys, capacity);
+		_values = Arrays.copyOf(_values, capacity);
+		_ids = Arrays.copyOf(_ids, capacity);
+		_slots = Arrays.copyOf(_slots, capacity);
+		Arrays.fill(_slots, oldCapacity, capacity, -1);
+		_generations = Arrays.copyOf(_generations, capacity);
+		_freeIds = Arrays.copyOf(_freeIds, capacity);
+	}
+
+	/*
+	 * This method checks that a key can be stored in this heap: it must not be
+	 * null, and the comparator must accept it
+	 */
+
+	private void checkKey(K key) throws InvalidKeyException {
+		if (key == null) {
+			throw new InvalidKeyException("Must Enter Suitable Key");
+		}
+		try {
+			_comparator.compare(key, key);
+		} catch (ClassCastException e) {
+			throw new InvalidKeyException("Must Enter Suitable Key");
+		}
+	}
+
+	private int checkHandle(long handle) throws InvalidEntryException {
+		if (!this.contains(handle)) {
+			throw new InvalidEntryException("Invalid handle");
+		}
+		return _slots[(int) handle];
+	}
+
+	private void checkNotEmpty() throws EmptyPriorityQueueException {
+		if (_size == 0) {
+			throw new EmptyPriorityQueueException("Heap is Empty");
+		}
+	}
+
+}
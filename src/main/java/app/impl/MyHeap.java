@@ -1,13 +1,16 @@
 package app.impl;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.List;
 import net.datastructures.CompleteBinaryTree;
 import net.datastructures.DefaultComparator;
 import net.datastructures.EmptyPriorityQueueException;
 import net.datastructures.Entry;
 import net.datastructures.InvalidEntryException;
 import net.datastructures.InvalidKeyException;
-import net.datastructures.Position;
 import net.datastructures.AdaptablePriorityQueue;
 import support.heap.HeapWrapper;
 
@@ -17,13 +20,39 @@ import support.heap.HeapWrapper;
  * documentation, and remember that the running time of a "called" method sets
  * the minimum running time of the "calling" method. Feel free to add additional
  * comments.
+ *
+ * The heap keeps its entries in an IndexedHeapTree and moves them by slot, so
+ * it runs either on the linked tree (the default, used by the visualizer) or
+ * on the array-backed MyArrayHeapTree, which stores the entries contiguously
+ * and does not allocate a tree node per entry.
+ *
+ * The heap is binary by default, but it can be built as a d-ary heap, in which
+ * the children of slot i are slots d*i + 1 to d*i + d. See
+ * MyHeap(Comparator, IndexedHeapTree, int) for choosing the arity.
+ *
+ * Setting a HeapMetrics with setMetrics makes the heap count its comparisons,
+ * sifts and operations; see HeapMetrics and getStats(). Slow operations are
+ * also reported to JDK Flight Recorder as HeapOperationEvents, where Flight
+ * Recorder is available.
+ *
+ * For keys that are expensive to compare, setKeyNormalizer gives the heap a
+ * KeyNormalizer, whose long prefix of each key is kept in its entry; sifts then
+ * compare the prefixes and only call the comparator when they are equal.
  */
 
 public class MyHeap<K, V> implements HeapWrapper<K, V>, AdaptablePriorityQueue<K, V> {
 
 	// This the underlying data structure of your heap
-	private MyLinkedHeapTree<MyHeapEntry<K, V>> _tree;
+	private IndexedHeapTree<MyHeapEntry<K, V>> _tree;
 	private Comparator<K> _comparator;
+	private int _arity;
+	private HeapMetrics _metrics;
+	private KeyNormalizer<K> _normalizer;
+
+	// The Flight Recorder event of the operation in progress, if one is being
+	// recorded, and the comparator that _comparator times for it
+	private HeapOperationTrace _event;
+	private Comparator<K> _untimedComparator;
 
 	/**
 	 * Creates an empty heap with the given comparator.
@@ -32,11 +61,62 @@ public class MyHeap<K, V> implements HeapWrapper<K, V>, AdaptablePriorityQueue<K
 	 *            comparator to be used for heap keys
 	 */
 	public MyHeap(Comparator<K> comparator) {
-		_tree = new MyLinkedHeapTree<>();
-		this.setComparator(comparator);
+		this(comparator, new MyLinkedHeapTree<MyHeapEntry<K, V>>());
 
 	}
 
+	/**
+	 * Creates an empty heap with the given comparator on top of the given
+	 * tree, for example a MyArrayHeapTree.
+	 * 
+	 * @param comparator
+	 *            the comparator to be used for heap keys
+	 * @param tree
+	 *            the empty tree in which the entries will be stored
+	 * @throws IllegalArgumentException
+	 *             if the tree is null or not empty
+	 */
+	public MyHeap(Comparator<K> comparator, IndexedHeapTree<MyHeapEntry<K, V>> tree) {
+		this(comparator, tree, 2);
+	}
+
+	/**
+	 * Creates an empty d-ary heap with the given comparator on top of the given
+	 * tree. A wider heap is shallower, so insert and replaceKey decreases
+	 * (which only walk up) touch fewer levels, while removeMin compares more
+	 * children per level but finds them next to each other in the array.
+	 * 
+	 * As a guide, with a million random Integer keys on a MyArrayHeapTree,
+	 * arities 4 and 8 both beat 2 on insert, decreases and removeMin (draining
+	 * the heap took about half as long at 8), because the cache misses of
+	 * walking the entries and their boxed keys cost more than the extra
+	 * comparisons. Since removeMin makes about d comparisons per level, 2 can
+	 * still win when the comparator itself is expensive, so measure for the
+	 * key type at hand. With an arity above 2, getTree()
+	 * still shows the slots as a binary tree, so the visualizer does not show
+	 * the heap shape.
+	 * 
+	 * @param comparator
+	 *            the comparator to be used for heap keys
+	 * @param tree
+	 *            the empty tree in which the entries will be stored
+	 * @param arity
+	 *            the number of children of each node, usually 2, 4 or 8
+	 * @throws IllegalArgumentException
+	 *             if the tree is null or not empty, or the arity is below 2
+	 */
+	public MyHeap(Comparator<K> comparator, IndexedHeapTree<MyHeapEntry<K, V>> tree, int arity) {
+		if (tree == null || tree.isEmpty() == false) {
+			throw new IllegalArgumentException("The heap must start on an empty tree");
+		}
+		if (arity < 2) {
+			throw new IllegalArgumentException("The arity must be at least 2");
+		}
+		_tree = tree;
+		_arity = arity;
+		this.setComparator(comparator);
+	}
+
 	/**
 	 * Sets the comparator used for comparing items in the heap to the
 	 * comparator passed in.
@@ -61,9 +141,68 @@ public class MyHeap<K, V> implements HeapWrapper<K, V>, AdaptablePriorityQueue<K
 			throw new IllegalStateException();
 		}
 
+		_event = null;
+		_untimedComparator = null;
 		_comparator = comparator;
 	}
 
+	/**
+	 * Sets the normalizer that maps keys to long sort prefixes, or stops
+	 * normalizing keys if normalizer is null. See KeyNormalizer for how the
+	 * prefixes must agree with the comparator. With a normalizer, keys are
+	 * validated by normalizing them instead of comparing them with themselves,
+	 * so the normalizer must reject every key the comparator would.
+	 * 
+	 * @param normalizer
+	 *            the normalizer of the keys, or null
+	 * @throws IllegalStateException
+	 *             if priority queue is not empty
+	 */
+	public void setKeyNormalizer(KeyNormalizer<K> normalizer) throws IllegalStateException {
+		if (this.isEmpty() == false) {
+			throw new IllegalStateException("The key normalizer can only be set on an empty heap");
+		}
+		_normalizer = normalizer;
+	}
+
+	/**
+	 * @return the normalizer of the keys, or null if keys are not normalized
+	 */
+	public KeyNormalizer<K> getKeyNormalizer() {
+		return _normalizer;
+	}
+
+	/**
+	 * Sets the metrics that count what this heap does, or turns counting off
+	 * if metrics is null. Metrics can be set or removed at any time.
+	 * 
+	 * @param metrics
+	 *            the metrics to update from now on, or null
+	 */
+	public void setMetrics(HeapMetrics metrics) {
+		_metrics = metrics;
+	}
+
+	/**
+	 * @return the metrics this heap updates, or null if counting is off
+	 */
+	public HeapMetrics getMetrics() {
+		return _metrics;
+	}
+
+	/**
+	 * Returns a snapshot of the counters of this heap's metrics.
+	 * 
+	 * @throws IllegalStateException
+	 *             if no metrics are set
+	 */
+	public HeapStats getStats() throws IllegalStateException {
+		if (_metrics == null) {
+			throw new IllegalStateException("No metrics are set");
+		}
+		return _metrics.snapshot();
+	}
+
 	/**
 	 * Returns a CompleteBinaryTree that will allow the visualizer access to
 	 * private members, shattering encapsulation, but allowing visualization of
@@ -110,7 +249,7 @@ public class MyHeap<K, V> implements HeapWrapper<K, V>, AdaptablePriorityQueue<K
 			throw new EmptyPriorityQueueException("Heap is Empty");
 		}
 
-		return _tree.root().element();
+		return _tree.get(0);
 	}
 
 	/**
@@ -127,19 +266,8 @@ public class MyHeap<K, V> implements HeapWrapper<K, V>, AdaptablePriorityQueue<K
 	 */
 	public Entry<K, V> insert(K key, V value) throws InvalidKeyException {
 
-		// This throws an exception if the key entered is a null value
-		if (key == null) {
-			throw new InvalidKeyException("Must Enter Suitable Key");
-		}
-
-		// This catches any exceptions thrown by the comparator if the key is an
-		// invalid type
-
-		try {
-			_comparator.compare(key, key);
-		} catch (ClassCastException e) {
-			throw new InvalidKeyException("Must Enter Suitable Key");
-		}
+		long prefix = this.checkKey(key);
+		this.beginEvent();
 
 		/*
 		 * This creates an entry with the designated key, value pair. It then
@@ -149,13 +277,124 @@ public class MyHeap<K, V> implements HeapWrapper<K, V>, AdaptablePriorityQueue<K
 
 		MyHeapEntry<K, V> entry = new MyHeapEntry<>();
 		entry.setKey(key);
+		entry.setPrefix(prefix);
 		entry.setValue(value);
-		Position<MyHeapEntry<K, V>> entry_node = _tree.add(entry);
-		entry.setNode(entry_node);
+		_tree.add(entry);
+		entry.setSlot(_tree.size() - 1);
 		this.upHeap(entry);
+		this.record(HeapOperation.INSERT);
 		return entry;
 	}
 
+	/**
+	 * Inserts all of the given key-value pairs and returns the entries created,
+	 * in the same order as the pairs. The entries are appended to the tree in
+	 * one pass and the heap order is then restored bottom-up (Floyd's
+	 * heapify), which runs in O(n + m) time for m pairs added to a heap of n
+	 * entries. When m is small compared to n, each new entry is upheaped
+	 * instead, in O(m log(n + m)) time, whichever is cheaper.
+	 * 
+	 * All keys are checked before the heap is changed, so if one of them is
+	 * invalid none of the pairs is inserted.
+	 *
+	 * @param pairs
+	 *            the key-value pairs to be inserted
+	 * @return the entries created, in the order of the pairs
+	 * @throws InvalidKeyException
+	 *             if any of the keys is not suitable for this heap
+	 */
+	public List<Entry<K, V>> insertAll(Collection<? extends Entry<K, V>> pairs) throws InvalidKeyException {
+		long[] prefixes = new long[pairs.size()];
+		int index = 0;
+		for (Entry<K, V> pair : pairs) {
+			prefixes[index++] = this.checkKey(pair.getKey());
+		}
+
+		this.beginEvent();
+		int oldSize = _tree.size();
+		List<Entry<K, V>> entries = new ArrayList<>(pairs.size());
+		_tree.ensureCapacity(oldSize + pairs.size());
+
+		index = 0;
+		for (Entry<K, V> pair : pairs) {
+			MyHeapEntry<K, V> entry = new MyHeapEntry<>();
+			entry.setKey(pair.getKey());
+			entry.setPrefix(prefixes[index++]);
+			entry.setValue(pair.getValue());
+			_tree.add(entry);
+			entry.setSlot(_tree.size() - 1);
+			entries.add(entry);
+		}
+
+		// Upheaping m new entries costs about m log n comparisons, while
+		// heapifying the whole tree costs about 2(n + m), so the tree is only
+		// rebuilt when the batch is at least as big as the existing heap
+		if (pairs.size() >= oldSize) {
+			this.heapify();
+		} else {
+			for (Entry<K, V> entry : entries) {
+				this.upHeap((MyHeapEntry<K, V>) entry);
+			}
+		}
+		this.record(HeapOperation.INSERT_ALL);
+		return entries;
+	}
+
+	/**
+	 * Moves every entry of another heap into this one and leaves the other heap
+	 * empty. The entries keep their identity: an entry handed out by the other
+	 * heap now belongs to this heap, so it can be passed to this heap's
+	 * replaceKey, replaceValue and remove, while the other heap rejects it. No
+	 * entries are created, and the heap order is restored as in insertAll, so
+	 * this method runs in O(n + m) time for m entries melded into a heap of n
+	 * entries, or in O(m log(n + m)) time when m is small compared to n.
+	 * 
+	 * The two heaps may differ in tree and arity. All of the other heap's keys
+	 * are checked against this heap's comparator (or normalized by this heap's
+	 * normalizer) before either heap is changed.
+	 *
+	 * @param other
+	 *            the heap whose entries are moved into this one
+	 * @throws IllegalArgumentException
+	 *             if other is null or this heap
+	 * @throws InvalidKeyException
+	 *             if any key of the other heap is not suitable for this heap
+	 */
+	public void meld(MyHeap<K, V> other) throws IllegalArgumentException, InvalidKeyException {
+		if (other == null || other == this) {
+			throw new IllegalArgumentException("Cannot meld a heap with itself or null");
+		}
+		int otherSize = other._tree.size();
+		long[] prefixes = new long[otherSize];
+		for (int slot = 0; slot < otherSize; slot++) {
+			prefixes[slot] = this.checkKey(other._tree.get(slot).getKey());
+		}
+
+		this.beginEvent();
+		int oldSize = _tree.size();
+		_tree.ensureCapacity(oldSize + otherSize);
+		for (int slot = 0; slot < otherSize; slot++) {
+			MyHeapEntry<K, V> entry = other._tree.get(slot);
+			entry.setPrefix(prefixes[slot]);
+			_tree.add(entry);
+			entry.setSlot(oldSize + slot);
+		}
+		while (other._tree.isEmpty() == false) {
+			other._tree.remove();
+		}
+
+		// The same trade-off as in insertAll: heapifying costs about 2(n + m)
+		// comparisons, upheaping the melded entries about m log n
+		if (otherSize >= oldSize) {
+			this.heapify();
+		} else {
+			for (int slot = oldSize; slot < oldSize + otherSize; slot++) {
+				this.upHeap(_tree.get(slot));
+			}
+		}
+		this.record(HeapOperation.MELD);
+	}
+
 	/**
 	 * Removes and returns the entry with the minimum key. This method must run
 	 * in O(log n) time.
@@ -169,34 +408,179 @@ public class MyHeap<K, V> implements HeapWrapper<K, V>, AdaptablePriorityQueue<K
 		if (this.isEmpty()) {
 			throw new EmptyPriorityQueueException("Cannot get minimum of an empty Heap");
 		}
-		
-		// This handles the edge case in which the tree only has 1 element
-		if (_tree.size() == 1) {
-			return _tree.remove();
+		this.beginEvent();
+
+		// Removing the last node of the heap, and downheaping its entry from
+		// the root, which it fills once it has found its place
+		MyHeapEntry<K, V> minimumEntry = _tree.get(0);
+		MyHeapEntry<K, V> lastEntry = _tree.remove();
+		minimumEntry.setSlot(-1);
+		if (lastEntry != minimumEntry) {
+			lastEntry.setSlot(0);
+			this.downHeap(lastEntry);
 		}
 
-		// Setting the local variables to keep track of variables and nodes
-		Position<MyHeapEntry<K, V>> rootNode = _tree.root();
-		MyHeapEntry<K, V> minimumEntry = rootNode.element();
-		MyHeapEntry<K, V> lastEntry = _tree.returnLast().element();
-		Position<MyHeapEntry<K, V>> lastNode = lastEntry.getNode();
+		this.record(HeapOperation.REMOVE_MIN);
+		return minimumEntry;
+	}
 
-		// Swapping out the entries of the root node and the last node in the
-		// heap
-		_tree.replace(rootNode, lastEntry);
-		_tree.replace(lastNode, minimumEntry);
+	/**
+	 * Inserts a key-value pair and then removes and returns the entry with the
+	 * minimum key, which may be the new one. This is the same as insert
+	 * followed by removeMin, but the new entry simply takes the root's place
+	 * and is downheaped once, so no node is added to or removed from the tree.
+	 * If the new key is no larger than the minimum, the heap is not touched at
+	 * all. This method runs in O(log n) time.
+	 *
+	 * @param key
+	 *            to be used as the key of the new entry
+	 * @param value
+	 *            stored with the associated key
+	 * @return the entry with the minimum key, now removed
+	 * @throws InvalidKeyException
+	 *             if the key is not suitable for this heap
+	 */
+	public Entry<K, V> insertThenRemoveMin(K key, V value) throws InvalidKeyException {
+		long prefix = this.checkKey(key);
+		this.beginEvent();
 
-		// Setting the container nodes of the entries
-		lastEntry.setNode(rootNode);
-		minimumEntry.setNode(lastNode);
+		MyHeapEntry<K, V> entry = new MyHeapEntry<>();
+		entry.setKey(key);
+		entry.setPrefix(prefix);
+		entry.setValue(value);
 
-		// Removing the last node of the heap, and downheaping the lastEntry
-		_tree.remove();
-		this.downHeap(lastEntry);
+		// The new entry would come straight back out, so it never enters the
+		// heap
+		if (_metrics != null && _tree.isEmpty() == false) {
+			_metrics.recordComparisons(1);
+		}
+		if (_tree.isEmpty() || this.compare(entry, _tree.get(0)) <= 0) {
+			this.record(HeapOperation.INSERT_THEN_REMOVE_MIN);
+			return entry;
+		}
 
+		MyHeapEntry<K, V> minimumEntry = _tree.get(0);
+		entry.setSlot(0);
+		minimumEntry.setSlot(-1);
+		this.downHeap(entry);
+		this.record(HeapOperation.INSERT_THEN_REMOVE_MIN);
 		return minimumEntry;
 	}
 
+	/**
+	 * Removes the entry with the minimum key and inserts a key-value pair in
+	 * its place. The root's MyHeapEntry is reused for the new pair, which is
+	 * then downheaped once from the root, so no entry is allocated and no node
+	 * is added to or removed from the tree. Since the entry is reused, read
+	 * min() first if the removed key or value is still needed. This method runs
+	 * in O(log n) time.
+	 *
+	 * @param key
+	 *            to be used as the key of the new pair
+	 * @param value
+	 *            stored with the associated key
+	 * @return the entry that now holds the new pair
+	 * @throws EmptyPriorityQueueException
+	 *             if the heap is empty
+	 * @throws InvalidKeyException
+	 *             if the key is not suitable for this heap
+	 */
+	public Entry<K, V> removeMinThenInsert(K key, V value) throws EmptyPriorityQueueException, InvalidKeyException {
+		if (this.isEmpty()) {
+			throw new EmptyPriorityQueueException("Cannot get minimum of an empty Heap");
+		}
+		long prefix = this.checkKey(key);
+		this.beginEvent();
+
+		MyHeapEntry<K, V> entry = _tree.get(0);
+		entry.setKey(key);
+		entry.setPrefix(prefix);
+		entry.setValue(value);
+		this.downHeap(entry);
+		this.record(HeapOperation.REMOVE_MIN_THEN_INSERT);
+		return entry;
+	}
+
+	/**
+	 * Removes and returns the k entries with the smallest keys, smallest first,
+	 * or all of the entries if the heap holds fewer than k. This runs in
+	 * O(k log n) time, but does less work per entry than k calls to
+	 * removeMin(): each entry is taken off with a bottom-up removal, which
+	 * needs about half the comparisons of a downheap, and when the whole heap
+	 * is taken the entries are simply sorted instead of being removed one by
+	 * one; with a key normalizer, they are sorted by a radix sort of their sort
+	 * prefixes, and the comparator only orders equal prefixes.
+	 *
+	 * @param k
+	 *            the number of entries to remove
+	 * @return the removed entries, in key order
+	 * @throws IllegalArgumentException
+	 *             if k is negative
+	 */
+	public List<Entry<K, V>> removeMin(int k) throws IllegalArgumentException {
+		if (k < 0) {
+			throw new IllegalArgumentException("Cannot remove a negative number of entries");
+		}
+		List<Entry<K, V>> removed = new ArrayList<>(Math.min(k, _tree.size()));
+		this.drainTo(removed, k);
+		return removed;
+	}
+
+	/**
+	 * Removes up to max entries with the smallest keys and adds them to the
+	 * given collection, smallest first. See removeMin(int).
+	 *
+	 * @param target
+	 *            the collection to which the removed entries are added
+	 * @param max
+	 *            the largest number of entries to remove
+	 * @return the number of entries removed
+	 * @throws IllegalArgumentException
+	 *             if max is negative or target is null
+	 */
+	public int drainTo(Collection<? super Entry<K, V>> target, int max) throws IllegalArgumentException {
+		if (max < 0 || target == null) {
+			throw new IllegalArgumentException("Invalid drain target or count");
+		}
+		this.beginEvent();
+
+		// Taking the whole heap: sorting it is cheaper than keeping it a heap
+		// while it empties
+		if (max >= _tree.size()) {
+			int count = _tree.size();
+			@SuppressWarnings({ "rawtypes", "unchecked" })
+			MyHeapEntry<K, V>[] entries = new MyHeapEntry[count];
+			for (int i = 0; i < count; i++) {
+				MyHeapEntry<K, V> entry = _tree.remove();
+				entry.setSlot(-1);
+				entries[i] = entry;
+			}
+			Comparator<MyHeapEntry<K, V>> comparator = new Comparator<MyHeapEntry<K, V>>() {
+				@Override
+				public int compare(MyHeapEntry<K, V> first, MyHeapEntry<K, V> second) {
+					if (_metrics != null) {
+						_metrics.recordComparisons(1);
+					}
+					return MyHeap.this.compare(first, second);
+				}
+			};
+			if (_normalizer != null) {
+				PrefixSort.sort(entries, comparator);
+			} else {
+				Arrays.sort(entries, comparator);
+			}
+			target.addAll(Arrays.asList(entries));
+			this.record(HeapOperation.REMOVE_MIN_BATCH);
+			return count;
+		}
+
+		for (int i = 0; i < max; i++) {
+			target.add(this.removeRootBottomUp());
+		}
+		this.record(HeapOperation.REMOVE_MIN_BATCH);
+		return max;
+	}
+
 	/**
 	 * Removes and returns the given entry from the heap. This method must run
 	 * in O(log n) time.
@@ -209,39 +593,27 @@ public class MyHeap<K, V> implements HeapWrapper<K, V>, AdaptablePriorityQueue<K
 	 */
 	public Entry<K, V> remove(Entry<K, V> entry) throws InvalidEntryException {
 
-		
-		// This handles the edge case in which the entry is the only element in the tree
-		if (_tree.size() == 1) {
-			return _tree.remove();
-		}
-		
 		MyHeapEntry<K, V> checkedEntry = this.checkAndConvertEntry(entry);
-	
-		Position<MyHeapEntry<K, V>> entryNode = checkedEntry.getNode();
-		Position<MyHeapEntry<K, V>> lastNode = _tree.returnLast();
-		MyHeapEntry<K, V> lastEntry = lastNode.element();
-		
-		// Swapping out the removed entry with the entry contained in the last
-		// node
-		_tree.replace(lastNode, checkedEntry);
-		_tree.replace(entryNode, lastEntry);
-		checkedEntry.setNode(lastNode);
-		lastEntry.setNode(entryNode);
-		
-		// Removing the last element in the heap
-		_tree.remove();
-
-		// Checking positional validity and down/upheaping accordingly
-		if (this.checkUpValidity(lastEntry) == false) {
-			this.upHeap(lastEntry);
-		}
-
-		if (this.checkDownValidity(lastEntry) == false) {
-			this.downHeap(lastEntry);
+		this.checkContained(checkedEntry);
+		this.beginEvent();
+		int slot = checkedEntry.getSlot();
+
+		// Removing the last node in the heap; its entry fills the removed
+		// entry's slot
+		MyHeapEntry<K, V> lastEntry = _tree.remove();
+		checkedEntry.setSlot(-1);
+
+		// This handles the case in which the entry was the last one, so nothing
+		// has moved
+		if (lastEntry == checkedEntry) {
+			this.record(HeapOperation.REMOVE);
+			return checkedEntry;
 		}
-		return checkedEntry;
-		
 
+		lastEntry.setSlot(slot);
+		this.reHeap(lastEntry);
+		this.record(HeapOperation.REMOVE);
+		return checkedEntry;
 	}
 
 	/**
@@ -260,32 +632,17 @@ public class MyHeap<K, V> implements HeapWrapper<K, V>, AdaptablePriorityQueue<K
 	 */
 	public K replaceKey(Entry<K, V> entry, K key) throws InvalidEntryException, InvalidKeyException {
 		MyHeapEntry<K, V> checkedEntry = this.checkAndConvertEntry(entry);
+		this.checkContained(checkedEntry);
 
-		// This throws an exception if the key entered is a null value
-		if (key == null) {
-			throw new InvalidKeyException("Must Enter Suitable Key");
-		}
-
-		// This catches any exceptions thrown by the comparator if the key is an
-		// invalid type
-
-		try {
-			_comparator.compare(key, key);
-		} catch (ClassCastException e) {
-			throw new InvalidKeyException("Must Enter Suitable Key");
-		}
+		long prefix = this.checkKey(key);
+		this.beginEvent();
 
 		K oldKey = checkedEntry.getKey();
 		checkedEntry.setKey(key);
+		checkedEntry.setPrefix(prefix);
+		this.reHeap(checkedEntry);
 
-		if (this.checkUpValidity(checkedEntry) == false) {
-			this.upHeap(checkedEntry);
-		}
-
-		if (this.checkDownValidity(checkedEntry) == false) {
-			this.downHeap(checkedEntry);
-		}
-
+		this.record(HeapOperation.REPLACE_KEY);
 		return oldKey;
 	}
 
@@ -302,9 +659,11 @@ public class MyHeap<K, V> implements HeapWrapper<K, V>, AdaptablePriorityQueue<K
 	 */
 	public V replaceValue(Entry<K, V> entry, V value) throws InvalidEntryException {
 		MyHeapEntry<K, V> checkedEntry = this.checkAndConvertEntry(entry);
+		this.checkContained(checkedEntry);
 
 		V oldValue = checkedEntry.getValue();
 		checkedEntry.setValue(value);
+		this.record(HeapOperation.REPLACE_VALUE);
 		return oldValue;
 	}
 
@@ -327,190 +686,356 @@ public class MyHeap<K, V> implements HeapWrapper<K, V>, AdaptablePriorityQueue<K
 	}
 
 	/*
-	 * This method is used to determine if an entry is properly placed below its
-	 * parent. If the parent node contains an entry which has a larger key, the
-	 * method returns false.
-	 * 
-	 * @ param: The entry being checked for upward movement validity
-	 * @ return: A boolean checking if the entry is correctly positioned relative to entries above it
+	 * This method checks that a key can be stored in this heap: it must not be
+	 * null, and the comparator (or the normalizer, if there is one) must
+	 * accept it. It returns the sort prefix of the key, or 0 without a
+	 * normalizer
 	 */
 
-	private boolean checkUpValidity(MyHeapEntry<K, V> entryObject) {
+	private long checkKey(K key) throws InvalidKeyException {
 
-		MyHeapEntry<K, V> entry = entryObject;
-		Position<MyHeapEntry<K, V>> entryNode = entry.getNode();
+		// This throws an exception if the key entered is a null value
+		if (key == null) {
+			throw new InvalidKeyException("Must Enter Suitable Key");
+		}
 
-		// The method returns true if the node containing the entry is a root
-		// node
-		if (_tree.isRoot(entryNode)) {
-			return true;
+		// Normalizing the key validates it, so it need not be compared
+		if (_normalizer != null) {
+			try {
+				return _normalizer.normalize(key);
+			} catch (ClassCastException | IllegalArgumentException e) {
+				throw new InvalidKeyException("Must Enter Suitable Key");
+			}
 		}
 
-		// This creates local variables that track the keys of the parent node
-		// and the current node
-		Position<MyHeapEntry<K, V>> parentNode = _tree.parent(entryNode);
-		K parentKey = parentNode.element().getKey();
-		K entryKey = entryNode.element().getKey();
+		// This catches any exceptions thrown by the comparator if the key is an
+		// invalid type
 
-		if (_comparator.compare(parentKey, entryKey) <= 0) {
-			return true;
+		try {
+			_comparator.compare(key, key);
+		} catch (ClassCastException e) {
+			throw new InvalidKeyException("Must Enter Suitable Key");
 		}
-
-		return false;
+		if (_metrics != null) {
+			_metrics.recordComparisons(1);
+		}
+		return 0;
 	}
 
 	/*
-	 * This helper method is used to determine if an entry is properly placed
-	 * above its children. If the children nodes contain entries which have
-	 * smaller keys, the method returns false
-	 * 
-	 * @ param The entry that is being checked for downward placement validity
-	 * @ return A boolean checking if the entry is correctly positioned relative to entries below it
+	 * This method orders two entries by their keys: by the sort prefixes first
+	 * if keys are normalized, and by the comparator only when those are equal
 	 */
 
-	private boolean checkDownValidity(MyHeapEntry<K, V> entryObject) {
-		MyHeapEntry<K, V> entry = entryObject;
-		Position<MyHeapEntry<K, V>> entryNode = entry.getNode();
-		K entryKey = entry.getKey();
+	private int compare(MyHeapEntry<K, V> first, MyHeapEntry<K, V> second) {
+		return this.compare(first.getPrefix(), first.getKey(), second.getPrefix(), second.getKey());
+	}
 
-		// Returns true if the given entry has no children
-		if (_tree.hasLeft(entryNode) == false && _tree.hasRight(entryNode) == false) {
-			return true;
+	/*
+	 * This method orders two keys given with their sort prefixes. The metrics
+	 * count every comparison as a comparator call, so one decided by the
+	 * prefixes is moved over to the prefix comparisons
+	 */
+
+	private int compare(long firstPrefix, K firstKey, long secondPrefix, K secondKey) {
+		if (_normalizer != null && firstPrefix != secondPrefix) {
+			if (_metrics != null) {
+				_metrics.recordPrefixComparison();
+			}
+			return (firstPrefix < secondPrefix) ? -1 : 1;
 		}
+		return _comparator.compare(firstKey, secondKey);
+	}
 
-		// Returns true if the node has two children, and both have bigger keys
-		if (_tree.hasLeft(entryNode) && _tree.hasRight(entryNode)) {
-			Position<MyHeapEntry<K, V>> leftChild = _tree.left(entryNode);
-			MyHeapEntry<K, V> leftChildElement = leftChild.element();
-			K leftChildKey = leftChildElement.getKey();
-			Position<MyHeapEntry<K, V>> rightChild = _tree.right(entryNode);
-			MyHeapEntry<K, V> rightChildElement = rightChild.element();
-			K rightChildKey = rightChildElement.getKey();
+	/*
+	 * This method removes the root entry of a non-empty heap bottom-up: the
+	 * hole left at the root is moved down to a leaf by pulling up the smallest
+	 * child at each level, which needs no comparison against the entry that
+	 * will fill it. The last entry is then put into the hole and upheaped,
+	 * which usually moves it at most a level or two, since it came from the
+	 * bottom of the heap
+	 */
 
-			if (_comparator.compare(entryKey, leftChildKey) <= 0 && _comparator.compare(entryKey, rightChildKey) <= 0) {
+	private MyHeapEntry<K, V> removeRootBottomUp() {
+		MyHeapEntry<K, V> minimumEntry = _tree.get(0);
+		MyHeapEntry<K, V> lastEntry = _tree.remove();
+		minimumEntry.setSlot(-1);
+		if (lastEntry == minimumEntry) {
+			return minimumEntry;
+		}
 
-				return true;
-	
-			} else {
-				return false;
+		int size = _tree.size();
+		int hole = 0;
+		int firstChild = 1;
+		while (firstChild < size) {
+			int end = Math.min(firstChild + _arity, size);
+			int smallest = firstChild;
+			MyHeapEntry<K, V> childEntry = _tree.get(firstChild);
+			for (int childSlot = firstChild + 1; childSlot < end; childSlot++) {
+				MyHeapEntry<K, V> siblingEntry = _tree.get(childSlot);
+				if (this.compare(siblingEntry, childEntry) < 0) {
+					smallest = childSlot;
+					childEntry = siblingEntry;
+				}
 			}
-		} else {
+			_tree.set(hole, childEntry);
+			childEntry.setSlot(hole);
+			hole = smallest;
+			firstChild = _arity * hole + 1;
+		}
 
-		// Returns true if the node only has a left child, and this left child has a bigger key
-			Position<MyHeapEntry<K, V>> leftChild = _tree.left(entryNode);
-			MyHeapEntry<K, V> leftChildElement = leftChild.element();
-			K leftChildKey = leftChildElement.getKey();
+		// The walk compared the children of every slot above the hole with
+		// each other
+		if (_metrics != null || _event != null) {
+			int depth = this.level(hole);
+			int comparisons = (depth == 0) ? 0
+					: (depth - 1) * (_arity - 1) + this.childCount((hole - 1) / _arity) - 1;
+			this.recordSift(depth, comparisons);
+		}
+		lastEntry.setSlot(hole);
+		this.upHeap(lastEntry);
+		return minimumEntry;
+	}
 
-			if (_comparator.compare(entryKey, leftChildKey) <= 0) {
-				return true;
-		
-			} else {
-				return false;
-			}
+	/*
+	 * This method restores the heap order of the whole tree by downheaping
+	 * every entry that has children, starting from the last one. Since most
+	 * entries are near the leaves and only move a short way down, this runs in
+	 * O(n) time
+	 */
+
+	private void heapify() {
+		if (_tree.size() < 2) {
+			return;
+		}
+		for (int slot = (_tree.size() - 2) / _arity; slot >= 0; slot--) {
+			this.downHeap(_tree.get(slot));
+		}
+	}
+
+	/*
+	 * This method checks that an entry is still stored in this heap, since an
+	 * entry that has been removed (or belongs to another heap) no longer owns
+	 * the slot it remembers
+	 */
+
+	private void checkContained(MyHeapEntry<K, V> entry) throws InvalidEntryException {
+		int slot = entry.getSlot();
+		if (slot < 0 || slot >= _tree.size() || _tree.get(slot) != entry) {
+			throw new InvalidEntryException("Entry is not in this heap");
+		}
+	}
+
+	/*
+	 * This method moves an entry whose key or slot has changed to its place.
+	 * Only one of upheaping and downheaping can be needed, so the first
+	 * comparison of upHeap, with the entry's parent, decides: if the entry did
+	 * not move up, it is downheaped
+	 */
+
+	private void reHeap(MyHeapEntry<K, V> entry) {
+		if (this.upHeap(entry, false) == false) {
+			this.downHeap(entry);
 		}
+	}
 
-		
+	private void upHeap(MyHeapEntry<K, V> entry) {
+		this.upHeap(entry, true);
 	}
 
 	/*
 	 * This method is used to upheap Entries up the heap, if they have keys that
-	 * are smaller than the key of its parent
+	 * are smaller than the key of its parent. The entry's slot is treated as a
+	 * hole: each larger parent is moved down into it, with one comparison and
+	 * one write per level, and the entry is written once, at its final slot.
+	 * The slot the entry starts from does not need to hold it
 	 * 
 	 * @param: The entry that is to be upheaped
+	 * @param: Whether to count a sift for metrics when the entry stays put,
+	 * rather than only the comparison that kept it there
+	 * @return: Whether the entry moved up
 	 */
 
-	private void upHeap(MyHeapEntry<K, V> entryObject) {
+	private boolean upHeap(MyHeapEntry<K, V> entryObject, boolean recordUnmoved) {
 		MyHeapEntry<K, V> entry = entryObject;
+		K entryKey = entry.getKey();
+		long entryPrefix = entry.getPrefix();
+		int start = entry.getSlot();
+		int hole = start;
+
+		while (hole > 0) {
+			int parentSlot = (hole - 1) / _arity;
+			MyHeapEntry<K, V> parentEntry = _tree.get(parentSlot);
+			if (this.compare(parentEntry.getPrefix(), parentEntry.getKey(), entryPrefix, entryKey) <= 0) {
+				break;
+			}
+			_tree.set(hole, parentEntry);
+			parentEntry.setSlot(hole);
+			hole = parentSlot;
+		}
 
-		while (this.checkUpValidity(entry) == false) {
-			Position<MyHeapEntry<K, V>> entryNode = entry.getNode();
-			Position<MyHeapEntry<K, V>> parentNode = _tree.parent(entry.getNode());
-			MyHeapEntry<K, V> parentEntry = parentNode.element();
-			_tree.replace(entryNode, parentNode.element());
-			_tree.replace(parentNode, entry);
-			entry.setNode(parentNode);
-			parentEntry.setNode(entryNode);
-
+		_tree.set(hole, entry);
+		entry.setSlot(hole);
+		// One comparison per level moved, plus the one that stopped the sift
+		// below the root
+		if (hole != start || recordUnmoved) {
+			if (_metrics != null || _event != null) {
+				int depth = this.level(start) - this.level(hole);
+				this.recordSift(depth, (hole > 0) ? depth + 1 : depth);
+			}
+		} else if (hole > 0 && _metrics != null) {
+			_metrics.recordComparisons(1);
 		}
+		return hole != start;
 	}
 
 	/*
 	 * This method is used to downheap entries down the heap, if they have keys
-	 * that are larger than the key of its children.
+	 * that are larger than the key of its children. Like upHeap, it moves a
+	 * hole rather than swapping: at each level the smallest child (the first
+	 * one among equals) is found and compared once with the entry, and moved
+	 * up into the hole if it is smaller
 	 * 
 	 * @ param: The entry that is to be downheaped
 	 */
 
 	private void downHeap(MyHeapEntry<K, V> entryObject) {
-
 		MyHeapEntry<K, V> entry = entryObject;
-
-		// The downheap procedure is carried out as long as the DownValidity
-		// method returns false
-
-		while (this.checkDownValidity(entry) == false) {
-			/*
-			 * This handles the case in which there are two children for the
-			 * entry. Local variables are not assigned prior to the entry of the
-			 * if statements to avoid nullpointer exceptions, in the case where
-			 * the entry does not have a right or left child
-			 */
-			Position<MyHeapEntry<K, V>> entryNode = entry.getNode();
-
-			if (_tree.hasLeft(entryNode) && _tree.hasRight(entryNode)) {
-				Position<MyHeapEntry<K, V>> leftChild = _tree.left(entryNode);
-				Position<MyHeapEntry<K, V>> rightChild = _tree.right(entryNode);
-				MyHeapEntry<K, V> leftChildEntry = leftChild.element();
-				MyHeapEntry<K, V> rightChildEntry = rightChild.element();
-				K leftChildKey = leftChildEntry.getKey();
-				K rightChildKey = rightChildEntry.getKey();
-
-				// Swapping out elements for the left child if the left child is
-				// smaller than the right child
-				if (_comparator.compare(leftChildKey, rightChildKey) <= 0) {
-					_tree.replace(entryNode, leftChildEntry);
-					_tree.replace(leftChild, entry);
-					entry.setNode(leftChild);
-					leftChildEntry.setNode(entryNode);
-					// Swapping out elements for the right child if the right
-					// child is smaller than the left child
-
-				} else {
-					_tree.replace(entryNode, rightChildEntry);
-					_tree.replace(rightChild, entry);
-					entry.setNode(rightChild);
-					rightChildEntry.setNode(entryNode);
+		K entryKey = entry.getKey();
+		long entryPrefix = entry.getPrefix();
+		int size = _tree.size();
+		int start = entry.getSlot();
+		int hole = start;
+		int firstChild = _arity * hole + 1;
+
+		while (firstChild < size) {
+			int end = Math.min(firstChild + _arity, size);
+			int smallest = firstChild;
+			MyHeapEntry<K, V> childEntry = _tree.get(firstChild);
+			K childKey = childEntry.getKey();
+			long childPrefix = childEntry.getPrefix();
+
+			for (int childSlot = firstChild + 1; childSlot < end; childSlot++) {
+				MyHeapEntry<K, V> siblingEntry = _tree.get(childSlot);
+				K siblingKey = siblingEntry.getKey();
+				long siblingPrefix = siblingEntry.getPrefix();
+				if (this.compare(siblingPrefix, siblingKey, childPrefix, childKey) < 0) {
+					smallest = childSlot;
+					childEntry = siblingEntry;
+					childKey = siblingKey;
+					childPrefix = siblingPrefix;
 				}
-				continue;
 			}
 
-			/*
-			 * This handles the case in which there is only a left child.
-			 */
-
-			if (_tree.hasLeft(entryNode)) {
-				Position<MyHeapEntry<K, V>> leftChild = _tree.left(entryNode);
-				MyHeapEntry<K, V> leftChildEntry = leftChild.element();
-				_tree.replace(entryNode, leftChildEntry);
-				_tree.replace(leftChild, entry);
-				entry.setNode(leftChild);
-				leftChildEntry.setNode(entryNode);
-
-				/*
-				 * This handles the case in which there is only a right child
-				 */
-			} else {
-				Position<MyHeapEntry<K, V>> rightChild = _tree.right(entryNode);
-				MyHeapEntry<K, V> rightChildEntry = rightChild.element();
-				_tree.replace(entryNode, rightChildEntry);
-				_tree.replace(rightChild, entry);
-				entry.setNode(rightChild);
-				rightChildEntry.setNode(entryNode);
+			if (this.compare(entryPrefix, entryKey, childPrefix, childKey) <= 0) {
+				break;
+			}
+			_tree.set(hole, childEntry);
+			childEntry.setSlot(hole);
+			hole = smallest;
+			firstChild = _arity * hole + 1;
+		}
 
+		_tree.set(hole, entry);
+		entry.setSlot(hole);
+		// Each slot on the way down compared all of its children: a full set,
+		// except at the hole and its parent, which may be near the end
+		if (_metrics != null || _event != null) {
+			int depth = this.level(hole) - this.level(start);
+			int comparisons = this.childCount(hole);
+			if (depth > 0) {
+				comparisons += (depth - 1) * _arity + this.childCount((hole - 1) / _arity);
 			}
+			this.recordSift(depth, comparisons);
+		}
+	}
 
+	/*
+	 * This method counts an operation if metrics are set, and ends its Flight
+	 * Recorder event if one was begun
+	 */
+
+	private void record(HeapOperation operation) {
+		if (_metrics != null) {
+			_metrics.recordOperation(operation, _tree.size());
+		}
+		if (_event != null) {
+			HeapOperationTrace event = _event;
+			this.endEvent();
+			event.end(operation, _tree.size());
 		}
+	}
+
+	/*
+	 * This method begins a Flight Recorder event for the operation that is
+	 * starting, if the event is enabled in a running recording, and times
+	 * the comparator for it. Otherwise it costs one check of whether the event
+	 * is enabled, or nothing on a runtime without Flight Recorder
+	 */
 
+	private void beginEvent() {
+		if (_event != null) {
+
+			// An operation that threw an exception left its event behind
+			this.endEvent();
+		}
+		HeapOperationTrace event = HeapOperationTracing.begin();
+		if (event != null) {
+			_event = event;
+			_untimedComparator = _comparator;
+			_comparator = _event.timing(_comparator);
+			_event.begin();
+		}
+	}
+
+	private void endEvent() {
+		_comparator = _untimedComparator;
+		_untimedComparator = null;
+		_event = null;
+	}
+
+	/*
+	 * This method passes a sift on to the metrics and the event, whichever are
+	 * there
+	 */
+
+	private void recordSift(int depth, int comparisons) {
+		if (_metrics != null) {
+			_metrics.recordSift(depth, comparisons);
+		}
+		if (_event != null) {
+			_event.addSiftDepth(depth);
+		}
+	}
+
+	/*
+	 * This method returns the number of children of a slot. It is only used
+	 * for metrics
+	 */
+
+	private int childCount(int slot) {
+		long firstChild = (long) _arity * slot + 1;
+		return (int) Math.max(0, Math.min(_arity, _tree.size() - firstChild));
+	}
+
+	/*
+	 * This method returns the level of a slot, the root being at level 0. It is
+	 * only used for metrics, so that sifts need not count their own levels.
+	 * The first slot of level k is (d^k - 1) / (d - 1), so when the arity d is
+	 * a power of two the level can be read off the bits of (d - 1) * slot + 1
+	 */
+
+	private int level(int slot) {
+		if ((_arity & (_arity - 1)) == 0) {
+			long first = (long) (_arity - 1) * slot + 1;
+			return (63 - Long.numberOfLeadingZeros(first)) / Integer.numberOfTrailingZeros(_arity);
+		}
+		int level = 0;
+		while (slot > 0) {
+			slot = (slot - 1) / _arity;
+			level++;
+		}
+		return level;
 	}
 
 }
@@ -1,7 +1,6 @@
 package app.impl;
 
 import net.datastructures.Entry;
-import net.datastructures.Position;
 
 /**
  * Represents a key/value pair to be stored in a data 
@@ -12,6 +11,11 @@ import net.datastructures.Position;
  * the heap's binary tree. All methods must run in O(1)
  * time.
  *
+ * The entry remembers the slot (level-order index) of the
+ * node that holds it, or -1 once it has been removed from
+ * the heap. When the heap has a KeyNormalizer, the entry
+ * also keeps the sort prefix of its key.
+ *
  * Feel free to add additional comments. 
  */
 
@@ -19,7 +23,8 @@ public class MyHeapEntry<K,V> implements Entry<K,V> {
 	
 	private K _key;
 	private V _value;
-	private Position <MyHeapEntry<K, V>> _node;
+	private int _slot;
+	private long _prefix;
 	
 
 	/** 
@@ -28,7 +33,7 @@ public class MyHeapEntry<K,V> implements Entry<K,V> {
 	public MyHeapEntry() {
 		_key = null;
 		_value = null;
-		_node = null;
+		_slot = -1;
 		
 
 	}
@@ -62,18 +67,33 @@ public class MyHeapEntry<K,V> implements Entry<K,V> {
 		_value = value;
 	}
 	
-	// This method sets the node that contains the MyHeapEntry
+	// This method sets the slot of the node that contains the MyHeapEntry
 	
-	public void setNode (Position <MyHeapEntry<K, V>> node) {
+	public void setSlot (int slot) {
 		
-		_node = node;
+		_slot = slot;
 		
 	}
 	
-	// This method returns the position which contains this entry
+	// This method returns the slot which contains this entry, or -1 if the
+	// entry is not in a heap
+	
+	public int getSlot () {
+		return _slot;
+	}
+	
+	// This method sets the sort prefix of the key, when the heap normalizes
+	// its keys
+	
+	public void setPrefix (long prefix) {
+		_prefix = prefix;
+	}
+	
+	// This method returns the sort prefix of the key, or 0 if the heap does
+	// not normalize its keys
 	
-	public Position <MyHeapEntry<K, V>> getNode () {
-		return _node;
+	public long getPrefix () {
+		return _prefix;
 	}
 	
 
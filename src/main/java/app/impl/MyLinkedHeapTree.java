@@ -1,9 +1,9 @@
 package app.impl;
 
-import net.datastructures.CompleteBinaryTree;
+import java.util.ArrayList;
+
 import net.datastructures.EmptyTreeException;
 import net.datastructures.LinkedBinaryTree;
-import net.datastructures.NodeDeque;
 import net.datastructures.Position;
 
 /**
@@ -17,18 +17,23 @@ import net.datastructures.Position;
  * ensure that you do not violate the assignment runtime requirements when
  * deciding how you will track nodes within the tree.
  * 
+ * The nodes are also kept in level order in a list, so that the node in any
+ * slot (and therefore the parent of the next node to be added) can be found in
+ * O(1) time. See MyArrayHeapTree for a tree that stores the elements directly
+ * in an array instead of allocating a node per element.
+ * 
  */
 
-public class MyLinkedHeapTree<E> extends LinkedBinaryTree<E> implements CompleteBinaryTree<E> {
+public class MyLinkedHeapTree<E> extends LinkedBinaryTree<E> implements IndexedHeapTree<E> {
 
-	private NodeDeque<Position<E>> _deque;
+	private ArrayList<Position<E>> _slots;
 
 	/**
 	 * Default constructor. The tree begins empty.
 	 */
 	public MyLinkedHeapTree() {
 
-		_deque = new NodeDeque<>();
+		_slots = new ArrayList<>();
 	}
 
 	/**
@@ -49,34 +54,27 @@ public class MyLinkedHeapTree<E> extends LinkedBinaryTree<E> implements Complete
 	@Override
 	public Position<E> add(E element) {
 
-		// This adds a root, and adds the new node to the back of the deque if
-		// the deque is empty
-		if (_deque.isEmpty()) {
+		// This adds a root if the tree is empty
+		if (_slots.isEmpty()) {
 			Position<E> newNode = this.addRoot(element);
-			_deque.addLast(newNode);
+			_slots.add(newNode);
 			return newNode;
 
-			// This handles the case in which the deque is not empty
+			// This handles the case in which the tree is not empty. The new
+			// node goes into slot n, whose parent is in slot (n - 1) / 2, and it
+			// is a left child exactly when n is odd
 		} else {
-			Position<E> parent = _deque.getFirst();
-
-			// This handles the case in which the parent has no children
-			if (this.hasLeft(parent) == false) {
-				Position<E> newNode = this.insertLeft(parent, element);
-				_deque.addLast(newNode);
-				return newNode;
+			int slot = _slots.size();
+			Position<E> parent = _slots.get((slot - 1) / 2);
+			Position<E> newNode;
 
+			if (slot % 2 == 1) {
+				newNode = this.insertLeft(parent, element);
 			} else {
-
-				// This handles the case in which the parent has 1 child
-				// already. The new element is added, and the parent is removed
-				// from the deque
-				Position<E> newNode = this.insertRight(parent, element);
-				_deque.removeFirst();
-				_deque.addLast(newNode);
-				return newNode;
+				newNode = this.insertRight(parent, element);
 			}
-
+			_slots.add(newNode);
+			return newNode;
 		}
 
 	}
@@ -94,24 +92,11 @@ public class MyLinkedHeapTree<E> extends LinkedBinaryTree<E> implements Complete
 	@Override
 	public E remove() throws EmptyTreeException {
 
-		if (_deque.isEmpty()) {
+		if (_slots.isEmpty()) {
 			throw new EmptyTreeException("Can't remove elements from empty tree");
 		}
 
-		Position<E> removedNode = _deque.removeLast();
-
-		// If the removedNode is not a root, this if statement checks if the
-		// node was a right child
-		if (this.isRoot(removedNode) == false) {
-			Position<E> parent = this.parent(removedNode);
-
-			// This adds the parent back into the deque, if the node being
-			// removed is a right child
-			if (this.hasRight(parent)) {
-				_deque.addFirst(parent);
-			}
-
-		}
+		Position<E> removedNode = _slots.remove(_slots.size() - 1);
 
 		// This removes the last node from the tree and returns the element
 		// stored
@@ -121,19 +106,53 @@ public class MyLinkedHeapTree<E> extends LinkedBinaryTree<E> implements Complete
 	}
 
 	/*
-	 * This method returns the position node from the end of the deque, but does
-	 * not remove it
+	 * This method returns the last position node of the tree, but does not
+	 * remove it
 	 * 
-	 * @return the element stored at the last position in the deque
+	 * @return the last position in the tree
 	 * 
 	 * @throws EmptyTreeException if the tree is empty and no last node exists
 	 */
 
 	public Position<E> returnLast() {
-		if (_deque.isEmpty()) {
+		if (_slots.isEmpty()) {
 			throw new EmptyTreeException("Can't remove elements from empty tree");
 		}
-		return _deque.getLast();
+		return _slots.get(_slots.size() - 1);
+	}
+
+	/**
+	 * Returns the element stored in the given slot. This method runs in O(1)
+	 * time.
+	 */
+	@Override
+	public E get(int slot) {
+		return _slots.get(slot).element();
+	}
+
+	/**
+	 * Replaces the element stored in the given slot. This method runs in O(1)
+	 * time.
+	 */
+	@Override
+	public E set(int slot, E element) {
+		return this.replace(_slots.get(slot), element);
+	}
+
+	/**
+	 * Returns the position of the node in the given slot. This method runs in
+	 * O(1) time.
+	 */
+	@Override
+	public Position<E> positionAt(int slot) {
+		return _slots.get(slot);
+	}
+
+	// This method reserves room in the slot list for the given number of nodes
+
+	@Override
+	public void ensureCapacity(int capacity) {
+		_slots.ensureCapacity(capacity);
 	}
 
 }
@@ -0,0 +1,455 @@
+package app.impl;
+
+import java.util.Comparator;
+
+import net.datastructures.AdaptablePriorityQueue;
+import net.datastructures.CompleteBinaryTree;
+import net.datastructures.EmptyPriorityQueueException;
+import net.datastructures.Entry;
+import net.datastructures.InvalidEntryException;
+import net.datastructures.InvalidKeyException;
+
+/**
+ * An implementation of a double-ended adaptable priority queue by means of a
+ * min-max heap, for queues that serve their smallest key but also have to
+ * evict their largest one when full. One heap replaces a pair of mirrored
+ * heaps, so each entry is stored and updated once.
+ *
+ * The entries are kept in an IndexedHeapTree of MyHeapEntry objects, just
+ * like MyHeap, but the levels of the tree alternate: an entry on an even level
+ * (the root is level 0) is no larger than any entry below it, and one on an
+ * odd level is no smaller than any entry below it. The root therefore holds
+ * the minimum and one of its two children holds the maximum.
+ *
+ * size, isEmpty, min, max and replaceValue run in O(1) time; insert,
+ * removeMin, removeMax, remove and replaceKey run in O(log n) time. Each level
+ * of a sift looks at up to four grandchildren, so removals make about twice
+ * the comparisons of a binary MyHeap.
+ */
+
+public class MyMinMaxHeap<K, V> implements AdaptablePriorityQueue<K, V> {
+
+	private IndexedHeapTree<MyHeapEntry<K, V>> _tree;
+	private Comparator<K> _comparator;
+
+	/**
+	 * Creates an empty heap with the given comparator, on a linked tree.
+	 *
+	 * @param comparator
+	 *            the comparator to be used for heap keys
+	 * @throws IllegalArgumentException
+	 *             if the comparator is null
+	 */
+	public MyMinMaxHeap(Comparator<K> comparator) {
+		this(comparator, new MyLinkedHeapTree<MyHeapEntry<K, V>>());
+	}
+
+	/**
+	 * Creates an empty heap with the given comparator on top of the given
+	 * tree, for example a MyArrayHeapTree.
+	 *
+	 * @param comparator
+	 *            the comparator to be used for heap keys
+	 * @param tree
+	 *            the empty tree in which the entries will be stored
+	 * @throws IllegalArgumentException
+	 *             if the comparator is null, or the tree is null or not empty
+	 */
+	public MyMinMaxHeap(Comparator<K> comparator, IndexedHeapTree<MyHeapEntry<K, V>> tree) {
+		if (comparator == null) {
+			throw new IllegalArgumentException();
+		}
+		if (tree == null || tree.isEmpty() == false) {
+			throw new IllegalArgumentException("The heap must start on an empty tree");
+		}
+		_comparator = comparator;
+		_tree = tree;
+	}
+
+	/**
+	 * Returns the underlying binary tree on which the heap is based, for the
+	 * visualizer. Do not modify it.
+	 */
+	public CompleteBinaryTree<MyHeapEntry<K, V>> getTree() {
+		return _tree;
+	}
+
+	/**
+	 * Returns the size of the heap. This method runs in O(1) time.
+	 */
+	public int size() {
+		return _tree.size();
+	}
+
+	/**
+	 * Returns whether the heap is empty. This method runs in O(1) time.
+	 */
+	public boolean isEmpty() {
+		return _tree.isEmpty();
+	}
+
+	/**
+	 * Returns but does not remove the entry with minimum key. This method runs
+	 * in O(1) time.
+	 *
+	 * @throws EmptyPriorityQueueException
+	 *             if the heap is empty
+	 */
+	public Entry<K, V> min() throws EmptyPriorityQueueException {
+		if (_tree.isEmpty()) {
+			throw new EmptyPriorityQueueException("Heap is Empty");
+		}
+		return _tree.get(0);
+	}
+
+	/**
+	 * Returns but does not remove the entry with maximum key. This method runs
+	 * in O(1) time.
+	 *
+	 * @throws EmptyPriorityQueueException
+	 *             if the heap is empty
+	 */
+	public Entry<K, V> max() throws EmptyPriorityQueueException {
+		if (_tree.isEmpty()) {
+			throw new EmptyPriorityQueueException("Heap is Empty");
+		}
+		return _tree.get(this.maxSlot());
+	}
+
+	/**
+	 * Inserts a key-value pair and returns the entry created. This method runs
+	 * in O(log n) time.
+	 *
+	 * @throws InvalidKeyException
+	 *             if the key is not suitable for this heap
+	 */
+	public Entry<K, V> insert(K key, V value) throws InvalidKeyException {
+		this.checkKey(key);
+		MyHeapEntry<K, V> entry = new MyHeapEntry<>();
+		entry.setKey(key);
+		entry.setValue(value);
+		this.add(entry);
+		return entry;
+	}
+
+	/**
+	 * Removes and returns the entry with the minimum key. This method runs in
+	 * O(log n) time.
+	 *
+	 * @throws EmptyPriorityQueueException
+	 *             if the heap is empty
+	 */
+	public Entry<K, V> removeMin() throws EmptyPriorityQueueException {
+		if (_tree.isEmpty()) {
+			throw new EmptyPriorityQueueException("Cannot get minimum of an empty Heap");
+		}
+		return this.removeTop(0);
+	}
+
+	/**
+	 * Removes and returns the entry with the maximum key. This method runs in
+	 * O(log n) time.
+	 *
+	 * @throws EmptyPriorityQueueException
+	 *             if the heap is empty
+	 */
+	public Entry<K, V> removeMax() throws EmptyPriorityQueueException {
+		if (_tree.isEmpty()) {
+			throw new EmptyPriorityQueueException("Cannot get maximum of an empty Heap");
+		}
+		return this.removeTop(this.maxSlot());
+	}
+
+	/**
+	 * Removes and returns the given entry from the heap. This method runs in
+	 * O(log n) time.
+	 *
+	 * @throws InvalidEntryException
+	 *             if the entry is not in this heap
+	 */
+	public Entry<K, V> remove(Entry<K, V> entry) throws InvalidEntryException {
+		MyHeapEntry<K, V> checkedEntry = this.checkAndConvertEntry(entry);
+		this.checkContained(checkedEntry);
+		this.removeEntry(checkedEntry);
+		return checkedEntry;
+	}
+
+	/**
+	 * Replaces the key of the given entry. The entry is taken out of the heap
+	 * and put back in with its new key, so this method runs in O(log n) time.
+	 *
+	 * @return the old key formerly associated with the entry
+	 * @throws InvalidEntryException
+	 *             if the entry is not in this heap
+	 * @throws InvalidKeyException
+	 *             if the key is invalid
+	 */
+	public K replaceKey(Entry<K, V> entry, K key) throws InvalidEntryException, InvalidKeyException {
+		MyHeapEntry<K, V> checkedEntry = this.checkAndConvertEntry(entry);
+		this.checkContained(checkedEntry);
+		this.checkKey(key);
+
+		// Unlike in MyHeap, an entry whose key changes cannot simply be sifted
+		// from its slot: a new key may belong on a level of the other kind
+		// above or below it, so the entry leaves and re-enters the heap
+		K oldKey = checkedEntry.getKey();
+		this.removeEntry(checkedEntry);
+		checkedEntry.setKey(key);
+		this.add(checkedEntry);
+		return oldKey;
+	}
+
+	/**
+	 * Replaces the value of the given entry. This method runs in O(1) time.
+	 *
+	 * @return the old value formerly associated with the entry
+	 * @throws InvalidEntryException
+	 *             if the entry is not in this heap
+	 */
+	public V replaceValue(Entry<K, V> entry, V value) throws InvalidEntryException {
+		MyHeapEntry<K, V> checkedEntry = this.checkAndConvertEntry(entry);
+		this.checkContained(checkedEntry);
+		V oldValue = checkedEntry.getValue();
+		checkedEntry.setValue(value);
+		return oldValue;
+	}
+
+	/**
+	 * Determines whether a given entry is valid and converts it to a
+	 * MyHeapEntry.
+	 *
+	 * @throws InvalidEntryException
+	 *             if the entry is not of the proper class
+	 */
+	public MyHeapEntry<K, V> checkAndConvertEntry(Entry<K, V> entry) throws InvalidEntryException {
+		if (entry == null || !(entry instanceof MyHeapEntry)) {
+			throw new InvalidEntryException("Invalid entry");
+		}
+		return (MyHeapEntry<K, V>) entry;
+	}
+
+	// This method appends an entry to the tree and pushes it up into place
+
+	private void add(MyHeapEntry<K, V> entry) {
+		_tree.add(entry);
+		int slot = _tree.size() - 1;
+		K key = entry.getKey();
+		if (slot == 0) {
+			this.store(0, entry);
+			return;
+		}
+
+		// The entry is first placed against its parent, which is on a level of
+		// the other kind; from then on it only has to climb its own kind of
+		// level, two at a time
+		int parent = (slot - 1) / 2;
+		int order = _comparator.compare(key, _tree.get(parent).getKey());
+		if (this.isMinLevel(slot)) {
+			if (order > 0) {
+				this.move(parent, slot);
+				this.pushUp(parent, entry, true);
+			} else {
+				this.pushUp(slot, entry, false);
+			}
+		} else {
+			if (order < 0) {
+				this.move(parent, slot);
+				this.pushUp(parent, entry, false);
+			} else {
+				this.pushUp(slot, entry, true);
+			}
+		}
+	}
+
+	/*
+	 * This method removes the entry in slot 0 (the minimum) or the given child
+	 * of the root (the maximum). The last entry fills the hole and is pushed
+	 * down the levels of the removed entry's kind
+	 */
+
+	private MyHeapEntry<K, V> removeTop(int slot) {
+		MyHeapEntry<K, V> topEntry = _tree.get(slot);
+		MyHeapEntry<K, V> lastEntry = _tree.remove();
+		topEntry.setSlot(-1);
+		if (lastEntry != topEntry) {
+			this.pushDown(slot, lastEntry, slot > 0);
+		}
+		return topEntry;
+	}
+
+	/*
+	 * This method removes an entry from anywhere in the heap. Its hole is
+	 * first moved up its own kind of levels, by moving each grandparent down
+	 * into it, until it reaches the root or a child of the root; that keeps
+	 * the heap order, since a grandparent bounds everything below it. The hole
+	 * is then filled like that of removeMin or removeMax
+	 */
+
+	private void removeEntry(MyHeapEntry<K, V> entry) {
+		int slot = entry.getSlot();
+		if (slot == _tree.size() - 1) {
+			_tree.remove();
+			entry.setSlot(-1);
+			return;
+		}
+		while (slot > 2) {
+			int grandparent = (slot - 3) / 4;
+			this.move(grandparent, slot);
+			slot = grandparent;
+		}
+		_tree.set(slot, entry);
+		this.removeTop(slot);
+	}
+
+	/*
+	 * This method moves the hole at the given slot up the levels of its kind
+	 * until the entry fits, then stores the entry there. It climbs the max
+	 * levels if max is true (stopping below a larger grandparent) and the min
+	 * levels otherwise (stopping below a smaller one)
+	 */
+
+	private void pushUp(int slot, MyHeapEntry<K, V> entry, boolean max) {
+		K key = entry.getKey();
+		while (slot > 2) {
+			int grandparent = (slot - 3) / 4;
+			if (this.isAbove(key, _tree.get(grandparent).getKey(), max) == false) {
+				break;
+			}
+			this.move(grandparent, slot);
+			slot = grandparent;
+		}
+		this.store(slot, entry);
+	}
+
+	/*
+	 * This method moves the hole at the given slot down the levels of its kind
+	 * until the entry fits, then stores the entry there. At each step the
+	 * smallest (or, on max levels, the largest) of the children and
+	 * grandchildren is found. If it is a child, nothing below it can beat it,
+	 * so the sift ends there. If it is a grandchild, it moves up into the hole,
+	 * and the entry is swapped with the grandchild's parent if the two are out
+	 * of order, in which case the parent's entry carries on down instead
+	 */
+
+	private void pushDown(int slot, MyHeapEntry<K, V> entryObject, boolean max) {
+		MyHeapEntry<K, V> entry = entryObject;
+		K key = entry.getKey();
+		int size = _tree.size();
+
+		while (true) {
+			int firstChild = 2 * slot + 1;
+			if (firstChild >= size) {
+				break;
+			}
+			int best = firstChild;
+			K bestKey = _tree.get(firstChild).getKey();
+			if (firstChild + 1 < size) {
+				K siblingKey = _tree.get(firstChild + 1).getKey();
+				if (this.isAbove(siblingKey, bestKey, max)) {
+					best = firstChild + 1;
+					bestKey = siblingKey;
+				}
+			}
+			int end = Math.min(4 * slot + 7, size);
+			for (int grandchild = 4 * slot + 3; grandchild < end; grandchild++) {
+				K grandchildKey = _tree.get(grandchild).getKey();
+				if (this.isAbove(grandchildKey, bestKey, max)) {
+					best = grandchild;
+					bestKey = grandchildKey;
+				}
+			}
+
+			if (this.isAbove(bestKey, key, max) == false) {
+				break;
+			}
+			this.move(best, slot);
+			slot = best;
+			if (best <= firstChild + 1) {
+				break;
+			}
+
+			int parent = (best - 1) / 2;
+			MyHeapEntry<K, V> parentEntry = _tree.get(parent);
+			if (this.isAbove(key, parentEntry.getKey(), !max)) {
+				this.store(parent, entry);
+				entry = parentEntry;
+				key = entry.getKey();
+			}
+		}
+		this.store(slot, entry);
+	}
+
+	/*
+	 * This method returns the slot of the maximum: the root if it is alone,
+	 * and otherwise the larger of its children
+	 */
+
+	private int maxSlot() {
+		int size = _tree.size();
+		if (size == 1) {
+			return 0;
+		}
+		if (size == 2 || _comparator.compare(_tree.get(1).getKey(), _tree.get(2).getKey()) >= 0) {
+			return 1;
+		}
+		return 2;
+	}
+
+	/*
+	 * This method returns whether the first key belongs above the second on a
+	 * max level (if max is true) or on a min level. The comparator's result is
+	 * only ever tested for its sign, never negated
+	 */
+
+	private boolean isAbove(K first, K second, boolean max) {
+		int order = _comparator.compare(first, second);
+		return max ? order > 0 : order < 0;
+	}
+
+	// This method returns whether a slot is on an even (min) level
+
+	private boolean isMinLevel(int slot) {
+		return ((31 - Integer.numberOfLeadingZeros(slot + 1)) & 1) == 0;
+	}
+
+	private void move(int from, int to) {
+		MyHeapEntry<K, V> entry = _tree.get(from);
+		_tree.set(to, entry);
+		entry.setSlot(to);
+	}
+
+	private void store(int slot, MyHeapEntry<K, V> entry) {
+		_tree.set(slot, entry);
+		entry.setSlot(slot);
+	}
+
+	/*
+	 * This method checks that a key can be stored in this heap: it must not be
+	 * null, and the comparator must accept it
+	 */
+
+	private void checkKey(K key) throws InvalidKeyException {
+		if (key == null) {
+			throw new InvalidKeyException("Must Enter Suitable Key");
+		}
+		try {
+			_comparator.compare(key, key);
+		} catch (ClassCastException e) {
+			throw new InvalidKeyException("Must Enter Suitable Key");
+		}
+	}
+
+	/*
+	 * This method checks that an entry is still stored in this heap, since an
+	 * entry that has been removed (or belongs to another heap) no longer owns
+	 * the slot it remembers
+	 */
+
+	private void checkContained(MyHeapEntry<K, V> entry) throws InvalidEntryException {
+		int slot = entry.getSlot();
+		if (slot < 0 || slot >= _tree.size() || _tree.get(slot) != entry) {
+			throw new InvalidEntryException("Entry is not in this heap");
+		}
+	}
+
+}
@@ -0,0 +1,589 @@
+package app.impl;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import net.datastructures.EmptyPriorityQueueException;
+import net.datastructures.InvalidEntryException;
+
+/**
+ * A min-heap of long keys with long payloads that lives outside the Java heap,
+ * for queues of hundreds of millions of entries. Nothing is allocated per
+ * entry: the entries are fixed-width records in direct ByteBuffer segments,
+ * so the garbage collector only ever sees the segments themselves.
+ *
+ * Each record is a key, a payload and an id (24 bytes), stored in heap order.
+ * The payload is a long so that it can hold the data itself or a reference to
+ * it, such as an index into another store. insert returns the id of the
+ * entry, which stays the same while the entry moves around the heap and is
+ * passed to remove and replaceKey just like a handle is passed to LongMinHeap.
+ * As there, the low 32 bits of an id number the entry and the high 32 bits
+ * hold the generation of that number: numbers are reused by later inserts,
+ * but the generation is bumped every time one is freed, so an id kept after
+ * its entry has been removed is rejected with an InvalidEntryException. A
+ * second set of segments maps each number to the slot of its record and its
+ * current generation (8 bytes per number).
+ *
+ * Segments are added as the heap grows and are kept when it shrinks. Each
+ * holds 2^segmentShift records or ids; subclasses can change where segments
+ * come from by overriding allocateRecordSegment and allocateIndexSegment, and
+ * can follow every change through beforeChange and afterChange.
+ *
+ * size, isEmpty, min and the id accessors run in O(1) time; insert,
+ * removeMin, remove and replaceKey run in O(log n) time.
+ */
+
+public class OffHeapLongHeap {
+
+	/**
+	 * The bytes in one record: its key, payload and id.
+	 */
+	protected static final int RECORD_BYTES = 24;
+
+	/**
+	 * The bytes in one id's index entry: the slot of its record.
+	 */
+	protected static final int INDEX_BYTES = 8;
+
+	private static final int DEFAULT_SEGMENT_SHIFT = 16;
+	private static final int KEY = 0;
+	private static final int PAYLOAD = 8;
+	private static final int ID = 16;
+
+	// The low 32 bits of an id are its number and the high 32 bits its
+	// generation; an index entry holds the generation and, in place of the
+	// number, the slot of a live id or the next free number (NONE ending the
+	// list)
+	private static final long NUMBER_MASK = 0xFFFFFFFFL;
+	private static final long GENERATION_MASK = ~NUMBER_MASK;
+	private static final long GENERATION_UNIT = 1L << 32;
+	private static final long NONE = NUMBER_MASK;
+
+	private final int _segmentShift;
+	private final long _segmentMask;
+	private ByteBuffer[] _records;
+	private ByteBuffer[] _index;
+
+	// The first free number, or -1 if there is none
+	private long _freeHead;
+	private long _nextId;
+	private long _size;
+
+	/**
+	 * Creates an empty heap with segments of 65536 records.
+	 */
+	public OffHeapLongHeap() {
+		this(DEFAULT_SEGMENT_SHIFT);
+	}
+
+	/**
+	 * Creates an empty heap with segments of 2^segmentShift records. No memory
+	 * is allocated until the first insert.
+	 *
+	 * @param segmentShift
+	 *            the log2 of the number of records per segment
+	 * @throws IllegalArgumentException
+	 *             if a segment would have less than 2 or more than 2^26
+	 *             records
+	 */
+	public OffHeapLongHeap(int segmentShift) {
+		if (segmentShift < 1 || segmentShift > 26) {
+			throw new IllegalArgumentException("Segment shift must be between 1 and 26");
+		}
+		_segmentShift = segmentShift;
+		_segmentMask = (1L << segmentShift) - 1;
+		_records = new ByteBuffer[0];
+		_index = new ByteBuffer[0];
+		_freeHead = -1;
+		_nextId = 0;
+		_size = 0;
+	}
+
+	/**
+	 * @return the number of entries in the heap
+	 */
+	public long size() {
+		return _size;
+	}
+
+	/**
+	 * @return true if the heap is empty; false otherwise
+	 */
+	public boolean isEmpty() {
+		return _size == 0;
+	}
+
+	/**
+	 * Inserts a key and payload and returns the id of the new entry.
+	 *
+	 * @param key
+	 *            to be used as the key the heap is sorting with
+	 * @param payload
+	 *            stored with the associated key in the heap
+	 * @return the id of the entry created
+	 * @throws IllegalStateException
+	 *             if all 2^32 - 1 numbers are taken
+	 */
+	public long insert(long key, long payload) {
+		if (_freeHead < 0 && _nextId == NONE) {
+			throw new IllegalStateException("Heap cannot hold more entries");
+		}
+		this.beforeChange();
+		long id;
+		if (_freeHead >= 0) {
+			long entry = this.indexOf(_freeHead);
+			id = (entry & GENERATION_MASK) | _freeHead;
+			_freeHead = ((entry & NUMBER_MASK) == NONE) ? -1 : entry & NUMBER_MASK;
+		} else {
+			id = _nextId;
+			this.ensureIndex(id);
+			_nextId++;
+		}
+
+		this.ensureRecords(_size);
+		_size++;
+		this.siftUp(_size - 1, key, payload, id);
+		this.afterChange();
+		return id;
+	}
+
+	/**
+	 * Returns the id of the entry with the minimum key.
+	 *
+	 * @throws EmptyPriorityQueueException
+	 *             if the heap is empty
+	 */
+	public long min() throws EmptyPriorityQueueException {
+		this.checkNotEmpty();
+		return this.idAt(0);
+	}
+
+	/**
+	 * Returns the minimum key in the heap.
+	 *
+	 * @throws EmptyPriorityQueueException
+	 *             if the heap is empty
+	 */
+	public long minKey() throws EmptyPriorityQueueException {
+		this.checkNotEmpty();
+		return this.keyAt(0);
+	}
+
+	/**
+	 * Returns the payload stored with the minimum key.
+	 *
+	 * @throws EmptyPriorityQueueException
+	 *             if the heap is empty
+	 */
+	public long minPayload() throws EmptyPriorityQueueException {
+		this.checkNotEmpty();
+		return this.payloadAt(0);
+	}
+
+	/**
+	 * Removes the entry with the minimum key and returns its payload. Read
+	 * minKey() first if the key is needed as well.
+	 *
+	 * @return the payload of the removed entry
+	 * @throws EmptyPriorityQueueException
+	 *             if the heap is empty
+	 */
+	public long removeMin() throws EmptyPriorityQueueException {
+		this.checkNotEmpty();
+		this.beforeChange();
+		long payload = this.removeSlot(0);
+		this.afterChange();
+		return payload;
+	}
+
+	/**
+	 * Removes the entry with the given id and returns its payload.
+	 *
+	 * @param id
+	 *            of the entry to be removed
+	 * @return the payload of the removed entry
+	 * @throws InvalidEntryException
+	 *             if the id does not belong to an entry in the heap
+	 */
+	public long remove(long id) throws InvalidEntryException {
+		long slot = this.checkId(id);
+		this.beforeChange();
+		long payload = this.removeSlot(slot);
+		this.afterChange();
+		return payload;
+	}
+
+	/**
+	 * Replaces the key of the entry with the given id.
+	 *
+	 * @param id
+	 *            of the entry whose key is replaced
+	 * @param key
+	 *            to replace the existing key
+	 * @return the old key of the entry
+	 * @throws InvalidEntryException
+	 *             if the id does not belong to an entry in the heap
+	 */
+	public long replaceKey(long id, long key) throws InvalidEntryException {
+		long slot = this.checkId(id);
+		long oldKey = this.keyAt(slot);
+		long payload = this.payloadAt(slot);
+
+		this.beforeChange();
+		if (key < oldKey) {
+			this.siftUp(slot, key, payload, id);
+		} else {
+			this.siftDown(slot, key, payload, id);
+		}
+		this.afterChange();
+		return oldKey;
+	}
+
+	/**
+	 * Replaces the payload of the entry with the given id.
+	 *
+	 * @return the old payload of the entry
+	 * @throws InvalidEntryException
+	 *             if the id does not belong to an entry in the heap
+	 */
+	public long replacePayload(long id, long payload) throws InvalidEntryException {
+		long slot = this.checkId(id);
+		long oldPayload = this.payloadAt(slot);
+		this.beforeChange();
+		this.record(slot).putLong(this.offset(slot, RECORD_BYTES) + PAYLOAD, payload);
+		this.afterChange();
+		return oldPayload;
+	}
+
+	/**
+	 * @return the key of the entry with the given id
+	 * @throws InvalidEntryException
+	 *             if the id does not belong to an entry in the heap
+	 */
+	public long keyOf(long id) throws InvalidEntryException {
+		return this.keyAt(this.checkId(id));
+	}
+
+	/**
+	 * @return the payload of the entry with the given id
+	 * @throws InvalidEntryException
+	 *             if the id does not belong to an entry in the heap
+	 */
+	public long payloadOf(long id) throws InvalidEntryException {
+		return this.payloadAt(this.checkId(id));
+	}
+
+	/**
+	 * @return whether the id belongs to an entry in the heap
+	 */
+	public boolean contains(long id) {
+		long number = id & NUMBER_MASK;
+		if (number >= _nextId) {
+			return false;
+		}
+		long slot = this.indexOf(number) & NUMBER_MASK;
+		return slot < _size && this.idAt(slot) == id;
+	}
+
+	/**
+	 * Returns a new segment for records, which must hold the given number of
+	 * bytes. The default allocates a direct buffer; the heap sets the byte
+	 * order itself.
+	 *
+	 * @param number
+	 *            the position of the segment among the record segments
+	 * @param bytes
+	 *            the size of the segment
+	 */
+	protected ByteBuffer allocateRecordSegment(int number, int bytes) {
+		return ByteBuffer.allocateDirect(bytes);
+	}
+
+	/**
+	 * Returns a new segment for the id index, which must hold the given number
+	 * of bytes. The default allocates a direct buffer; the heap sets the byte
+	 * order itself.
+	 *
+	 * @param number
+	 *            the position of the segment among the index segments
+	 * @param bytes
+	 *            the size of the segment
+	 */
+	protected ByteBuffer allocateIndexSegment(int number, int bytes) {
+		return ByteBuffer.allocateDirect(bytes);
+	}
+
+	/**
+	 * Called before the heap writes to its segments. The default does
+	 * nothing.
+	 */
+	protected void beforeChange() {
+	}
+
+	/**
+	 * Called once a change to the heap is complete. The default does nothing.
+	 */
+	protected void afterChange() {
+	}
+
+	/**
+	 * @return the log2 of the number of records per segment
+	 */
+	protected int segmentShift() {
+		return _segmentShift;
+	}
+
+	/**
+	 * @return the number of id numbers handed out so far, free or not
+	 */
+	protected long nextId() {
+		return _nextId;
+	}
+
+	/**
+	 * @return the first number of the list of free id numbers, or -1 if it is
+	 *         empty
+	 */
+	protected long freeHead() {
+		return _freeHead;
+	}
+
+	/**
+	 * Takes over segments that already hold a consistent heap, such as one
+	 * saved by a subclass: the segments covering the given slots and ids are
+	 * allocated through the allocation methods, which must return them with
+	 * their contents.
+	 *
+	 * @param size
+	 *            the number of entries in the saved heap
+	 * @param nextId
+	 *            the number of id numbers handed out by the saved heap
+	 * @param freeHead
+	 *            the first free number of the saved heap, or -1
+	 */
+	protected void restore(long size, long nextId, long freeHead) {
+		this.ensureSegments(size, nextId);
+		_size = size;
+		_nextId = nextId;
+		_freeHead = freeHead;
+	}
+
+	/**
+	 * Makes a valid heap out of segments whose records may be out of order,
+	 * duplicated or missing, such as those of a heap that stopped in the
+	 * middle of a change. The records in the first size slots are kept, less
+	 * any record whose id number is out of range or already taken by an
+	 * earlier record; the id index and the free list are rebuilt from them and
+	 * the records are put back in heap order. The numbers that are not kept
+	 * are freed with their generation bumped, so that no id handed out before
+	 * refers to a different entry. This method runs in O(size + nextId) time.
+	 *
+	 * @param size
+	 *            the number of slots that may hold records
+	 * @param nextId
+	 *            the number of id numbers that may have been handed out
+	 */
+	protected void rebuild(long size, long nextId) {
+		this.ensureSegments(size, nextId);
+		_nextId = nextId;
+		for (long number = 0; number < nextId; number++) {
+			this.setIndex(number, (this.indexOf(number) & GENERATION_MASK) | NONE);
+		}
+
+		// Moving each record that is kept to the front, in order
+		long kept = 0;
+		for (long slot = 0; slot < size; slot++) {
+			long id = this.idAt(slot);
+			long number = id & NUMBER_MASK;
+			if (number >= nextId || (this.indexOf(number) & NUMBER_MASK) != NONE) {
+				continue;
+			}
+			this.store(kept, this.keyAt(slot), this.payloadAt(slot), id);
+			kept++;
+		}
+		_size = kept;
+
+		_freeHead = -1;
+		for (long number = nextId - 1; number >= 0; number--) {
+			long entry = this.indexOf(number);
+			if ((entry & NUMBER_MASK) == NONE) {
+				this.free(number, entry);
+			}
+		}
+
+		for (long slot = (_size - 2) / 2; slot >= 0; slot--) {
+			this.siftDown(slot, this.keyAt(slot), this.payloadAt(slot), this.idAt(slot));
+		}
+	}
+
+	/*
+	 * This method removes the entry in the given slot, fills the slot with the
+	 * last record and sifts that record to its place
+	 */
+
+	private long removeSlot(long slot) {
+		long payload = this.payloadAt(slot);
+		long id = this.idAt(slot);
+		long last = _size - 1;
+
+		long lastKey = this.keyAt(last);
+		long lastPayload = this.payloadAt(last);
+		long lastId = this.idAt(last);
+		_size--;
+
+		this.free(id & NUMBER_MASK, id);
+
+		if (slot != last) {
+			if (slot > 0 && lastKey < this.keyAt((slot - 1) / 2)) {
+				this.siftUp(slot, lastKey, lastPayload, lastId);
+			} else {
+				this.siftDown(slot, lastKey, lastPayload, lastId);
+			}
+		}
+		return payload;
+	}
+
+	/*
+	 * This method moves the hole at the given slot up until the key fits, then
+	 * stores the record there
+	 */
+
+	private void siftUp(long slot, long key, long payload, long id) {
+		while (slot > 0) {
+			long parent = (slot - 1) / 2;
+			if (this.keyAt(parent) <= key) {
+				break;
+			}
+			this.move(parent, slot);
+			slot = parent;
+		}
+		this.store(slot, key, payload, id);
+	}
+
+	/*
+	 * This method moves the hole at the given slot down until the key fits,
+	 * then stores the record there
+	 */
+
+	private void siftDown(long slot, long key, long payload, long id) {
+		long half = _size / 2;
+		while (slot < half) {
+			long child = 2 * slot + 1;
+			long childKey = this.keyAt(child);
+			if (child + 1 < _size) {
+				long siblingKey = this.keyAt(child + 1);
+				if (siblingKey < childKey) {
+					child++;
+					childKey = siblingKey;
+				}
+			}
+			if (key <= childKey) {
+				break;
+			}
+			this.move(child, slot);
+			slot = child;
+		}
+		this.store(slot, key, payload, id);
+	}
+
+	/*
+	 * This method pushes a number onto the free list, bumping the generation
+	 * found in the given id or index entry
+	 */
+
+	private void free(long number, long generation) {
+		long next = (_freeHead < 0) ? NONE : _freeHead;
+		this.setIndex(number, ((generation & GENERATION_MASK) + GENERATION_UNIT) | next);
+		_freeHead = number;
+	}
+
+	private void move(long from, long to) {
+		ByteBuffer source = this.record(from);
+		int sourceOffset = this.offset(from, RECORD_BYTES);
+		long id = source.getLong(sourceOffset + ID);
+		this.store(to, source.getLong(sourceOffset + KEY), source.getLong(sourceOffset + PAYLOAD), id);
+	}
+
+	private void store(long slot, long key, long payload, long id) {
+		ByteBuffer segment = this.record(slot);
+		int offset = this.offset(slot, RECORD_BYTES);
+		segment.putLong(offset + KEY, key);
+		segment.putLong(offset + PAYLOAD, payload);
+		segment.putLong(offset + ID, id);
+		this.setIndex(id & NUMBER_MASK, (id & GENERATION_MASK) | slot);
+	}
+
+	private long keyAt(long slot) {
+		return this.record(slot).getLong(this.offset(slot, RECORD_BYTES) + KEY);
+	}
+
+	private long payloadAt(long slot) {
+		return this.record(slot).getLong(this.offset(slot, RECORD_BYTES) + PAYLOAD);
+	}
+
+	private long idAt(long slot) {
+		return this.record(slot).getLong(this.offset(slot, RECORD_BYTES) + ID);
+	}
+
+	private long indexOf(long number) {
+		return _index[(int) (number >>> _segmentShift)].getLong(this.offset(number, INDEX_BYTES));
+	}
+
+	private void setIndex(long number, long value) {
+		_index[(int) (number >>> _segmentShift)].putLong(this.offset(number, INDEX_BYTES), value);
+	}
+
+	private ByteBuffer record(long slot) {
+		return _records[(int) (slot >>> _segmentShift)];
+	}
+
+	// This method returns the byte offset of a slot or id within its segment
+
+	private int offset(long position, int width) {
+		return (int) (position & _segmentMask) * width;
+	}
+
+	private void ensureSegments(long size, long nextId) {
+		for (long slot = 0; slot < size; slot += 1L << _segmentShift) {
+			this.ensureRecords(slot);
+		}
+		for (long id = 0; id < nextId; id += 1L << _segmentShift) {
+			this.ensureIndex(id);
+		}
+	}
+
+	// These methods add a segment once the slot or id runs past the last one
+
+	private void ensureRecords(long slot) {
+		int number = (int) (slot >>> _segmentShift);
+		if (number == _records.length) {
+			_records = Arrays.copyOf(_records, number + 1);
+			_records[number] = this.allocateRecordSegment(number, RECORD_BYTES << _segmentShift)
+					.order(ByteOrder.nativeOrder());
+		}
+	}
+
+	private void ensureIndex(long id) {
+		int number = (int) (id >>> _segmentShift);
+		if (number == _index.length) {
+			_index = Arrays.copyOf(_index, number + 1);
+			_index[number] = this.allocateIndexSegment(number, INDEX_BYTES << _segmentShift)
+					.order(ByteOrder.nativeOrder());
+		}
+	}
+
+	private long checkId(long id) throws InvalidEntryException {
+		if (!this.contains(id)) {
+			throw new InvalidEntryException("Invalid handle");
+		}
+		return this.indexOf(id & NUMBER_MASK) & NUMBER_MASK;
+	}
+
+	private void checkNotEmpty() throws EmptyPriorityQueueException {
+		if (_size == 0) {
+			throw new EmptyPriorityQueueException("Heap is Empty");
+		}
+	}
+
+}
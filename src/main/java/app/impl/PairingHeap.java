@@ -0,0 +1,393 @@
+package app.impl;
+
+import java.util.Comparator;
+
+import net.datastructures.AdaptablePriorityQueue;
+import net.datastructures.EmptyPriorityQueueException;
+import net.datastructures.Entry;
+import net.datastructures.InvalidEntryException;
+import net.datastructures.InvalidKeyException;
+
+/**
+ * An implementation of an adaptable priority queue by means of a pairing heap:
+ * a heap-ordered tree of any shape, in which two trees are joined ("linked")
+ * by making the root with the larger key the first child of the other.
+ *
+ * insert and min run in O(1) time, and so does replaceKey when the key
+ * decreases (the entry is cut from its parent and linked with the root), which
+ * makes this heap a good fit for Dijkstra-style workloads with many decreases.
+ * removeMin, remove and key increases run in O(log n) amortized time; they
+ * combine the children of the removed entry with the usual two passes (link
+ * them in pairs left to right, then link the pairs right to left).
+ *
+ * Entries are handed out as PairingHeapEntry objects and checked with
+ * checkAndConvertEntry, just like MyHeapEntry in MyHeap. Each entry holds the
+ * owner token of its heap, so an entry of another heap is rejected.
+ */
+
+public class PairingHeap<K, V> implements AdaptablePriorityQueue<K, V> {
+
+	private PairingHeapEntry<K, V> _root;
+	private int _size;
+	private Comparator<K> _comparator;
+
+	// The token held by the entries of this heap
+	private Owner _owner;
+
+	/*
+	 * The owner token of a heap. When a heap is melded into another, its token
+	 * is pointed at the other heap's token instead of updating every entry, so
+	 * the heap that owns an entry is the one whose token is at the end of the
+	 * chain from the entry's token
+	 */
+	static final class Owner {
+		Owner _parent;
+	}
+
+	/**
+	 * Creates an empty heap with the given comparator.
+	 *
+	 * @param comparator
+	 *            the comparator to be used for heap keys
+	 * @throws IllegalArgumentException
+	 *             if the comparator is null
+	 */
+	public PairingHeap(Comparator<K> comparator) {
+		if (comparator == null) {
+			throw new IllegalArgumentException();
+		}
+		_comparator = comparator;
+		_root = null;
+		_size = 0;
+		_owner = new Owner();
+	}
+
+	/**
+	 * Returns the size of the heap. This method runs in O(1) time.
+	 */
+	public int size() {
+		return _size;
+	}
+
+	/**
+	 * Returns whether the heap is empty. This method runs in O(1) time.
+	 */
+	public boolean isEmpty() {
+		return _size == 0;
+	}
+
+	/**
+	 * Returns but does not remove the entry with minimum key. This method runs
+	 * in O(1) time.
+	 *
+	 * @throws EmptyPriorityQueueException
+	 *             if the heap is empty
+	 */
+	public Entry<K, V> min() throws EmptyPriorityQueueException {
+		if (_root == null) {
+			throw new EmptyPriorityQueueException("Heap is Empty");
+		}
+		return _root;
+	}
+
+	/**
+	 * Inserts a key-value pair and returns the entry created. This method runs
+	 * in O(1) time.
+	 *
+	 * @throws InvalidKeyException
+	 *             if the key is not suitable for this heap
+	 */
+	public Entry<K, V> insert(K key, V value) throws InvalidKeyException {
+		this.checkKey(key);
+		PairingHeapEntry<K, V> entry = new PairingHeapEntry<>(key, value);
+		entry._owner = _owner;
+		_root = (_root == null) ? entry : this.link(_root, entry);
+		_size++;
+		return entry;
+	}
+
+	/**
+	 * Moves every entry of another heap into this one by linking the two
+	 * roots, and leaves the other heap empty. This method runs in O(1)
+	 * amortized time. The entries keep their identity and now belong to this
+	 * heap, which accepts them from now on, while the other heap rejects them.
+	 * 
+	 * Since the keys are not checked again, the two heaps must use the same
+	 * comparator: the same instance, or one that equals it.
+	 *
+	 * @param other
+	 *            the heap whose entries are moved into this one
+	 * @throws IllegalArgumentException
+	 *             if other is null or this heap, or its comparator differs
+	 *             from this heap's
+	 */
+	public void meld(PairingHeap<K, V> other) throws IllegalArgumentException {
+		if (other == null || other == this) {
+			throw new IllegalArgumentException("Cannot meld a heap with itself or null");
+		}
+		if (other._comparator != _comparator && _comparator.equals(other._comparator) == false) {
+			throw new IllegalArgumentException("Cannot meld heaps with different comparators");
+		}
+		if (other._root == null) {
+			return;
+		}
+		_root = (_root == null) ? other._root : this.link(_root, other._root);
+		_size += other._size;
+		other._root = null;
+		other._size = 0;
+
+		// The other heap's entries now resolve to this heap, and it starts over
+		// with a token of its own
+		other._owner._parent = _owner;
+		other._owner = new Owner();
+	}
+
+	/**
+	 * Removes and returns the entry with the minimum key. This method runs in
+	 * O(log n) amortized time.
+	 *
+	 * @throws EmptyPriorityQueueException
+	 *             if the heap is empty
+	 */
+	public Entry<K, V> removeMin() throws EmptyPriorityQueueException {
+		if (_root == null) {
+			throw new EmptyPriorityQueueException("Cannot get minimum of an empty Heap");
+		}
+		PairingHeapEntry<K, V> minimumEntry = _root;
+		_root = this.combineSiblings(minimumEntry._child);
+		this.detach(minimumEntry);
+		return minimumEntry;
+	}
+
+	/**
+	 * Removes and returns the given entry from the heap. This method runs in
+	 * O(log n) amortized time.
+	 *
+	 * @throws InvalidEntryException
+	 *             if the entry is not in the heap
+	 */
+	public Entry<K, V> remove(Entry<K, V> entry) throws InvalidEntryException {
+		PairingHeapEntry<K, V> checkedEntry = this.checkAndConvertEntry(entry);
+		if (checkedEntry == _root) {
+			return this.removeMin();
+		}
+
+		// Cutting the entry's subtree out, then linking the entry's combined
+		// children back in at the root
+		this.cut(checkedEntry);
+		PairingHeapEntry<K, V> children = this.combineSiblings(checkedEntry._child);
+		if (children != null) {
+			_root = this.link(_root, children);
+		}
+		this.detach(checkedEntry);
+		return checkedEntry;
+	}
+
+	/**
+	 * Replaces the key of the given entry. This method runs in O(1) time if the
+	 * key does not increase, and in O(log n) amortized time otherwise.
+	 *
+	 * @return the old key formerly associated with the entry
+	 * @throws InvalidEntryException
+	 *             if the entry is not in the heap
+	 * @throws InvalidKeyException
+	 *             if the key is invalid
+	 */
+	public K replaceKey(Entry<K, V> entry, K key) throws InvalidEntryException, InvalidKeyException {
+		PairingHeapEntry<K, V> checkedEntry = this.checkAndConvertEntry(entry);
+		this.checkKey(key);
+		K oldKey = checkedEntry.getKey();
+		checkedEntry.setKey(key);
+
+		if (_comparator.compare(key, oldKey) <= 0) {
+
+			// A decrease can only break the order between the entry and its
+			// parent, so the entry's subtree is cut off and linked with the root
+			if (checkedEntry != _root) {
+				this.cut(checkedEntry);
+				_root = this.link(_root, checkedEntry);
+			}
+		} else {
+
+			// An increase can break the order with any child, so the entry is
+			// taken out on its own and its children are linked back in
+			PairingHeapEntry<K, V> children = this.combineSiblings(checkedEntry._child);
+			checkedEntry._child = null;
+			if (checkedEntry == _root) {
+				_root = children;
+			} else {
+				this.cut(checkedEntry);
+				if (children != null) {
+					_root = this.link(_root, children);
+				}
+			}
+			_root = (_root == null) ? checkedEntry : this.link(_root, checkedEntry);
+		}
+		return oldKey;
+	}
+
+	/**
+	 * Replaces the value of the given entry. This method runs in O(1) time.
+	 *
+	 * @return the old value formerly associated with the entry
+	 * @throws InvalidEntryException
+	 *             if the entry is not in the heap
+	 */
+	public V replaceValue(Entry<K, V> entry, V value) throws InvalidEntryException {
+		PairingHeapEntry<K, V> checkedEntry = this.checkAndConvertEntry(entry);
+		V oldValue = checkedEntry.getValue();
+		checkedEntry.setValue(value);
+		return oldValue;
+	}
+
+	/**
+	 * Determines whether a given entry is valid and converts it to a
+	 * PairingHeapEntry.
+	 *
+	 * @throws InvalidEntryException
+	 *             if the entry is not of the proper class, has been removed or
+	 *             belongs to another heap
+	 */
+	public PairingHeapEntry<K, V> checkAndConvertEntry(Entry<K, V> entry) throws InvalidEntryException {
+		if (entry == null || !(entry instanceof PairingHeapEntry)) {
+			throw new InvalidEntryException("Invalid entry");
+		}
+		PairingHeapEntry<K, V> checkedEntry = (PairingHeapEntry<K, V>) entry;
+		Owner owner = checkedEntry._owner;
+		if (owner != _owner) {
+			if (owner == null || this.root(owner) != _owner) {
+				throw new InvalidEntryException("Entry is not in this heap");
+			}
+			checkedEntry._owner = _owner;
+		}
+		return checkedEntry;
+	}
+
+	/*
+	 * This method checks that a key can be stored in this heap: it must not be
+	 * null, and the comparator must accept it
+	 */
+
+	private void checkKey(K key) throws InvalidKeyException {
+		if (key == null) {
+			throw new InvalidKeyException("Must Enter Suitable Key");
+		}
+		try {
+			_comparator.compare(key, key);
+		} catch (ClassCastException e) {
+			throw new InvalidKeyException("Must Enter Suitable Key");
+		}
+	}
+
+	/*
+	 * This method links two roots, making the one with the larger key the
+	 * first child of the other, and returns the new root. Both must be roots
+	 * without siblings
+	 */
+
+	private PairingHeapEntry<K, V> link(PairingHeapEntry<K, V> first, PairingHeapEntry<K, V> second) {
+		PairingHeapEntry<K, V> parent = first;
+		PairingHeapEntry<K, V> child = second;
+		if (_comparator.compare(second.getKey(), first.getKey()) < 0) {
+			parent = second;
+			child = first;
+		}
+
+		child._sibling = parent._child;
+		if (parent._child != null) {
+			parent._child._prev = child;
+		}
+		child._prev = parent;
+		parent._child = child;
+		return parent;
+	}
+
+	/*
+	 * This method cuts a non-root entry, together with its subtree, out of its
+	 * parent's list of children
+	 */
+
+	private void cut(PairingHeapEntry<K, V> entry) {
+		if (entry._prev._child == entry) {
+			entry._prev._child = entry._sibling;
+		} else {
+			entry._prev._sibling = entry._sibling;
+		}
+		if (entry._sibling != null) {
+			entry._sibling._prev = entry._prev;
+		}
+		entry._prev = null;
+		entry._sibling = null;
+	}
+
+	/*
+	 * This method combines a list of sibling trees into one tree with the two
+	 * pairing passes and returns its root, or null for an empty list. The
+	 * first pass pushes each linked pair onto a stack threaded through the
+	 * sibling links, so the second pass can link them right to left without
+	 * allocating
+	 */
+
+	private PairingHeapEntry<K, V> combineSiblings(PairingHeapEntry<K, V> first) {
+		if (first == null) {
+			return null;
+		}
+
+		PairingHeapEntry<K, V> pairs = null;
+		PairingHeapEntry<K, V> current = first;
+		while (current != null) {
+			PairingHeapEntry<K, V> second = current._sibling;
+			PairingHeapEntry<K, V> next = (second == null) ? null : second._sibling;
+			current._sibling = null;
+			current._prev = null;
+			PairingHeapEntry<K, V> merged = current;
+			if (second != null) {
+				second._sibling = null;
+				second._prev = null;
+				merged = this.link(current, second);
+			}
+			merged._sibling = pairs;
+			pairs = merged;
+			current = next;
+		}
+
+		PairingHeapEntry<K, V> result = pairs;
+		current = pairs._sibling;
+		result._sibling = null;
+		while (current != null) {
+			PairingHeapEntry<K, V> next = current._sibling;
+			current._sibling = null;
+			result = this.link(result, current);
+			current = next;
+		}
+		return result;
+	}
+
+	/*
+	 * This method returns the token at the end of the chain from an owner
+	 * token, halving the chain on the way so that later lookups are shorter
+	 */
+
+	private Owner root(Owner owner) {
+		while (owner._parent != null) {
+			if (owner._parent._parent != null) {
+				owner._parent = owner._parent._parent;
+			}
+			owner = owner._parent;
+		}
+		return owner;
+	}
+
+	/*
+	 * This method clears the links of an entry that has left the heap
+	 */
+
+	private void detach(PairingHeapEntry<K, V> entry) {
+		entry._child = null;
+		entry._sibling = null;
+		entry._prev = null;
+		entry._owner = null;
+		_size--;
+	}
+
+}
@@ -0,0 +1,64 @@
+package app.impl;
+
+import net.datastructures.Entry;
+
+/**
+ * Represents a key/value pair stored in a PairingHeap. The entry is itself
+ * the node of the heap: it links to its first child, to its next sibling, and
+ * back to either its previous sibling or, for a first child, its parent, which
+ * lets an entry be cut out of the heap in O(1) time. It also holds the owner
+ * token of the heap it is in, or null once it has left the heap.
+ */
+
+public class PairingHeapEntry<K, V> implements Entry<K, V> {
+
+	private K _key;
+	private V _value;
+
+	PairingHeapEntry<K, V> _child;
+	PairingHeapEntry<K, V> _sibling;
+	PairingHeapEntry<K, V> _prev;
+	PairingHeap.Owner _owner;
+
+	/**
+	 * Creates an entry that is not yet in a heap.
+	 */
+	public PairingHeapEntry(K key, V value) {
+		_key = key;
+		_value = value;
+		_owner = null;
+	}
+
+	/**
+	 * @return the key stored in this entry
+	 */
+	public K getKey() {
+		return _key;
+	}
+
+	/**
+	 * @return the value stored in this entry
+	 */
+	public V getValue() {
+		return _value;
+	}
+
+	// This method sets the key
+
+	void setKey(K key) {
+		_key = key;
+	}
+
+	// This method sets the value
+
+	void setValue(V value) {
+		_value = value;
+	}
+
+	// This method returns whether the entry is currently stored in a heap
+
+	public boolean isInHeap() {
+		return _owner != null;
+	}
+
+}
@@ -0,0 +1,93 @@
+package app.impl;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Sorts MyHeap entries by the sort prefixes of a KeyNormalizer, for
+ * MyHeap.drainTo. The prefixes are copied into a long array and sorted with a
+ * stable least-significant-digit radix sort, a byte per pass, carrying the
+ * entries along; a pass is skipped when every prefix has the same byte there.
+ * Entries whose prefixes are equal are then sorted among themselves with the
+ * comparator. Compared with a merge sort that follows each entry to its key
+ * on every comparison, this touches the entries once per pass, in order.
+ */
+
+final class PrefixSort {
+
+	private static final int RADIX_BITS = 8;
+	private static final int RADIX = 1 << RADIX_BITS;
+	private static final int PASSES = Long.SIZE / RADIX_BITS;
+
+	private PrefixSort() {
+	}
+
+	/**
+	 * Sorts the entries by prefix, and those with equal prefixes by the
+	 * comparator.
+	 *
+	 * @param entries
+	 *            the entries to sort
+	 * @param ties
+	 *            orders entries whose prefixes are equal
+	 */
+	static <E extends MyHeapEntry<?, ?>> void sort(E[] entries, Comparator<? super E> ties) {
+		int count = entries.length;
+		long[] prefixes = new long[count];
+		int[][] counts = new int[PASSES][RADIX];
+		for (int i = 0; i < count; i++) {
+
+			// Flipping the sign bit makes the signed order the unsigned one
+			long prefix = entries[i].getPrefix() ^ Long.MIN_VALUE;
+			prefixes[i] = prefix;
+			for (int pass = 0; pass < PASSES; pass++) {
+				counts[pass][(int) (prefix >>> (pass * RADIX_BITS)) & (RADIX - 1)]++;
+			}
+		}
+
+		long[] otherPrefixes = new long[count];
+		E[] otherEntries = Arrays.copyOf(entries, count);
+		long[] fromPrefixes = prefixes;
+		E[] fromEntries = entries;
+		for (int pass = 0; pass < PASSES; pass++) {
+			int[] passCounts = counts[pass];
+			int shift = pass * RADIX_BITS;
+			if (count == 0 || passCounts[(int) (fromPrefixes[0] >>> shift) & (RADIX - 1)] == count) {
+				continue;
+			}
+
+			// Turning the counts into the first position of each digit
+			int position = 0;
+			for (int digit = 0; digit < RADIX; digit++) {
+				int digitCount = passCounts[digit];
+				passCounts[digit] = position;
+				position += digitCount;
+			}
+
+			long[] toPrefixes = (fromPrefixes == prefixes) ? otherPrefixes : prefixes;
+			E[] toEntries = (fromEntries == entries) ? otherEntries : entries;
+			for (int i = 0; i < count; i++) {
+				long prefix = fromPrefixes[i];
+				int target = passCounts[(int) (prefix >>> shift) & (RADIX - 1)]++;
+				toPrefixes[target] = prefix;
+				toEntries[target] = fromEntries[i];
+			}
+			fromPrefixes = toPrefixes;
+			fromEntries = toEntries;
+		}
+		if (fromEntries != entries) {
+			System.arraycopy(fromEntries, 0, entries, 0, count);
+		}
+
+		int start = 0;
+		for (int i = 1; i <= count; i++) {
+			if (i == count || fromPrefixes[i] != fromPrefixes[start]) {
+				if (i - start > 1) {
+					Arrays.sort(entries, start, i, ties);
+				}
+				start = i;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,263 @@
+package app.impl;
+
+import net.datastructures.EmptyPriorityQueueException;
+import net.datastructures.InvalidEntryException;
+import net.datastructures.InvalidKeyException;
+
+/**
+ * A radix heap: a monotone priority queue for non-negative long keys, such as
+ * event times or timer deadlines, in which the minimum never goes backwards.
+ * Keys are never compared with a Comparator. Instead each entry sits in one of
+ * 65 buckets, chosen by the highest bit in which its key differs from the last
+ * minimum: bucket 0 holds the keys equal to it, and bucket b > 0 the keys that
+ * first differ from it in bit b - 1.
+ *
+ * When bucket 0 runs empty, the smallest key of the first non-empty bucket
+ * becomes the new last minimum and that bucket's entries are spread over the
+ * lower buckets. An entry only ever moves to a lower bucket, so each entry is
+ * moved at most about log C times, where C is the spread of the keys; insert,
+ * removeMin and decreaseKey therefore run in O(log C) amortized time, and
+ * remove in O(1).
+ *
+ * The contract is monotone extraction: the last minimum is the largest key
+ * returned so far by min or removeMin, and no entry may be given a key below
+ * it. Keys that break the contract are rejected with an InvalidKeyException
+ * and leave the heap unchanged.
+ */
+
+public class RadixHeap<V> {
+
+	private static final int BUCKETS = 65;
+
+	// The first entry of the list of each bucket
+	private RadixHeapEntry<V>[] _buckets;
+	private long _last;
+	private int _size;
+
+	/**
+	 * Creates an empty heap whose last minimum is 0.
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	public RadixHeap() {
+		_buckets = new RadixHeapEntry[BUCKETS];
+		_last = 0;
+		_size = 0;
+	}
+
+	/**
+	 * @return the number of entries in the heap
+	 */
+	public int size() {
+		return _size;
+	}
+
+	/**
+	 * @return true if the heap is empty; false otherwise
+	 */
+	public boolean isEmpty() {
+		return _size == 0;
+	}
+
+	/**
+	 * @return the last minimum, below which no key may be inserted
+	 */
+	public long lastMin() {
+		return _last;
+	}
+
+	/**
+	 * Inserts a key-value pair and returns the entry created. This method runs
+	 * in O(1) time, plus the O(log C) bucket moves the entry may later make.
+	 *
+	 * @param key
+	 *            to be used as the key, no smaller than the last minimum
+	 * @param value
+	 *            stored with the associated key in the heap
+	 * @return the entry created
+	 * @throws InvalidKeyException
+	 *             if the key is below the last minimum
+	 */
+	public RadixHeapEntry<V> insert(long key, V value) throws InvalidKeyException {
+		this.checkKey(key);
+		RadixHeapEntry<V> entry = new RadixHeapEntry<>(key, value, this);
+		this.link(entry);
+		_size++;
+		return entry;
+	}
+
+	/**
+	 * Returns but does not remove an entry with the minimum key. Its key
+	 * becomes the last minimum.
+	 *
+	 * @throws EmptyPriorityQueueException
+	 *             if the heap is empty
+	 */
+	public RadixHeapEntry<V> min() throws EmptyPriorityQueueException {
+		if (_size == 0) {
+			throw new EmptyPriorityQueueException("Heap is Empty");
+		}
+		this.refill();
+		return _buckets[0];
+	}
+
+	/**
+	 * Removes and returns an entry with the minimum key. Its key becomes the
+	 * last minimum.
+	 *
+	 * @throws EmptyPriorityQueueException
+	 *             if the heap is empty
+	 */
+	public RadixHeapEntry<V> removeMin() throws EmptyPriorityQueueException {
+		RadixHeapEntry<V> entry = this.min();
+		this.unlink(entry);
+		entry._bucket = -1;
+		_size--;
+		return entry;
+	}
+
+	/**
+	 * Removes the given entry from the heap. This method runs in O(1) time.
+	 *
+	 * @return the entry, now removed
+	 * @throws InvalidEntryException
+	 *             if the entry is not in the heap
+	 */
+	public RadixHeapEntry<V> remove(RadixHeapEntry<V> entry) throws InvalidEntryException {
+		this.checkEntry(entry);
+		this.unlink(entry);
+		entry._bucket = -1;
+		_size--;
+		return entry;
+	}
+
+	/**
+	 * Decreases the key of the given entry. The entry moves to a lower bucket
+	 * (or stays put), so this does not add to the amortized cost of the entry.
+	 *
+	 * @param entry
+	 *            whose key is decreased
+	 * @param key
+	 *            the new key, no larger than the current one and no smaller
+	 *            than the last minimum
+	 * @return the old key of the entry
+	 * @throws InvalidEntryException
+	 *             if the entry is not in the heap
+	 * @throws InvalidKeyException
+	 *             if the key is larger than the current one or below the last
+	 *             minimum
+	 */
+	public long decreaseKey(RadixHeapEntry<V> entry, long key) throws InvalidEntryException, InvalidKeyException {
+		this.checkEntry(entry);
+		this.checkKey(key);
+		if (key > entry._key) {
+			throw new InvalidKeyException("Key " + key + " is larger than the current key " + entry._key);
+		}
+		long oldKey = entry._key;
+		this.unlink(entry);
+		entry._key = key;
+		this.link(entry);
+		return oldKey;
+	}
+
+	/**
+	 * Replaces the value of the given entry. This method runs in O(1) time.
+	 *
+	 * @return the old value of the entry
+	 * @throws InvalidEntryException
+	 *             if the entry is not in the heap
+	 */
+	public V replaceValue(RadixHeapEntry<V> entry, V value) throws InvalidEntryException {
+		this.checkEntry(entry);
+		V oldValue = entry._value;
+		entry._value = value;
+		return oldValue;
+	}
+
+	/*
+	 * This method makes sure bucket 0 is not empty, by making the smallest key
+	 * of the first non-empty bucket the last minimum and spreading that
+	 * bucket over the lower buckets. The heap must not be empty
+	 */
+
+	private void refill() {
+		if (_buckets[0] != null) {
+			return;
+		}
+
+		int bucket = 1;
+		while (_buckets[bucket] == null) {
+			bucket++;
+		}
+
+		long min = Long.MAX_VALUE;
+		for (RadixHeapEntry<V> entry = _buckets[bucket]; entry != null; entry = entry._next) {
+			min = Math.min(min, entry._key);
+		}
+		_last = min;
+
+		// Every key in the bucket now differs from the last minimum in a lower
+		// bit than before, so each entry lands in a lower bucket
+		RadixHeapEntry<V> entry = _buckets[bucket];
+		_buckets[bucket] = null;
+		while (entry != null) {
+			RadixHeapEntry<V> next = entry._next;
+			this.link(entry);
+			entry = next;
+		}
+	}
+
+	// This method returns the bucket of a key relative to the last minimum
+
+	private int bucketOf(long key) {
+		return 64 - Long.numberOfLeadingZeros(key ^ _last);
+	}
+
+	// This method puts an entry at the front of the list of its bucket
+
+	private void link(RadixHeapEntry<V> entry) {
+		int bucket = this.bucketOf(entry._key);
+		RadixHeapEntry<V> first = _buckets[bucket];
+		entry._bucket = bucket;
+		entry._prev = null;
+		entry._next = first;
+		if (first != null) {
+			first._prev = entry;
+		}
+		_buckets[bucket] = entry;
+	}
+
+	// This method takes an entry out of the list of its bucket
+
+	private void unlink(RadixHeapEntry<V> entry) {
+		if (entry._prev == null) {
+			_buckets[entry._bucket] = entry._next;
+		} else {
+			entry._prev._next = entry._next;
+		}
+		if (entry._next != null) {
+			entry._next._prev = entry._prev;
+		}
+		entry._prev = null;
+		entry._next = null;
+	}
+
+	private void checkKey(long key) throws InvalidKeyException {
+		if (key < _last) {
+			throw new InvalidKeyException("Key " + key + " is below the last minimum " + _last
+					+ "; a radix heap only accepts keys that do not go backwards");
+		}
+	}
+
+	/*
+	 * This method checks that the entry was created by this heap and is still
+	 * in it, since unlinking an entry of another RadixHeap would corrupt this
+	 * heap's buckets and size
+	 */
+
+	private void checkEntry(RadixHeapEntry<V> entry) throws InvalidEntryException {
+		if (entry == null || entry._owner != this || !entry.isInHeap()) {
+			throw new InvalidEntryException("Entry is not in this heap");
+		}
+	}
+
+}
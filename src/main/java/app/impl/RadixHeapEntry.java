@@ -0,0 +1,58 @@
+package app.impl;
+
+import net.datastructures.Entry;
+
+/**
+ * Represents a key/value pair stored in a RadixHeap. The entry is itself the
+ * node of its bucket's doubly linked list, so it can be moved between buckets
+ * or removed in O(1) time. getKey() boxes the key; use longKey() to read it
+ * without allocating.
+ */
+
+public class RadixHeapEntry<V> implements Entry<Long, V> {
+
+	long _key;
+	V _value;
+
+	// The heap that created the entry, and the bucket holding the entry, or
+	// -1 once it has left the heap
+	final RadixHeap<V> _owner;
+	int _bucket;
+	RadixHeapEntry<V> _prev;
+	RadixHeapEntry<V> _next;
+
+	RadixHeapEntry(long key, V value, RadixHeap<V> owner) {
+		_key = key;
+		_value = value;
+		_owner = owner;
+		_bucket = -1;
+	}
+
+	/**
+	 * @return the key stored in this entry
+	 */
+	public long longKey() {
+		return _key;
+	}
+
+	/**
+	 * @return the key stored in this entry, boxed
+	 */
+	public Long getKey() {
+		return _key;
+	}
+
+	/**
+	 * @return the value stored in this entry
+	 */
+	public V getValue() {
+		return _value;
+	}
+
+	// This method returns whether the entry is currently stored in a heap
+
+	public boolean isInHeap() {
+		return _bucket >= 0;
+	}
+
+}
@@ -0,0 +1,35 @@
+package app.impl;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Writes the keys and values of an ExternalPriorityQueue to its run files and
+ * reads them back. Each entry is written as its key followed by its value,
+ * and read back in the same order.
+ */
+
+public interface RunCodec<K, V> {
+
+	/**
+	 * Writes a key to a run file.
+	 */
+	void writeKey(K key, DataOutput out) throws IOException;
+
+	/**
+	 * Writes a value to a run file.
+	 */
+	void writeValue(V value, DataOutput out) throws IOException;
+
+	/**
+	 * Reads back a key written by writeKey.
+	 */
+	K readKey(DataInput in) throws IOException;
+
+	/**
+	 * Reads back a value written by writeValue.
+	 */
+	V readValue(DataInput in) throws IOException;
+
+}
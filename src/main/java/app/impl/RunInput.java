@@ -0,0 +1,197 @@
+package app.impl;
+
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * The DataInput an ExternalPriorityQueue hands to its RunCodec when it reads a
+ * run: the counterpart of RunOutput. Values are taken straight from a heap
+ * ByteBuffer that is refilled from the file's channel with one large read
+ * whenever it runs short.
+ */
+
+final class RunInput implements DataInput, Closeable {
+
+	private final FileChannel _channel;
+	private final ByteBuffer _buffer;
+
+	// The offset in the file of the first byte of the buffer
+	private long _offset;
+
+	RunInput(FileChannel channel, int bufferBytes) {
+		_channel = channel;
+		_buffer = ByteBuffer.allocate(bufferBytes);
+		_buffer.limit(0);
+		_offset = 0;
+	}
+
+	public void readFully(byte[] b) throws IOException {
+		this.readFully(b, 0, b.length);
+	}
+
+	public void readFully(byte[] b, int off, int len) throws IOException {
+		while (len > 0) {
+			if (!_buffer.hasRemaining()) {
+				this.fill(1);
+			}
+			int chunk = Math.min(len, _buffer.remaining());
+			_buffer.get(b, off, chunk);
+			off += chunk;
+			len -= chunk;
+		}
+	}
+
+	public int skipBytes(int n) throws IOException {
+		int skipped = 0;
+		while (skipped < n) {
+			if (!_buffer.hasRemaining() && !this.refill()) {
+				break;
+			}
+			int chunk = Math.min(n - skipped, _buffer.remaining());
+			_buffer.position(_buffer.position() + chunk);
+			skipped += chunk;
+		}
+		return skipped;
+	}
+
+	public boolean readBoolean() throws IOException {
+		return this.readByte() != 0;
+	}
+
+	public byte readByte() throws IOException {
+		this.ensure(1);
+		return _buffer.get();
+	}
+
+	public int readUnsignedByte() throws IOException {
+		return this.readByte() & 0xFF;
+	}
+
+	public short readShort() throws IOException {
+		this.ensure(2);
+		return _buffer.getShort();
+	}
+
+	public int readUnsignedShort() throws IOException {
+		return this.readShort() & 0xFFFF;
+	}
+
+	public char readChar() throws IOException {
+		this.ensure(2);
+		return _buffer.getChar();
+	}
+
+	public int readInt() throws IOException {
+		this.ensure(4);
+		return _buffer.getInt();
+	}
+
+	public long readLong() throws IOException {
+		this.ensure(8);
+		return _buffer.getLong();
+	}
+
+	public float readFloat() throws IOException {
+		return Float.intBitsToFloat(this.readInt());
+	}
+
+	public double readDouble() throws IOException {
+		return Double.longBitsToDouble(this.readLong());
+	}
+
+	/*
+	 * This method reads bytes up to the end of a line as chars, like
+	 * DataInputStream.readLine, and returns null at the end of the run
+	 */
+
+	public String readLine() throws IOException {
+		StringBuilder line = new StringBuilder();
+		while (_buffer.hasRemaining() || this.refill()) {
+			char c = (char) (_buffer.get() & 0xFF);
+			if (c == '\n') {
+				return line.toString();
+			}
+			if (c == '\r') {
+				if ((_buffer.hasRemaining() || this.refill()) && _buffer.get(_buffer.position()) == '\n') {
+					_buffer.get();
+				}
+				return line.toString();
+			}
+			line.append(c);
+		}
+		return (line.length() == 0) ? null : line.toString();
+	}
+
+	public String readUTF() throws IOException {
+		return DataInputStream.readUTF(this);
+	}
+
+	public void close() throws IOException {
+		_channel.close();
+	}
+
+	/**
+	 * @return the offset in the file of the next byte to be read
+	 */
+	long position() {
+		return _offset + _buffer.position();
+	}
+
+	/**
+	 * Moves to the given offset in the file, dropping what is buffered.
+	 *
+	 * @param position
+	 *            the offset of the next byte to be read
+	 */
+	void seek(long position) throws IOException {
+		_channel.position(position);
+		_buffer.clear();
+		_buffer.limit(0);
+		_offset = position;
+	}
+
+	// This method makes sure the buffer holds the given number of bytes
+
+	private void ensure(int bytes) throws IOException {
+		if (_buffer.remaining() < bytes) {
+			this.fill(bytes);
+		}
+	}
+
+	/*
+	 * This method moves what is left in the buffer to its start and reads
+	 * until it holds at least the given number of bytes
+	 */
+
+	private void fill(int bytes) throws IOException {
+		_offset += _buffer.position();
+		_buffer.compact();
+		while (_buffer.position() < bytes) {
+			if (_channel.read(_buffer) < 0) {
+				_buffer.flip();
+				throw new EOFException();
+			}
+		}
+		_buffer.flip();
+	}
+
+	// This method refills an empty buffer, or returns false at the end of the
+	// run
+
+	private boolean refill() throws IOException {
+		_offset += _buffer.limit();
+		_buffer.clear();
+		int read;
+		do {
+			read = _channel.read(_buffer);
+		} while (read == 0);
+		_buffer.flip();
+		return read > 0;
+	}
+
+}
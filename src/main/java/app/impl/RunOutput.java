@@ -0,0 +1,159 @@
+package app.impl;
+
+import java.io.Closeable;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.UTFDataFormatException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * The DataOutput an ExternalPriorityQueue hands to its RunCodec when it writes
+ * a run. Values are put straight into a heap ByteBuffer in the byte order
+ * DataOutput specifies, and the buffer is written to the file's channel when
+ * it is full. A DataOutputStream over a BufferedOutputStream does the same
+ * work through a synchronized call and an array copy per value, which was most
+ * of the cost of writing a run of long keys.
+ */
+
+final class RunOutput implements DataOutput, Closeable {
+
+	private final FileChannel _channel;
+	private final ByteBuffer _buffer;
+
+	RunOutput(FileChannel channel, int bufferBytes) {
+		_channel = channel;
+		_buffer = ByteBuffer.allocate(bufferBytes);
+	}
+
+	public void write(int b) throws IOException {
+		this.ensure(1);
+		_buffer.put((byte) b);
+	}
+
+	public void write(byte[] b) throws IOException {
+		this.write(b, 0, b.length);
+	}
+
+	public void write(byte[] b, int off, int len) throws IOException {
+		if (len > _buffer.capacity()) {
+			this.flush();
+			ByteBuffer source = ByteBuffer.wrap(b, off, len);
+			while (source.hasRemaining()) {
+				_channel.write(source);
+			}
+			return;
+		}
+		this.ensure(len);
+		_buffer.put(b, off, len);
+	}
+
+	public void writeBoolean(boolean v) throws IOException {
+		this.write(v ? 1 : 0);
+	}
+
+	public void writeByte(int v) throws IOException {
+		this.write(v);
+	}
+
+	public void writeShort(int v) throws IOException {
+		this.ensure(2);
+		_buffer.putShort((short) v);
+	}
+
+	public void writeChar(int v) throws IOException {
+		this.ensure(2);
+		_buffer.putChar((char) v);
+	}
+
+	public void writeInt(int v) throws IOException {
+		this.ensure(4);
+		_buffer.putInt(v);
+	}
+
+	public void writeLong(long v) throws IOException {
+		this.ensure(8);
+		_buffer.putLong(v);
+	}
+
+	public void writeFloat(float v) throws IOException {
+		this.writeInt(Float.floatToIntBits(v));
+	}
+
+	public void writeDouble(double v) throws IOException {
+		this.writeLong(Double.doubleToLongBits(v));
+	}
+
+	public void writeBytes(String s) throws IOException {
+		for (int i = 0; i < s.length(); i++) {
+			this.write(s.charAt(i));
+		}
+	}
+
+	public void writeChars(String s) throws IOException {
+		for (int i = 0; i < s.length(); i++) {
+			this.writeChar(s.charAt(i));
+		}
+	}
+
+	/*
+	 * This method writes a string in the modified UTF-8 of DataOutput: its
+	 * length in bytes, then one to three bytes per char
+	 */
+
+	public void writeUTF(String s) throws IOException {
+		int length = 0;
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			length += (c >= 0x0001 && c <= 0x007F) ? 1 : (c <= 0x07FF) ? 2 : 3;
+		}
+		if (length > 0xFFFF) {
+			throw new UTFDataFormatException("String is too long: " + length + " bytes");
+		}
+		this.writeShort(length);
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (c >= 0x0001 && c <= 0x007F) {
+				this.write(c);
+			} else if (c <= 0x07FF) {
+				this.write(0xC0 | (c >> 6));
+				this.write(0x80 | (c & 0x3F));
+			} else {
+				this.write(0xE0 | (c >> 12));
+				this.write(0x80 | ((c >> 6) & 0x3F));
+				this.write(0x80 | (c & 0x3F));
+			}
+		}
+	}
+
+	/**
+	 * Writes what is buffered to the channel.
+	 */
+	public void flush() throws IOException {
+		_buffer.flip();
+		while (_buffer.hasRemaining()) {
+			_channel.write(_buffer);
+		}
+		_buffer.clear();
+	}
+
+	/**
+	 * Writes what is buffered and closes the channel.
+	 */
+	public void close() throws IOException {
+		try {
+			this.flush();
+		} finally {
+			_channel.close();
+		}
+	}
+
+	// This method makes room in the buffer for the given number of bytes
+
+	private void ensure(int bytes) throws IOException {
+		if (_buffer.remaining() < bytes) {
+			this.flush();
+		}
+	}
+
+}
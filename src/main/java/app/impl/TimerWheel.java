@@ -0,0 +1,373 @@
+package app.impl;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.function.LongSupplier;
+
+import net.datastructures.InvalidEntryException;
+
+/**
+ * A hierarchical timing wheel, for scheduling large numbers of timers that
+ * are mostly cancelled or rescheduled before they fire. Time is cut into
+ * ticks of a configurable length, and a timer fires on the first tick at or
+ * after its deadline, so it never fires early and at most one tick late.
+ *
+ * The wheel has a number of levels, each with 2^b slots; a slot of level l
+ * covers 2^(b*l) ticks. A timer is linked into the slot of the highest level
+ * whose digit of its deadline tick differs from the current tick, so it only
+ * has to move when the current tick reaches the start of that slot, at which
+ * point the whole slot is spread over the lower levels. Each timer therefore
+ * moves at most once per level, and schedule, reschedule and cancel run in
+ * O(1) time. Timers too far away for the top level wait in an overflow
+ * MyHeap, ordered by deadline, and are brought into the wheel when the top
+ * level wraps around; scheduling, rescheduling or cancelling one of them
+ * runs in O(log n) time.
+ *
+ * advance() reads the clock, fires every timer that has come due and hands
+ * them over in one batch. When the wheel itself is empty, it jumps straight
+ * to the current tick instead of stepping through the idle ticks.
+ *
+ * The clock is a LongSupplier of nanoseconds: System::nanoTime for real time,
+ * or a ManualClock to drive the wheel deterministically. A wheel is not
+ * thread-safe.
+ */
+
+public class TimerWheel<V> {
+
+	private static final Comparator<Long> TICK_ORDER = new Comparator<Long>() {
+		@Override
+		public int compare(Long first, Long second) {
+			return Long.compare(first, second);
+		}
+	};
+
+	private final LongSupplier _clock;
+	private final long _start;
+	private final long _tickNanos;
+	private final int _bits;
+	private final int _levels;
+	private final long _slotMask;
+
+	// The first entry of the list of each slot; level l uses the slots from
+	// l << _bits on
+	private final TimerWheelEntry<V>[] _slots;
+	private final MyHeap<Long, TimerWheelEntry<V>> _overflow;
+
+	// The last tick processed, the timers linked into the wheel, and all
+	// pending timers
+	private long _tick;
+	private int _wheelCount;
+	private int _size;
+
+	/**
+	 * Creates a wheel with four levels of 64 slots, which covers 2^24 ticks
+	 * (over four hours with 1 ms ticks) before timers overflow into the heap.
+	 *
+	 * @param tickNanos
+	 *            the length of a tick, in nanoseconds
+	 * @param clock
+	 *            the clock, in nanoseconds
+	 * @throws IllegalArgumentException
+	 *             if the tick is not positive or the clock is null
+	 */
+	public TimerWheel(long tickNanos, LongSupplier clock) {
+		this(tickNanos, 6, 4, clock);
+	}
+
+	/**
+	 * Creates a wheel with the given number of levels of 2^bits slots each.
+	 *
+	 * @param tickNanos
+	 *            the length of a tick, in nanoseconds
+	 * @param bits
+	 *            the log2 of the number of slots per level
+	 * @param levels
+	 *            the number of levels
+	 * @param clock
+	 *            the clock, in nanoseconds
+	 * @throws IllegalArgumentException
+	 *             if the tick is not positive, the clock is null, bits is not
+	 *             from 1 to 16, levels is below 1, or the levels cover more
+	 *             than 2^48 ticks
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	public TimerWheel(long tickNanos, int bits, int levels, LongSupplier clock) {
+		if (tickNanos <= 0 || clock == null) {
+			throw new IllegalArgumentException("Invalid tick or clock");
+		}
+		if (bits < 1 || bits > 16 || levels < 1 || bits * levels > 48) {
+			throw new IllegalArgumentException("Invalid wheel shape");
+		}
+		_clock = clock;
+		_start = clock.getAsLong();
+		_tickNanos = tickNanos;
+		_bits = bits;
+		_levels = levels;
+		_slotMask = (1L << bits) - 1;
+		_slots = new TimerWheelEntry[levels << bits];
+		_overflow = new MyHeap<Long, TimerWheelEntry<V>>(TICK_ORDER,
+				new MyArrayHeapTree<MyHeapEntry<Long, TimerWheelEntry<V>>>(), 4);
+		_tick = 0;
+		_wheelCount = 0;
+		_size = 0;
+	}
+
+	/**
+	 * @return the number of pending timers
+	 */
+	public int size() {
+		return _size;
+	}
+
+	/**
+	 * @return true if no timer is pending; false otherwise
+	 */
+	public boolean isEmpty() {
+		return _size == 0;
+	}
+
+	/**
+	 * @return the length of a tick, in nanoseconds
+	 */
+	public long tickNanos() {
+		return _tickNanos;
+	}
+
+	/**
+	 * Schedules a timer to fire after the given delay from now. This method
+	 * runs in O(1) time, or O(log n) time if the timer overflows the wheel.
+	 *
+	 * @param delayNanos
+	 *            the delay, in nanoseconds
+	 * @param value
+	 *            handed back with the timer when it fires
+	 * @return the timer
+	 * @throws IllegalArgumentException
+	 *             if the delay is negative
+	 */
+	public TimerWheelEntry<V> schedule(long delayNanos, V value) throws IllegalArgumentException {
+		long deadline = this.deadlineAfter(delayNanos);
+		TimerWheelEntry<V> entry = new TimerWheelEntry<V>(this, deadline, this.tickOf(deadline), value);
+		this.place(entry, null);
+		_size++;
+		return entry;
+	}
+
+	/**
+	 * Moves a pending timer to a new deadline, the given delay from now. This
+	 * method runs in O(1) time, or O(log n) time if the timer was or will be in
+	 * the overflow heap.
+	 *
+	 * @param entry
+	 *            the timer to move
+	 * @param delayNanos
+	 *            the new delay, in nanoseconds
+	 * @return the old deadline of the timer
+	 * @throws InvalidEntryException
+	 *             if the timer is not pending in this wheel
+	 * @throws IllegalArgumentException
+	 *             if the delay is negative
+	 */
+	public long reschedule(TimerWheelEntry<V> entry, long delayNanos)
+			throws InvalidEntryException, IllegalArgumentException {
+		this.checkEntry(entry);
+		long deadline = this.deadlineAfter(delayNanos);
+		long oldDeadline = entry._deadline;
+		this.detach(entry);
+		entry._deadline = deadline;
+		entry._tick = this.tickOf(deadline);
+		this.place(entry, null);
+		return oldDeadline;
+	}
+
+	/**
+	 * Cancels a timer, unless it has already fired or been cancelled. This
+	 * method runs in O(1) time, or O(log n) time if the timer is in the
+	 * overflow heap.
+	 *
+	 * @param entry
+	 *            the timer to cancel
+	 * @return true if the timer was pending and is now cancelled
+	 * @throws InvalidEntryException
+	 *             if the timer belongs to another wheel
+	 */
+	public boolean cancel(TimerWheelEntry<V> entry) throws InvalidEntryException {
+		if (entry == null || entry._wheel != this) {
+			throw new InvalidEntryException("Timer is not in this wheel");
+		}
+		if (entry.isPending() == false) {
+			return false;
+		}
+		this.detach(entry);
+		entry._slot = TimerWheelEntry.NONE;
+		_size--;
+		return true;
+	}
+
+	/**
+	 * Fires every timer whose deadline has come by the clock, adding the
+	 * timers to the given collection in order of their deadline ticks (timers
+	 * of the same tick in no particular order).
+	 *
+	 * @param expired
+	 *            the collection to which the fired timers are added
+	 * @return the number of timers fired
+	 * @throws IllegalArgumentException
+	 *             if expired is null
+	 */
+	public int advance(Collection<? super TimerWheelEntry<V>> expired) throws IllegalArgumentException {
+		if (expired == null) {
+			throw new IllegalArgumentException("Invalid target for the expired timers");
+		}
+		long target = Math.floorDiv(_clock.getAsLong() - _start, _tickNanos);
+		int before = _size;
+		while (_tick < target) {
+			if (_wheelCount == 0) {
+				_tick = target;
+				this.pullOverflow(expired);
+				break;
+			}
+			_tick++;
+			this.processTick(expired);
+		}
+		return before - _size;
+	}
+
+	/*
+	 * This method processes the tick just reached: overflow timers come in
+	 * when the top level wraps, the slots of the levels whose digits wrapped
+	 * are spread downwards, highest first, and the timers of the level 0 slot
+	 * fire
+	 */
+
+	private void processTick(Collection<? super TimerWheelEntry<V>> expired) {
+		if ((_tick & this.levelMask(_levels)) == 0) {
+			this.pullOverflow(expired);
+		}
+		for (int level = _levels - 1; level >= 1; level--) {
+			if ((_tick & this.levelMask(level)) == 0) {
+				this.cascade((level << _bits) + (int) ((_tick >>> (level * _bits)) & _slotMask), expired);
+			}
+		}
+		this.cascade((int) (_tick & _slotMask), expired);
+	}
+
+	// This method empties a slot and places each of its timers again
+
+	private void cascade(int slot, Collection<? super TimerWheelEntry<V>> expired) {
+		TimerWheelEntry<V> entry = _slots[slot];
+		_slots[slot] = null;
+		while (entry != null) {
+			TimerWheelEntry<V> next = entry._next;
+			entry._prev = null;
+			entry._next = null;
+			_wheelCount--;
+			this.place(entry, expired);
+			entry = next;
+		}
+	}
+
+	/*
+	 * This method brings in the overflow timers that now fit in the wheel,
+	 * which are the ones with the smallest deadlines
+	 */
+
+	private void pullOverflow(Collection<? super TimerWheelEntry<V>> expired) {
+		while (_overflow.isEmpty() == false) {
+			long tick = _overflow.min().getKey();
+			if (tick > _tick && ((tick ^ _tick) & ~this.levelMask(_levels)) != 0) {
+				break;
+			}
+			TimerWheelEntry<V> entry = _overflow.removeMin().getValue();
+			entry._overflowEntry = null;
+			this.place(entry, expired);
+		}
+	}
+
+	/*
+	 * This method fires a timer that is due, or otherwise links it into the
+	 * slot of the highest level at which its deadline tick differs from the
+	 * current tick, or into the overflow heap if that is above the top level.
+	 * Timers that are due can only be met while advancing, when expired is
+	 * not null
+	 */
+
+	private void place(TimerWheelEntry<V> entry, Collection<? super TimerWheelEntry<V>> expired) {
+		long tick = entry._tick;
+		if (tick <= _tick) {
+			entry._slot = TimerWheelEntry.NONE;
+			_size--;
+			expired.add(entry);
+			return;
+		}
+
+		int level = (63 - Long.numberOfLeadingZeros(tick ^ _tick)) / _bits;
+		if (level >= _levels) {
+			entry._slot = TimerWheelEntry.OVERFLOW;
+			entry._overflowEntry = _overflow.insert(tick, entry);
+			return;
+		}
+
+		int slot = (level << _bits) + (int) ((tick >>> (level * _bits)) & _slotMask);
+		TimerWheelEntry<V> first = _slots[slot];
+		entry._slot = slot;
+		entry._prev = null;
+		entry._next = first;
+		if (first != null) {
+			first._prev = entry;
+		}
+		_slots[slot] = entry;
+		_wheelCount++;
+	}
+
+	// This method takes a pending timer out of its slot or the overflow heap
+
+	private void detach(TimerWheelEntry<V> entry) {
+		if (entry._slot == TimerWheelEntry.OVERFLOW) {
+			_overflow.remove(entry._overflowEntry);
+			entry._overflowEntry = null;
+			return;
+		}
+		if (entry._prev == null) {
+			_slots[entry._slot] = entry._next;
+		} else {
+			entry._prev._next = entry._next;
+		}
+		if (entry._next != null) {
+			entry._next._prev = entry._prev;
+		}
+		entry._prev = null;
+		entry._next = null;
+		_wheelCount--;
+	}
+
+	/*
+	 * This method returns the tick on which a deadline fires: the first tick
+	 * at or after it, but never the current tick, which has been processed
+	 */
+
+	private long tickOf(long deadline) {
+		long tick = Math.floorDiv(deadline - _start + _tickNanos - 1, _tickNanos);
+		return Math.max(tick, _tick + 1);
+	}
+
+	private long deadlineAfter(long delayNanos) throws IllegalArgumentException {
+		if (delayNanos < 0) {
+			throw new IllegalArgumentException("Delay must not be negative");
+		}
+		return _clock.getAsLong() + delayNanos;
+	}
+
+	// This method returns a mask of the ticks covered by one slot of a level
+
+	private long levelMask(int level) {
+		return (1L << (level * _bits)) - 1;
+	}
+
+	private void checkEntry(TimerWheelEntry<V> entry) throws InvalidEntryException {
+		if (entry == null || entry._wheel != this || entry.isPending() == false) {
+			throw new InvalidEntryException("Timer is not in this wheel");
+		}
+	}
+
+}
@@ -0,0 +1,66 @@
+package app.impl;
+
+import net.datastructures.Entry;
+
+/**
+ * A timer scheduled on a TimerWheel. Its key is the deadline, in nanoseconds
+ * on the wheel's clock, and its value is whatever was scheduled with it. Like
+ * RadixHeapEntry, the entry is itself the node of its slot's doubly linked
+ * list, so it can be cancelled or moved in O(1) time; a timer kept in the
+ * wheel's overflow heap holds its entry in that heap instead.
+ */
+
+public class TimerWheelEntry<V> implements Entry<Long, V> {
+
+	static final int NONE = -1;
+	static final int OVERFLOW = -2;
+
+	final TimerWheel<V> _wheel;
+	long _deadline;
+	long _tick;
+	V _value;
+
+	// The slot holding the timer, OVERFLOW if it waits in the overflow heap,
+	// or NONE once it has fired or been cancelled
+	int _slot;
+	TimerWheelEntry<V> _prev;
+	TimerWheelEntry<V> _next;
+	Entry<Long, TimerWheelEntry<V>> _overflowEntry;
+
+	TimerWheelEntry(TimerWheel<V> wheel, long deadline, long tick, V value) {
+		_wheel = wheel;
+		_deadline = deadline;
+		_tick = tick;
+		_value = value;
+		_slot = NONE;
+	}
+
+	/**
+	 * @return the deadline of the timer, in nanoseconds on the wheel's clock
+	 */
+	public long deadline() {
+		return _deadline;
+	}
+
+	/**
+	 * @return the deadline of the timer, boxed
+	 */
+	public Long getKey() {
+		return _deadline;
+	}
+
+	/**
+	 * @return the value scheduled with the timer
+	 */
+	public V getValue() {
+		return _value;
+	}
+
+	/**
+	 * @return whether the timer is still waiting to fire
+	 */
+	public boolean isPending() {
+		return _slot != NONE;
+	}
+
+}
@@ -0,0 +1,182 @@
+package app.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import net.datastructures.EmptyPriorityQueueException;
+import net.datastructures.Entry;
+import net.datastructures.InvalidKeyException;
+
+/**
+ * Keeps the k entries with the largest keys seen in a stream, in O(k) memory.
+ * (For the k smallest keys, pass a reversed comparator.)
+ *
+ * The entries are kept in a MyHeap ordered by the same comparator, so the
+ * root holds the smallest key kept: the threshold a new key has to beat. Once
+ * k entries are kept, a key is checked and, if it does not beat the
+ * threshold, rejected after a single comparison with the root; one that does
+ * beat it replaces the root in place with removeMinThenInsert, which reuses
+ * the root's entry and downheaps it once. offer therefore runs in O(1) time when it rejects and in O(log k)
+ * time when it accepts, and allocates nothing once the collector is full.
+ *
+ * A collector is not thread-safe. To collect in parallel, give each thread
+ * its own collector and combine them with merge once the threads are done.
+ */
+
+public class TopKCollector<K, V> {
+
+	private final int _capacity;
+	private final Comparator<K> _comparator;
+	private final IndexedHeapTree<MyHeapEntry<K, V>> _tree;
+	private final MyHeap<K, V> _heap;
+
+	/**
+	 * Creates an empty collector that keeps the k largest keys.
+	 *
+	 * @param k
+	 *            the number of entries to keep
+	 * @param comparator
+	 *            the comparator that orders the keys
+	 * @throws IllegalArgumentException
+	 *             if k is below 1 or the comparator is null
+	 */
+	public TopKCollector(int k, Comparator<K> comparator) {
+		if (k < 1) {
+			throw new IllegalArgumentException("Must keep at least one entry");
+		}
+		if (comparator == null) {
+			throw new IllegalArgumentException();
+		}
+		_capacity = k;
+		_comparator = comparator;
+		_tree = new MyArrayHeapTree<MyHeapEntry<K, V>>();
+		_tree.ensureCapacity(k);
+
+		// Accepting a key downheaps from the root, which a 4-ary heap does in
+		// half as many levels
+		_heap = new MyHeap<K, V>(comparator, _tree, 4);
+	}
+
+	/**
+	 * @return the number of entries the collector keeps at most
+	 */
+	public int capacity() {
+		return _capacity;
+	}
+
+	/**
+	 * @return the number of entries kept
+	 */
+	public int size() {
+		return _heap.size();
+	}
+
+	/**
+	 * @return true if k entries are kept, so that new keys have to beat the
+	 *         threshold
+	 */
+	public boolean isFull() {
+		return _heap.size() == _capacity;
+	}
+
+	/**
+	 * Returns the smallest key kept, which a new key has to beat once the
+	 * collector is full.
+	 *
+	 * @throws EmptyPriorityQueueException
+	 *             if no entry is kept
+	 */
+	public K threshold() throws EmptyPriorityQueueException {
+		return _heap.min().getKey();
+	}
+
+	/**
+	 * Offers a key-value pair to the collector. If the collector is not full
+	 * the pair is kept; otherwise it is kept only if its key is larger than
+	 * the threshold, in which case the entry with the threshold key is
+	 * evicted. A key equal to the threshold is rejected.
+	 *
+	 * @param key
+	 *            the key of the pair
+	 * @param value
+	 *            the value of the pair
+	 * @return whether the pair was kept
+	 * @throws InvalidKeyException
+	 *             if the key is not suitable for the collector
+	 */
+	public boolean offer(K key, V value) throws InvalidKeyException {
+		if (key == null) {
+			throw new InvalidKeyException("Must Enter Suitable Key");
+		}
+		if (_heap.size() < _capacity) {
+			_heap.insert(key, value);
+			return true;
+		}
+
+		// The key is checked the way MyHeap checks it before it is compared
+		// with the threshold, so that a key of the wrong type is reported as
+		// invalid rather than rejected or thrown as a ClassCastException
+		int order;
+		try {
+			_comparator.compare(key, key);
+			order = _comparator.compare(key, _tree.get(0).getKey());
+		} catch (ClassCastException e) {
+			throw new InvalidKeyException("Must Enter Suitable Key");
+		}
+		if (order <= 0) {
+			return false;
+		}
+		_heap.removeMinThenInsert(key, value);
+		return true;
+	}
+
+	/**
+	 * Offers every entry kept by another collector to this one, so that this
+	 * collector ends up with the k largest keys of both streams. The other
+	 * collector is not changed. This method runs in O(m log k) time for m
+	 * entries kept by the other collector.
+	 *
+	 * @param other
+	 *            the collector whose entries are offered
+	 * @return this collector
+	 * @throws IllegalArgumentException
+	 *             if other is null or this collector itself
+	 */
+	public TopKCollector<K, V> merge(TopKCollector<K, V> other) throws IllegalArgumentException {
+		if (other == null || other == this) {
+			throw new IllegalArgumentException("Cannot merge a collector with itself or null");
+		}
+		int size = other._tree.size();
+		for (int slot = 0; slot < size; slot++) {
+			MyHeapEntry<K, V> entry = other._tree.get(slot);
+			this.offer(entry.getKey(), entry.getValue());
+		}
+		return this;
+	}
+
+	/**
+	 * Returns the entries kept, largest key first. The entries are copies, so
+	 * the collector can go on collecting. This method runs in O(k log k) time.
+	 */
+	public List<Entry<K, V>> toList() {
+		int size = _tree.size();
+		List<Entry<K, V>> entries = new ArrayList<Entry<K, V>>(size);
+		for (int slot = 0; slot < size; slot++) {
+			MyHeapEntry<K, V> entry = _tree.get(slot);
+			MyHeapEntry<K, V> copy = new MyHeapEntry<>();
+			copy.setKey(entry.getKey());
+			copy.setValue(entry.getValue());
+			entries.add(copy);
+		}
+		Collections.sort(entries, new Comparator<Entry<K, V>>() {
+			@Override
+			public int compare(Entry<K, V> first, Entry<K, V> second) {
+				return _comparator.compare(second.getKey(), first.getKey());
+			}
+		});
+		return entries;
+	}
+
+}
@@ -0,0 +1,173 @@
+package PersonalProjects.Heap;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import net.datastructures.EmptyPriorityQueueException;
+import net.datastructures.Entry;
+import net.datastructures.InvalidEntryException;
+import net.datastructures.InvalidKeyException;
+import app.impl.*;
+
+public class ConcurrentAdaptableHeapTest {
+
+	/*
+	 * This tests that entries come out in key order, with replaceKey and remove
+	 * moving and dropping entries, on a single thread
+	 */
+	@Test
+	public void testAdaptableOperationsInOrder() {
+		ConcurrentAdaptableHeap<Integer, String> heap = new ConcurrentAdaptableHeap<Integer, String>(
+				new IntegerComparator());
+		Entry<Integer, String> a = heap.insert(11, "A");
+		heap.insert(13, "B");
+		Entry<Integer, String> c = heap.insert(64, "C");
+		heap.insert(16, "D");
+		Entry<Integer, String> e = heap.insert(44, "E");
+
+		assertThat(heap.replaceKey(c, 1), is(64));
+		assertThat(heap.replaceKey(a, 50), is(11));
+		assertThat(heap.remove(e).getValue(), is("E"));
+		assertThat(heap.replaceValue(a, "Z"), is("A"));
+		assertThat(heap.size(), is(4));
+
+		assertThat(heap.min().getValue(), is("C"));
+		assertThat(heap.removeMin().getKey(), is(1));
+		assertThat(heap.removeMin().getKey(), is(13));
+		assertThat(heap.removeMin().getKey(), is(16));
+		assertThat(heap.removeMin().getValue(), is("Z"));
+		assertTrue(heap.isEmpty());
+	}
+
+	/*
+	 * This tests that removed entries, empty heaps and bad keys are rejected
+	 */
+	@Test
+	public void testInvalidArguments() {
+		ConcurrentAdaptableHeap<Integer, String> heap = new ConcurrentAdaptableHeap<Integer, String>(
+				new IntegerComparator());
+		Entry<Integer, String> entry = heap.insert(3, "A");
+		heap.removeMin();
+		try {
+			heap.remove(entry);
+			fail();
+		} catch (InvalidEntryException e) {
+		}
+		try {
+			heap.replaceKey(entry, 1);
+			fail();
+		} catch (InvalidEntryException e) {
+		}
+		try {
+			heap.insert(null, "B");
+			fail();
+		} catch (InvalidKeyException e) {
+		}
+		try {
+			heap.removeMin();
+			fail();
+		} catch (EmptyPriorityQueueException e) {
+		}
+	}
+
+	/*
+	 * This tests that an entry of another heap is rejected even when this heap
+	 * holds an entry with the same key and creation order
+	 */
+	@Test
+	public void testEntryOfAnotherHeapIsRejected() {
+		IntegerComparator comparator = new IntegerComparator();
+		ConcurrentAdaptableHeap<Integer, String> heap = new ConcurrentAdaptableHeap<Integer, String>(comparator);
+		ConcurrentAdaptableHeap<Integer, String> other = new ConcurrentAdaptableHeap<Integer, String>(comparator);
+		heap.insert(1, "A");
+		Entry<Integer, String> entry = other.insert(1, "B");
+		try {
+			heap.remove(entry);
+			fail();
+		} catch (InvalidEntryException e) {
+		}
+		try {
+			heap.replaceKey(entry, 2);
+			fail();
+		} catch (InvalidEntryException e) {
+		}
+		try {
+			heap.replaceValue(entry, "C");
+			fail();
+		} catch (InvalidEntryException e) {
+		}
+		assertThat(heap.size(), is(1));
+		assertThat(heap.min().getValue(), is("A"));
+		assertThat(other.removeMin().getValue(), is("B"));
+	}
+
+	/*
+	 * This tests that threads inserting, removing, changing keys and taking the
+	 * minimum at the same time lose no entry and hand none out twice
+	 */
+	@Test
+	public void testConcurrentOperationsKeepEveryEntry() throws Exception {
+		final ConcurrentAdaptableHeap<Integer, Integer> heap = new ConcurrentAdaptableHeap<Integer, Integer>(
+				new IntegerComparator());
+		final int threads = 4;
+		final int perThread = 5000;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		List<Future<List<Integer>>> results = new ArrayList<Future<List<Integer>>>();
+		for (int t = 0; t < threads; t++) {
+			final int id = t;
+			results.add(executor.submit(() -> {
+				Random random = new Random(id);
+				List<Integer> taken = new ArrayList<Integer>();
+				for (int i = 0; i < perThread; i++) {
+					int value = id * perThread + i;
+					Entry<Integer, Integer> entry = heap.insert(random.nextInt(1000), value);
+					try {
+						heap.replaceKey(entry, random.nextInt(1000));
+					} catch (InvalidEntryException e) {
+
+						// Another thread took the entry first
+					}
+					if (i % 2 == 0) {
+						try {
+							taken.add(heap.removeMin().getValue());
+						} catch (EmptyPriorityQueueException e) {
+						}
+					}
+				}
+				return taken;
+			}));
+		}
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+
+		List<Integer> values = new ArrayList<Integer>();
+		for (Future<List<Integer>> result : results) {
+			values.addAll(result.get());
+		}
+		assertThat(heap.size(), is(threads * perThread - values.size()));
+
+		int previous = Integer.MIN_VALUE;
+		while (!heap.isEmpty()) {
+			Entry<Integer, Integer> entry = heap.removeMin();
+			assertTrue(entry.getKey() >= previous);
+			previous = entry.getKey();
+			values.add(entry.getValue());
+		}
+		Collections.sort(values);
+		for (int i = 0; i < threads * perThread; i++) {
+			assertThat(values.get(i), is(i));
+		}
+	}
+
+}
@@ -0,0 +1,305 @@
+package PersonalProjects.Heap;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import net.datastructures.EmptyPriorityQueueException;
+import net.datastructures.Entry;
+import app.impl.*;
+
+public class ExternalPriorityQueueTest {
+
+	@Rule
+	public TemporaryFolder _folder = new TemporaryFolder();
+
+	/*
+	 * This tests that entries come out in key order with their values when
+	 * most of them have been written out to runs, with inserts and removes
+	 * mixed, and that close deletes the runs that are left
+	 */
+	@Test
+	public void testRemoveMinMergesRunsAndMemory() throws IOException {
+		ExternalPriorityQueue<Integer, Integer> queue = new ExternalPriorityQueue<Integer, Integer>(
+				new IntegerComparator(), new IntegerCodec(), 100, _folder.getRoot().toPath());
+		Random random = new Random(42);
+		List<Integer> expected = new ArrayList<Integer>();
+		for (int i = 0; i < 2000; i++) {
+			int key = random.nextInt(100000);
+			queue.insert(key, -key);
+			expected.add(key);
+		}
+		assertThat(queue.runCount(), is(20));
+		assertThat(queue.size(), is(2000));
+
+		Collections.sort(expected);
+		for (int i = 0; i < 500; i++) {
+			Entry<Integer, Integer> entry = queue.removeMin();
+			assertThat(entry.getKey(), is(expected.remove(0)));
+			assertThat(entry.getValue(), is(-entry.getKey()));
+		}
+
+		// New entries land in memory and are merged with the runs
+		for (int i = 0; i < 250; i++) {
+			int key = random.nextInt(100000);
+			queue.insert(key, -key);
+			expected.add(key);
+		}
+		Collections.sort(expected);
+		for (int i = 0; i < 1000; i++) {
+			assertThat(queue.min().getKey(), is(expected.get(0)));
+			assertThat(queue.removeMin().getKey(), is(expected.remove(0)));
+		}
+		assertThat(queue.size(), is(expected.size()));
+
+		queue.close();
+		assertThat(_folder.getRoot().list().length, is(0));
+	}
+
+	/*
+	 * This tests that a queue whose every run has been used up is empty and
+	 * its run files are gone
+	 */
+	@Test
+	public void testEmptyQueueDeletesRuns() {
+		ExternalPriorityQueue<Integer, Integer> queue = new ExternalPriorityQueue<Integer, Integer>(
+				new IntegerComparator(), new IntegerCodec(), 3, _folder.getRoot().toPath());
+		for (int key = 10; key > 0; key--) {
+			queue.insert(key, key);
+		}
+		for (int key = 1; key <= 10; key++) {
+			assertThat(queue.removeMin().getKey(), is(key));
+		}
+		assertTrue(queue.isEmpty());
+		assertThat(queue.runCount(), is(0));
+		assertThat(_folder.getRoot().list().length, is(0));
+		try {
+			queue.removeMin();
+			fail();
+		} catch (EmptyPriorityQueueException e) {
+		}
+	}
+
+	/*
+	 * This tests that spills merge runs so that there are never more than
+	 * maxRuns of them, with a key normalizer sorting the runs, and that every
+	 * entry still comes out in order
+	 */
+	@Test
+	public void testRunCountIsCappedByMergingRuns() throws IOException {
+		ExternalPriorityQueue<Integer, Integer> queue = new ExternalPriorityQueue<Integer, Integer>(
+				new IntegerComparator(), new IntegerCodec(), 10, _folder.getRoot().toPath(), 4);
+		queue.setKeyNormalizer(new KeyNormalizer<Integer>() {
+			@Override
+			public long normalize(Integer key) {
+				return key >> 8;
+			}
+		});
+		Random random = new Random(7);
+		List<Integer> expected = new ArrayList<Integer>();
+		for (int i = 0; i < 500; i++) {
+			int key = random.nextInt(100000);
+			queue.insert(key, -key);
+			expected.add(key);
+			assertTrue(queue.runCount() <= 4);
+			if (i % 7 == 0) {
+				Collections.sort(expected);
+				assertThat(queue.removeMin().getKey(), is(expected.remove(0)));
+			}
+		}
+		assertThat(_folder.getRoot().list().length, is(queue.runCount()));
+
+		Collections.sort(expected);
+		while (!expected.isEmpty()) {
+			Entry<Integer, Integer> entry = queue.removeMin();
+			assertThat(entry.getKey(), is(expected.remove(0)));
+			assertThat(entry.getValue(), is(-entry.getKey()));
+		}
+		assertTrue(queue.isEmpty());
+		assertThat(_folder.getRoot().list().length, is(0));
+		queue.close();
+	}
+
+	/*
+	 * This tests that many spills write each entry only a few times, since
+	 * runs are merged with runs of their own size: 1000 runs of 10 entries
+	 * take about five levels of merges with a fan-in of four, plus the merges
+	 * that keep to the cap of eight runs, rather than a rewrite of the largest
+	 * run every few spills
+	 */
+	@Test
+	public void testMergesWriteEachEntryFewTimes() throws IOException {
+		FailingCodec codec = new FailingCodec();
+		ExternalPriorityQueue<Integer, Integer> queue = new ExternalPriorityQueue<Integer, Integer>(
+				new IntegerComparator(), codec, 10, _folder.getRoot().toPath(), 8);
+		Random random = new Random(5);
+		for (int i = 0; i < 10000; i++) {
+			queue.insert(random.nextInt(100000), i);
+		}
+		assertTrue(queue.runCount() <= 8);
+		assertTrue(codec._bytesWritten <= 10 * 8 * 10000L);
+
+		int last = Integer.MIN_VALUE;
+		while (!queue.isEmpty()) {
+			int key = queue.removeMin().getKey();
+			assertTrue(last <= key);
+			last = key;
+		}
+		queue.close();
+	}
+
+	/*
+	 * This tests that a spill or a merge whose run cannot be written keeps
+	 * every entry and leaves no file behind, so the entries all come out once
+	 * runs can be written again
+	 */
+	@Test
+	public void testFailedWriteKeepsEntries() throws IOException {
+		FailingCodec codec = new FailingCodec();
+		ExternalPriorityQueue<Integer, Integer> queue = new ExternalPriorityQueue<Integer, Integer>(
+				new IntegerComparator(), codec, 5, _folder.getRoot().toPath(), 2);
+		for (int key = 0; key < 10; key++) {
+			queue.insert(key, key);
+		}
+		assertThat(queue.runCount(), is(2));
+
+		// The third run needs a merge of the first two first
+		codec._failingWrites = true;
+		for (int key = 10; key < 15; key++) {
+			try {
+				queue.insert(key, key);
+				assertTrue(key < 14);
+			} catch (UncheckedIOException e) {
+				assertThat(key, is(14));
+			}
+		}
+		assertThat(queue.size(), is(15));
+		assertThat(queue.runCount(), is(2));
+		assertThat(_folder.getRoot().list().length, is(2));
+
+		codec._failingWrites = false;
+		queue.insert(15, 15);
+		assertThat(queue.runCount(), is(2));
+		for (int key = 0; key < 16; key++) {
+			assertThat(queue.removeMin().getKey(), is(key));
+		}
+		assertTrue(queue.isEmpty());
+		assertThat(_folder.getRoot().list().length, is(0));
+		queue.close();
+	}
+
+	/*
+	 * This tests that a removeMin whose run cannot be read removes nothing,
+	 * even when the read fails after the key of the next entry, so the entry
+	 * is still there once the run can be read again
+	 */
+	@Test
+	public void testFailedReadRemovesNothing() throws IOException {
+		FailingCodec codec = new FailingCodec();
+		ExternalPriorityQueue<Integer, Integer> queue = new ExternalPriorityQueue<Integer, Integer>(
+				new IntegerComparator(), codec, 5, _folder.getRoot().toPath());
+		for (int key = 10; key > 0; key--) {
+			queue.insert(key, key);
+		}
+		assertThat(queue.removeMin().getKey(), is(1));
+
+		codec._failingReads = true;
+		for (int i = 0; i < 2; i++) {
+			try {
+				queue.removeMin();
+				fail();
+			} catch (UncheckedIOException e) {
+			}
+		}
+		assertThat(queue.size(), is(9));
+
+		codec._failingReads = false;
+		for (int key = 2; key <= 10; key++) {
+			assertThat(queue.removeMin().getKey(), is(key));
+		}
+		assertTrue(queue.isEmpty());
+		queue.close();
+	}
+
+	/*
+	 * This tests that a cap below two runs is rejected
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidMaxRunsThrowsIllegalArgumentException() {
+		new ExternalPriorityQueue<Integer, Integer>(new IntegerComparator(), new IntegerCodec(), 10,
+				_folder.getRoot().toPath(), 1);
+	}
+
+	/*
+	 * This tests that a budget below one entry is rejected
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidBudgetThrowsIllegalArgumentException() {
+		new ExternalPriorityQueue<Integer, Integer>(new IntegerComparator(), new IntegerCodec(), 0,
+				_folder.getRoot().toPath());
+	}
+
+	private static class FailingCodec extends IntegerCodec {
+
+		boolean _failingReads;
+		boolean _failingWrites;
+		long _bytesWritten;
+
+		@Override
+		public void writeKey(Integer key, DataOutput out) throws IOException {
+			if (_failingWrites) {
+				throw new IOException("Cannot write run");
+			}
+			super.writeKey(key, out);
+			_bytesWritten += 4;
+		}
+
+		@Override
+		public void writeValue(Integer value, DataOutput out) throws IOException {
+			super.writeValue(value, out);
+			_bytesWritten += 4;
+		}
+
+		// The key of the next entry is read before the value fails
+
+		@Override
+		public Integer readValue(DataInput in) throws IOException {
+			if (_failingReads) {
+				throw new IOException("Cannot read run");
+			}
+			return super.readValue(in);
+		}
+	}
+
+	private static class IntegerCodec implements RunCodec<Integer, Integer> {
+
+		public void writeKey(Integer key, DataOutput out) throws IOException {
+			out.writeInt(key);
+		}
+
+		public void writeValue(Integer value, DataOutput out) throws IOException {
+			out.writeInt(value);
+		}
+
+		public Integer readKey(DataInput in) throws IOException {
+			return in.readInt();
+		}
+
+		public Integer readValue(DataInput in) throws IOException {
+			return in.readInt();
+		}
+	}
+
+}
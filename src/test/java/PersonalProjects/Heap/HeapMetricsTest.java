@@ -0,0 +1,213 @@
+package PersonalProjects.Heap;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+import net.datastructures.Entry;
+import app.impl.*;
+
+public class HeapMetricsTest {
+
+	/*
+	 * This tests that operations, comparisons and sifts are counted, and that
+	 * the comparisons match those seen by the comparator itself
+	 */
+	@Test
+	public void testCountersMatchOperations() {
+		final long[] calls = new long[1];
+		Comparator<Integer> comparator = new Comparator<Integer>() {
+			@Override
+			public int compare(Integer first, Integer second) {
+				calls[0]++;
+				return Integer.compare(first, second);
+			}
+		};
+		MyHeap<Integer, String> heap = new MyHeap<Integer, String>(comparator,
+				new MyArrayHeapTree<MyHeapEntry<Integer, String>>());
+		HeapMetrics metrics = new HeapMetrics();
+		heap.setMetrics(metrics);
+
+		Random random = new Random(5);
+		Entry<Integer, String> first = heap.insert(1000, "A");
+		for (int i = 0; i < 99; i++) {
+			heap.insert(random.nextInt(1000), "B");
+		}
+		heap.replaceKey(first, -1);
+		heap.replaceValue(first, "Z");
+		heap.removeMin();
+		heap.remove(heap.min());
+		heap.removeMin(3);
+
+		HeapStats stats = heap.getStats();
+		assertThat(stats.getOperationCount(HeapOperation.INSERT), is(100L));
+		assertThat(stats.getOperationCount(HeapOperation.REPLACE_KEY), is(1L));
+		assertThat(stats.getOperationCount(HeapOperation.REPLACE_VALUE), is(1L));
+		assertThat(stats.getOperationCount(HeapOperation.REMOVE_MIN), is(1L));
+		assertThat(stats.getOperationCount(HeapOperation.REMOVE), is(1L));
+		assertThat(stats.getOperationCount(HeapOperation.REMOVE_MIN_BATCH), is(1L));
+		assertThat(stats.getHighWaterSize(), is(100));
+		assertThat(stats.getComparisons(), is(calls[0]));
+
+		long sifts = 0;
+		long moves = 0;
+		long[] histogram = stats.getSiftDepthHistogram();
+		for (int depth = 0; depth < histogram.length; depth++) {
+			sifts += histogram[depth];
+			moves += depth * histogram[depth];
+		}
+		assertThat(sifts, is(stats.getSifts()));
+		assertThat(moves, is(stats.getMoves()));
+		assertTrue(stats.getMoves() > 0);
+
+		// The first entry had sunk to the bottom, and its new key took it back up
+		// to the root
+		assertTrue(histogram[6] > 0);
+	}
+
+	/*
+	 * This tests that the comparisons worked out by the sifts match the calls
+	 * of the comparator, for every operation and for arities with partly
+	 * filled last parents
+	 */
+	@Test
+	public void testComparisonsExactForEveryArity() {
+		for (int arity = 2; arity <= 5; arity++) {
+			final long[] calls = new long[1];
+			Comparator<Integer> comparator = new Comparator<Integer>() {
+				@Override
+				public int compare(Integer first, Integer second) {
+					calls[0]++;
+					return Integer.compare(first, second);
+				}
+			};
+			MyHeap<Integer, Integer> heap = new MyHeap<Integer, Integer>(comparator,
+					new MyArrayHeapTree<MyHeapEntry<Integer, Integer>>(), arity);
+			heap.setMetrics(new HeapMetrics());
+			Random random = new Random(arity);
+			List<Entry<Integer, Integer>> pairs = new ArrayList<Entry<Integer, Integer>>();
+			for (int i = 0; i < 200; i++) {
+				pairs.add(new MyHeap<Integer, Integer>(new IntegerComparator()).insert(random.nextInt(1000), i));
+			}
+			List<Entry<Integer, Integer>> entries = heap.insertAll(pairs);
+			for (int i = 0; i < 300; i++) {
+				heap.insert(random.nextInt(1000), i);
+				heap.insertThenRemoveMin(random.nextInt(1000), i);
+				heap.removeMinThenInsert(random.nextInt(1000), i);
+				Entry<Integer, Integer> entry = entries.get(random.nextInt(entries.size()));
+				if (((MyHeapEntry<Integer, Integer>) entry).getSlot() >= 0) {
+					if (i % 2 == 0) {
+						heap.replaceKey(entry, random.nextInt(1000));
+					} else {
+						heap.remove(entry);
+					}
+				}
+				if (i % 50 == 0) {
+					heap.removeMin(5);
+				}
+			}
+			heap.drainTo(new ArrayList<Entry<Integer, Integer>>(), heap.size());
+			assertThat(heap.getStats().getComparisons(), is(calls[0]));
+		}
+	}
+
+	/*
+	 * This tests that with a key normalizer, only the comparisons that call the
+	 * comparator are counted as comparisons, and those the sort prefixes
+	 * decide are counted separately
+	 */
+	@Test
+	public void testPrefixComparisonsCountedSeparately() {
+		final long[] calls = new long[1];
+		Comparator<Integer> comparator = new Comparator<Integer>() {
+			@Override
+			public int compare(Integer first, Integer second) {
+				calls[0]++;
+				return Integer.compare(first, second);
+			}
+		};
+		MyHeap<Integer, Integer> heap = new MyHeap<Integer, Integer>(comparator,
+				new MyArrayHeapTree<MyHeapEntry<Integer, Integer>>(), 4);
+		heap.setKeyNormalizer(new KeyNormalizer<Integer>() {
+			@Override
+			public long normalize(Integer key) {
+				return key >> 6;
+			}
+		});
+		heap.setMetrics(new HeapMetrics());
+		Random random = new Random(9);
+		List<Entry<Integer, Integer>> entries = new ArrayList<Entry<Integer, Integer>>();
+		for (int i = 0; i < 500; i++) {
+			entries.add(heap.insert(random.nextInt(1000), i));
+			heap.insertThenRemoveMin(random.nextInt(1000), i);
+		}
+		for (int i = 0; i < entries.size(); i += 4) {
+			if (((MyHeapEntry<Integer, Integer>) entries.get(i)).getSlot() >= 0) {
+				heap.replaceKey(entries.get(i), random.nextInt(1000));
+			}
+		}
+		heap.drainTo(new ArrayList<Entry<Integer, Integer>>(), heap.size());
+
+		HeapStats stats = heap.getStats();
+		assertThat(stats.getComparisons(), is(calls[0]));
+		assertTrue(stats.getPrefixComparisons() > stats.getComparisons());
+	}
+
+	/*
+	 * This tests that nothing is counted once the metrics are removed, and that
+	 * getStats then fails
+	 */
+	@Test
+	public void testRemovedMetricsStopCounting() {
+		MyHeap<Integer, String> heap = new MyHeap<Integer, String>(new IntegerComparator());
+		HeapMetrics metrics = new HeapMetrics();
+		heap.setMetrics(metrics);
+		heap.insert(2, "A");
+		heap.setMetrics(null);
+		heap.insert(1, "B");
+		heap.removeMin();
+
+		assertThat(metrics.snapshot().getOperationCount(HeapOperation.INSERT), is(1L));
+		assertThat(metrics.snapshot().getOperationCount(HeapOperation.REMOVE_MIN), is(0L));
+		assertThat(metrics.getComparisons(), is(1L));
+		try {
+			heap.getStats();
+			fail();
+		} catch (IllegalStateException e) {
+		}
+	}
+
+	/*
+	 * This tests that registered metrics can be read through JMX
+	 */
+	@Test
+	public void testMetricsReadThroughJmx() throws Exception {
+		MyHeap<Integer, String> heap = new MyHeap<Integer, String>(new IntegerComparator());
+		HeapMetrics metrics = new HeapMetrics();
+		heap.setMetrics(metrics);
+		ObjectName name = metrics.register("testHeap");
+		try {
+			heap.insert(3, "A");
+			heap.insert(1, "B");
+
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			assertThat(server.getAttribute(name, "HighWaterSize"), is((Object) 2));
+			assertThat(server.getAttribute(name, "Sifts"), is((Object) 2L));
+			server.invoke(name, "reset", null, null);
+			assertThat(metrics.getSifts(), is(0L));
+		} finally {
+			HeapMetrics.unregister(name);
+		}
+	}
+
+}
@@ -0,0 +1,115 @@
+package PersonalProjects.Heap;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import app.impl.*;
+
+public class HeapOperationEventTest {
+
+	private static final String EVENT = "app.impl.HeapOperation";
+
+	@Rule
+	public TemporaryFolder _folder = new TemporaryFolder();
+
+	/*
+	 * This tests that with no threshold every operation is recorded, with its
+	 * size, sift depth and comparator time
+	 */
+	@Test
+	public void testEventsRecorded() throws Exception {
+		List<RecordedEvent> events;
+		try (Recording recording = new Recording()) {
+			recording.enable(EVENT).withThreshold(Duration.ZERO);
+			recording.start();
+
+			MyHeap<Integer, String> heap = this.newHeap();
+			for (int i = 10; i > 0; i--) {
+				heap.insert(i, "A");
+			}
+			heap.removeMin();
+
+			recording.stop();
+			events = this.read(recording);
+		}
+
+		assertThat(events.size(), is(11));
+		RecordedEvent lastInsert = events.get(9);
+		assertThat(lastInsert.getString("operation"), is("INSERT"));
+		assertThat(lastInsert.getInt("size"), is(10));
+		assertTrue(lastInsert.getInt("siftDepth") > 0);
+
+		RecordedEvent removeMin = events.get(10);
+		assertThat(removeMin.getString("operation"), is("REMOVE_MIN"));
+		assertThat(removeMin.getInt("size"), is(9));
+		assertTrue(removeMin.getInt("siftDepth") > 0);
+		assertTrue(removeMin.getDuration("comparatorTime").toNanos() > 0);
+	}
+
+	/*
+	 * This tests that operations faster than the threshold are not recorded,
+	 * and that the heap still works while the comparator is being timed
+	 */
+	@Test
+	public void testFastOperationsNotRecorded() throws Exception {
+		List<RecordedEvent> events;
+		MyHeap<Integer, String> heap = this.newHeap();
+		try (Recording recording = new Recording()) {
+			recording.enable(EVENT).withThreshold(Duration.ofSeconds(10));
+			recording.start();
+
+			for (int i = 100; i > 0; i--) {
+				heap.insert(i, "A");
+			}
+			for (int i = 1; i <= 50; i++) {
+				assertThat(heap.removeMin().getKey(), is(i));
+			}
+
+			recording.stop();
+			events = this.read(recording);
+		}
+
+		assertThat(events.size(), is(0));
+		heap.insert(0, "B");
+		assertThat(heap.removeMin().getKey(), is(0));
+		assertThat(heap.size(), is(50));
+	}
+
+	private MyHeap<Integer, String> newHeap() {
+		return new MyHeap<Integer, String>(new Comparator<Integer>() {
+			@Override
+			public int compare(Integer first, Integer second) {
+				return Integer.compare(first, second);
+			}
+		}, new MyArrayHeapTree<MyHeapEntry<Integer, String>>());
+	}
+
+	// This method dumps a recording and reads back the heap events in it
+
+	private List<RecordedEvent> read(Recording recording) throws Exception {
+		Path file = _folder.newFile("heap.jfr").toPath();
+		recording.dump(file);
+		List<RecordedEvent> events = new ArrayList<RecordedEvent>();
+		for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+			if (event.getEventType().getName().equals(EVENT)) {
+				events.add(event);
+			}
+		}
+		return events;
+	}
+
+}
@@ -0,0 +1,187 @@
+package PersonalProjects.Heap;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import net.datastructures.EmptyPriorityQueueException;
+import net.datastructures.InvalidEntryException;
+import net.datastructures.InvalidKeyException;
+import app.impl.*;
+
+public class IndexedPriorityQueueTest {
+
+	/*
+	 * An id whose hash code is shared by many other ids, so that lookups and
+	 * removals have to walk long probe runs
+	 */
+	private static class CollidingId {
+		private final int _id;
+
+		CollidingId(int id) {
+			_id = id;
+		}
+
+		@Override
+		public int hashCode() {
+			return _id % 3;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return other instanceof CollidingId && ((CollidingId) other)._id == _id;
+		}
+	}
+
+	/*
+	 * This tests that upsert inserts new ids and replaces the key and value of
+	 * existing ones, and that entries come out in key order by id
+	 */
+	@Test
+	public void testUpsertAndRemoveMin() {
+		IndexedPriorityQueue<String, Integer, String> queue = new IndexedPriorityQueue<String, Integer, String>(
+				new IntegerComparator());
+		assertThat(queue.upsert("a", 30, "A"), is(nullValue()));
+		assertThat(queue.upsert("b", 10, "B"), is(nullValue()));
+		assertThat(queue.upsert("c", 20, "C"), is(nullValue()));
+		assertThat(queue.upsert("a", 5, "A2"), is(30));
+		assertThat(queue.size(), is(3));
+
+		assertThat(queue.minId(), is("a"));
+		assertThat(queue.minKey(), is(5));
+		assertThat(queue.minValue(), is("A2"));
+		assertThat(queue.removeMin(), is("a"));
+		assertThat(queue.removeMin(), is("b"));
+		assertThat(queue.removeMin(), is("c"));
+		assertTrue(queue.isEmpty());
+		assertFalse(queue.containsId("a"));
+	}
+
+	/*
+	 * This tests that updateKey moves an entry both up and down, and that
+	 * removeById takes out an entry from the middle of the queue
+	 */
+	@Test
+	public void testUpdateKeyAndRemoveById() {
+		IndexedPriorityQueue<Integer, Integer, String> queue = new IndexedPriorityQueue<Integer, Integer, String>(
+				new IntegerComparator(), 0);
+		for (int id = 0; id < 10; id++) {
+			queue.upsert(id, 10 * id, "v" + id);
+		}
+		assertThat(queue.updateKey(9, -1), is(90));
+		assertThat(queue.minId(), is(9));
+		assertThat(queue.updateKey(9, 1000), is(-1));
+		assertThat(queue.minId(), is(0));
+		assertThat(queue.removeById(4), is("v4"));
+		assertThat(queue.keyOf(5), is(50));
+		assertThat(queue.valueOf(5), is("v5"));
+
+		int[] expected = { 0, 1, 2, 3, 5, 6, 7, 8, 9 };
+		for (int id : expected) {
+			assertThat(queue.removeMin(), is(id));
+		}
+		assertTrue(queue.isEmpty());
+	}
+
+	/*
+	 * This tests that unknown or null ids, bad keys and an empty queue are
+	 * rejected with the usual exceptions
+	 */
+	@Test
+	public void testErrors() {
+		IndexedPriorityQueue<String, Integer, String> queue = new IndexedPriorityQueue<String, Integer, String>(
+				new IntegerComparator());
+		try {
+			queue.minKey();
+			fail("Expected an EmptyPriorityQueueException");
+		} catch (EmptyPriorityQueueException e) {
+		}
+		try {
+			queue.removeMin();
+			fail("Expected an EmptyPriorityQueueException");
+		} catch (EmptyPriorityQueueException e) {
+		}
+		try {
+			queue.removeById("missing");
+			fail("Expected an InvalidEntryException");
+		} catch (InvalidEntryException e) {
+		}
+		try {
+			queue.updateKey(null, 1);
+			fail("Expected an InvalidEntryException");
+		} catch (InvalidEntryException e) {
+		}
+		try {
+			queue.upsert(null, 1, "x");
+			fail("Expected an IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+		}
+		try {
+			queue.upsert("a", null, "x");
+			fail("Expected an InvalidKeyException");
+		} catch (InvalidKeyException e) {
+		}
+		assertTrue(queue.isEmpty());
+		assertFalse(queue.containsId(null));
+	}
+
+	/*
+	 * This tests a randomized mix of upserts, key updates and removals against
+	 * a map, with ids that collide heavily in the table, so that the index
+	 * survives growing and removals from the middle of probe runs
+	 */
+	@Test
+	public void testRandomAgainstMap() {
+		IndexedPriorityQueue<CollidingId, Integer, Integer> queue = new IndexedPriorityQueue<CollidingId, Integer, Integer>(
+				new IntegerComparator(), 1);
+		Map<Integer, Integer> model = new HashMap<Integer, Integer>();
+		Random random = new Random(7);
+
+		for (int step = 0; step < 20000; step++) {
+			int id = random.nextInt(300);
+			int key = random.nextInt(1000);
+			int operation = random.nextInt(4);
+			if (operation == 0) {
+				Integer oldKey = queue.upsert(new CollidingId(id), key, id);
+				assertThat(oldKey, is(model.put(id, key)));
+			} else if (operation == 1 && model.containsKey(id)) {
+				assertThat(queue.updateKey(new CollidingId(id), key), is(model.put(id, key)));
+			} else if (operation == 2 && model.containsKey(id)) {
+				assertThat(queue.removeById(new CollidingId(id)), is(id));
+				model.remove(id);
+			} else if (operation == 3 && model.isEmpty() == false) {
+				int minKey = queue.minKey();
+				int minId = queue.minValue();
+				assertThat(model.get(minId), is(minKey));
+				for (int modelKey : model.values()) {
+					assertTrue(minKey <= modelKey);
+				}
+				assertThat(queue.removeMin(), is(new CollidingId(minId)));
+				model.remove(minId);
+			}
+			assertThat(queue.size(), is(model.size()));
+			assertThat(queue.containsId(new CollidingId(id)), is(model.containsKey(id)));
+		}
+
+		List<Integer> drained = new ArrayList<Integer>();
+		while (queue.isEmpty() == false) {
+			int id = queue.minValue();
+			assertThat(queue.keyOf(new CollidingId(id)), is(model.get(id)));
+			drained.add(queue.minKey());
+			queue.removeMin();
+		}
+		for (int i = 1; i < drained.size(); i++) {
+			assertTrue(drained.get(i - 1) <= drained.get(i));
+		}
+		assertThat(drained.size(), is(model.size()));
+	}
+
+}
@@ -0,0 +1,105 @@
+package PersonalProjects.Heap;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import net.datastructures.EmptyPriorityQueueException;
+import net.datastructures.InvalidEntryException;
+import app.impl.*;
+
+public class IntIndexedPriorityQueueTest {
+
+	/*
+	 * This tests upserts, key updates and removals by id, including an id
+	 * beyond the initial bound, which makes the index grow
+	 */
+	@Test
+	public void testUpsertUpdateAndRemove() {
+		IntIndexedPriorityQueue<Integer, String> queue = new IntIndexedPriorityQueue<Integer, String>(
+				new IntegerComparator(), 4);
+		assertThat(queue.upsert(3, 30, "C"), is(nullValue()));
+		assertThat(queue.upsert(1, 10, "A"), is(nullValue()));
+		assertThat(queue.upsert(100, 20, "B"), is(nullValue()));
+		assertThat(queue.upsert(3, 5, "C2"), is(30));
+		assertThat(queue.minId(), is(3));
+		assertThat(queue.minValue(), is("C2"));
+
+		assertThat(queue.updateKey(3, 50), is(5));
+		assertThat(queue.minId(), is(1));
+		assertThat(queue.removeById(100), is("B"));
+		assertFalse(queue.containsId(100));
+		assertFalse(queue.containsId(1000));
+		assertFalse(queue.containsId(-1));
+
+		assertThat(queue.removeMin(), is(1));
+		assertThat(queue.keyOf(3), is(50));
+		assertThat(queue.removeMin(), is(3));
+		assertTrue(queue.isEmpty());
+	}
+
+	/*
+	 * This tests that unknown or negative ids and an empty queue are rejected
+	 */
+	@Test
+	public void testErrors() {
+		IntIndexedPriorityQueue<Integer, String> queue = new IntIndexedPriorityQueue<Integer, String>(
+				new IntegerComparator());
+		try {
+			queue.minId();
+			fail("Expected an EmptyPriorityQueueException");
+		} catch (EmptyPriorityQueueException e) {
+		}
+		try {
+			queue.updateKey(2, 1);
+			fail("Expected an InvalidEntryException");
+		} catch (InvalidEntryException e) {
+		}
+		try {
+			queue.upsert(-1, 1, "x");
+			fail("Expected an IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+	/*
+	 * This tests that a randomized mix of upserts, key updates and removals
+	 * keeps every key reachable by its id and drains in key order
+	 */
+	@Test
+	public void testRandomDrainsInOrder() {
+		IntIndexedPriorityQueue<Integer, Integer> queue = new IntIndexedPriorityQueue<Integer, Integer>(
+				new IntegerComparator(), 1);
+		Integer[] model = new Integer[500];
+		Random random = new Random(11);
+		for (int step = 0; step < 20000; step++) {
+			int id = random.nextInt(model.length);
+			int key = random.nextInt(1000);
+			if (random.nextInt(3) > 0) {
+				assertThat(queue.upsert(id, key, id), is(model[id]));
+				model[id] = key;
+			} else if (model[id] != null) {
+				assertThat(queue.removeById(id), is(id));
+				model[id] = null;
+			}
+		}
+
+		int last = Integer.MIN_VALUE;
+		while (queue.isEmpty() == false) {
+			int key = queue.minKey();
+			int id = queue.removeMin();
+			assertThat(model[id], is(key));
+			model[id] = null;
+			assertTrue(last <= key);
+			last = key;
+		}
+		for (Integer key : model) {
+			assertThat(key, is(nullValue()));
+		}
+	}
+
+}
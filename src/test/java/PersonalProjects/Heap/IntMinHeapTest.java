@@ -0,0 +1,117 @@
+package PersonalProjects.Heap;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import net.datastructures.EmptyPriorityQueueException;
+import net.datastructures.InvalidEntryException;
+import app.impl.*;
+
+public class IntMinHeapTest {
+
+	/*
+	 * This tests that entries come out in key order along with their values
+	 */
+	@Test
+	public void testRemoveMinOrder() {
+		IntMinHeap<String> heap = new IntMinHeap<String>();
+		heap.insert(11, "A");
+		heap.insert(64, "C");
+		heap.insert(13, "B");
+		heap.insert(Integer.MAX_VALUE, "E");
+		heap.insert(-16, "D");
+
+		assertThat(heap.minKey(), is(-16));
+		assertThat(heap.removeMin(), is("D"));
+		assertThat(heap.removeMin(), is("A"));
+		assertThat(heap.removeMin(), is("B"));
+		assertThat(heap.removeMin(), is("C"));
+		assertThat(heap.removeMin(), is("E"));
+		assertTrue(heap.isEmpty());
+	}
+
+	/*
+	 * This tests that handles can be used to remove entries and replace their
+	 * keys, and that a randomized workload stays in order
+	 */
+	@Test
+	public void testHandlesAgainstSortedKeys() {
+		IntMinHeap<Integer> heap = new IntMinHeap<Integer>(2);
+		Random random = new Random(42);
+		long[] handles = new long[500];
+		for (int i = 0; i < handles.length; i++) {
+			handles[i] = heap.insert(random.nextInt(1000), i);
+		}
+		for (int i = 0; i < handles.length; i += 5) {
+			heap.remove(handles[i]);
+		}
+		for (int i = 1; i < handles.length; i += 5) {
+			heap.replaceKey(handles[i], random.nextInt(1000) - 500);
+		}
+
+		int[] expected = new int[400];
+		int count = 0;
+		for (int i = 0; i < handles.length; i++) {
+			if (i % 5 != 0) {
+				expected[count] = heap.keyOf(handles[i]);
+				assertThat(heap.valueOf(handles[i]), is(i));
+				count++;
+			}
+		}
+		Arrays.sort(expected);
+		for (int i = 0; i < expected.length; i++) {
+			assertThat(heap.minKey(), is(expected[i]));
+			heap.removeMin();
+		}
+		assertTrue(heap.isEmpty());
+	}
+
+	/*
+	 * This tests that a handle is rejected once its entry has been removed
+	 */
+	@Test(expected = InvalidEntryException.class)
+	public void testRemovedHandleThrowsInvalidEntryException() {
+		IntMinHeap<String> heap = new IntMinHeap<String>();
+		long handle = heap.insert(1, "A");
+		heap.insert(2, "B");
+		heap.remove(handle);
+		assertFalse(heap.contains(handle));
+		heap.replaceKey(handle, 3);
+	}
+
+	/*
+	 * This tests that a stale handle is still rejected after its id has been
+	 * reused by a later insert, and does not reach the new entry
+	 */
+	@Test
+	public void testStaleHandleIsRejectedAfterReuse() {
+		IntMinHeap<String> heap = new IntMinHeap<String>();
+		long stale = heap.insert(1, "A");
+		heap.insert(2, "B");
+		heap.remove(stale);
+		long reused = heap.insert(3, "C");
+		assertThat((int) reused, is((int) stale));
+		assertFalse(heap.contains(stale));
+		try {
+			heap.replaceValue(stale, "D");
+			fail("Expected an InvalidEntryException");
+		} catch (InvalidEntryException e) {
+		}
+		assertThat(heap.valueOf(reused), is("C"));
+	}
+
+	/*
+	 * This tests that removeMin throws an exception on an empty heap
+	 */
+	@Test(expected = EmptyPriorityQueueException.class)
+	public void testRemoveMinThrowsEmptyPriorityQueueException() {
+		IntMinHeap<String> heap = new IntMinHeap<String>();
+		heap.removeMin();
+	}
+
+}
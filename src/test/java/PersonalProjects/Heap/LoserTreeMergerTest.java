@@ -0,0 +1,148 @@
+package PersonalProjects.Heap;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import app.impl.*;
+
+public class LoserTreeMergerTest {
+
+	/*
+	 * This tests that sorted sources of any count and length, including empty
+	 * ones, merge into one sorted sequence
+	 */
+	@Test
+	public void testMergesSortedSources() {
+		Random random = new Random(9);
+		for (int k : new int[] { 0, 1, 2, 3, 5, 8, 64, 100 }) {
+			List<List<Integer>> sources = this.sortedSources(random, k);
+			List<Integer> expected = new ArrayList<Integer>();
+			List<Iterator<Integer>> iterators = new ArrayList<Iterator<Integer>>();
+			for (List<Integer> source : sources) {
+				expected.addAll(source);
+				iterators.add(source.iterator());
+			}
+			Collections.sort(expected);
+
+			List<Integer> merged = new ArrayList<Integer>();
+			LoserTreeMerger<Integer> merger = new LoserTreeMerger<Integer>(iterators, new IntegerComparator());
+			while (merger.hasNext()) {
+				merged.add(merger.next());
+			}
+			assertThat(merged, is(expected));
+		}
+	}
+
+	/*
+	 * This tests that equal elements come out in the order of their sources
+	 */
+	@Test
+	public void testEqualElementsKeepSourceOrder() {
+		Comparator<String> byFirstLetter = new Comparator<String>() {
+			@Override
+			public int compare(String first, String second) {
+				return Character.compare(first.charAt(0), second.charAt(0));
+			}
+		};
+		List<Iterator<String>> sources = new ArrayList<Iterator<String>>();
+		sources.add(Arrays.asList("a0", "b0", "c0").iterator());
+		sources.add(Arrays.asList("a1", "c1").iterator());
+		sources.add(Arrays.asList("b2", "c2").iterator());
+
+		List<String> merged = new ArrayList<String>();
+		LoserTreeMerger<String> merger = new LoserTreeMerger<String>(sources, byFirstLetter);
+		while (merger.hasNext()) {
+			merged.add(merger.next());
+		}
+		assertThat(merged, is(Arrays.asList("a0", "a1", "b0", "b2", "c0", "c1", "c2")));
+	}
+
+	/*
+	 * This tests that each element after the first costs at most ceil(log2 k)
+	 * comparisons
+	 */
+	@Test
+	public void testOneReplayPerElement() {
+		final long[] calls = new long[1];
+		Comparator<Integer> comparator = new Comparator<Integer>() {
+			@Override
+			public int compare(Integer first, Integer second) {
+				calls[0]++;
+				return Integer.compare(first, second);
+			}
+		};
+		int k = 100;
+		List<List<Integer>> sources = this.sortedSources(new Random(4), k);
+		List<Iterator<Integer>> iterators = new ArrayList<Iterator<Integer>>();
+		int total = 0;
+		for (List<Integer> source : sources) {
+			iterators.add(source.iterator());
+			total += source.size();
+		}
+
+		LoserTreeMerger<Integer> merger = new LoserTreeMerger<Integer>(iterators, comparator);
+		calls[0] = 0;
+		int count = 0;
+		while (merger.hasNext()) {
+			merger.next();
+			count++;
+		}
+		assertThat(count, is(total));
+		assertTrue(calls[0] <= 7L * total);
+	}
+
+	/*
+	 * This tests the stream form over spliterators
+	 */
+	@Test
+	public void testStreamOfSpliterators() {
+		List<Spliterator<Integer>> sources = new ArrayList<Spliterator<Integer>>();
+		sources.add(Arrays.asList(1, 4, 9).spliterator());
+		sources.add(Arrays.asList(2, 3, 10).spliterator());
+		sources.add(new ArrayList<Integer>().spliterator());
+		List<Integer> merged = LoserTreeMerger.stream(sources, new IntegerComparator()).collect(Collectors.toList());
+		assertThat(merged, is(Arrays.asList(1, 2, 3, 4, 9, 10)));
+	}
+
+	/*
+	 * This tests that next throws an exception once every source has run out
+	 */
+	@Test(expected = NoSuchElementException.class)
+	public void testNextThrowsNoSuchElementException() {
+		List<Iterator<Integer>> sources = new ArrayList<Iterator<Integer>>();
+		sources.add(Arrays.asList(1).iterator());
+		LoserTreeMerger<Integer> merger = new LoserTreeMerger<Integer>(sources, new IntegerComparator());
+		merger.next();
+		merger.next();
+	}
+
+	// This method makes k sorted lists of random lengths, some of them empty
+
+	private List<List<Integer>> sortedSources(Random random, int k) {
+		List<List<Integer>> sources = new ArrayList<List<Integer>>();
+		for (int i = 0; i < k; i++) {
+			List<Integer> source = new ArrayList<Integer>();
+			int length = random.nextInt(4) == 0 ? 0 : random.nextInt(200);
+			for (int j = 0; j < length; j++) {
+				source.add(random.nextInt(1000));
+			}
+			Collections.sort(source);
+			sources.add(source);
+		}
+		return sources;
+	}
+
+}
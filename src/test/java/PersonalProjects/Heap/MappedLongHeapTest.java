@@ -0,0 +1,160 @@
+package PersonalProjects.Heap;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import app.impl.*;
+
+public class MappedLongHeapTest {
+
+	@Rule
+	public TemporaryFolder _folder = new TemporaryFolder();
+
+	/*
+	 * This tests that a closed heap reopens with the same entries, ids and
+	 * order, over several segments, and that each checkpoint advances the
+	 * epoch
+	 */
+	@Test
+	public void testReopenKeepsHeapAndIds() throws IOException {
+		Path file = _folder.getRoot().toPath().resolve("heap");
+		Random random = new Random(42);
+		long[] ids = new long[300];
+		long[] keys = new long[300];
+
+		MappedLongHeap heap = MappedLongHeap.open(file, 4, false);
+		for (int i = 0; i < ids.length; i++) {
+			keys[i] = random.nextInt(1000);
+			ids[i] = heap.insert(keys[i], i);
+		}
+		heap.force();
+		heap.replaceKey(ids[7], -1L);
+		keys[7] = -1L;
+		heap.close();
+		assertThat(heap.epoch(), is(2L));
+
+		heap = MappedLongHeap.open(file, 4, false);
+		assertThat(heap.epoch(), is(2L));
+		assertThat(heap.size(), is(300L));
+		for (int i = 0; i < ids.length; i++) {
+			assertThat(heap.keyOf(ids[i]), is(keys[i]));
+			assertThat(heap.payloadOf(ids[i]), is((long) i));
+		}
+		Arrays.sort(keys);
+		for (int i = 0; i < keys.length; i++) {
+			assertThat(heap.minKey(), is(keys[i]));
+			heap.removeMin();
+		}
+		heap.close();
+	}
+
+	/*
+	 * This tests that a file changed after its last checkpoint is refused, and
+	 * that recovery turns it into a valid heap whose ids still match their
+	 * entries, even with a move interrupted halfway
+	 */
+	@Test
+	public void testDirtyFileIsDetectedAndRecovered() throws IOException {
+		Path file = _folder.getRoot().toPath().resolve("heap");
+		Path crashed = _folder.getRoot().toPath().resolve("crashed");
+		Map<Long, Long> payloads = new HashMap<Long, Long>();
+		Map<Long, Long> keys = new HashMap<Long, Long>();
+
+		MappedLongHeap heap = MappedLongHeap.open(file, 4, false);
+		long[] ids = new long[100];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = heap.insert(100 - i, i);
+			payloads.put(ids[i], (long) i);
+			keys.put(ids[i], 100L - i);
+		}
+		heap.force();
+		heap.remove(ids[50]);
+		payloads.remove(ids[50]);
+		long inserted = heap.insert(-5L, 1000L);
+		payloads.put(inserted, 1000L);
+		keys.put(inserted, -5L);
+
+		// The process stops here, before the next checkpoint: the copy holds
+		// what the file held at that moment, dirty flag included
+		Files.copy(file, crashed);
+		heap.close();
+
+		// A move stopped halfway: the record at the root was copied over its
+		// first child, which is lost, before the child could move on
+		// (records follow the 4096-byte header, 24 bytes each, id at byte 16)
+		long lostId;
+		try (FileChannel channel = FileChannel.open(crashed, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			ByteBuffer records = ByteBuffer.allocate(48).order(ByteOrder.nativeOrder());
+			channel.read(records, 4096);
+			lostId = records.getLong(24 + 16);
+			records.position(0).limit(24);
+			channel.write(records, 4096 + 24);
+		}
+		assertTrue(payloads.containsKey(lostId));
+
+		try {
+			MappedLongHeap.open(crashed, 4, false);
+			fail();
+		} catch (IOException e) {
+		}
+
+		MappedLongHeap recovered = MappedLongHeap.open(crashed, 4, true);
+		assertThat(recovered.size(), is(99L));
+		assertFalse(recovered.contains(ids[50]));
+		assertFalse(recovered.contains(lostId));
+		for (Map.Entry<Long, Long> entry : payloads.entrySet()) {
+			if (entry.getKey() != lostId) {
+				assertThat(recovered.payloadOf(entry.getKey()), is(entry.getValue()));
+				assertThat(recovered.keyOf(entry.getKey()), is(keys.get(entry.getKey())));
+			}
+		}
+		assertThat(recovered.minKey(), is(-5L));
+		long previous = Long.MIN_VALUE;
+		while (!recovered.isEmpty()) {
+			assertTrue(recovered.minKey() >= previous);
+			previous = recovered.minKey();
+			assertThat(recovered.payloadOf(recovered.min()), is(payloads.get(recovered.min())));
+			recovered.removeMin();
+		}
+		recovered.close();
+		MappedLongHeap.open(crashed, 4, false).close();
+	}
+
+	/*
+	 * This tests that a file which is not a heap file is refused without
+	 * being changed, whether it is shorter than the header or not
+	 */
+	@Test
+	public void testOtherFileIsRefusedUnchanged() throws IOException {
+		byte[] shortContent = "not a heap".getBytes("US-ASCII");
+		byte[] longContent = new byte[8192];
+		new Random(3).nextBytes(longContent);
+		for (byte[] content : Arrays.asList(shortContent, longContent)) {
+			Path file = _folder.newFile().toPath();
+			Files.write(file, content);
+			try {
+				MappedLongHeap.open(file, 4, true);
+				fail();
+			} catch (IOException e) {
+			}
+			assertTrue(Arrays.equals(Files.readAllBytes(file), content));
+		}
+	}
+
+}
@@ -0,0 +1,160 @@
+package PersonalProjects.Heap;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import net.datastructures.EmptyPriorityQueueException;
+import net.datastructures.InvalidKeyException;
+import app.impl.*;
+
+public class MultiQueueTest {
+
+	/*
+	 * This tests that a queue with a single heap is exact
+	 */
+	@Test
+	public void testSingleHeapIsExact() {
+		MultiQueue<Integer, String> queue = new MultiQueue<Integer, String>(new IntegerComparator(), 1, 1);
+		queue.insert(44, "E");
+		queue.insert(11, "A");
+		queue.insert(64, "C");
+		queue.insert(13, "B");
+
+		assertThat(queue.heapCount(), is(1));
+		assertThat(queue.min().getKey(), is(11));
+		assertThat(queue.removeMin().getKey(), is(11));
+		assertThat(queue.removeMin().getKey(), is(13));
+		assertThat(queue.removeMin().getKey(), is(44));
+		assertThat(queue.removeMin().getKey(), is(64));
+		assertTrue(queue.isEmpty());
+		try {
+			queue.removeMin();
+			fail();
+		} catch (EmptyPriorityQueueException e) {
+		}
+	}
+
+	/*
+	 * This tests that min sees the minimum over all heaps and that bad keys and
+	 * settings are rejected
+	 */
+	@Test
+	public void testMinAndInvalidArguments() {
+		MultiQueue<Integer, String> queue = new MultiQueue<Integer, String>(new IntegerComparator(), 2, 4);
+		for (int key = 100; key > 0; key--) {
+			queue.insert(key, "V");
+		}
+		assertThat(queue.heapCount(), is(8));
+		assertThat(queue.min().getKey(), is(1));
+		try {
+			queue.insert(null, "A");
+			fail();
+		} catch (InvalidKeyException e) {
+		}
+		try {
+			new MultiQueue<Integer, String>(new IntegerComparator(), 0, 4);
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+	/*
+	 * This measures the rank error of removeMin (how many smaller keys were
+	 * still in the queue) and tests that it stays around the number of heaps,
+	 * and grows with it
+	 */
+	@Test
+	public void testRankErrorGrowsWithHeapCount() {
+		double small = this.meanRankError(new MultiQueue<Integer, Integer>(new IntegerComparator(), 2, 2));
+		double large = this.meanRankError(new MultiQueue<Integer, Integer>(new IntegerComparator(), 4, 8));
+
+		assertTrue(small > 0);
+		assertTrue(small < 2 * 4);
+		assertTrue(large > small);
+		assertTrue(large < 2 * 32);
+	}
+
+	/*
+	 * This tests that threads inserting and removing at the same time lose no
+	 * entry and hand none out twice
+	 */
+	@Test
+	public void testConcurrentOperationsKeepEveryEntry() throws Exception {
+		final MultiQueue<Integer, Integer> queue = new MultiQueue<Integer, Integer>(new IntegerComparator(), 2, 4);
+		final int threads = 4;
+		final int perThread = 5000;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		List<Future<List<Integer>>> results = new ArrayList<Future<List<Integer>>>();
+		for (int t = 0; t < threads; t++) {
+			final int id = t;
+			results.add(executor.submit(() -> {
+				Random random = new Random(id);
+				List<Integer> taken = new ArrayList<Integer>();
+				for (int i = 0; i < perThread; i++) {
+					queue.insert(random.nextInt(1000), id * perThread + i);
+					if (i % 2 == 0) {
+						taken.add(queue.removeMin().getValue());
+					}
+				}
+				return taken;
+			}));
+		}
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+
+		List<Integer> values = new ArrayList<Integer>();
+		for (Future<List<Integer>> result : results) {
+			values.addAll(result.get());
+		}
+		assertThat(queue.size(), is(threads * perThread - values.size()));
+		while (!queue.isEmpty()) {
+			values.add(queue.removeMin().getValue());
+		}
+		Collections.sort(values);
+		for (int i = 0; i < threads * perThread; i++) {
+			assertThat(values.get(i), is(i));
+		}
+	}
+
+	/*
+	 * This method fills the queue with the keys 0 to n - 1 in random order,
+	 * empties it, and returns the average rank of the removed keys among the
+	 * keys still in the queue
+	 */
+	private double meanRankError(MultiQueue<Integer, Integer> queue) {
+		int n = 4000;
+		List<Integer> keys = new ArrayList<Integer>();
+		for (int i = 0; i < n; i++) {
+			keys.add(i);
+		}
+		Collections.shuffle(keys, new Random(3));
+		for (int key : keys) {
+			queue.insert(key, key);
+		}
+
+		boolean[] removed = new boolean[n];
+		long total = 0;
+		for (int i = 0; i < n; i++) {
+			int key = queue.removeMin().getKey();
+			for (int smaller = 0; smaller < key; smaller++) {
+				if (!removed[smaller]) {
+					total++;
+				}
+			}
+			removed[key] = true;
+		}
+		return (double) total / n;
+	}
+
+}
@@ -0,0 +1,95 @@
+package PersonalProjects.Heap;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import net.datastructures.EmptyTreeException;
+import net.datastructures.Position;
+import app.impl.*;
+
+public class MyArrayHeapTreeTest {
+
+	/*
+	 * This tests that elements are added and removed from the end of the tree
+	 */
+	@Test
+	public void testAddRemoveOrder() {
+		MyArrayHeapTree<Integer> tree = new MyArrayHeapTree<Integer>();
+		for (int i = 1; i <= 6; i++) {
+			tree.add(i);
+		}
+		assertThat(tree.size(), is(6));
+		for (int i = 6; i >= 1; i--) {
+			assertTrue(tree.remove() == i);
+		}
+		assertTrue(tree.isEmpty());
+	}
+
+	/*
+	 * This tests that the tree throws an exception when removing from an empty
+	 * tree
+	 */
+	@Test(expected = EmptyTreeException.class)
+	public void testRemoveThrowsEmptyTreeException() {
+		MyArrayHeapTree<Integer> tree = new MyArrayHeapTree<Integer>();
+		tree.remove();
+	}
+
+	/*
+	 * This tests that the positions handed out by the tree are linked in the
+	 * same shape as the linked heap tree
+	 */
+	@Test
+	public void testLinkage() {
+		MyArrayHeapTree<Integer> tree = new MyArrayHeapTree<Integer>();
+		Position<Integer> rootNode = tree.add(1);
+		Position<Integer> leftChild = tree.add(2);
+		Position<Integer> rightChild = tree.add(3);
+		Position<Integer> leftChild_leftChild = tree.add(4);
+
+		assertEquals(tree.root(), rootNode);
+		assertEquals(tree.left(rootNode), leftChild);
+		assertEquals(tree.right(rootNode), rightChild);
+		assertEquals(tree.parent(rightChild), rootNode);
+		assertEquals(tree.left(leftChild), leftChild_leftChild);
+		assertFalse(tree.hasRight(leftChild));
+		assertTrue(tree.isExternal(rightChild));
+		assertTrue(tree.left(leftChild).element() == 4);
+	}
+
+	/*
+	 * This tests that the slot accessors read and write the same nodes as the
+	 * positions
+	 */
+	@Test
+	public void testSlotAccess() {
+		MyArrayHeapTree<Integer> tree = new MyArrayHeapTree<Integer>();
+		tree.add(1);
+		Position<Integer> leftChild = tree.add(2);
+		assertTrue(tree.set(1, 5) == 2);
+		assertTrue(leftChild.element() == 5);
+		assertTrue(tree.get(1) == 5);
+		assertEquals(tree.positionAt(1), leftChild);
+	}
+
+	/*
+	 * This tests that the array grows as elements are added, and shrinks back
+	 * when the tree drains if shrinking is enabled
+	 */
+	@Test
+	public void testGrowAndShrink() {
+		MyArrayHeapTree<Integer> tree = new MyArrayHeapTree<Integer>(4, true);
+		for (int i = 0; i < 1000; i++) {
+			tree.add(i);
+		}
+		assertTrue(tree.capacity() >= 1000);
+		for (int i = 0; i < 990; i++) {
+			tree.remove();
+		}
+		assertTrue(tree.capacity() < 100);
+		assertTrue(tree.get(9) == 9);
+	}
+
+}
@@ -0,0 +1,172 @@
+package PersonalProjects.Heap;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import net.datastructures.EmptyPriorityQueueException;
+import net.datastructures.InvalidEntryException;
+import net.datastructures.InvalidKeyException;
+import app.impl.*;
+
+public class MyHandleHeapTest {
+
+	/*
+	 * This tests that entries come out in key order along with their values
+	 */
+	@Test
+	public void testRemoveMinOrder() {
+		MyHandleHeap<Integer, String> heap = new MyHandleHeap<Integer, String>(new IntegerComparator());
+		heap.insert(11, "A");
+		heap.insert(64, "C");
+		heap.insert(13, "B");
+		heap.insert(Integer.MAX_VALUE, "E");
+		heap.insert(-16, "D");
+
+		assertThat(heap.minKey(), is(-16));
+		assertThat(heap.removeMin(), is("D"));
+		assertThat(heap.removeMin(), is("A"));
+		assertThat(heap.removeMin(), is("B"));
+		assertThat(heap.removeMin(), is("C"));
+		assertThat(heap.removeMin(), is("E"));
+		assertTrue(heap.isEmpty());
+	}
+
+	/*
+	 * This tests that handles can be used to remove entries and replace their
+	 * keys, and that a randomized workload stays in order, for several arities
+	 */
+	@Test
+	public void testHandlesAgainstSortedKeys() {
+		for (int arity = 2; arity <= 5; arity++) {
+			MyHandleHeap<Integer, Integer> heap = new MyHandleHeap<Integer, Integer>(new IntegerComparator(), arity, 2);
+			Random random = new Random(42);
+			long[] handles = new long[500];
+			for (int i = 0; i < handles.length; i++) {
+				handles[i] = heap.insert(random.nextInt(1000), i);
+			}
+			for (int i = 0; i < handles.length; i += 5) {
+				assertThat(heap.remove(handles[i]), is(i));
+			}
+			for (int i = 1; i < handles.length; i += 5) {
+				heap.replaceKey(handles[i], random.nextInt(1000) - 500);
+			}
+
+			int[] expected = new int[400];
+			int count = 0;
+			for (int i = 0; i < handles.length; i++) {
+				if (i % 5 != 0) {
+					expected[count] = heap.keyOf(handles[i]);
+					assertThat(heap.valueOf(handles[i]), is(i));
+					count++;
+				}
+			}
+			Arrays.sort(expected);
+			for (int i = 0; i < expected.length; i++) {
+				assertThat(heap.minKey(), is(expected[i]));
+				assertThat(heap.keyOf(heap.min()), is(expected[i]));
+				heap.removeMin();
+			}
+			assertTrue(heap.isEmpty());
+		}
+	}
+
+	/*
+	 * This tests that a stale handle is rejected even after a new entry has
+	 * reused its id
+	 */
+	@Test
+	public void testStaleHandleRejectedAfterReuse() {
+		MyHandleHeap<Integer, String> heap = new MyHandleHeap<Integer, String>(new IntegerComparator());
+		long stale = heap.insert(1, "A");
+		heap.insert(2, "B");
+		heap.remove(stale);
+		long reused = heap.insert(3, "C");
+
+		assertThat((int) reused, is((int) stale));
+		assertFalse(heap.contains(stale));
+		assertTrue(heap.contains(reused));
+		try {
+			heap.replaceKey(stale, 0);
+			fail();
+		} catch (InvalidEntryException e) {
+			assertThat(heap.keyOf(reused), is(3));
+		}
+	}
+
+	/*
+	 * This tests that handles that were never handed out are rejected
+	 */
+	@Test
+	public void testUnknownHandlesRejected() {
+		MyHandleHeap<Integer, String> heap = new MyHandleHeap<Integer, String>(new IntegerComparator());
+		heap.insert(1, "A");
+		assertFalse(heap.contains(1L));
+		assertFalse(heap.contains(-1L));
+		assertFalse(heap.contains(1L << 32));
+	}
+
+	/*
+	 * This tests that once the heap has grown, a steady mix of operations
+	 * allocates nothing. It is skipped on JVMs that cannot measure allocation
+	 */
+	@Test
+	public void testSteadyStateDoesNotAllocate() {
+		java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		Assume.assumeTrue(threads instanceof com.sun.management.ThreadMXBean);
+		com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+		Assume.assumeTrue(allocations.isThreadAllocatedMemorySupported());
+
+		Integer[] keys = new Integer[4096];
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = (i * 7919) % keys.length;
+		}
+		MyHandleHeap<Integer, Integer> heap = new MyHandleHeap<Integer, Integer>(new IntegerComparator());
+		for (int i = 0; i < 1000; i++) {
+			heap.insert(keys[i], null);
+		}
+
+		long thread = Thread.currentThread().getId();
+		long before = 0;
+		for (int round = 0; round < 3; round++) {
+			before = allocations.getThreadAllocatedBytes(thread);
+			for (int i = 0; i < 100000; i++) {
+				long handle = heap.insert(keys[i % keys.length], null);
+				heap.replaceKey(handle, keys[(i + 1) % keys.length]);
+				heap.remove(handle);
+				heap.removeMin();
+				heap.insert(keys[(i + 2) % keys.length], null);
+			}
+		}
+		long allocated = allocations.getThreadAllocatedBytes(thread) - before;
+
+		// The last round runs with everything warmed up; a few bytes may still
+		// come from the measurement itself
+		assertTrue("Allocated " + allocated + " bytes", allocated < 1024);
+	}
+
+	/*
+	 * This tests that null keys are rejected
+	 */
+	@Test(expected = InvalidKeyException.class)
+	public void testNullKeyThrowsInvalidKeyException() {
+		MyHandleHeap<Integer, String> heap = new MyHandleHeap<Integer, String>(new IntegerComparator());
+		heap.insert(null, "A");
+	}
+
+	/*
+	 * This tests that removeMin throws an exception on an empty heap
+	 */
+	@Test(expected = EmptyPriorityQueueException.class)
+	public void testRemoveMinThrowsEmptyPriorityQueueException() {
+		MyHandleHeap<Integer, String> heap = new MyHandleHeap<Integer, String>(new IntegerComparator());
+		heap.removeMin();
+	}
+
+}
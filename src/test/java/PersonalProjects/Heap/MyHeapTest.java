@@ -3,16 +3,21 @@ package PersonalProjects.Heap;
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Random;
 
 import org.junit.Ignore;
 import org.junit.Test;
 
 import net.datastructures.CompleteBinaryTree;
+import net.datastructures.InvalidEntryException;
 import net.datastructures.EmptyPriorityQueueException;
+import net.datastructures.Entry;
 import net.datastructures.InvalidKeyException;
 import net.datastructures.Position;
 import app.impl.*;
@@ -140,9 +145,9 @@ public class MyHeapTest {
 	public void testSize() {
 		MyHeap<Integer, String> heap = new MyHeap<Integer, String>(new IntegerComparator());
 		assertTrue(heap.size() == 0);
-		MyHeapEntry<Integer, String> entry = (MyHeapEntry<Integer, String>) heap.insert(1, "test");
+		heap.insert(1, "test");
 		assertTrue(heap.size() == 1);
-		heap.insert(2, "test");
+		MyHeapEntry<Integer, String> entry = (MyHeapEntry<Integer, String>) heap.insert(2, "test");
 		assertTrue(heap.size() == 2);
 		heap.insert(3, "test");
 		assertTrue(heap.size() == 3);
@@ -219,10 +224,11 @@ public class MyHeapTest {
 	public void testMultipleInsert() {
 		MyHeap<Integer, String> heap = new MyHeap<Integer, String>(new IntegerComparator());
 		MyHeapEntry<Integer, String> entry = (MyHeapEntry<Integer, String>) heap.insert(1, "test");
-		Position<MyHeapEntry<Integer, String>> positionNode = entry.getNode();
-		assertTrue(heap.getTree().root() == positionNode);
-		heap.insert(2, "test");
-		assertTrue(heap.getTree().root() == positionNode);
+		assertTrue(entry.getSlot() == 0);
+		assertTrue(heap.getTree().root().element() == entry);
+		MyHeapEntry<Integer, String> second = (MyHeapEntry<Integer, String>) heap.insert(2, "test");
+		assertTrue(heap.getTree().root().element() == entry);
+		assertTrue(second.getSlot() == 1);
 	}
 
 	/*
@@ -330,6 +336,46 @@ public class MyHeapTest {
 		assertTrue(heap.removeMin() == rootEntry);
 	}
 
+	/*
+	 * This tests that replaceKey and remove compare an entry with its parent
+	 * only once, whether or not the entry then moves up
+	 */
+	@Test
+	public void testReplaceKeyComparesWithParentOnce() {
+		final int[] calls = new int[1];
+		Comparator<Integer> comparator = new Comparator<Integer>() {
+			@Override
+			public int compare(Integer first, Integer second) {
+				calls[0]++;
+				return Integer.compare(first, second);
+			}
+		};
+		MyHeap<Integer, String> heap = new MyHeap<Integer, String>(comparator);
+		Entry<Integer, String> rootEntry = heap.insert(1, "A");
+		Entry<Integer, String> leftChildEntry = heap.insert(2, "B");
+		Entry<Integer, String> rightChildEntry = heap.insert(3, "C");
+
+		// One call checks the key, one moves the entry up to the root
+		calls[0] = 0;
+		heap.replaceKey(rightChildEntry, 0);
+		assertThat(calls[0], is(2));
+
+		// One call checks the key, one keeps the leaf where it is
+		calls[0] = 0;
+		heap.replaceKey(leftChildEntry, 4);
+		assertThat(calls[0], is(2));
+
+		// The last entry fills the slot of the removed leaf, which the old
+		// root now holds: one call against the new parent keeps it there
+		heap.insert(5, "D");
+		heap.insert(6, "E");
+		calls[0] = 0;
+		heap.remove(rootEntry);
+		assertThat(calls[0], is(1));
+		assertThat(heap.removeMin().getValue(), is("C"));
+		assertThat(heap.removeMin().getValue(), is("B"));
+	}
+
 	/*
 	 * This tests that the replaceValue method is correctly returning old Values
 	 * and replacing the values of the given position nodes
@@ -349,4 +395,439 @@ public class MyHeapTest {
 		
 		
 	}
+
+	/*
+	 * This tests that a heap built on the array-backed tree returns its
+	 * entries in key order, including after removes and key replacements
+	 */
+	@Test
+	public void testArrayBackedHeapOrder() {
+		MyHeap<Integer, String> heap = new MyHeap<Integer, String>(new IntegerComparator(),
+				new MyArrayHeapTree<MyHeapEntry<Integer, String>>());
+		List<Entry<Integer, String>> entries = new ArrayList<Entry<Integer, String>>();
+		for (int i = 0; i < 100; i++) {
+			entries.add(heap.insert((i * 37) % 101, "v" + i));
+		}
+		heap.remove(entries.get(10));
+		heap.remove(entries.get(50));
+		heap.replaceKey(entries.get(20), -5);
+		heap.replaceKey(entries.get(0), 500);
+		assertThat(heap.size(), is(98));
+		assertTrue(heap.removeMin() == entries.get(20));
+
+		int previous = Integer.MIN_VALUE;
+		while (!heap.isEmpty()) {
+			int key = heap.removeMin().getKey();
+			assertTrue(previous <= key);
+			previous = key;
+		}
+		assertThat(previous, is(500));
+	}
+
+	/*
+	 * This tests that an entry which has already been removed cannot be used
+	 * to remove whatever entry now occupies its old slot
+	 */
+	@Test(expected = InvalidEntryException.class)
+	public void testRemoveStaleEntryThrowsInvalidEntryException() {
+		MyHeap<Integer, String> heap = new MyHeap<Integer, String>(new IntegerComparator());
+		Entry<Integer, String> entry = heap.insert(1, "asdf");
+		heap.insert(2, "asdf");
+		heap.removeMin();
+		heap.remove(entry);
+	}
+
+	/*
+	 * This tests that 4-ary and 8-ary heaps return their entries in key order,
+	 * including after removes and key replacements
+	 */
+	@Test
+	public void testDaryHeapOrder() {
+		for (int arity : new int[] { 4, 8 }) {
+			MyHeap<Integer, String> heap = new MyHeap<Integer, String>(new IntegerComparator(),
+					new MyArrayHeapTree<MyHeapEntry<Integer, String>>(), arity);
+			List<Entry<Integer, String>> entries = new ArrayList<Entry<Integer, String>>();
+			for (int i = 0; i < 200; i++) {
+				entries.add(heap.insert((i * 53) % 199, "v" + i));
+			}
+			for (int i = 0; i < 200; i += 7) {
+				heap.remove(entries.get(i));
+			}
+			heap.replaceKey(entries.get(100), -1);
+			heap.replaceKey(entries.get(1), 1000);
+			assertTrue(heap.removeMin() == entries.get(100));
+
+			int previous = Integer.MIN_VALUE;
+			int count = 1;
+			while (!heap.isEmpty()) {
+				int key = heap.removeMin().getKey();
+				assertTrue(previous <= key);
+				previous = key;
+				count++;
+			}
+			assertThat(count, is(171));
+			assertThat(previous, is(1000));
+		}
+	}
+
+	/*
+	 * This tests that an arity below 2 is rejected
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testArityThrowsIllegalArgumentException() {
+		new MyHeap<Integer, String>(new IntegerComparator(), new MyArrayHeapTree<MyHeapEntry<Integer, String>>(), 1);
+	}
+
+	/*
+	 * This is a helper method that creates a key/value pair to pass to insertAll
+	 */
+	private static Entry<Integer, String> pair(int key, String value) {
+		MyHeapEntry<Integer, String> pair = new MyHeapEntry<Integer, String>();
+		pair.setKey(key);
+		pair.setValue(value);
+		return pair;
+	}
+
+	/*
+	 * This tests that insertAll returns the entries in the order of the pairs,
+	 * that the heap they are built into is ordered, and that the returned
+	 * entries can still be used to replace keys
+	 */
+	@Test
+	public void testInsertAllOnEmptyHeap() {
+		MyHeap<Integer, String> heap = new MyHeap<Integer, String>(new IntegerComparator(),
+				new MyArrayHeapTree<MyHeapEntry<Integer, String>>());
+		List<Entry<Integer, String>> pairs = new ArrayList<Entry<Integer, String>>();
+		for (int i = 0; i < 1000; i++) {
+			pairs.add(pair((i * 389) % 1000, "v" + i));
+		}
+		List<Entry<Integer, String>> entries = heap.insertAll(pairs);
+
+		assertThat(entries.size(), is(1000));
+		for (int i = 0; i < 1000; i++) {
+			assertThat(entries.get(i).getValue(), is("v" + i));
+		}
+		heap.replaceKey(entries.get(500), -1);
+		assertTrue(heap.removeMin() == entries.get(500));
+		for (int i = 0; i < 1000; i++) {
+			if (i != 500 * 389 % 1000) {
+				assertThat(heap.removeMin().getKey(), is(i));
+			}
+		}
+		assertTrue(heap.isEmpty());
+	}
+
+	/*
+	 * This tests that insertAll keeps the heap ordered when it adds a small
+	 * batch to a heap that already holds entries
+	 */
+	@Test
+	public void testInsertAllOnNonEmptyHeap() {
+		MyHeap<Integer, String> heap = new MyHeap<Integer, String>(new IntegerComparator());
+		heap.insert(5, "A");
+		heap.insert(3, "B");
+		heap.insert(9, "C");
+		heap.insertAll(Arrays.asList(pair(1, "D"), pair(7, "E")));
+
+		List<Integer> actualKeys = new ArrayList<Integer>();
+		while (!heap.isEmpty()) {
+			actualKeys.add(heap.removeMin().getKey());
+		}
+		assertThat(actualKeys, is(Arrays.asList(1, 3, 5, 7, 9)));
+	}
+
+	/*
+	 * This tests that insertAll does not insert anything if one of the keys is
+	 * invalid
+	 */
+	@Test
+	public void testInsertAllWithInvalidKeyInsertsNothing() {
+		MyHeap<Integer, String> heap = new MyHeap<Integer, String>(new IntegerComparator());
+		try {
+			heap.insertAll(Arrays.asList(pair(1, "A"), new MyHeapEntry<Integer, String>()));
+		} catch (InvalidKeyException e) {
+			assertTrue(heap.isEmpty());
+			return;
+		}
+		assertTrue(false);
+	}
+
+	/*
+	 * This tests that removeMin(k) returns the k smallest entries in order and
+	 * leaves the rest of the heap ordered, for binary and 4-ary heaps
+	 */
+	@Test
+	public void testRemoveMinBatch() {
+		for (int arity : new int[] { 2, 4 }) {
+			MyHeap<Integer, String> heap = new MyHeap<Integer, String>(new IntegerComparator(),
+					new MyArrayHeapTree<MyHeapEntry<Integer, String>>(), arity);
+			for (int i = 0; i < 500; i++) {
+				heap.insert((i * 211) % 500, "v" + i);
+			}
+			List<Entry<Integer, String>> batch = heap.removeMin(100);
+			assertThat(batch.size(), is(100));
+			for (int i = 0; i < 100; i++) {
+				assertThat(batch.get(i).getKey(), is(i));
+			}
+			assertThat(heap.size(), is(400));
+			for (int i = 100; i < 500; i++) {
+				assertThat(heap.removeMin().getKey(), is(i));
+			}
+		}
+	}
+
+	/*
+	 * This tests that draining more entries than the heap holds takes all of
+	 * them in order and empties the heap
+	 */
+	@Test
+	public void testDrainToWholeHeap() {
+		MyHeap<Integer, String> heap = new MyHeap<Integer, String>(new IntegerComparator());
+		Entry<Integer, String> entry = heap.insert(3, "A");
+		heap.insert(1, "B");
+		heap.insert(2, "C");
+		List<Entry<Integer, String>> drained = new ArrayList<Entry<Integer, String>>();
+		assertThat(heap.drainTo(drained, 10), is(3));
+		assertThat(drained.get(0).getKey(), is(1));
+		assertThat(drained.get(1).getKey(), is(2));
+		assertTrue(drained.get(2) == entry);
+		assertTrue(heap.isEmpty());
+		assertThat(heap.removeMin(5).size(), is(0));
+	}
+
+	/*
+	 * This tests that insertThenRemoveMin returns the new pair itself when it
+	 * is the smallest, and the old minimum otherwise
+	 */
+	@Test
+	public void testInsertThenRemoveMin() {
+		MyHeap<Integer, String> heap = new MyHeap<Integer, String>(new IntegerComparator());
+		assertThat(heap.insertThenRemoveMin(4, "A").getKey(), is(4));
+		assertTrue(heap.isEmpty());
+
+		heap.insert(5, "B");
+		heap.insert(3, "C");
+		heap.insert(8, "D");
+		assertThat(heap.insertThenRemoveMin(1, "E").getValue(), is("E"));
+		assertThat(heap.insertThenRemoveMin(6, "F").getValue(), is("C"));
+		assertThat(heap.size(), is(3));
+		assertThat(heap.removeMin().getKey(), is(5));
+		assertThat(heap.removeMin().getKey(), is(6));
+		assertThat(heap.removeMin().getKey(), is(8));
+	}
+
+	/*
+	 * This tests that removeMinThenInsert reuses the root entry for the new
+	 * pair and keeps the heap ordered
+	 */
+	@Test
+	public void testRemoveMinThenInsert() {
+		MyHeap<Integer, String> heap = new MyHeap<Integer, String>(new IntegerComparator());
+		Entry<Integer, String> root = heap.insert(1, "A");
+		heap.insert(3, "B");
+		heap.insert(2, "C");
+		assertTrue(heap.removeMinThenInsert(4, "D") == root);
+		assertThat(root.getKey(), is(4));
+		assertThat(heap.size(), is(3));
+		heap.replaceKey(root, 0);
+		assertTrue(heap.removeMin() == root);
+		assertThat(heap.removeMin().getKey(), is(2));
+		assertThat(heap.removeMin().getKey(), is(3));
+	}
+
+	/*
+	 * This tests that removeMinThenInsert throws an exception on an empty heap
+	 */
+	@Test(expected = EmptyPriorityQueueException.class)
+	public void testRemoveMinThenInsertThrowsEmptyPriorityQueueException() {
+		MyHeap<Integer, String> heap = new MyHeap<Integer, String>(new IntegerComparator());
+		heap.removeMinThenInsert(1, "A");
+	}
+
+	/*
+	 * This tests that meld moves every entry into the heap, in both size
+	 * orders and across tree kinds and arities, and that the melded entries
+	 * can still be used with the heap they were moved into but not with the
+	 * heap they came from
+	 */
+	@Test
+	public void testMeldKeepsEntries() {
+		Random random = new Random(3);
+		int[][] sizes = { { 0, 50 }, { 50, 0 }, { 300, 20 }, { 20, 300 }, { 100, 100 } };
+		for (int[] size : sizes) {
+			MyHeap<Integer, Integer> heap = new MyHeap<Integer, Integer>(new IntegerComparator());
+			MyHeap<Integer, Integer> other = new MyHeap<Integer, Integer>(new IntegerComparator(),
+					new MyArrayHeapTree<MyHeapEntry<Integer, Integer>>(), 4);
+			List<Entry<Integer, Integer>> otherEntries = new ArrayList<Entry<Integer, Integer>>();
+			for (int i = 0; i < size[0]; i++) {
+				heap.insert(random.nextInt(1000), i);
+			}
+			for (int i = 0; i < size[1]; i++) {
+				otherEntries.add(other.insert(random.nextInt(1000), i));
+			}
+
+			heap.meld(other);
+			assertTrue(other.isEmpty());
+			assertThat(heap.size(), is(size[0] + size[1]));
+			for (int i = 0; i < otherEntries.size(); i += 2) {
+				heap.replaceKey(otherEntries.get(i), -1 - i);
+			}
+			if (otherEntries.isEmpty() == false) {
+				assertTrue(heap.remove(otherEntries.get(1)) == otherEntries.get(1));
+				try {
+					other.remove(otherEntries.get(0));
+					fail("Expected an InvalidEntryException");
+				} catch (InvalidEntryException e) {
+				}
+				try {
+					other.replaceKey(otherEntries.get(0), 5);
+					fail("Expected an InvalidEntryException");
+				} catch (InvalidEntryException e) {
+				}
+				try {
+					other.replaceValue(otherEntries.get(0), -1);
+					fail("Expected an InvalidEntryException");
+				} catch (InvalidEntryException e) {
+				}
+				assertThat(heap.replaceValue(otherEntries.get(0), -1), is(0));
+			}
+
+			int last = Integer.MIN_VALUE;
+			while (heap.isEmpty() == false) {
+				int key = heap.removeMin().getKey();
+				assertTrue(last <= key);
+				last = key;
+			}
+		}
+	}
+
+	/*
+	 * This tests that a heap cannot be melded with itself
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testMeldWithItselfThrowsIllegalArgumentException() {
+		MyHeap<Integer, String> heap = new MyHeap<Integer, String>(new IntegerComparator());
+		heap.insert(1, "A");
+		heap.meld(heap);
+	}
+
+	/*
+	 * This tests that a heap whose keys are normalized to prefixes that only
+	 * capture part of the order still removes entries in comparator order, both
+	 * when the prefix decides most comparisons and when every prefix is equal
+	 */
+	@Test
+	public void testKeyNormalizerKeepsComparatorOrder() {
+		KeyNormalizer<Integer> bucketed = new KeyNormalizer<Integer>() {
+			@Override
+			public long normalize(Integer key) {
+				return key >> 4;
+			}
+		};
+		KeyNormalizer<Integer> constant = new KeyNormalizer<Integer>() {
+			@Override
+			public long normalize(Integer key) {
+				return 7;
+			}
+		};
+		for (KeyNormalizer<Integer> normalizer : Arrays.asList(bucketed, constant)) {
+			MyHeap<Integer, Integer> heap = new MyHeap<Integer, Integer>(new IntegerComparator(),
+					new MyArrayHeapTree<MyHeapEntry<Integer, Integer>>(), 4);
+			heap.setKeyNormalizer(normalizer);
+			Random random = new Random(5);
+			List<Entry<Integer, Integer>> entries = new ArrayList<Entry<Integer, Integer>>();
+			for (int i = 0; i < 500; i++) {
+				entries.add(heap.insert(random.nextInt(1000), i));
+			}
+			for (int i = 0; i < entries.size(); i += 3) {
+				heap.replaceKey(entries.get(i), random.nextInt(1000));
+			}
+			heap.removeMinThenInsert(random.nextInt(1000), -1);
+			heap.insertThenRemoveMin(random.nextInt(1000), -2);
+
+			int last = Integer.MIN_VALUE;
+			while (heap.isEmpty() == false) {
+				int key = heap.removeMin().getKey();
+				assertTrue(last <= key);
+				last = key;
+			}
+		}
+	}
+
+	/*
+	 * This tests that draining the whole heap with a key normalizer sorts the
+	 * entries by their prefixes, negative ones included, and breaks ties
+	 * between equal prefixes with the comparator
+	 */
+	@Test
+	public void testDrainToWithKeyNormalizerSortsByPrefix() {
+		MyHeap<Integer, Integer> heap = new MyHeap<Integer, Integer>(new IntegerComparator(),
+				new MyArrayHeapTree<MyHeapEntry<Integer, Integer>>(), 4);
+		heap.setKeyNormalizer(new KeyNormalizer<Integer>() {
+			@Override
+			public long normalize(Integer key) {
+				return key >> 4;
+			}
+		});
+		Random random = new Random(11);
+		int[] expected = new int[3000];
+		for (int i = 0; i < expected.length; i++) {
+			expected[i] = random.nextInt(1 << 20) - (1 << 19);
+			heap.insert(expected[i], -expected[i]);
+		}
+		Arrays.sort(expected);
+
+		List<Entry<Integer, Integer>> drained = new ArrayList<Entry<Integer, Integer>>();
+		assertThat(heap.drainTo(drained, expected.length), is(expected.length));
+		for (int i = 0; i < expected.length; i++) {
+			assertThat(drained.get(i).getKey(), is(expected[i]));
+			assertThat(drained.get(i).getValue(), is(-expected[i]));
+		}
+		assertTrue(heap.isEmpty());
+	}
+
+	/*
+	 * This tests that keys are validated by the normalizer, including keys of
+	 * the wrong type, and that the normalizer can only be set on an empty heap
+	 */
+	@Test
+	public void testKeyNormalizerValidatesKeys() {
+		MyHeap<Integer, String> heap = new MyHeap<Integer, String>(new IntegerComparator());
+		heap.setKeyNormalizer(new KeyNormalizer<Integer>() {
+			@Override
+			public long normalize(Integer key) {
+				if (key < 0) {
+					throw new IllegalArgumentException();
+				}
+				return key;
+			}
+		});
+		try {
+			heap.insert(-1, "A");
+			fail("Expected an InvalidKeyException");
+		} catch (InvalidKeyException e) {
+		}
+		assertTrue(heap.isEmpty());
+
+		heap.insert(1, "B");
+
+		// A key of the wrong type never reaches the comparator; the normalizer
+		// rejects it
+		@SuppressWarnings({ "rawtypes", "unchecked" })
+		MyHeap<Object, String> rawHeap = (MyHeap) heap;
+		try {
+			rawHeap.insert("C", "C");
+			fail("Expected an InvalidKeyException");
+		} catch (InvalidKeyException e) {
+		}
+		assertThat(heap.size(), is(1));
+		try {
+			heap.setKeyNormalizer(null);
+			fail("Expected an IllegalStateException");
+		} catch (IllegalStateException e) {
+		}
+		assertThat(heap.removeMin().getValue(), is("B"));
+		heap.setKeyNormalizer(null);
+		assertTrue(heap.getKeyNormalizer() == null);
+	}
 }
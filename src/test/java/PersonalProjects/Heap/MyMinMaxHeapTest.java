@@ -0,0 +1,121 @@
+package PersonalProjects.Heap;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import net.datastructures.EmptyPriorityQueueException;
+import net.datastructures.Entry;
+import net.datastructures.InvalidEntryException;
+import app.impl.*;
+
+public class MyMinMaxHeapTest {
+
+	/*
+	 * This tests that min and max are served from both ends
+	 */
+	@Test
+	public void testMinAndMax() {
+		MyMinMaxHeap<Integer, String> heap = new MyMinMaxHeap<Integer, String>(new IntegerComparator());
+		heap.insert(11, "A");
+		heap.insert(64, "C");
+		heap.insert(13, "B");
+		heap.insert(1000, "E");
+		heap.insert(-16, "D");
+
+		assertThat(heap.min().getValue(), is("D"));
+		assertThat(heap.max().getValue(), is("E"));
+		assertThat(heap.removeMax().getValue(), is("E"));
+		assertThat(heap.removeMin().getValue(), is("D"));
+		assertThat(heap.removeMax().getValue(), is("C"));
+		assertThat(heap.removeMin().getValue(), is("A"));
+		assertThat(heap.max().getValue(), is("B"));
+		assertThat(heap.removeMax().getValue(), is("B"));
+		assertTrue(heap.isEmpty());
+	}
+
+	/*
+	 * This tests a randomized mix of every operation against a sorted list of
+	 * the keys, on both trees
+	 */
+	@Test
+	public void testRandomOperationsAgainstSortedKeys() {
+		this.checkRandomOperations(new MyMinMaxHeap<Integer, Integer>(new IntegerComparator()));
+		this.checkRandomOperations(new MyMinMaxHeap<Integer, Integer>(new IntegerComparator(),
+				new MyArrayHeapTree<MyHeapEntry<Integer, Integer>>()));
+	}
+
+	/*
+	 * This tests that a removed entry can no longer be used
+	 */
+	@Test(expected = InvalidEntryException.class)
+	public void testRemovedEntryThrowsInvalidEntryException() {
+		MyMinMaxHeap<Integer, String> heap = new MyMinMaxHeap<Integer, String>(new IntegerComparator());
+		heap.insert(1, "A");
+		Entry<Integer, String> entry = heap.insert(2, "B");
+		heap.removeMax();
+		heap.replaceKey(entry, 0);
+	}
+
+	/*
+	 * This tests that removeMax throws an exception on an empty heap
+	 */
+	@Test(expected = EmptyPriorityQueueException.class)
+	public void testRemoveMaxThrowsEmptyPriorityQueueException() {
+		MyMinMaxHeap<Integer, String> heap = new MyMinMaxHeap<Integer, String>(new IntegerComparator());
+		heap.removeMax();
+	}
+
+	private void checkRandomOperations(MyMinMaxHeap<Integer, Integer> heap) {
+		Random random = new Random(7);
+		List<Entry<Integer, Integer>> entries = new ArrayList<Entry<Integer, Integer>>();
+		List<Integer> keys = new ArrayList<Integer>();
+
+		for (int i = 0; i < 20000; i++) {
+			int operation = random.nextInt(10);
+			if (entries.isEmpty() || operation < 4) {
+				int key = random.nextInt(500);
+				entries.add(heap.insert(key, i));
+				keys.add(key);
+			} else if (operation == 4) {
+				Entry<Integer, Integer> entry = heap.removeMin();
+				assertThat(entry.getKey(), is(Collections.min(keys)));
+				this.forget(entries, keys, entry);
+			} else if (operation == 5) {
+				Entry<Integer, Integer> entry = heap.removeMax();
+				assertThat(entry.getKey(), is(Collections.max(keys)));
+				this.forget(entries, keys, entry);
+			} else if (operation == 6) {
+				Entry<Integer, Integer> entry = entries.get(random.nextInt(entries.size()));
+				assertSame(entry, heap.remove(entry));
+				this.forget(entries, keys, entry);
+			} else {
+				int index = random.nextInt(entries.size());
+				int key = random.nextInt(500);
+				assertThat(heap.replaceKey(entries.get(index), key), is(keys.get(index)));
+				keys.set(index, key);
+			}
+
+			assertThat(heap.size(), is(keys.size()));
+			if (keys.isEmpty() == false) {
+				assertThat(heap.min().getKey(), is(Collections.min(keys)));
+				assertThat(heap.max().getKey(), is(Collections.max(keys)));
+			}
+		}
+	}
+
+	// This method drops an entry that has left the heap from the reference
+
+	private void forget(List<Entry<Integer, Integer>> entries, List<Integer> keys, Entry<Integer, Integer> entry) {
+		int index = entries.indexOf(entry);
+		entries.remove(index);
+		keys.remove(index);
+	}
+
+}
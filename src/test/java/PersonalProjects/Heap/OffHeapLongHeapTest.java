@@ -0,0 +1,126 @@
+package PersonalProjects.Heap;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import net.datastructures.EmptyPriorityQueueException;
+import net.datastructures.InvalidEntryException;
+import app.impl.*;
+
+public class OffHeapLongHeapTest {
+
+	/*
+	 * This tests that entries come out in key order along with their payloads
+	 */
+	@Test
+	public void testRemoveMinOrder() {
+		OffHeapLongHeap heap = new OffHeapLongHeap();
+		heap.insert(11L, 1L);
+		heap.insert(64L, 3L);
+		heap.insert(13L, 2L);
+		heap.insert(Long.MAX_VALUE, 5L);
+		heap.insert(-16L, 4L);
+
+		assertThat(heap.minKey(), is(-16L));
+		assertThat(heap.removeMin(), is(4L));
+		assertThat(heap.removeMin(), is(1L));
+		assertThat(heap.removeMin(), is(2L));
+		assertThat(heap.removeMin(), is(3L));
+		assertThat(heap.removeMin(), is(5L));
+		assertTrue(heap.isEmpty());
+	}
+
+	/*
+	 * This tests that ids stay valid while their records move, across many
+	 * small segments, and that removed ids are reused
+	 */
+	@Test
+	public void testIdsAgainstSortedKeysAcrossSegments() {
+		OffHeapLongHeap heap = new OffHeapLongHeap(4);
+		Random random = new Random(42);
+		long[] ids = new long[500];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = heap.insert(random.nextInt(1000), i);
+		}
+		for (int i = 0; i < ids.length; i += 5) {
+			heap.remove(ids[i]);
+		}
+		for (int i = 1; i < ids.length; i += 5) {
+			heap.replaceKey(ids[i], random.nextInt(1000) - 500);
+		}
+		assertThat(heap.replacePayload(ids[2], -2L), is(2L));
+		heap.replacePayload(ids[2], 2L);
+
+		long[] expected = new long[400];
+		int count = 0;
+		for (int i = 0; i < ids.length; i++) {
+			if (i % 5 != 0) {
+				expected[count] = heap.keyOf(ids[i]);
+				assertThat(heap.payloadOf(ids[i]), is((long) i));
+				count++;
+			}
+		}
+
+		// The numbers of removed ids are handed out again before any new one
+		long reused = heap.insert(5000L, -1L);
+		assertTrue((int) reused < ids.length && (int) reused % 5 == 0);
+		heap.remove(reused);
+
+		Arrays.sort(expected);
+		for (int i = 0; i < expected.length; i++) {
+			assertThat(heap.minKey(), is(expected[i]));
+			heap.removeMin();
+		}
+		assertTrue(heap.isEmpty());
+	}
+
+	/*
+	 * This tests that an id is rejected once its entry has been removed
+	 */
+	@Test(expected = InvalidEntryException.class)
+	public void testRemovedIdThrowsInvalidEntryException() {
+		OffHeapLongHeap heap = new OffHeapLongHeap();
+		long id = heap.insert(1L, 1L);
+		heap.insert(2L, 2L);
+		heap.remove(id);
+		assertFalse(heap.contains(id));
+		assertFalse(heap.contains(-1L));
+		heap.replaceKey(id, 3L);
+	}
+
+	/*
+	 * This tests that a removed id is still rejected after its number has been
+	 * reused by a later insert, and does not reach the new entry
+	 */
+	@Test
+	public void testStaleIdIsRejectedAfterReuse() {
+		OffHeapLongHeap heap = new OffHeapLongHeap();
+		long stale = heap.insert(1L, 1L);
+		heap.insert(2L, 2L);
+		heap.remove(stale);
+		long reused = heap.insert(3L, 3L);
+		assertThat((int) reused, is((int) stale));
+		assertFalse(heap.contains(stale));
+		try {
+			heap.replacePayload(stale, 4L);
+			fail("Expected an InvalidEntryException");
+		} catch (InvalidEntryException e) {
+		}
+		assertThat(heap.payloadOf(reused), is(3L));
+	}
+
+	/*
+	 * This tests that removeMin throws an exception on an empty heap
+	 */
+	@Test(expected = EmptyPriorityQueueException.class)
+	public void testRemoveMinThrowsEmptyPriorityQueueException() {
+		OffHeapLongHeap heap = new OffHeapLongHeap();
+		heap.removeMin();
+	}
+
+}
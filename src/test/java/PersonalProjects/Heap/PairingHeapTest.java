@@ -0,0 +1,249 @@
+package PersonalProjects.Heap;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import net.datastructures.EmptyPriorityQueueException;
+import net.datastructures.Entry;
+import net.datastructures.InvalidEntryException;
+import net.datastructures.InvalidKeyException;
+import app.impl.*;
+
+public class PairingHeapTest {
+
+	/*
+	 * This tests that entries come out of the heap in key order
+	 */
+	@Test
+	public void testRemoveMinHeapOrder() {
+		PairingHeap<Integer, String> heap = new PairingHeap<Integer, String>(new IntegerComparator());
+		heap.insert(11, "A");
+		heap.insert(13, "B");
+		heap.insert(64, "C");
+		heap.insert(16, "D");
+		heap.insert(44, "E");
+
+		assertThat(heap.min().getKey(), is(11));
+		assertThat(heap.removeMin().getKey(), is(11));
+		assertThat(heap.removeMin().getKey(), is(13));
+		assertThat(heap.removeMin().getKey(), is(16));
+		assertThat(heap.removeMin().getKey(), is(44));
+		assertThat(heap.removeMin().getKey(), is(64));
+		assertTrue(heap.isEmpty());
+	}
+
+	/*
+	 * This tests a random mix of removes, key decreases and key increases
+	 * against a sorted list of the keys that should be left
+	 */
+	@Test
+	public void testRandomOperationsAgainstSortedKeys() {
+		PairingHeap<Integer, Integer> heap = new PairingHeap<Integer, Integer>(new IntegerComparator());
+		Random random = new Random(7);
+		List<Entry<Integer, Integer>> entries = new ArrayList<Entry<Integer, Integer>>();
+		for (int i = 0; i < 2000; i++) {
+			entries.add(heap.insert(random.nextInt(10000), i));
+		}
+		heap.removeMin();
+		heap.removeMin();
+
+		List<Integer> expected = new ArrayList<Integer>();
+		for (Entry<Integer, Integer> entry : entries) {
+			if (!((PairingHeapEntry<Integer, Integer>) entry).isInHeap()) {
+				continue;
+			}
+			int choice = random.nextInt(4);
+			if (choice == 0) {
+				heap.remove(entry);
+				continue;
+			} else if (choice == 1) {
+				heap.replaceKey(entry, entry.getKey() - random.nextInt(5000));
+			} else if (choice == 2) {
+				heap.replaceKey(entry, entry.getKey() + random.nextInt(5000));
+			}
+			expected.add(entry.getKey());
+		}
+		Collections.sort(expected);
+
+		assertThat(heap.size(), is(expected.size()));
+		for (int key : expected) {
+			assertThat(heap.removeMin().getKey(), is(key));
+		}
+		assertTrue(heap.isEmpty());
+	}
+
+	/*
+	 * This tests that replacing the key of the root in either direction keeps
+	 * the heap ordered
+	 */
+	@Test
+	public void testReplaceRootKey() {
+		PairingHeap<Integer, String> heap = new PairingHeap<Integer, String>(new IntegerComparator());
+		Entry<Integer, String> root = heap.insert(1, "A");
+		heap.insert(2, "B");
+		heap.insert(3, "C");
+		assertThat(heap.replaceKey(root, 5), is(1));
+		assertThat(heap.removeMin().getKey(), is(2));
+		heap.replaceKey(root, 0);
+		assertTrue(heap.removeMin() == root);
+		assertThat(heap.removeMin().getKey(), is(3));
+	}
+
+	/*
+	 * This tests that a removed entry can no longer be used
+	 */
+	@Test(expected = InvalidEntryException.class)
+	public void testRemovedEntryThrowsInvalidEntryException() {
+		PairingHeap<Integer, String> heap = new PairingHeap<Integer, String>(new IntegerComparator());
+		Entry<Integer, String> entry = heap.insert(1, "A");
+		heap.insert(2, "B");
+		heap.removeMin();
+		heap.replaceKey(entry, 3);
+	}
+
+	/*
+	 * This tests that a live entry of another heap is rejected by remove,
+	 * replaceKey and replaceValue, and that neither heap is changed
+	 */
+	@Test
+	public void testEntryOfAnotherHeapIsRejected() {
+		PairingHeap<Integer, String> a = new PairingHeap<Integer, String>(new IntegerComparator());
+		PairingHeap<Integer, String> b = new PairingHeap<Integer, String>(new IntegerComparator());
+		a.insert(1, "A");
+		Entry<Integer, String> entryOfA = a.insert(2, "B");
+		b.insert(3, "C");
+
+		try {
+			b.remove(entryOfA);
+			fail("Expected an InvalidEntryException");
+		} catch (InvalidEntryException e) {
+		}
+		try {
+			b.replaceKey(entryOfA, 0);
+			fail("Expected an InvalidEntryException");
+		} catch (InvalidEntryException e) {
+		}
+		try {
+			b.replaceValue(entryOfA, "D");
+			fail("Expected an InvalidEntryException");
+		} catch (InvalidEntryException e) {
+		}
+
+		assertThat(a.size(), is(2));
+		assertThat(b.size(), is(1));
+		assertThat(a.removeMin().getValue(), is("A"));
+		assertThat(a.removeMin().getValue(), is("B"));
+		assertThat(b.removeMin().getValue(), is("C"));
+	}
+
+	/*
+	 * This tests that null keys are rejected
+	 */
+	@Test(expected = InvalidKeyException.class)
+	public void testInsertThrowsInvalidKeyException() {
+		PairingHeap<Integer, String> heap = new PairingHeap<Integer, String>(new IntegerComparator());
+		heap.insert(null, "A");
+	}
+
+	/*
+	 * This tests that removeMin throws an exception on an empty heap
+	 */
+	@Test(expected = EmptyPriorityQueueException.class)
+	public void testRemoveMinThrowsEmptyPriorityQueueException() {
+		PairingHeap<Integer, String> heap = new PairingHeap<Integer, String>(new IntegerComparator());
+		heap.removeMin();
+	}
+
+	/*
+	 * This tests that meld links in every entry of the other heap, leaves it
+	 * empty, and keeps the melded entries usable
+	 */
+	@Test
+	public void testMeld() {
+		IntegerComparator comparator = new IntegerComparator();
+		PairingHeap<Integer, String> heap = new PairingHeap<Integer, String>(comparator);
+		PairingHeap<Integer, String> other = new PairingHeap<Integer, String>(comparator);
+		heap.insert(5, "A");
+		heap.insert(9, "B");
+		Entry<Integer, String> entry = other.insert(7, "C");
+		other.insert(1, "D");
+
+		heap.meld(other);
+		assertTrue(other.isEmpty());
+		assertThat(heap.size(), is(4));
+		heap.replaceKey(entry, 0);
+		assertThat(heap.removeMin().getValue(), is("C"));
+		assertThat(heap.removeMin().getValue(), is("D"));
+		assertThat(heap.removeMin().getValue(), is("A"));
+
+		other.insert(3, "E");
+		heap.meld(other);
+		assertThat(heap.removeMin().getValue(), is("E"));
+		assertThat(heap.removeMin().getValue(), is("B"));
+		assertTrue(heap.isEmpty());
+	}
+
+	/*
+	 * This tests that an entry melded away is rejected by the emptied heap, also
+	 * after the heap it went to has itself been melded on, while the heap that
+	 * now holds it still accepts it
+	 */
+	@Test
+	public void testMeldedEntryIsRejectedByEmptiedHeap() {
+		IntegerComparator comparator = new IntegerComparator();
+		PairingHeap<Integer, String> first = new PairingHeap<Integer, String>(comparator);
+		PairingHeap<Integer, String> second = new PairingHeap<Integer, String>(comparator);
+		PairingHeap<Integer, String> third = new PairingHeap<Integer, String>(comparator);
+		Entry<Integer, String> entry = first.insert(5, "A");
+		first.insert(6, "B");
+		second.insert(7, "C");
+
+		second.meld(first);
+		first.insert(1, "D");
+		third.meld(second);
+		for (PairingHeap<Integer, String> emptied : Arrays.asList(first, second)) {
+			try {
+				emptied.remove(entry);
+				fail("Expected an InvalidEntryException");
+			} catch (InvalidEntryException e) {
+			}
+		}
+		assertThat(first.size(), is(1));
+		assertThat(second.size(), is(0));
+
+		third.replaceKey(entry, 10);
+		assertThat(third.removeMin().getValue(), is("B"));
+		assertThat(third.removeMin().getValue(), is("C"));
+		assertTrue(third.removeMin() == entry);
+		assertThat(first.removeMin().getValue(), is("D"));
+	}
+
+	/*
+	 * This tests that heaps with different comparators cannot be melded, and
+	 * that neither heap is changed
+	 */
+	@Test
+	public void testMeldWithDifferentComparatorThrowsIllegalArgumentException() {
+		PairingHeap<Integer, String> heap = new PairingHeap<Integer, String>(new IntegerComparator());
+		PairingHeap<Integer, String> other = new PairingHeap<Integer, String>(new IntegerComparator());
+		heap.insert(1, "A");
+		other.insert(2, "B");
+		try {
+			heap.meld(other);
+			fail("Expected an IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+		}
+		assertThat(heap.size(), is(1));
+		assertThat(other.size(), is(1));
+		assertThat(other.removeMin().getValue(), is("B"));
+	}
+
+}
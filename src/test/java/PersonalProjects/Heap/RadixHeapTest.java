@@ -0,0 +1,177 @@
+package PersonalProjects.Heap;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import net.datastructures.EmptyPriorityQueueException;
+import net.datastructures.InvalidEntryException;
+import net.datastructures.InvalidKeyException;
+import app.impl.*;
+
+public class RadixHeapTest {
+
+	/*
+	 * This tests that entries come out in key order, including keys far apart
+	 */
+	@Test
+	public void testRemoveMinOrder() {
+		RadixHeap<String> heap = new RadixHeap<String>();
+		heap.insert(64L, "C");
+		heap.insert(Long.MAX_VALUE, "E");
+		heap.insert(11L, "A");
+		heap.insert(13L, "B");
+		heap.insert(0L, "Z");
+
+		assertThat(heap.removeMin().getValue(), is("Z"));
+		assertThat(heap.removeMin().getValue(), is("A"));
+		assertThat(heap.removeMin().getValue(), is("B"));
+		assertThat(heap.removeMin().getValue(), is("C"));
+		assertThat(heap.removeMin().longKey(), is(Long.MAX_VALUE));
+		assertTrue(heap.isEmpty());
+	}
+
+	/*
+	 * This tests an event-simulation style workload, where each removed event
+	 * schedules later ones and some pending events are moved earlier or
+	 * cancelled, against a sorted list of the keys
+	 */
+	@Test
+	public void testMonotoneWorkloadAgainstSortedKeys() {
+		RadixHeap<Integer> heap = new RadixHeap<Integer>();
+		Random random = new Random(3);
+		List<RadixHeapEntry<Integer>> pending = new ArrayList<RadixHeapEntry<Integer>>();
+		for (int i = 0; i < 100; i++) {
+			pending.add(heap.insert(random.nextInt(1000), i));
+		}
+
+		long previous = 0;
+		int removed = 0;
+		while (!heap.isEmpty()) {
+			RadixHeapEntry<Integer> entry = heap.removeMin();
+			assertTrue(entry.longKey() >= previous);
+			previous = entry.longKey();
+			removed++;
+
+			if (removed < 2000) {
+				pending.add(heap.insert(previous + random.nextInt(1000), removed));
+				pending.add(heap.insert(previous + random.nextInt(100000), removed));
+			}
+			RadixHeapEntry<Integer> other = pending.get(random.nextInt(pending.size()));
+			if (other.isInHeap()) {
+				if (random.nextBoolean()) {
+					heap.decreaseKey(other, previous + (other.longKey() - previous) / 2);
+				} else {
+					heap.remove(other);
+				}
+			}
+		}
+		assertTrue(removed > 2000);
+	}
+
+	/*
+	 * This tests that the heap agrees with sorting when keys are only inserted
+	 * and removed
+	 */
+	@Test
+	public void testAgreesWithSort() {
+		RadixHeap<String> heap = new RadixHeap<String>();
+		Random random = new Random(5);
+		List<Long> keys = new ArrayList<Long>();
+		for (int i = 0; i < 1000; i++) {
+			long key = random.nextLong() >>> 1;
+			keys.add(key);
+			heap.insert(key, null);
+		}
+		Collections.sort(keys);
+		for (long key : keys) {
+			assertThat(heap.removeMin().longKey(), is(key));
+		}
+	}
+
+	/*
+	 * This tests that inserting a key below the last minimum is rejected
+	 */
+	@Test(expected = InvalidKeyException.class)
+	public void testInsertBelowLastMinThrowsInvalidKeyException() {
+		RadixHeap<String> heap = new RadixHeap<String>();
+		heap.insert(10L, "A");
+		heap.insert(20L, "B");
+		heap.removeMin();
+		heap.insert(9L, "C");
+	}
+
+	/*
+	 * This tests that decreaseKey rejects increases and leaves the entry as it
+	 * was
+	 */
+	@Test
+	public void testDecreaseKeyRejectsIncrease() {
+		RadixHeap<String> heap = new RadixHeap<String>();
+		RadixHeapEntry<String> entry = heap.insert(10L, "A");
+		try {
+			heap.decreaseKey(entry, 11L);
+			fail();
+		} catch (InvalidKeyException e) {
+			assertThat(entry.longKey(), is(10L));
+			assertThat(heap.removeMin().getValue(), is("A"));
+		}
+	}
+
+	/*
+	 * This tests that an entry of another heap is rejected by remove,
+	 * decreaseKey and replaceValue, and that neither heap is changed
+	 */
+	@Test
+	public void testEntryOfAnotherHeapIsRejected() {
+		RadixHeap<String> heap = new RadixHeap<String>();
+		RadixHeap<String> other = new RadixHeap<String>();
+		heap.insert(5L, "A");
+		RadixHeapEntry<String> entry = other.insert(3L, "B");
+		try {
+			heap.remove(entry);
+			fail();
+		} catch (InvalidEntryException e) {
+		}
+		try {
+			heap.decreaseKey(entry, 1L);
+			fail();
+		} catch (InvalidEntryException e) {
+		}
+		try {
+			heap.replaceValue(entry, "C");
+			fail();
+		} catch (InvalidEntryException e) {
+		}
+		assertThat(heap.size(), is(1));
+		assertThat(other.size(), is(1));
+		assertThat(heap.removeMin().getValue(), is("A"));
+		assertTrue(other.removeMin() == entry);
+		assertThat(entry.getValue(), is("B"));
+	}
+
+	/*
+	 * This tests that negative keys are rejected
+	 */
+	@Test(expected = InvalidKeyException.class)
+	public void testNegativeKeyThrowsInvalidKeyException() {
+		RadixHeap<String> heap = new RadixHeap<String>();
+		heap.insert(-1L, "A");
+	}
+
+	/*
+	 * This tests that removeMin throws an exception on an empty heap
+	 */
+	@Test(expected = EmptyPriorityQueueException.class)
+	public void testRemoveMinThrowsEmptyPriorityQueueException() {
+		RadixHeap<String> heap = new RadixHeap<String>();
+		heap.removeMin();
+	}
+
+}
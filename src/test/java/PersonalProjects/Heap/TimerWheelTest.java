@@ -0,0 +1,155 @@
+package PersonalProjects.Heap;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import net.datastructures.InvalidEntryException;
+import app.impl.*;
+
+public class TimerWheelTest {
+
+	/*
+	 * This tests that timers fire on the first advance at or after their
+	 * deadline, in deadline order, and that cancelled timers never fire
+	 */
+	@Test
+	public void testFiresDueTimers() {
+		ManualClock clock = new ManualClock(1000);
+		TimerWheel<String> wheel = new TimerWheel<String>(10, clock);
+		TimerWheelEntry<String> late = wheel.schedule(500, "late");
+		wheel.schedule(25, "early");
+		TimerWheelEntry<String> cancelled = wheel.schedule(30, "cancelled");
+		assertTrue(wheel.cancel(cancelled));
+		assertFalse(wheel.cancel(cancelled));
+
+		List<TimerWheelEntry<String>> fired = new ArrayList<TimerWheelEntry<String>>();
+		clock.advance(20);
+		assertThat(wheel.advance(fired), is(0));
+		clock.advance(10);
+		assertThat(wheel.advance(fired), is(1));
+		assertThat(fired.get(0).getValue(), is("early"));
+		assertThat(fired.get(0).deadline(), is(1025L));
+
+		assertThat(wheel.reschedule(late, 100), is(1500L));
+		clock.advance(99);
+		assertThat(wheel.advance(fired), is(0));
+		clock.advance(1);
+		assertThat(wheel.advance(fired), is(1));
+		assertSame(late, fired.get(1));
+		assertFalse(late.isPending());
+		assertTrue(wheel.isEmpty());
+	}
+
+	/*
+	 * This tests a randomized mix of schedules, reschedules, cancels and
+	 * advances against a simple model, on a small wheel so that timers
+	 * cascade through every level and overflow into the heap
+	 */
+	@Test
+	public void testRandomOperationsAgainstModel() {
+		long tickNanos = 10;
+		ManualClock clock = new ManualClock(-12345);
+		long start = clock.getAsLong();
+		TimerWheel<Integer> wheel = new TimerWheel<Integer>(tickNanos, 2, 3, clock);
+		Random random = new Random(17);
+
+		// The tick on which each pending timer must fire
+		Map<TimerWheelEntry<Integer>, Long> pending = new HashMap<TimerWheelEntry<Integer>, Long>();
+		List<TimerWheelEntry<Integer>> timers = new ArrayList<TimerWheelEntry<Integer>>();
+		long wheelTick = 0;
+
+		for (int i = 0; i < 20000; i++) {
+			int operation = random.nextInt(10);
+			if (operation < 4) {
+				long delay = this.randomDelay(random);
+				TimerWheelEntry<Integer> timer = wheel.schedule(delay, i);
+				pending.put(timer, this.fireTick(clock.getAsLong() + delay, start, tickNanos, wheelTick));
+				timers.add(timer);
+			} else if (operation < 6 && timers.isEmpty() == false) {
+				TimerWheelEntry<Integer> timer = timers.get(random.nextInt(timers.size()));
+				assertThat(wheel.cancel(timer), is(pending.remove(timer) != null));
+			} else if (operation < 8 && timers.isEmpty() == false) {
+				TimerWheelEntry<Integer> timer = timers.get(random.nextInt(timers.size()));
+				long delay = this.randomDelay(random);
+				if (pending.containsKey(timer)) {
+					wheel.reschedule(timer, delay);
+					pending.put(timer, this.fireTick(clock.getAsLong() + delay, start, tickNanos, wheelTick));
+				}
+			} else {
+				clock.advance(random.nextInt(4) == 0 ? random.nextInt(2000) : random.nextInt(30));
+				long now = Math.floorDiv(clock.getAsLong() - start, tickNanos);
+				List<TimerWheelEntry<Integer>> fired = new ArrayList<TimerWheelEntry<Integer>>();
+				wheel.advance(fired);
+				wheelTick = Math.max(wheelTick, now);
+
+				long previous = Long.MIN_VALUE;
+				for (TimerWheelEntry<Integer> timer : fired) {
+					Long tick = pending.remove(timer);
+					assertNotNull(tick);
+					assertTrue(tick <= now);
+					assertTrue(tick >= previous);
+					assertTrue(timer.deadline() <= clock.getAsLong());
+					previous = tick;
+				}
+				for (Long tick : pending.values()) {
+					assertTrue(tick > now);
+				}
+			}
+			assertThat(wheel.size(), is(pending.size()));
+		}
+	}
+
+	/*
+	 * This tests that a fired timer cannot be rescheduled
+	 */
+	@Test(expected = InvalidEntryException.class)
+	public void testRescheduleFiredTimerThrowsInvalidEntryException() {
+		ManualClock clock = new ManualClock(0);
+		TimerWheel<String> wheel = new TimerWheel<String>(1, clock);
+		TimerWheelEntry<String> timer = wheel.schedule(1, "A");
+		clock.advance(1);
+		wheel.advance(new ArrayList<TimerWheelEntry<String>>());
+		wheel.reschedule(timer, 5);
+	}
+
+	/*
+	 * This tests that a timer of another wheel cannot be cancelled
+	 */
+	@Test(expected = InvalidEntryException.class)
+	public void testCancelOtherWheelsTimerThrowsInvalidEntryException() {
+		ManualClock clock = new ManualClock(0);
+		TimerWheel<String> wheel = new TimerWheel<String>(1, clock);
+		TimerWheel<String> other = new TimerWheel<String>(1, clock);
+		other.cancel(wheel.schedule(1, "A"));
+	}
+
+	// This method returns delays of every magnitude, from 0 to far past the
+	// 64 ticks the test wheel covers
+
+	private long randomDelay(Random random) {
+		switch (random.nextInt(3)) {
+		case 0:
+			return random.nextInt(50);
+		case 1:
+			return random.nextInt(700);
+		default:
+			return random.nextInt(5000);
+		}
+	}
+
+	// This method returns the tick the model expects a deadline to fire on
+
+	private long fireTick(long deadline, long start, long tickNanos, long wheelTick) {
+		long tick = Math.floorDiv(deadline - start + tickNanos - 1, tickNanos);
+		return Math.max(tick, wheelTick + 1);
+	}
+
+}
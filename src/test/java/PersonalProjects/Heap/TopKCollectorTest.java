@@ -0,0 +1,135 @@
+package PersonalProjects.Heap;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import net.datastructures.Entry;
+import net.datastructures.InvalidKeyException;
+import app.impl.*;
+
+public class TopKCollectorTest {
+
+	/*
+	 * This tests that the collector keeps the k largest keys of a stream,
+	 * largest first, with their values
+	 */
+	@Test
+	public void testKeepsLargestKeys() {
+		TopKCollector<Integer, Integer> collector = new TopKCollector<Integer, Integer>(10, new IntegerComparator());
+		Random random = new Random(3);
+		List<Integer> keys = new ArrayList<Integer>();
+		for (int i = 0; i < 10000; i++) {
+			int key = random.nextInt(1000000);
+			keys.add(key);
+			collector.offer(key, -key);
+		}
+
+		Collections.sort(keys, Collections.reverseOrder());
+		List<Entry<Integer, Integer>> top = collector.toList();
+		assertThat(top.size(), is(10));
+		for (int i = 0; i < 10; i++) {
+			assertThat(top.get(i).getKey(), is(keys.get(i)));
+			assertThat(top.get(i).getValue(), is(-keys.get(i)));
+		}
+		assertThat(collector.threshold(), is(keys.get(9)));
+	}
+
+	/*
+	 * This tests that a full collector rejects a key with one comparison
+	 * with the threshold, after the comparison that checks the key
+	 */
+	@Test
+	public void testRejectionComparesWithThresholdOnce() {
+		final int[] calls = new int[1];
+		TopKCollector<Integer, String> collector = new TopKCollector<Integer, String>(3, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer first, Integer second) {
+				calls[0]++;
+				return Integer.compare(first, second);
+			}
+		});
+		assertTrue(collector.offer(5, "A"));
+		assertTrue(collector.offer(7, "B"));
+		assertTrue(collector.offer(9, "C"));
+		assertTrue(collector.isFull());
+
+		calls[0] = 0;
+		assertFalse(collector.offer(5, "D"));
+		assertFalse(collector.offer(1, "E"));
+		assertThat(calls[0], is(4));
+
+		assertTrue(collector.offer(8, "F"));
+		assertThat(collector.threshold(), is(7));
+		assertThat(collector.size(), is(3));
+	}
+
+	/*
+	 * This tests that merging per-thread collectors gives the top k of the
+	 * whole stream, and leaves the merged collectors unchanged
+	 */
+	@Test
+	public void testMergeCombinesStreams() {
+		Random random = new Random(11);
+		List<Integer> keys = new ArrayList<Integer>();
+		List<TopKCollector<Integer, String>> collectors = new ArrayList<TopKCollector<Integer, String>>();
+		for (int part = 0; part < 4; part++) {
+			TopKCollector<Integer, String> collector = new TopKCollector<Integer, String>(25, new IntegerComparator());
+			for (int i = 0; i < 1000; i++) {
+				int key = random.nextInt(1000000);
+				keys.add(key);
+				collector.offer(key, "P" + part);
+			}
+			collectors.add(collector);
+		}
+
+		TopKCollector<Integer, String> merged = new TopKCollector<Integer, String>(25, new IntegerComparator());
+		for (TopKCollector<Integer, String> collector : collectors) {
+			merged.merge(collector);
+			assertThat(collector.size(), is(25));
+		}
+
+		Collections.sort(keys, Collections.reverseOrder());
+		List<Entry<Integer, String>> top = merged.toList();
+		for (int i = 0; i < 25; i++) {
+			assertThat(top.get(i).getKey(), is(keys.get(i)));
+		}
+	}
+
+	/*
+	 * This tests that a key of the wrong type is reported as invalid whether
+	 * or not the collector is full, and that the entries kept are unchanged
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	@Test
+	public void testWrongKeyTypeThrowsInvalidKeyException() {
+		TopKCollector collector = new TopKCollector(2, new IntegerComparator());
+		for (int i = 0; i < 3; i++) {
+			try {
+				collector.offer("key", "value");
+				fail();
+			} catch (InvalidKeyException e) {
+			}
+			collector.offer(i + 1, "value");
+		}
+		assertTrue(collector.isFull());
+		assertThat(collector.threshold(), is((Object) 2));
+	}
+
+	/*
+	 * This tests that a collector cannot be merged with itself
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testMergeWithItselfThrowsIllegalArgumentException() {
+		TopKCollector<Integer, String> collector = new TopKCollector<Integer, String>(2, new IntegerComparator());
+		collector.merge(collector);
+	}
+
+}